@@ -0,0 +1,34 @@
+--
+-- Copyright 2005-2015 The Kuali Foundation
+--
+-- Licensed under the Educational Community License, Version 2.0 (the "License")/
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+-- http://www.opensource.org/licenses/ecl2.php
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+
+--
+-- Checkpoint table for the bulk searchable attribute reindex, one row per partition of a reindex run
+--
+
+CREATE TABLE KREW_REIDX_PRTN_T
+(
+    REIDX_ID VARCHAR2(40) NOT NULL,
+    PRTN_NBR NUMBER(10) NOT NULL,
+    DOC_TYP_NM VARCHAR2(64) NOT NULL,
+    FRM_DOC_HDR_ID VARCHAR2(40) NOT NULL,
+    TO_DOC_HDR_ID VARCHAR2(40) NOT NULL,
+    LAST_DOC_HDR_ID VARCHAR2(40),
+    STAT_CD VARCHAR2(1) NOT NULL,
+    DOC_CNT NUMBER(10) DEFAULT 0 NOT NULL,
+    LAST_UPDT_DT DATE NOT NULL,
+    PRIMARY KEY (REIDX_ID, PRTN_NBR)
+)
+/
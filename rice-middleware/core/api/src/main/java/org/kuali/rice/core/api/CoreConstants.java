@@ -68,6 +68,12 @@ public final class CoreConstants {
          *  that backwards compatibility is not broken
          */
         public static final String VERSION_2_3_4 = "2.3.4";
+
+        /**
+         *  Name for complete version 2.6.0 of Kuali Rice which is used to compare against the version of callback services to ensure
+         *  that backwards compatibility is not broken
+         */
+        public static final String VERSION_2_6_0 = "2.6.0";
     	
     }
     
@@ -39,6 +39,9 @@ import java.util.Map;
 /**
  * A criteria builder for JDBC Query strings.
  *
+ * <p>By default values are inlined into the query as literals.  When {@link #setBindValues(boolean)} is enabled they
+ * are replaced by {@code ?} placeholders instead, and {@link #getBindValues()} returns the values to bind to them.</p>
+ *
  * TODO: Rewrite this class with a better criteria building algorithm.
  *
  * @author Kuali Rice Team (rice.collab@kuali.org)
@@ -54,6 +57,13 @@ public class Criteria {
 	private String alias;
 
 	private boolean distinct = false;
+
+	private boolean bindValues = false;
+
+	/**
+	 * The values bound by the token currently being built, which are attached to it by {@link #addToken(String)}.
+	 */
+	private List<Object> pendingBindValues = new ArrayList<Object>();
 	
 	private transient DateTimeService dateTimeService;
 
@@ -90,9 +100,9 @@ public class Criteria {
 		String fixedValue1 = this.fixValue(value1, propertyType);
 		String fixedValue2= this.fixValue(value2, propertyType);
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(" (" + fix(attribute) + " BETWEEN " + fixedValue1 + " AND " + fixedValue2 + ") ");
+			addToken(" (" + fix(attribute) + " BETWEEN " + fixedValue1 + " AND " + fixedValue2 + ") ");
 		} else {
-			tokens.add(" (" + alias + "." + attribute + " BETWEEN " + fixedValue1 + " AND " + fixedValue2 + ") ");
+			addToken(" (" + alias + "." + attribute + " BETWEEN " + fixedValue1 + " AND " + fixedValue2 + ") ");
 		}
 
 	}
@@ -108,7 +118,10 @@ public class Criteria {
 		}
 
 		if(TypeUtils.isIntegralClass(propertyType) || TypeUtils.isDecimalClass(propertyType)){
-			new BigDecimal(value.toString()); // This should throw an exception if the number is invalid.
+			BigDecimal number = new BigDecimal(value.toString()); // This should throw an exception if the number is invalid.
+			if (bindValues) {
+				return bind(number);
+			}
 			return value.toString();
 		}
 		if(TypeUtils.isTemporalClass(propertyType)){
@@ -116,6 +129,9 @@ public class Criteria {
 				if (value instanceof String) {
 					value = getDateTimeService().convertToSqlTimestamp(value.toString());
 				}
+				if (bindValues) {
+					return bind(value);
+				}
 				return getFixedTemporalValue(value);
 			} catch (ParseException pe) {
 				LOG.warn("Could not parse "+value.toString()+" as date");
@@ -123,6 +139,9 @@ public class Criteria {
 			}
 		}
 		if (TypeUtils.isStringClass(propertyType)) {
+			if (bindValues) {
+				return bind(value.toString().trim());
+			}
 			return " '" + getDbPlatform().escapeString(value.toString().trim()) + "' ";
 		}
 		if (TypeUtils.isBooleanClass(propertyType)) {
@@ -130,12 +149,45 @@ public class Criteria {
 				value = new BooleanFormatter().convertFromPresentationFormat(value.toString());
 			}
 			boolean bVal = ((Boolean)value).booleanValue();
+			if (bindValues) {
+				return bind(Integer.valueOf(bVal ? 1 : 0));
+			}
 			if(bVal){return "1";}
 			else { return "0";}
 		}
 
 		return value.toString();
 	}
+
+	/**
+	 * Records the value to bind to the placeholder returned in its place.
+	 */
+	private String bind(Object value) {
+		pendingBindValues.add(value);
+		return "?";
+	}
+
+	/**
+	 * Adds the sql of a token together with the values bound to its placeholders.
+	 */
+	private void addToken(String sql) {
+		if (pendingBindValues.isEmpty()) {
+			tokens.add(sql);
+		} else {
+			tokens.add(new BoundToken(sql, pendingBindValues));
+			pendingBindValues = new ArrayList<Object>();
+		}
+	}
+
+	/**
+	 * Replaces the wildcards of a value which is bound rather than inlined, see {@link #fixWildcards}.
+	 */
+	private Object fixBoundWildcards(Object value, boolean allowWildcards) {
+		if (bindValues && allowWildcards && value instanceof String) {
+			return fixWildcards((String) value, -1, -1);
+		}
+		return value;
+	}
 	
 	/**
 	 * Prepares a temporally classed value for inclusion in criteria
@@ -175,69 +227,69 @@ public class Criteria {
 */
 	public void eq(String attribute, Object value, Class propertyType) {
 
-		tokens.add(alias + "." + attribute + " = " + fixValue(value, propertyType) + " ");
+		addToken(alias + "." + attribute + " = " + fixValue(value, propertyType) + " ");
 
 	}
 
 	public void gt(String attribute, Object value, Class propertyType) {
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(fix(attribute) + " > " + fixValue(value, propertyType) + " ");
+			addToken(fix(attribute) + " > " + fixValue(value, propertyType) + " ");
 		} else {
-			tokens.add(alias + "." + attribute + " > " + fixValue(value, propertyType) + " ");
+			addToken(alias + "." + attribute + " > " + fixValue(value, propertyType) + " ");
 		}
 
 	}
 
 	public void gte(String attribute, Object value, Class propertyType) {
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(fix(attribute) + " >= " + fixValue(value, propertyType) + " ");
+			addToken(fix(attribute) + " >= " + fixValue(value, propertyType) + " ");
 		} else {
-			tokens.add(alias + "." + attribute + " >= " + fixValue(value, propertyType) + " ");
+			addToken(alias + "." + attribute + " >= " + fixValue(value, propertyType) + " ");
 		}
 	}
 
 	public void like(String attribute, Object value, Class propertyType, boolean allowWildcards) {
-		String fixedValue = fixValue(value, propertyType);
+		String fixedValue = fixValue(fixBoundWildcards(value, allowWildcards), propertyType);
 
-		if(allowWildcards){
+		if(allowWildcards && !bindValues){
             fixedValue = fixWildcards(fixedValue, getAttributeValueStartIndex(fixedValue), getAttributeValueEndIndex(
                     fixedValue));
 		}
 
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(fix(attribute) + " LIKE " +  fixedValue + " ");
+			addToken(fix(attribute) + " LIKE " +  fixedValue + " ");
 		} else {
-			tokens.add(alias + "." + attribute + " LIKE " + fixedValue + " ");
+			addToken(alias + "." + attribute + " LIKE " + fixedValue + " ");
 		}
 	}
 
 	public void notLike(String attribute, Object value, Class propertyType, boolean allowWildcards) {
-		String fixedValue = fixValue(value, propertyType);
+		String fixedValue = fixValue(fixBoundWildcards(value, allowWildcards), propertyType);
 
-		if(allowWildcards){
+		if(allowWildcards && !bindValues){
 			fixedValue = fixWildcards(fixedValue, getAttributeValueStartIndex(fixedValue), getAttributeValueEndIndex(fixedValue));
 		}
 
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(fix(attribute) + " NOT LIKE " + fixedValue + " ");
+			addToken(fix(attribute) + " NOT LIKE " + fixedValue + " ");
 		} else {
-			tokens.add(alias + "." + attribute + " NOT LIKE " + fixedValue + " ");
+			addToken(alias + "." + attribute + " NOT LIKE " + fixedValue + " ");
 		}
 		//tokens.add(alias + "." + attribute + " NOT LIKE " + stripFunctions(fixedValue).replaceAll("\\*", "%") + " ");
 	}
 
     public void notEqual(String attribute, Object value, Class propertyType, boolean allowWildcards) {
-		String fixedValue = fixValue(value, propertyType);
+		String fixedValue = fixValue(fixBoundWildcards(value, allowWildcards), propertyType);
 
-		if(allowWildcards){
+		if(allowWildcards && !bindValues){
             fixedValue = fixWildcards(fixedValue, getAttributeValueStartIndex(fixedValue), getAttributeValueEndIndex(
                     fixedValue));
 		}
 
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(fix(attribute) + " <> " + fixedValue + " ");
+			addToken(fix(attribute) + " <> " + fixedValue + " ");
 		} else {
-			tokens.add(alias + "." + attribute + " <> " + fixedValue + " ");
+			addToken(alias + "." + attribute + " <> " + fixedValue + " ");
 		}
 		//tokens.add(alias + "." + attribute + " NOT LIKE " + stripFunctions(fixedValue).replaceAll("\\*", "%") + " ");
 	}
@@ -253,30 +305,30 @@ public class Criteria {
 
 	public void lt(String attribute, Object value, Class propertyType) {
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(fix(attribute) + " < " + fixValue(value, propertyType) + " ");
+			addToken(fix(attribute) + " < " + fixValue(value, propertyType) + " ");
 		} else {
-			tokens.add(alias + "." + attribute + " < " + fixValue(value, propertyType) + " ");
+			addToken(alias + "." + attribute + " < " + fixValue(value, propertyType) + " ");
 		}
 	}
 
 	public void lte(String attribute, Object value, Class propertyType) {
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(fix(attribute) + " <= " + fixValue(value, propertyType) + " ");
+			addToken(fix(attribute) + " <= " + fixValue(value, propertyType) + " ");
 		} else {
-			tokens.add(alias + "." + attribute + " <= " + fixValue(value, propertyType) + " ");
+			addToken(alias + "." + attribute + " <= " + fixValue(value, propertyType) + " ");
 		}
 	}
 
 	public void ne(String attribute, Object value, Class propertyType) {
-		tokens.add(alias + "." + attribute + " != " + fixValue(value, propertyType) + " ");
+		addToken(alias + "." + attribute + " != " + fixValue(value, propertyType) + " ");
 	}
 
 	public void isNull(String attribute) {
-		tokens.add(alias + "." + attribute + " IS NULL ");
+		addToken(alias + "." + attribute + " IS NULL ");
 	}
 
 	public void rawJpql(String jpql) {
-		tokens.add(" " + jpql + " ");
+		addToken(" " + jpql + " ");
 	}
 
 	public void in(String attribute, List values, Class propertyType) {
@@ -287,7 +339,7 @@ public class Criteria {
 		if (!"".equals(in)) {
 			in = in.substring(0, in.length()-1);
 		}
-		tokens.add(alias + "." + attribute + " IN (" + in + ") ");
+		addToken(alias + "." + attribute + " IN (" + in + ") ");
 	}
 
 	public void notIn(String attribute, List values, Class propertyType) {
@@ -298,7 +350,7 @@ public class Criteria {
 		if (!"".equals(in)) {
 			in = in.substring(in.length()-1);
 		}
-		tokens.add(alias + "." + attribute + " NOT IN (" + in + ") ");
+		addToken(alias + "." + attribute + " NOT IN (" + in + ") ");
 	}
 
 	public void orderBy(String attribute, boolean sortAscending) {
@@ -378,9 +430,9 @@ public class Criteria {
 			queryString += logic + " (" + ((Criteria) token).buildWhere(((Criteria) token)) + ") ";
 			} else {
 				if(i>0){
-					queryString += " AND " + (String) token;
+					queryString += " AND " + token;
 				}else{
-					queryString += (String) token;
+					queryString += token;
 				}
 			}
 			i++;
@@ -388,6 +440,26 @@ public class Criteria {
 		return queryString;
 	}
 
+	/**
+	 * Returns the values to bind to the {@code ?} placeholders of {@link #buildWhere()}, in the order of the
+	 * placeholders.  Empty unless {@link #isBindValues()}.
+	 */
+	public List<Object> getBindValues() {
+		List<Object> values = new ArrayList<Object>();
+		collectBindValues(values);
+		return values;
+	}
+
+	private void collectBindValues(List<Object> values) {
+		for (Object token : tokens) {
+			if (token instanceof Criteria) {
+				((Criteria) token).collectBindValues(values);
+			} else if (token instanceof BoundToken) {
+				values.addAll(((BoundToken) token).values);
+			}
+		}
+	}
+
 	public List<Object> getParameteres() {
 		return getParameteres(tokens, params);
 	}
@@ -439,6 +511,24 @@ public class Criteria {
         }       
     }
 
+	/**
+	 * The sql of a token whose values are bound to its placeholders.
+	 */
+	private static final class BoundToken {
+		private final String sql;
+		private final List<Object> values;
+
+		BoundToken(String sql, List<Object> values) {
+			this.sql = sql;
+			this.values = values;
+		}
+
+		@Override
+		public String toString() {
+			return sql;
+		}
+	}
+
 	public Integer getSearchLimit() {
 		return this.searchLimit;
 	}
@@ -449,13 +539,24 @@ public class Criteria {
 
 
 	public void notNull(String attribute) {
-		tokens.add(alias + "." + attribute + " IS NOT NULL ");
+		addToken(alias + "." + attribute + " IS NOT NULL ");
 	}
 
 	public void distinct(boolean distinct){
 		this.distinct = distinct;
 	}
 
+	public boolean isBindValues() {
+		return this.bindValues;
+	}
+
+	/**
+	 * Sets whether values added from now on are bound as parameters rather than inlined as literals.
+	 */
+	public void setBindValues(boolean bindValues) {
+		this.bindValues = bindValues;
+	}
+
 	/**
 	 * This method ...
 	 *
@@ -468,9 +569,9 @@ public class Criteria {
 		String fixedValue1 = fixValue(value1, propertyType);
 		String fixedValue2 = fixValue(value1, propertyType);
 		if (attribute.contains("__JPA_ALIAS__")) {
-			tokens.add(" (" + fix(attribute) + " NOT BETWEEN " + fixedValue1 + " AND " + fixedValue2 + ") ");
+			addToken(" (" + fix(attribute) + " NOT BETWEEN " + fixedValue1 + " AND " + fixedValue2 + ") ");
 		} else {
-			tokens.add(" (" + alias + "." + attribute + " NOT BETWEEN " + fixedValue1 + " AND " + fixedValue2 + ") ");
+			addToken(" (" + alias + "." + attribute + " NOT BETWEEN " + fixedValue1 + " AND " + fixedValue2 + ") ");
 		}
 
 	}
@@ -493,7 +594,8 @@ public class Criteria {
 		}
 		whereClause += subQuery.alias+"."+attribute + " = " + alias+"."+match;
 
-		tokens.add("EXISTS (" + subQuery.toQuery() + whereClause + " ) ");
+		pendingBindValues.addAll(subQuery.getBindValues());
+		addToken("EXISTS (" + subQuery.toQuery() + whereClause + " ) ");
 
 	}
 
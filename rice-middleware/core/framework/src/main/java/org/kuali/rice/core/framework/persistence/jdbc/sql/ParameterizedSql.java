@@ -0,0 +1,75 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.framework.persistence.jdbc.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A SQL template containing {@code ?} placeholders together with the ordered values to bind to them.
+ *
+ * <p>Statements which only differ in their values share the same SQL text, and can be reused by the database and the
+ * driver's statement cache.  {@link Criteria} and {@link SqlBuilder} collect the values of the SQL they build when
+ * they are set to bind values.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class ParameterizedSql {
+
+    private final String sql;
+    private final List<Object> parameters;
+
+    public ParameterizedSql(String sql, List<Object> parameters) {
+        if (sql == null) {
+            throw new IllegalArgumentException("sql was null");
+        }
+        this.sql = sql;
+        this.parameters = parameters == null ? Collections.emptyList() :
+                Collections.unmodifiableList(new ArrayList<Object>(parameters));
+    }
+
+    /**
+     * Returns the SQL template with {@code ?} placeholders.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the values to bind to the placeholders of the template, in order.
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Binds the parameters to the given statement, which must have been prepared from {@link #getSql()}.
+     */
+    public void bind(PreparedStatement statement) throws SQLException {
+        for (int index = 0; index < parameters.size(); index++) {
+            statement.setObject(index + 1, parameters.get(index));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + parameters;
+    }
+
+}
@@ -43,6 +43,7 @@ public class SqlBuilder {
 
 	private DateTimeService dateTimeService;
 	private DatabasePlatform dbPlatform;
+	private boolean bindValues = false;
 	
 	public static final  String EMPTY_STRING = "";
 
@@ -76,6 +77,7 @@ public class SqlBuilder {
 
 		Criteria criteria = new Criteria(tableName, tableAlias);
 		criteria.setDbPlatform(this.getDbPlatform());
+		criteria.setBindValues(isBindValues());
 
 		// build criteria
 		addCriteria(columnName, searchValue, propertyType, caseInsensitive, allowWildcards, criteria);
@@ -185,8 +187,10 @@ public class SqlBuilder {
 		String[] splitPropVal = StringUtils.split(propertyValue, splitValue);
 
 		Criteria subCriteria = new Criteria("N/A");
+		subCriteria.setBindValues(criteria.isBindValues());
 		for (String element : splitPropVal) {
 			Criteria predicate = new Criteria("N/A", criteria.getAlias());
+			predicate.setBindValues(criteria.isBindValues());
 			// we know that since this method is called, treatWildcardsAndOperatorsAsLiteral is false
 			addCriteria(propertyName, element, propertyType, caseInsensitive, allowWildcards, predicate);
 			if (splitValue == SearchOperator.OR.op()) {
@@ -393,6 +397,18 @@ public class SqlBuilder {
 		this.dbPlatform = dbPlatform;
 	}
 
+	public boolean isBindValues() {
+		return this.bindValues;
+	}
+
+	/**
+	 * Sets whether the criteria created by this builder bind their values as parameters rather than inlining them,
+	 * see {@link Criteria#setBindValues(boolean)}.
+	 */
+	public void setBindValues(boolean bindValues) {
+		this.bindValues = bindValues;
+	}
+
 	 /**
      * When dealing with upperbound dates, it is a business requirement that if a timestamp isn't already
      * stated append 23:59:59 to the end of the date.  This ensures that you are searching for the entire
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.framework.persistence.jdbc.sql;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.datetime.DateTimeService;
+import org.kuali.rice.core.framework.persistence.platform.DatabasePlatform;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the bind values collected by {@link Criteria} and {@link SqlBuilder}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class CriteriaTest {
+
+    private DatabasePlatform platform;
+    private SqlBuilder sqlBuilder;
+
+    @Before
+    public void setUp() throws Exception {
+        platform = mock(DatabasePlatform.class);
+        when(platform.getUpperCaseFunction()).thenReturn("UPPER");
+        when(platform.escapeString("O'Brien")).thenReturn("O''Brien");
+        DateTimeService dateTimeService = mock(DateTimeService.class);
+        when(dateTimeService.convertToSqlTimestamp("01/02/2015")).thenReturn(timestamp("2015-01-02 00:00:00"));
+        when(dateTimeService.convertToSqlTimestamp("01/03/2015")).thenReturn(timestamp("2015-01-03 00:00:00"));
+        when(dateTimeService.convertToSqlTimestamp("01/03/2015 23:59:59")).thenReturn(
+                timestamp("2015-01-03 23:59:59"));
+        sqlBuilder = new SqlBuilder();
+        sqlBuilder.setDbPlatform(platform);
+        sqlBuilder.setDateTimeService(dateTimeService);
+        sqlBuilder.setBindValues(true);
+    }
+
+    @Test
+    public void testStrings() {
+        Criteria criteria = sqlBuilder.createCriteria("TTL", "O'Brien", "T", "A", String.class, false, false);
+        assertEquals("A.TTL LIKE ? ", criteria.buildWhere());
+        assertEquals(Arrays.<Object>asList("O'Brien"), criteria.getBindValues());
+
+        sqlBuilder.setBindValues(false);
+        criteria = sqlBuilder.createCriteria("TTL", "O'Brien", "T", "A", String.class, false, false);
+        assertEquals("A.TTL LIKE  'O''Brien'  ", criteria.buildWhere());
+        assertTrue(criteria.getBindValues().isEmpty());
+    }
+
+    @Test
+    public void testWildcards() {
+        Criteria criteria = sqlBuilder.createCriteria("TTL", "a\\b*c?", "T", "A", String.class, true, true);
+        assertEquals("UPPER(A.TTL) LIKE ? ", criteria.buildWhere());
+        assertEquals(Arrays.<Object>asList("A\\B%C_"), criteria.getBindValues());
+
+        criteria = sqlBuilder.createCriteria("TTL", "!x*", "T", "A", String.class, false, true);
+        assertEquals("A.TTL NOT LIKE ? ", criteria.buildWhere());
+        assertEquals(Arrays.<Object>asList("x%"), criteria.getBindValues());
+    }
+
+    @Test
+    public void testDates() {
+        Criteria criteria = sqlBuilder.createCriteria("CRTE_DT", "01/02/2015..01/03/2015", "T", "A",
+                java.sql.Date.class);
+        assertEquals(" (A.CRTE_DT BETWEEN ? AND ?) ", criteria.buildWhere());
+        assertEquals(Arrays.<Object>asList(timestamp("2015-01-02 00:00:00"), timestamp("2015-01-03 23:59:59")),
+                criteria.getBindValues());
+    }
+
+    @Test
+    public void testNumbersAndLists() {
+        Criteria criteria = sqlBuilder.createCriteria("VAL", ">=5", "T", "A", Long.class);
+        criteria.in("KEY_CD", Arrays.asList("a", "b"), String.class);
+        criteria.eq("ACTV_IND", Boolean.TRUE, Boolean.class);
+        sqlBuilder.andCriteria("DOC_HDR_ID", "B.DOC_HDR_ID", "T", "A", SqlBuilder.JoinType.class, false, false,
+                criteria);
+        assertEquals("A.VAL >= ?  AND A.KEY_CD IN (?,?)  AND A.ACTV_IND = ?  AND  (A.DOC_HDR_ID = B.DOC_HDR_ID ) ",
+                criteria.buildWhere());
+        assertEquals(Arrays.<Object>asList(new BigDecimal("5"), "a", "b", Integer.valueOf(1)),
+                criteria.getBindValues());
+    }
+
+    @Test
+    public void testNestedCriteriaInOrder() {
+        Criteria criteria = sqlBuilder.createCriteria("VAL", "a|b", "T", "A", String.class, false, false);
+        sqlBuilder.andCriteria("KEY_CD", "c", "T", "A", String.class, false, false, criteria);
+        assertEquals(Arrays.<Object>asList("a", "b", "c"), criteria.getBindValues());
+        assertEquals(3, criteria.buildWhere().split("\\?", -1).length - 1);
+
+        Criteria subQuery = sqlBuilder.createCriteria("NM", "d", "S", "B", String.class, false, false);
+        Criteria outer = sqlBuilder.createCriteria("VAL", "e", "T", "A", String.class, false, false);
+        outer.in("ID", subQuery, "ID", String.class);
+        assertEquals(Arrays.<Object>asList("e", "d"), outer.getBindValues());
+    }
+
+    @Test
+    public void testNoValuesWithoutBinding() {
+        Criteria criteria = new Criteria("T", "A");
+        criteria.setDbPlatform(platform);
+        when(platform.escapeString("a")).thenReturn("a");
+        criteria.in("KEY_CD", Collections.singletonList("a"), String.class);
+        assertEquals("A.KEY_CD IN ( 'a' ) ", criteria.buildWhere());
+        assertTrue(criteria.getBindValues().isEmpty());
+    }
+
+    private static Timestamp timestamp(String value) {
+        return Timestamp.valueOf(value);
+    }
+
+}
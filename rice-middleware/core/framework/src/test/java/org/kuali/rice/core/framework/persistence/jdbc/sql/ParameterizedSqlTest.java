@@ -0,0 +1,64 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.framework.persistence.jdbc.sql;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the {@link ParameterizedSql}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ParameterizedSqlTest {
+
+    @Test
+    public void testBind() throws Exception {
+        Timestamp date = Timestamp.valueOf("2014-01-03 23:59:59");
+        ParameterizedSql sql = new ParameterizedSql("select * from T where A = ? and B >= ? and C < ?",
+                Arrays.<Object>asList("O'Brien", new BigDecimal("5"), date));
+        PreparedStatement statement = mock(PreparedStatement.class);
+        sql.bind(statement);
+        verify(statement).setObject(1, "O'Brien");
+        verify(statement).setObject(2, new BigDecimal("5"));
+        verify(statement).setObject(3, date);
+        verifyNoMoreInteractions(statement);
+    }
+
+    @Test
+    public void testParametersCopied() {
+        List<Object> parameters = new ArrayList<Object>(Arrays.<Object>asList("one"));
+        ParameterizedSql sql = new ParameterizedSql("select * from T where A = ?", parameters);
+        parameters.add("two");
+        assertEquals(Arrays.<Object>asList("one"), sql.getParameters());
+        assertTrue(new ParameterizedSql("select * from T", null).getParameters().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullSql() {
+        new ParameterizedSql(null, null);
+    }
+
+}
@@ -49,6 +49,9 @@ public class CacheAdminServiceImpl implements CacheAdminService, InitializingBea
                 if (cacheTarget == null) {
                     throw new RiceIllegalArgumentException("cacheTarget is null");
                 }
+            }
+            // senders may batch up duplicate targets, so only evict each key once and skip keys of caches being cleared
+            for (CacheTarget cacheTarget : CacheTargets.normalize(cacheTargets, 0)) {
                 final Cache c = getCache(cacheTarget.getCache());
                 if (c != null) {
                     if (cacheTarget.containsKey()) {
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.impl.cache;
+
+import org.kuali.rice.core.api.cache.CacheTarget;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+
+/**
+ * Delivers cache invalidations from a {@link DistributedCacheManagerDecorator} to the other nodes sharing its caches.
+ *
+ * <p>The default transport, {@link KsbCacheInvalidationTransport}, publishes the invalidations to the
+ * {@link org.kuali.rice.core.api.cache.CacheAdminService} topic over asynchronous KSB messaging.  Implementations
+ * which bypass the service bus must also deliver the invalidations they receive to the local caches registered with
+ * them.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public interface CacheInvalidationTransport {
+
+    /**
+     * Sends the given cache targets to every other node subscribed to the given cache admin service.
+     *
+     * @param serviceName the name of the cache admin service topic the targets belong to
+     * @param cacheTargets the targets to invalidate, never empty
+     */
+    void send(String serviceName, Collection<CacheTarget> cacheTargets);
+
+    /**
+     * Registers the local caches which should receive the invalidations sent to the given cache admin service by
+     * other nodes.
+     *
+     * @param serviceName the name of the cache admin service topic
+     * @param localCacheManager the cache manager holding this node's caches for that topic
+     */
+    void register(String serviceName, CacheManager localCacheManager);
+
+    /**
+     * Stops delivering invalidations for the given cache admin service to this node.
+     *
+     * @param serviceName the name of the cache admin service topic
+     */
+    void unregister(String serviceName);
+
+}
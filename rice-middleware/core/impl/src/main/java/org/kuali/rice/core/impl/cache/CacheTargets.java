@@ -0,0 +1,128 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.impl.cache;
+
+import org.kuali.rice.core.api.cache.CacheTarget;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accumulates {@link CacheTarget}s and collapses them into the smallest equivalent set of targets.
+ *
+ * <p>Duplicate targets are removed, single entry targets are dropped when the entire cache they belong to is also
+ * being flushed, and once more than {@code entireCacheThreshold} distinct keys of the same cache have been added they
+ * are replaced by a single flush of the entire cache.  Instances are not thread safe.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+final class CacheTargets {
+
+    private final int entireCacheThreshold;
+
+    /**
+     * Keys to flush per cache name, a null value means the entire cache is to be flushed.
+     */
+    private final Map<String, Set<String>> keysByCache = new LinkedHashMap<String, Set<String>>();
+
+    private int added;
+
+    /**
+     * @param entireCacheThreshold the number of distinct keys of one cache beyond which the entire cache is flushed
+     * instead, zero or less to never upgrade
+     */
+    CacheTargets(int entireCacheThreshold) {
+        this.entireCacheThreshold = entireCacheThreshold;
+    }
+
+    void add(CacheTarget target) {
+        added++;
+        String cache = target.getCache();
+        if (!target.containsKey()) {
+            keysByCache.put(cache, null);
+            return;
+        }
+        Set<String> keys = keysByCache.get(cache);
+        if (keys == null) {
+            if (keysByCache.containsKey(cache)) {
+                // the entire cache is already being flushed
+                return;
+            }
+            keys = new LinkedHashSet<String>();
+            keysByCache.put(cache, keys);
+        }
+        keys.add(target.getKey());
+        if (entireCacheThreshold > 0 && keys.size() > entireCacheThreshold) {
+            keysByCache.put(cache, null);
+        }
+    }
+
+    void addAll(Collection<CacheTarget> targets) {
+        for (CacheTarget target : targets) {
+            add(target);
+        }
+    }
+
+    /**
+     * @return the number of targets added since this instance was created or last drained
+     */
+    int getAddedCount() {
+        return added;
+    }
+
+    boolean isEmpty() {
+        return keysByCache.isEmpty();
+    }
+
+    /**
+     * Returns the collapsed targets and resets this instance.
+     */
+    List<CacheTarget> drain() {
+        List<CacheTarget> targets = new ArrayList<CacheTarget>();
+        for (Map.Entry<String, Set<String>> entry : keysByCache.entrySet()) {
+            if (entry.getValue() == null) {
+                targets.add(CacheTarget.entireCache(entry.getKey()));
+            } else {
+                for (String key : entry.getValue()) {
+                    targets.add(CacheTarget.singleEntry(entry.getKey(), key));
+                }
+            }
+        }
+        keysByCache.clear();
+        added = 0;
+        return targets;
+    }
+
+    /**
+     * Collapses the given targets into the smallest equivalent set of targets.
+     *
+     * @param targets the targets to collapse, may contain duplicates
+     * @param entireCacheThreshold the number of distinct keys of one cache beyond which the entire cache is flushed
+     * instead, zero or less to never upgrade
+     * @return a new list of targets
+     */
+    static List<CacheTarget> normalize(Collection<CacheTarget> targets, int entireCacheThreshold) {
+        CacheTargets normalized = new CacheTargets(entireCacheThreshold);
+        normalized.addAll(targets);
+        return normalized.drain();
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.impl.cache;
+
+import org.kuali.rice.core.api.cache.CacheTarget;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the cache targets flushed outside of a transaction and sends them as a single message once the flush
+ * window has elapsed, so that a burst of evictions results in one distributed flush rather than one per eviction.
+ *
+ * <p>The pending targets are collapsed by {@link CacheTargets}.  Once the buffer has been shut down, targets are sent
+ * immediately.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+class CoalescingFlushBuffer implements Runnable {
+
+    /**
+     * Receives the collapsed targets when the buffer is flushed.
+     */
+    interface Sender {
+
+        /**
+         * @param cacheTargets the targets to send, may be empty
+         */
+        void send(List<CacheTarget> cacheTargets);
+    }
+
+    private final long windowMillis;
+    private final Sender sender;
+    private final String threadName;
+    private final CacheTargets pending;
+
+    private ScheduledExecutorService executor;
+    private boolean scheduled;
+    private boolean shutdown;
+
+    /**
+     * @param windowMillis how long targets are collected before they are sent
+     * @param entireCacheThreshold the number of distinct keys of one cache beyond which the entire cache is flushed
+     * instead, zero or less to never upgrade
+     * @param sender sends the collapsed targets
+     * @param threadName the name of the thread which sends the targets once the window has elapsed
+     */
+    CoalescingFlushBuffer(long windowMillis, int entireCacheThreshold, Sender sender, String threadName) {
+        this.windowMillis = windowMillis;
+        this.sender = sender;
+        this.threadName = threadName;
+        this.pending = new CacheTargets(entireCacheThreshold);
+    }
+
+    /**
+     * Adds a target to the buffer, scheduling a flush at the end of the window if none is scheduled yet.
+     */
+    synchronized void add(CacheTarget target) {
+        if (shutdown) {
+            sender.send(Collections.singletonList(target));
+            return;
+        }
+        pending.add(target);
+        if (!scheduled) {
+            scheduled = true;
+            getExecutor().schedule(this, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the number of targets added since the buffer was last flushed
+     */
+    synchronized int getPendingCount() {
+        return pending.getAddedCount();
+    }
+
+    /**
+     * Sends the pending targets.
+     */
+    @Override
+    public void run() {
+        List<CacheTarget> targets;
+        synchronized (this) {
+            scheduled = false;
+            targets = pending.drain();
+        }
+        sender.send(targets);
+    }
+
+    /**
+     * Stops the flush thread and sends any pending targets.
+     */
+    synchronized void shutdown() {
+        shutdown = true;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (!pending.isEmpty()) {
+            scheduled = false;
+            sender.send(pending.drain());
+        }
+    }
+
+    /**
+     * Creates the executor which runs the flush once the window has elapsed, overridden by tests.
+     */
+    ScheduledExecutorService createExecutor() {
+        return new ScheduledThreadPoolExecutor(1, new FlushThreadFactory(threadName,
+                Thread.currentThread().getContextClassLoader()));
+    }
+
+    private ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            executor = createExecutor();
+        }
+        return executor;
+    }
+
+    /**
+     * Creates the daemon thread which sends coalesced flush messages.  The thread uses the context classloader of the
+     * application which created the buffer so that it sees the same configuration and service bus.
+     */
+    private static final class FlushThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final ClassLoader contextClassLoader;
+
+        private FlushThreadFactory(String name, ClassLoader contextClassLoader) {
+            this.name = name;
+            this.contextClassLoader = contextClassLoader;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,472 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.impl.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.kuali.rice.core.api.cache.CacheTarget;
+import org.kuali.rice.core.api.config.property.Config;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link CacheInvalidationTransport} which sends invalidations as UDP datagrams, either to a multicast group or to a
+ * fixed list of peers, without persisting them.
+ *
+ * <p>Delivery is best effort.  Every datagram carries the id of the sending node and a sequence number which increases
+ * by one for each datagram it sends, and each node also broadcasts its latest sequence number as a heartbeat at a
+ * fixed interval.  When a receiver notices that it has missed a datagram from a sender, either because a sequence
+ * number was skipped or because a heartbeat is ahead of the last datagram received, it clears every cache registered
+ * with it since it cannot know which entries were invalidated.</p>
+ *
+ * <p>The shared instance returned by {@link #getSharedInstance()} is configured with:</p>
+ *
+ * <ul>
+ *   <li>{@value #PORT_PARAM} - the local port to listen on</li>
+ *   <li>{@value #PEERS_PARAM} - a comma separated list of {@code host:port} addresses to send to, which may be a
+ *   single multicast group</li>
+ *   <li>{@value #HEARTBEAT_MILLIS_PARAM} - the heartbeat interval, 5 seconds by default</li>
+ * </ul>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DatagramCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private static final Log LOG = LogFactory.getLog(DatagramCacheInvalidationTransport.class);
+
+    public static final String PORT_PARAM = "rice.cache.invalidation.datagram.port";
+    public static final String PEERS_PARAM = "rice.cache.invalidation.datagram.peers";
+    public static final String HEARTBEAT_MILLIS_PARAM = "rice.cache.invalidation.datagram.heartbeatMillis";
+
+    public static final long DEFAULT_HEARTBEAT_MILLIS = 5000;
+
+    private static final int MAGIC = 0x52434931;
+    private static final byte TYPE_FLUSH = 1;
+    private static final byte TYPE_HEARTBEAT = 2;
+
+    /**
+     * Keeps datagrams well below the UDP limit so they aren't fragmented into too many IP packets.
+     */
+    private static final int MAX_DATAGRAM_BYTES = 8192;
+    private static final int RECEIVE_BUFFER_BYTES = 65535;
+
+    /**
+     * Socket receive buffer requested from the OS, large enough to absorb a burst of invalidations while the receiver
+     * thread applies the previous ones.
+     */
+    private static final int SOCKET_RECEIVE_BUFFER_BYTES = 1024 * 1024;
+
+    private static DatagramCacheInvalidationTransport sharedInstance;
+    private static int sharedInstanceReferences;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, CacheManager> localCacheManagers = new ConcurrentHashMap<String, CacheManager>();
+    private final ConcurrentMap<String, Long> lastSequenceBySender = new ConcurrentHashMap<String, Long>();
+    private final AtomicLong gapsDetected = new AtomicLong();
+
+    /**
+     * Held while numbering and sending datagrams so a heartbeat can never overtake the flush it announces.
+     */
+    private final Object sendLock = new Object();
+
+    private final int port;
+    private volatile List<InetSocketAddress> peers;
+    private long heartbeatMillis = DEFAULT_HEARTBEAT_MILLIS;
+
+    private DatagramSocket socket;
+    private Thread receiver;
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * @param port the local port to listen on, zero for any free port
+     * @param peers the addresses to send invalidations to
+     */
+    public DatagramCacheInvalidationTransport(int port, List<InetSocketAddress> peers) {
+        this.port = port;
+        this.peers = new ArrayList<InetSocketAddress>(peers);
+    }
+
+    /**
+     * Returns the transport shared by all the cache managers of this application, creating and starting it from the
+     * configuration on first use.  Every call must be matched by a call to {@link #releaseSharedInstance()} once the
+     * caller no longer uses the transport.
+     */
+    public static synchronized DatagramCacheInvalidationTransport getSharedInstance() throws IOException {
+        if (sharedInstance == null) {
+            Config config = ConfigContext.getCurrentContextConfig();
+            String port = config.getProperty(PORT_PARAM);
+            if (StringUtils.isBlank(port)) {
+                throw new IllegalStateException(PORT_PARAM + " must be configured for datagram cache invalidation");
+            }
+            DatagramCacheInvalidationTransport transport = new DatagramCacheInvalidationTransport(
+                    Integer.parseInt(port.trim()), parsePeers(config.getProperty(PEERS_PARAM)));
+            String heartbeatMillis = config.getProperty(HEARTBEAT_MILLIS_PARAM);
+            if (StringUtils.isNotBlank(heartbeatMillis)) {
+                transport.setHeartbeatMillis(Long.parseLong(heartbeatMillis.trim()));
+            }
+            transport.start();
+            sharedInstance = transport;
+        }
+        sharedInstanceReferences++;
+        return sharedInstance;
+    }
+
+    /**
+     * Releases a reference obtained from {@link #getSharedInstance()}, stopping the shared transport and closing its
+     * socket when the last reference is released.
+     */
+    public static synchronized void releaseSharedInstance() {
+        if (sharedInstance == null) {
+            return;
+        }
+        if (--sharedInstanceReferences <= 0) {
+            sharedInstance.stop();
+            sharedInstance = null;
+            sharedInstanceReferences = 0;
+        }
+    }
+
+    static synchronized boolean isSharedInstanceRunning() {
+        return sharedInstance != null;
+    }
+
+    static List<InetSocketAddress> parsePeers(String peers) {
+        List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        if (StringUtils.isNotBlank(peers)) {
+            for (String peer : peers.split(",")) {
+                peer = peer.trim();
+                if (StringUtils.isNotBlank(peer)) {
+                    int separator = peer.lastIndexOf(':');
+                    if (separator < 1) {
+                        throw new IllegalArgumentException("Invalid peer address, expected host:port but was " + peer);
+                    }
+                    addresses.add(new InetSocketAddress(peer.substring(0, separator),
+                            Integer.parseInt(peer.substring(separator + 1))));
+                }
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * Opens the socket, joining the multicast group if the peer is one, and starts the receiver and heartbeat threads.
+     */
+    public synchronized void start() throws IOException {
+        if (socket != null) {
+            return;
+        }
+        InetSocketAddress group = getMulticastGroup();
+        if (group != null) {
+            MulticastSocket multicastSocket = new MulticastSocket(port);
+            multicastSocket.joinGroup(group.getAddress());
+            socket = multicastSocket;
+        } else {
+            socket = new DatagramSocket(port);
+        }
+        socket.setReceiveBufferSize(SOCKET_RECEIVE_BUFFER_BYTES);
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        receiver = newThread(new Receiver(), "receiver", contextClassLoader);
+        receiver.start();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory(contextClassLoader));
+        heartbeat.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sendHeartbeat();
+            }
+        }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+        receiver = null;
+    }
+
+    @Override
+    public void send(String serviceName, Collection<CacheTarget> cacheTargets) {
+        try {
+            synchronized (sendLock) {
+                for (byte[] datagram : encodeFlush(serviceName, new ArrayList<CacheTarget>(cacheTargets))) {
+                    sendToPeers(datagram);
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to send cache invalidation datagram for " + serviceName, e);
+        }
+    }
+
+    @Override
+    public void register(String serviceName, CacheManager localCacheManager) {
+        localCacheManagers.put(serviceName, localCacheManager);
+    }
+
+    @Override
+    public void unregister(String serviceName) {
+        localCacheManagers.remove(serviceName);
+    }
+
+    void sendHeartbeat() {
+        try {
+            synchronized (sendLock) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                writeHeader(out, TYPE_HEARTBEAT, sequence.get());
+                out.flush();
+                sendToPeers(bytes.toByteArray());
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to send cache invalidation heartbeat", e);
+        }
+    }
+
+    /**
+     * Encodes the targets into as many datagrams as needed to stay within {@link #MAX_DATAGRAM_BYTES}, each with its
+     * own sequence number.
+     */
+    List<byte[]> encodeFlush(String serviceName, List<CacheTarget> cacheTargets) throws IOException {
+        List<byte[]> datagrams = new ArrayList<byte[]>();
+        int index = 0;
+        while (index < cacheTargets.size()) {
+            ByteArrayOutputStream targetBytes = new ByteArrayOutputStream();
+            DataOutputStream targetOut = new DataOutputStream(targetBytes);
+            int count = 0;
+            while (index < cacheTargets.size() && (count == 0 || targetBytes.size() < MAX_DATAGRAM_BYTES)) {
+                CacheTarget target = cacheTargets.get(index++);
+                targetOut.writeUTF(target.getCache());
+                targetOut.writeBoolean(target.containsKey());
+                if (target.containsKey()) {
+                    targetOut.writeUTF(target.getKey());
+                }
+                count++;
+            }
+            targetOut.flush();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(targetBytes.size() + 128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, TYPE_FLUSH, sequence.incrementAndGet());
+            out.writeUTF(serviceName);
+            out.writeInt(count);
+            targetBytes.writeTo(out);
+            out.flush();
+            datagrams.add(bytes.toByteArray());
+        }
+        return datagrams;
+    }
+
+    private void writeHeader(DataOutputStream out, byte type, long sequenceNumber) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(type);
+        out.writeUTF(nodeId);
+        out.writeLong(sequenceNumber);
+    }
+
+    private void sendToPeers(byte[] datagram) throws IOException {
+        DatagramSocket current = socket;
+        if (current == null) {
+            throw new IOException("datagram cache invalidation transport has not been started");
+        }
+        for (InetSocketAddress peer : peers) {
+            current.send(new DatagramPacket(datagram, datagram.length, peer));
+        }
+    }
+
+    /**
+     * Applies a datagram received from another node.
+     */
+    void receive(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        if (in.readInt() != MAGIC) {
+            LOG.warn("Ignoring datagram which is not a cache invalidation");
+            return;
+        }
+        byte type = in.readByte();
+        String senderId = in.readUTF();
+        long sequenceNumber = in.readLong();
+        if (nodeId.equals(senderId)) {
+            return;
+        }
+
+        if (type == TYPE_HEARTBEAT) {
+            Long last = lastSequenceBySender.get(senderId);
+            if (last == null || sequenceNumber > last) {
+                lastSequenceBySender.put(senderId, sequenceNumber);
+                if (last != null) {
+                    gapDetected(senderId, last, sequenceNumber);
+                }
+            }
+            return;
+        }
+
+        String serviceName = in.readUTF();
+        int count = in.readInt();
+        List<CacheTarget> targets = new ArrayList<CacheTarget>(count);
+        for (int i = 0; i < count; i++) {
+            String cache = in.readUTF();
+            targets.add(in.readBoolean() ? CacheTarget.singleEntry(cache, in.readUTF()) : CacheTarget.entireCache(cache));
+        }
+
+        Long last = lastSequenceBySender.get(senderId);
+        if (last != null && sequenceNumber <= last) {
+            // a duplicate or a datagram which arrived after one sent later, any loss it implied was already handled
+            return;
+        }
+        lastSequenceBySender.put(senderId, sequenceNumber);
+        if (last != null && sequenceNumber > last + 1) {
+            gapDetected(senderId, last, sequenceNumber);
+        } else {
+            flushLocal(serviceName, targets);
+        }
+    }
+
+    private void gapDetected(String senderId, long last, long current) {
+        gapsDetected.incrementAndGet();
+        LOG.warn("Missed cache invalidations " + (last + 1) + " to " + current + " from " + senderId
+                + ", clearing all local caches");
+        for (CacheManager cacheManager : localCacheManagers.values()) {
+            for (String cacheName : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+        }
+    }
+
+    private void flushLocal(String serviceName, List<CacheTarget> targets) {
+        CacheManager cacheManager = localCacheManagers.get(serviceName);
+        if (cacheManager == null) {
+            return;
+        }
+        CacheAdminServiceImpl cacheAdminService = new CacheAdminServiceImpl();
+        cacheAdminService.setCacheManager(cacheManager);
+        cacheAdminService.flush(targets);
+    }
+
+    private InetSocketAddress getMulticastGroup() {
+        if (peers.size() == 1 && peers.get(0).getAddress() != null && peers.get(0).getAddress().isMulticastAddress()) {
+            return peers.get(0);
+        }
+        return null;
+    }
+
+    /**
+     * @return the local port the transport is listening on, useful when started with port zero
+     */
+    public int getLocalPort() {
+        DatagramSocket current = socket;
+        return current == null ? port : current.getLocalPort();
+    }
+
+    public void setPeers(List<InetSocketAddress> peers) {
+        this.peers = new ArrayList<InetSocketAddress>(peers);
+    }
+
+    public List<InetSocketAddress> getPeers() {
+        return Collections.unmodifiableList(peers);
+    }
+
+    public void setHeartbeatMillis(long heartbeatMillis) {
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    /**
+     * @return the number of times this node has cleared its caches because invalidations were lost
+     */
+    public long getGapsDetected() {
+        return gapsDetected.get();
+    }
+
+    private final class Receiver implements Runnable {
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[RECEIVE_BUFFER_BYTES];
+            while (true) {
+                DatagramSocket current = socket;
+                if (current == null) {
+                    return;
+                }
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    current.receive(packet);
+                    receive(packet.getData(), packet.getOffset(), packet.getLength());
+                } catch (SocketException e) {
+                    // socket closed by stop()
+                    return;
+                } catch (Throwable t) {
+                    LOG.error("Failed to process cache invalidation datagram", t);
+                }
+            }
+        }
+
+    }
+
+    private Thread newThread(Runnable runnable, String name, ClassLoader contextClassLoader) {
+        Thread thread = new Thread(runnable, "CacheInvalidation-" + name + "-" + getLocalPort());
+        thread.setDaemon(true);
+        thread.setContextClassLoader(contextClassLoader);
+        return thread;
+    }
+
+    private final class DaemonThreadFactory implements ThreadFactory {
+
+        private final ClassLoader contextClassLoader;
+
+        private DaemonThreadFactory(ClassLoader contextClassLoader) {
+            this.contextClassLoader = contextClassLoader;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return DatagramCacheInvalidationTransport.this.newThread(runnable, "heartbeat", contextClassLoader);
+        }
+
+    }
+
+}
@@ -15,16 +15,13 @@
  */
 package org.kuali.rice.core.impl.cache;
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.Collections2;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.kuali.rice.core.api.cache.CacheAdminService;
 import org.kuali.rice.core.api.cache.CacheTarget;
 import org.kuali.rice.core.api.config.property.ConfigContext;
-import org.kuali.rice.ksb.api.KsbApiServiceLocator;
 import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.NamedBean;
 import org.springframework.cache.Cache;
@@ -34,18 +31,19 @@ import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import javax.xml.namespace.QName;
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A distributed cache manager that wraps a cache manager and adds distributed cache capabilities
- * through the kuali service bus.
+ * through a {@link CacheInvalidationTransport}, by default the kuali service bus.
  *
  * <p>
  * If in a transaction, distributed cache messages are queued until a transaction completes successfully.
@@ -54,21 +52,42 @@ import java.util.concurrent.LinkedBlockingQueue;
  * </p>
  *
  * <p>
- * If not in a transaction, distributed messages are sent immediately.  This should be avoided and is likely
- * the result of a programming error.
+ * If not in a transaction, distributed messages are buffered for a short window (rice.cache.distributedFlush.windowMillis,
+ * 50 ms by default) and then sent as a single coalesced message.  Setting the window to zero sends them immediately.
+ * </p>
+ *
+ * <p>
+ * In both cases the targets are collapsed before sending: duplicates are dropped, single entries are dropped when the
+ * entire cache is also flushed, and once more than rice.cache.distributedFlush.entireCacheThreshold keys of the same
+ * cache are pending the entire cache is flushed instead.
  * </p>
  */
-public final class DistributedCacheManagerDecorator implements CacheManager, InitializingBean, BeanNameAware, NamedBean {
+public final class DistributedCacheManagerDecorator implements CacheManager, InitializingBean, DisposableBean, BeanNameAware, NamedBean {
 
     private static final Log LOG = LogFactory.getLog(DistributedCacheManagerDecorator.class);
 
     private static final String DISABLE_ALL_CACHES_PARAM = "rice.cache.disableAllCaches";
     private static final String DISABLE_DISTRIBUTED_CACHE_FLUSH_PARAM = "rice.cache.disableDistributedCacheFlush";
     private static final String DISABLED_CACHES_PARAM = "rice.cache.disabledCaches";
+    private static final String FLUSH_WINDOW_MILLIS_PARAM = "rice.cache.distributedFlush.windowMillis";
+    private static final String ENTIRE_CACHE_THRESHOLD_PARAM = "rice.cache.distributedFlush.entireCacheThreshold";
+    private static final String INVALIDATION_TRANSPORT_PARAM = "rice.cache.invalidation.transport";
+    private static final String DATAGRAM_TRANSPORT = "datagram";
+
+    private static final long DEFAULT_FLUSH_WINDOW_MILLIS = 50;
+    private static final int DEFAULT_ENTIRE_CACHE_THRESHOLD = 100;
 
     private CacheManager cacheManager;
     private String serviceName;
     private String name;
+    private CacheInvalidationTransport invalidationTransport;
+    private boolean sharedInvalidationTransport;
+
+    private CoalescingFlushBuffer flushBuffer;
+
+    private final AtomicLong flushTargetsRequested = new AtomicLong();
+    private final AtomicLong flushTargetsSent = new AtomicLong();
+    private final AtomicLong flushMessagesSent = new AtomicLong();
 
     @Override
     public Cache getCache(String name) {
@@ -93,10 +112,9 @@ public final class DistributedCacheManagerDecorator implements CacheManager, Ini
         try {
             if (!cacheTargets.isEmpty()) {
                 logFlushCache(cacheTargets);
-                // need to ensure that the list passed is serializable in order for the KSB messaging to work
-                cacheTargets = new ArrayList<CacheTarget>(cacheTargets);
-                CacheAdminService cacheAdminService = KsbApiServiceLocator.getMessageHelper().getServiceAsynchronously(QName.valueOf(serviceName));
-                cacheAdminService.flush(cacheTargets);
+                invalidationTransport.send(serviceName, cacheTargets);
+                flushTargetsSent.addAndGet(cacheTargets.size());
+                flushMessagesSent.incrementAndGet();
             }
         } catch (Throwable t) {
             LOG.error("failed to execute distributed flush for serviceName " + serviceName, t);
@@ -126,12 +144,99 @@ public final class DistributedCacheManagerDecorator implements CacheManager, Ini
         if (StringUtils.isBlank(name)) {
             name = "NOT_NAMED";
         }
+
+        if (invalidationTransport == null) {
+            invalidationTransport = createInvalidationTransport();
+        }
+        invalidationTransport.register(serviceName, cacheManager);
+
+        flushBuffer = new CoalescingFlushBuffer(ConfigurationPropertiesHolder.flushWindowMillis,
+                ConfigurationPropertiesHolder.entireCacheThreshold, new CoalescingFlushBuffer.Sender() {
+            @Override
+            public void send(List<CacheTarget> cacheTargets) {
+                sendFlushCacheMessages(cacheTargets);
+            }
+        }, "DistributedCacheFlush-" + name);
+    }
+
+    /**
+     * Creates the transport named by rice.cache.invalidation.transport, either the non-persistent
+     * {@link DatagramCacheInvalidationTransport} ("datagram") or KSB messaging (the default).
+     */
+    private CacheInvalidationTransport createInvalidationTransport() {
+        String transport = ConfigContext.getCurrentContextConfig().getProperty(INVALIDATION_TRANSPORT_PARAM);
+        if (DATAGRAM_TRANSPORT.equalsIgnoreCase(StringUtils.trim(transport))) {
+            try {
+                DatagramCacheInvalidationTransport sharedInstance = DatagramCacheInvalidationTransport.getSharedInstance();
+                sharedInvalidationTransport = true;
+                return sharedInstance;
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to start the datagram cache invalidation transport", e);
+            }
+        }
+        return new KsbCacheInvalidationTransport();
+    }
+
+    /**
+     * Sends any flush messages which are still waiting in the coalescing buffer and releases the shared datagram
+     * transport, which is stopped once the last cache manager using it is destroyed.
+     */
+    @Override
+    public void destroy() {
+        if (flushBuffer != null) {
+            flushBuffer.shutdown();
+        }
+        if (invalidationTransport != null) {
+            invalidationTransport.unregister(serviceName);
+        }
+        if (sharedInvalidationTransport) {
+            sharedInvalidationTransport = false;
+            invalidationTransport = null;
+            DatagramCacheInvalidationTransport.releaseSharedInstance();
+        }
+    }
+
+    /**
+     * @return the number of cache targets which have been evicted or cleared through this cache manager
+     */
+    public long getFlushTargetsRequested() {
+        return flushTargetsRequested.get();
+    }
+
+    /**
+     * @return the number of cache targets which have been sent to the distributed cache admin service
+     */
+    public long getFlushTargetsSent() {
+        return flushTargetsSent.get();
+    }
+
+    /**
+     * @return the number of requested cache targets which were never sent because they were merged into other targets
+     */
+    public long getFlushTargetsCoalesced() {
+        int pendingCount = (flushBuffer == null) ? 0 : flushBuffer.getPendingCount();
+        return flushTargetsRequested.get() - flushTargetsSent.get() - pendingCount;
+    }
+
+    /**
+     * @return the number of flush messages which have been sent to the distributed cache admin service
+     */
+    public long getFlushMessagesSent() {
+        return flushMessagesSent.get();
     }
 
     public void setCacheManager(CacheManager cacheManager) {
         this.cacheManager = cacheManager;
     }
 
+    /**
+     * Sets the transport used to deliver invalidations to other nodes.  If not set, the transport is chosen by the
+     * rice.cache.invalidation.transport configuration parameter.
+     */
+    public void setInvalidationTransport(CacheInvalidationTransport invalidationTransport) {
+        this.invalidationTransport = invalidationTransport;
+    }
+
     public void setServiceName(String serviceName) {
         this.serviceName = serviceName;
     }
@@ -241,10 +346,13 @@ public final class DistributedCacheManagerDecorator implements CacheManager, Ini
                 return;
             }
 
+            flushTargetsRequested.incrementAndGet();
             if (doTransactionalFlush()) {
                 final CacheMessageSendingTransactionSynchronization ts = getCacheMessageSendingTransactionSynchronization();
                 //adding to internal queue.  the Synchronization is already registered at this point
                 ts.add(target);
+            } else if (ConfigurationPropertiesHolder.flushWindowMillis > 0) {
+                flushBuffer.add(target);
             } else {
                 sendFlushCacheMessages(Collections.singleton(target));
             }
@@ -331,29 +439,22 @@ public final class DistributedCacheManagerDecorator implements CacheManager, Ini
          * (1) cache targets with keys will not be present in the returned collection if a cache target exists for the
          * same cache but w/o a key (a complete cache flush);
          * (2) duplicate targets (both complete cache flushes and specific keys) will be filtered so only unique
-         * targets will exist in the returned collection
+         * targets will exist in the returned collection;
+         * (3) cache targets with keys will be replaced by a complete cache flush when there are more of them for the
+         * same cache than the configured threshold
          *
          * @param targets the queue to iterate over and exhaust
          * @return a new collection containing CacheTargets
          */
         private Collection<CacheTarget> exhaustQueue(Queue<CacheTarget> targets) {
-            final Set<CacheTarget> normalized = new HashSet<CacheTarget>();
-            final Set<String> completeFlush = new HashSet<String>();    
+            final CacheTargets normalized = new CacheTargets(ConfigurationPropertiesHolder.entireCacheThreshold);
 
             CacheTarget target;
             while ((target = targets.poll()) != null) {
                 normalized.add(target);
-                if (!target.containsKey()) {
-                    completeFlush.add(target.getCache());
-                }
             }
 
-            return Collections2.filter(normalized, new Predicate<CacheTarget>() {
-                @Override
-                public boolean apply(CacheTarget input) {
-                    return !input.containsKey() || (input.containsKey() && !completeFlush.contains(input.getCache()));
-                }
-            });
+            return normalized.drain();
         }
     }
 
@@ -370,6 +471,22 @@ public final class DistributedCacheManagerDecorator implements CacheManager, Ini
         static final boolean disableDistributedCacheFlush =
                 ConfigContext.getCurrentContextConfig().getBooleanProperty(DISABLE_DISTRIBUTED_CACHE_FLUSH_PARAM, false);
         static final Set<String> disabledCaches = getDisabledCachesConfig();
+        static final long flushWindowMillis = getLongConfig(FLUSH_WINDOW_MILLIS_PARAM, DEFAULT_FLUSH_WINDOW_MILLIS);
+        static final int entireCacheThreshold =
+                (int) getLongConfig(ENTIRE_CACHE_THRESHOLD_PARAM, DEFAULT_ENTIRE_CACHE_THRESHOLD);
+
+        private static long getLongConfig(String param, long defaultValue) {
+            String value = ConfigContext.getCurrentContextConfig().getProperty(param);
+            if (StringUtils.isBlank(value)) {
+                return defaultValue;
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.warn("Invalid value '" + value + "' for " + param + ", using default of " + defaultValue);
+                return defaultValue;
+            }
+        }
 
         private static Set<String> getDisabledCachesConfig() {
             Set<String> disabledCaches = new HashSet<String>();
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.impl.cache;
+
+import org.kuali.rice.core.api.cache.CacheAdminService;
+import org.kuali.rice.core.api.cache.CacheTarget;
+import org.kuali.rice.ksb.api.KsbApiServiceLocator;
+import org.springframework.cache.CacheManager;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A {@link CacheInvalidationTransport} which publishes invalidations to the cache admin service topic using
+ * asynchronous KSB messaging.  Delivery to the local caches is handled by the {@link CacheAdminService} exported on
+ * the bus, so registration is a no-op.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class KsbCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    @Override
+    public void send(String serviceName, Collection<CacheTarget> cacheTargets) {
+        // need to ensure that the list passed is serializable in order for the KSB messaging to work
+        cacheTargets = new ArrayList<CacheTarget>(cacheTargets);
+        CacheAdminService cacheAdminService = KsbApiServiceLocator.getMessageHelper().getServiceAsynchronously(
+                QName.valueOf(serviceName));
+        cacheAdminService.flush(cacheTargets);
+    }
+
+    @Override
+    public void register(String serviceName, CacheManager localCacheManager) {
+        // the exported CacheAdminService receives the messages
+    }
+
+    @Override
+    public void unregister(String serviceName) {
+        // the exported CacheAdminService receives the messages
+    }
+
+}
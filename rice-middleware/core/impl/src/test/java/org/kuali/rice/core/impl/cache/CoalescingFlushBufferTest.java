@@ -0,0 +1,162 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.impl.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.cache.CacheTarget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link CoalescingFlushBuffer} with a scheduler which runs the scheduled flushes only when told to.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class CoalescingFlushBufferTest {
+
+    private static final long WINDOW_MILLIS = 50;
+    private static final int ENTIRE_CACHE_THRESHOLD = 3;
+
+    private static final String ROLE_CACHE = "http://rice.kuali.org/kim/v2_0/RoleType";
+    private static final String GROUP_CACHE = "http://rice.kuali.org/kim/v2_0/GroupType";
+
+    private final List<List<CacheTarget>> messages = new ArrayList<List<CacheTarget>>();
+    private ManualScheduler scheduler;
+    private CoalescingFlushBuffer buffer;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        buffer = new CoalescingFlushBuffer(WINDOW_MILLIS, ENTIRE_CACHE_THRESHOLD, new CoalescingFlushBuffer.Sender() {
+            @Override
+            public void send(List<CacheTarget> cacheTargets) {
+                messages.add(cacheTargets);
+            }
+        }, "CoalescingFlushBufferTest") {
+            @Override
+            ScheduledExecutorService createExecutor() {
+                return scheduler;
+            }
+        };
+    }
+
+    @Test
+    public void testCoalescing() {
+        buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role1"));
+        buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role1"));
+        buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role2"));
+        buffer.add(CacheTarget.singleEntry(GROUP_CACHE, "group1"));
+        buffer.add(CacheTarget.entireCache(GROUP_CACHE));
+        buffer.add(CacheTarget.singleEntry(GROUP_CACHE, "group2"));
+        assertEquals(6, buffer.getPendingCount());
+        assertTrue("nothing should be sent before the window has elapsed", messages.isEmpty());
+
+        scheduler.runScheduled();
+
+        assertEquals(1, messages.size());
+        assertEquals(Arrays.asList(CacheTarget.singleEntry(ROLE_CACHE, "role1"),
+                CacheTarget.singleEntry(ROLE_CACHE, "role2"), CacheTarget.entireCache(GROUP_CACHE)), messages.get(0));
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    public void testEntireCacheAboveThreshold() {
+        for (int i = 0; i < ENTIRE_CACHE_THRESHOLD; i++) {
+            buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role" + i));
+        }
+        buffer.add(CacheTarget.singleEntry(GROUP_CACHE, "group1"));
+        scheduler.runScheduled();
+        assertEquals(ENTIRE_CACHE_THRESHOLD + 1, messages.get(0).size());
+
+        for (int i = 0; i <= ENTIRE_CACHE_THRESHOLD; i++) {
+            buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role" + i));
+        }
+        buffer.add(CacheTarget.singleEntry(GROUP_CACHE, "group1"));
+        scheduler.runScheduled();
+        assertEquals(Arrays.asList(CacheTarget.entireCache(ROLE_CACHE), CacheTarget.singleEntry(GROUP_CACHE, "group1")),
+                messages.get(1));
+    }
+
+    @Test
+    public void testFlushAfterWindow() {
+        buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role1"));
+        buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role2"));
+        assertEquals("one flush should be scheduled per window", 1, scheduler.delays.size());
+        assertEquals(Long.valueOf(WINDOW_MILLIS), scheduler.delays.get(0));
+
+        scheduler.runScheduled();
+        assertEquals(1, messages.size());
+
+        // the next target opens a new window
+        buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role3"));
+        assertEquals(2, scheduler.delays.size());
+        scheduler.runScheduled();
+        assertEquals(Arrays.asList(Collections.singletonList(CacheTarget.singleEntry(ROLE_CACHE, "role3"))),
+                messages.subList(1, messages.size()));
+    }
+
+    @Test
+    public void testShutdown() {
+        buffer.add(CacheTarget.singleEntry(ROLE_CACHE, "role1"));
+        buffer.shutdown();
+        assertTrue(scheduler.isShutdown());
+        assertEquals(Arrays.asList(Collections.singletonList(CacheTarget.singleEntry(ROLE_CACHE, "role1"))), messages);
+
+        // sent right away once shut down
+        buffer.add(CacheTarget.entireCache(GROUP_CACHE));
+        assertEquals(Collections.singletonList(CacheTarget.entireCache(GROUP_CACHE)), messages.get(1));
+        assertEquals(1, scheduler.delays.size());
+    }
+
+    /**
+     * Records the flushes scheduled by the buffer and runs them only on {@link #runScheduled()}.
+     */
+    private static final class ManualScheduler extends ScheduledThreadPoolExecutor {
+
+        private final List<Runnable> scheduled = new ArrayList<Runnable>();
+        private final List<Long> delays = new ArrayList<Long>();
+
+        private ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            scheduled.add(command);
+            delays.add(unit.toMillis(delay));
+            return null;
+        }
+
+        private void runScheduled() {
+            List<Runnable> commands = new ArrayList<Runnable>(scheduled);
+            scheduled.clear();
+            for (Runnable command : commands) {
+                command.run();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.impl.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.cache.CacheTarget;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.framework.config.property.SimpleConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link DatagramCacheInvalidationTransport} with several nodes running in this JVM on the loopback interface.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DatagramCacheInvalidationTransportTest {
+
+    private static final String SERVICE_NAME = "{http://rice.kuali.org/kim/v2_0}kimCacheAdminService";
+    private static final String ROLE_CACHE = "http://rice.kuali.org/kim/v2_0/RoleType";
+    private static final String GROUP_CACHE = "http://rice.kuali.org/kim/v2_0/GroupType";
+
+    private final List<DatagramCacheInvalidationTransport> nodes = new ArrayList<DatagramCacheInvalidationTransport>();
+    private final List<ConcurrentMapCacheManager> cacheManagers = new ArrayList<ConcurrentMapCacheManager>();
+
+    @Before
+    public void setUp() throws Exception {
+        List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        for (int i = 0; i < 3; i++) {
+            DatagramCacheInvalidationTransport node = new DatagramCacheInvalidationTransport(0,
+                    Collections.<InetSocketAddress>emptyList());
+            node.setHeartbeatMillis(60000);
+            node.start();
+            nodes.add(node);
+            addresses.add(new InetSocketAddress("127.0.0.1", node.getLocalPort()));
+
+            ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(ROLE_CACHE, GROUP_CACHE);
+            cacheManagers.add(cacheManager);
+            node.register(SERVICE_NAME, cacheManager);
+        }
+        for (DatagramCacheInvalidationTransport node : nodes) {
+            node.setPeers(addresses);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (DatagramCacheInvalidationTransport node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    public void testInvalidationReachesOtherNodes() throws Exception {
+        for (ConcurrentMapCacheManager cacheManager : cacheManagers) {
+            cacheManager.getCache(ROLE_CACHE).put("role1", "value");
+            cacheManager.getCache(ROLE_CACHE).put("role2", "value");
+            cacheManager.getCache(GROUP_CACHE).put("group1", "value");
+        }
+
+        nodes.get(0).send(SERVICE_NAME, Collections.singletonList(CacheTarget.singleEntry(ROLE_CACHE, "role1")));
+        nodes.get(0).send(SERVICE_NAME, Collections.singletonList(CacheTarget.entireCache(GROUP_CACHE)));
+
+        for (int i = 1; i < cacheManagers.size(); i++) {
+            Cache roleCache = cacheManagers.get(i).getCache(ROLE_CACHE);
+            Cache groupCache = cacheManagers.get(i).getCache(GROUP_CACHE);
+            waitUntilEvicted(groupCache, "group1");
+            assertNull(roleCache.get("role1"));
+            assertNotNull(roleCache.get("role2"));
+        }
+        // the sender only invalidates remote caches
+        assertNotNull(cacheManagers.get(0).getCache(ROLE_CACHE).get("role1"));
+    }
+
+    @Test
+    public void testLargeInvalidationIsSplit() throws Exception {
+        List<CacheTarget> targets = new ArrayList<CacheTarget>();
+        for (int i = 0; i < 2000; i++) {
+            String key = "role-with-a-reasonably-long-key-" + i;
+            targets.add(CacheTarget.singleEntry(ROLE_CACHE, key));
+            cacheManagers.get(1).getCache(ROLE_CACHE).put(key, "value");
+        }
+        DatagramCacheInvalidationTransport unconnected = new DatagramCacheInvalidationTransport(0,
+                Collections.<InetSocketAddress>emptyList());
+        assertTrue(unconnected.encodeFlush(SERVICE_NAME, targets).size() > 1);
+
+        nodes.get(0).send(SERVICE_NAME, targets);
+        waitUntilEvicted(cacheManagers.get(1).getCache(ROLE_CACHE), "role-with-a-reasonably-long-key-1999");
+        assertEquals(0, nodes.get(1).getGapsDetected());
+    }
+
+    @Test
+    public void testGapClearsAllCaches() throws Exception {
+        DatagramCacheInvalidationTransport sender = nodes.get(0);
+        DatagramCacheInvalidationTransport receiver = nodes.get(1);
+        Cache roleCache = cacheManagers.get(1).getCache(ROLE_CACHE);
+        Cache groupCache = cacheManagers.get(1).getCache(GROUP_CACHE);
+        roleCache.put("role1", "value");
+        roleCache.put("role2", "value");
+        groupCache.put("group1", "value");
+
+        byte[] first = sender.encodeFlush(SERVICE_NAME,
+                Collections.singletonList(CacheTarget.singleEntry(ROLE_CACHE, "role1"))).get(0);
+        // encoded but never delivered
+        sender.encodeFlush(SERVICE_NAME, Collections.singletonList(CacheTarget.singleEntry(ROLE_CACHE, "lost")));
+        byte[] third = sender.encodeFlush(SERVICE_NAME,
+                Collections.singletonList(CacheTarget.singleEntry(ROLE_CACHE, "role3"))).get(0);
+
+        receiver.receive(first, 0, first.length);
+        assertNull(roleCache.get("role1"));
+        assertNotNull(roleCache.get("role2"));
+        assertEquals(0, receiver.getGapsDetected());
+
+        receiver.receive(third, 0, third.length);
+        assertEquals(1, receiver.getGapsDetected());
+        assertNull(roleCache.get("role2"));
+        assertNull(groupCache.get("group1"));
+
+        // a late or duplicate datagram is ignored
+        receiver.receive(first, 0, first.length);
+        assertEquals(1, receiver.getGapsDetected());
+    }
+
+    @Test
+    public void testHeartbeatDetectsTrailingLoss() throws Exception {
+        DatagramCacheInvalidationTransport sender = nodes.get(0);
+        DatagramCacheInvalidationTransport receiver = nodes.get(1);
+        Cache roleCache = cacheManagers.get(1).getCache(ROLE_CACHE);
+
+        sender.sendHeartbeat();
+        // heartbeats carry no targets, so give the receiver a moment to record the sender's sequence
+        Thread.sleep(200);
+        roleCache.put("role1", "value");
+
+        // the flush is lost, only the following heartbeat arrives
+        sender.encodeFlush(SERVICE_NAME, Collections.singletonList(CacheTarget.singleEntry(ROLE_CACHE, "other")));
+        sender.sendHeartbeat();
+        waitUntilEvicted(roleCache, "role1");
+        assertEquals(1, receiver.getGapsDetected());
+    }
+
+    @Test
+    public void testSharedInstanceStoppedWhenLastReleased() throws Exception {
+        SimpleConfig config = new SimpleConfig();
+        config.putProperty(DatagramCacheInvalidationTransport.PORT_PARAM, "0");
+        ConfigContext.init(config);
+        try {
+            DatagramCacheInvalidationTransport shared = DatagramCacheInvalidationTransport.getSharedInstance();
+            assertSame(shared, DatagramCacheInvalidationTransport.getSharedInstance());
+            assertTrue(shared.getLocalPort() > 0);
+
+            DatagramCacheInvalidationTransport.releaseSharedInstance();
+            assertTrue("still referenced", DatagramCacheInvalidationTransport.isSharedInstanceRunning());
+            assertTrue(shared.getLocalPort() > 0);
+
+            DatagramCacheInvalidationTransport.releaseSharedInstance();
+            assertFalse(DatagramCacheInvalidationTransport.isSharedInstanceRunning());
+            assertEquals("socket should be closed", 0, shared.getLocalPort());
+
+            // a later cache manager starts a new transport
+            DatagramCacheInvalidationTransport restarted = DatagramCacheInvalidationTransport.getSharedInstance();
+            assertNotSame(shared, restarted);
+            DatagramCacheInvalidationTransport.releaseSharedInstance();
+            assertFalse(DatagramCacheInvalidationTransport.isSharedInstanceRunning());
+        } finally {
+            ConfigContext.destroy();
+        }
+    }
+
+    private void waitUntilEvicted(Cache cache, String key) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.get(key) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull("entry " + key + " should have been invalidated", cache.get(key));
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.core.impl.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.cache.CacheTarget;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.framework.config.property.SimpleConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the flush counters of {@link DistributedCacheManagerDecorator} for flushes made outside of a transaction.  The
+ * flush window is long enough that the buffered targets are only sent when the decorator is destroyed.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DistributedCacheManagerDecoratorCountersTest {
+
+    private static final String SERVICE_NAME = "{http://rice.kuali.org/kim/v2_0}kimCacheAdminService";
+    private static final String ROLE_CACHE = "http://rice.kuali.org/kim/v2_0/RoleType";
+
+    private final List<Collection<CacheTarget>> messages = new ArrayList<Collection<CacheTarget>>();
+    private DistributedCacheManagerDecorator decorator;
+
+    @Before
+    public void setUp() {
+        SimpleConfig config = new SimpleConfig();
+        config.putProperty("rice.cache.distributedFlush.windowMillis", "600000");
+        config.putProperty("rice.cache.distributedFlush.entireCacheThreshold", "3");
+        ConfigContext.init(config);
+
+        decorator = new DistributedCacheManagerDecorator();
+        decorator.setCacheManager(new ConcurrentMapCacheManager(ROLE_CACHE));
+        decorator.setServiceName(SERVICE_NAME);
+        decorator.setInvalidationTransport(new RecordingTransport());
+        decorator.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        decorator.destroy();
+        ConfigContext.destroy();
+    }
+
+    @Test
+    public void testCounters() {
+        Cache cache = decorator.getCache(ROLE_CACHE);
+        cache.evict("role1");
+        cache.evict("role1");
+        cache.evict("role2");
+        assertEquals(3, decorator.getFlushTargetsRequested());
+        assertEquals(0, decorator.getFlushTargetsSent());
+        assertEquals("pending targets are not coalesced yet", 0, decorator.getFlushTargetsCoalesced());
+        assertEquals(0, decorator.getFlushMessagesSent());
+
+        decorator.destroy();
+        assertEquals(1, messages.size());
+        assertEquals(2, decorator.getFlushTargetsSent());
+        assertEquals(1, decorator.getFlushTargetsCoalesced());
+        assertEquals(1, decorator.getFlushMessagesSent());
+
+        // sent right away once destroyed
+        cache.evict("role3");
+        assertEquals(3, decorator.getFlushTargetsSent());
+        assertEquals(2, decorator.getFlushMessagesSent());
+    }
+
+    @Test
+    public void testCountersAboveThreshold() {
+        Cache cache = decorator.getCache(ROLE_CACHE);
+        for (int i = 0; i < 4; i++) {
+            cache.evict("role" + i);
+        }
+        decorator.destroy();
+        assertEquals(1, messages.size());
+        assertEquals(4, decorator.getFlushTargetsRequested());
+        assertEquals(1, decorator.getFlushTargetsSent());
+        assertEquals(3, decorator.getFlushTargetsCoalesced());
+        assertEquals(1, decorator.getFlushMessagesSent());
+    }
+
+    private final class RecordingTransport implements CacheInvalidationTransport {
+
+        @Override
+        public void send(String serviceName, Collection<CacheTarget> cacheTargets) {
+            messages.add(cacheTargets);
+        }
+
+        @Override
+        public void register(String serviceName, CacheManager localCacheManager) {
+        }
+
+        @Override
+        public void unregister(String serviceName) {
+        }
+    }
+
+}
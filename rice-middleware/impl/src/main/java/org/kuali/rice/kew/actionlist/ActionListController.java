@@ -61,6 +61,7 @@ import org.kuali.rice.krad.UserSession;
 import org.kuali.rice.krad.exception.AuthorizationException;
 import org.kuali.rice.krad.uif.util.ObjectPropertyUtils;
 import org.kuali.rice.krad.util.GlobalVariables;
+import org.kuali.rice.krad.util.KRADConstants;
 import org.kuali.rice.krad.web.controller.MethodAccessible;
 import org.kuali.rice.krad.web.controller.UifControllerBase;
 import org.kuali.rice.krad.web.form.UifFormBase;
@@ -389,6 +390,7 @@ public class ActionListController extends UifControllerBase{
             plog.log("done w/ addCustomActions");
             actionListForm.setUpdateActionList(false);
             plog.log("finished setting attributes, finishing action list fetch");
+            reportMassActionProgress();
         } catch (Exception e) {
             LOG.error("Error loading action list.", e);
         }
@@ -719,7 +721,9 @@ public class ActionListController extends UifControllerBase{
             index++;
         }
 
-        KEWServiceLocator.getWorkflowDocumentService().takeMassActions(getUserSession().getPrincipalId(), invocations);
+        MassActionProgress progress = KEWServiceLocator.getWorkflowDocumentService().takeMassActions(
+                getUserSession().getPrincipalId(), invocations);
+        getUserSession().addObject(MassActionProgress.SESSION_KEY, progress);
         messages.add(ActionMessages.GLOBAL_MESSAGE, new ActionMessage("general.routing.processed"));
 
         org.kuali.rice.kew.actionlist.web.ActionListForm
@@ -729,6 +733,24 @@ public class ActionListController extends UifControllerBase{
         return start(actionListForm);
     }
 
+    /**
+     * Reports the progress of the last mass action of the user while its actions are still being processed.
+     */
+    private void reportMassActionProgress() {
+        MassActionProgress progress = (MassActionProgress) getUserSession().retrieveObject(
+                MassActionProgress.SESSION_KEY);
+        if (progress == null) {
+            return;
+        }
+        progress.refresh();
+        if (progress.isComplete() || progress.isExpired()) {
+            getUserSession().removeObject(MassActionProgress.SESSION_KEY);
+            return;
+        }
+        GlobalVariables.getMessageMap().putInfo(KRADConstants.GLOBAL_MESSAGES, "actionList.massAction.inProgress",
+                String.valueOf(progress.getCompletedCount()), String.valueOf(progress.getTotalCount()));
+    }
+
     /**
     * Gets action item from list.
     *
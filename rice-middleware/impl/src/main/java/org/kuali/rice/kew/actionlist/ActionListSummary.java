@@ -0,0 +1,62 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.actionlist;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * The size of a principal's action list and the latest date one of its items was assigned, as cached by the
+ * {@link ActionListSummaryCache}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class ActionListSummary implements Serializable {
+
+    private static final long serialVersionUID = 5301856364851958718L;
+
+    private final int count;
+    private final int totalCount;
+    private final Timestamp maxDateAssigned;
+
+    public ActionListSummary(int count, int totalCount, Timestamp maxDateAssigned) {
+        this.count = count;
+        this.totalCount = totalCount;
+        this.maxDateAssigned = maxDateAssigned;
+    }
+
+    /**
+     * Returns the number of documents in the action list, not counting those only there as a secondary delegate.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of documents in the action list.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the latest date an item of the action list was assigned, or null if the action list is empty.
+     */
+    public Timestamp getMaxDateAssigned() {
+        return maxDateAssigned;
+    }
+
+}
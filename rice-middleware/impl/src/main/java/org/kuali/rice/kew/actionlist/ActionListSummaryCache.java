@@ -0,0 +1,237 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.actionlist;
+
+import org.kuali.rice.kew.actionitem.ActionItem;
+import org.kuali.rice.kew.actionlist.dao.ActionListDAO;
+import org.kuali.rice.kew.api.KewApiConstants;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Caches the {@link ActionListSummary} of the principals whose action list count is being asked for, so that the
+ * count does not have to be aggregated from the action items on every request.
+ *
+ * <p>The summaries are kept in the {@link #NAME} cache of the local cache manager.  Saving or deleting action items
+ * through the {@link org.kuali.rice.kew.actionlist.service.ActionListService} evicts the summary of their principals
+ * through the distributed cache manager, which flushes it on the other nodes once the transaction commits, and evicts
+ * it locally again after the commit.</p>
+ *
+ * <p>A summary loaded within a transaction is only cached once the transaction commits, so that counts read from
+ * uncommitted action items are never seen by others.  A summary is not cached at all if the summary of its principal
+ * has been evicted while it was being loaded.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ActionListSummaryCache {
+
+    /**
+     * The name of the cache holding the summaries, keyed by principal id.
+     */
+    public static final String NAME = KewApiConstants.Namespaces.KEW_NAMESPACE_2_0 + "/ActionListSummary";
+
+    /**
+     * The number of counters the evictions are tracked with, principals sharing a counter only cause loads which
+     * raced with an eviction to not be cached.
+     */
+    private static final int EVICTION_STRIPES = 64;
+
+    private ActionListDAO actionListDAO;
+    private CacheManager cacheManager;
+    private CacheManager distributedCacheManager;
+    private volatile boolean enabled = true;
+
+    private final AtomicLongArray evictions = new AtomicLongArray(EVICTION_STRIPES);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+
+    /**
+     * Returns the summary of the given principal's action list, loading it if it is not cached.
+     *
+     * @return the summary, or null if the cache is disabled, in which case the caller should query the action items
+     * instead
+     */
+    public ActionListSummary getSummary(String principalId) {
+        if (!enabled || principalId == null) {
+            return null;
+        }
+        Cache.ValueWrapper cached = getCache().get(principalId);
+        if (cached != null) {
+            hitCount.incrementAndGet();
+            return (ActionListSummary) cached.get();
+        }
+        final int stripe = stripe(principalId);
+        final long evictionCount = evictions.get(stripe);
+        final ActionListSummary summary = load(principalId);
+        loadCount.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            final String summaryPrincipalId = principalId;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                        cache(summaryPrincipalId, summary, stripe, evictionCount);
+                    }
+                }
+            });
+        } else {
+            cache(principalId, summary, stripe, evictionCount);
+        }
+        return summary;
+    }
+
+    private ActionListSummary load(String principalId) {
+        int count = actionListDAO.getCount(principalId);
+        List<Object> maxDateAndCount = actionListDAO.getMaxActionItemDateAssignedAndCountForUser(principalId);
+        Timestamp maxDateAssigned = null;
+        int totalCount = 0;
+        if (maxDateAndCount != null && !maxDateAndCount.isEmpty()) {
+            maxDateAssigned = (Timestamp) maxDateAndCount.get(0);
+            if (maxDateAndCount.size() > 1 && maxDateAndCount.get(1) != null) {
+                totalCount = ((Number) maxDateAndCount.get(1)).intValue();
+            }
+        }
+        return new ActionListSummary(count, totalCount, maxDateAssigned);
+    }
+
+    /**
+     * Caches the loaded summary unless the principal's summary has been evicted since the load started.  The eviction
+     * count is checked again after the put, as an eviction may run in between.
+     */
+    private void cache(String principalId, ActionListSummary summary, int stripe, long evictionCount) {
+        if (!enabled || evictions.get(stripe) != evictionCount) {
+            return;
+        }
+        Cache cache = getCache();
+        cache.put(principalId, summary);
+        if (evictions.get(stripe) != evictionCount) {
+            cache.evict(principalId);
+        }
+    }
+
+    /**
+     * Evicts the summary of the given action item's principal.
+     */
+    public void actionItemSaved(ActionItem actionItem) {
+        if (enabled && actionItem.getPrincipalId() != null) {
+            evict(Collections.singleton(actionItem.getPrincipalId()));
+        }
+    }
+
+    /**
+     * Evicts the summaries of the given action items' principals.
+     */
+    public void actionItemsDeleted(Collection<ActionItem> actionItems) {
+        if (!enabled || actionItems.isEmpty()) {
+            return;
+        }
+        Set<String> principalIds = new HashSet<String>();
+        for (ActionItem actionItem : actionItems) {
+            if (actionItem.getPrincipalId() != null) {
+                principalIds.add(actionItem.getPrincipalId());
+            }
+        }
+        evict(principalIds);
+    }
+
+    /**
+     * Evicts the summaries of the given principals through the distributed cache manager, which in a transaction
+     * queues the flush of the other nodes until it commits, and evicts them locally once the transaction commits.
+     */
+    private void evict(final Set<String> principalIds) {
+        Cache distributedCache = distributedCacheManager.getCache(NAME);
+        for (String principalId : principalIds) {
+            distributedCache.evict(principalId);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    evictLocally(principalIds);
+                }
+            });
+        } else {
+            evictLocally(principalIds);
+        }
+    }
+
+    private void evictLocally(Set<String> principalIds) {
+        Cache cache = getCache();
+        for (String principalId : principalIds) {
+            evictions.incrementAndGet(stripe(principalId));
+            cache.evict(principalId);
+        }
+    }
+
+    private static int stripe(String principalId) {
+        return (principalId.hashCode() & Integer.MAX_VALUE) % EVICTION_STRIPES;
+    }
+
+    private Cache getCache() {
+        return cacheManager.getCache(NAME);
+    }
+
+    public void setActionListDAO(ActionListDAO actionListDAO) {
+        this.actionListDAO = actionListDAO;
+    }
+
+    /**
+     * Sets the local cache manager the summaries are cached in.
+     */
+    public void setCacheManager(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Sets the cache manager which distributes the eviction of summaries to the other nodes.
+     */
+    public void setDistributedCacheManager(CacheManager distributedCacheManager) {
+        this.distributedCacheManager = distributedCacheManager;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled && cacheManager != null) {
+            getCache().clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+}
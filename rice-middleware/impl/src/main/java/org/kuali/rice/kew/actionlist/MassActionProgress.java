@@ -0,0 +1,105 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.actionlist;
+
+import org.kuali.rice.kew.service.KEWServiceLocator;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the progress of the actions taken on documents by a mass action from the action list, which are processed
+ * asynchronously.  Progress is measured by the documents on which the principal has since taken an action, so it is
+ * accurate whichever node processes the actions.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class MassActionProgress implements Serializable {
+
+    private static final long serialVersionUID = -2213413547424618367L;
+
+    /**
+     * The key under which the progress of the last mass action is kept in the user session.
+     */
+    public static final String SESSION_KEY = "MassActionProgress";
+
+    /**
+     * Mass actions are no longer tracked after this long, as actions which failed are never completed.
+     */
+    private static final long TRACKING_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private final String principalId;
+    private final List<String> documentIds;
+    private final Timestamp submittedDate;
+    private final Set<String> completedDocumentIds = new HashSet<String>();
+
+    public MassActionProgress(String principalId, List<String> documentIds, Timestamp submittedDate) {
+        this.principalId = principalId;
+        this.documentIds = Collections.unmodifiableList(new ArrayList<String>(documentIds));
+        this.submittedDate = submittedDate;
+    }
+
+    /**
+     * Checks which of the remaining documents have since been acted on.
+     */
+    public synchronized void refresh() {
+        if (isComplete()) {
+            return;
+        }
+        List<String> remainingDocumentIds = new ArrayList<String>(documentIds);
+        remainingDocumentIds.removeAll(completedDocumentIds);
+        completedDocumentIds.addAll(KEWServiceLocator.getActionTakenService().findDocumentIdsActedOnSince(
+                principalId, remainingDocumentIds, submittedDate));
+    }
+
+    public String getPrincipalId() {
+        return principalId;
+    }
+
+    public List<String> getDocumentIds() {
+        return documentIds;
+    }
+
+    public Timestamp getSubmittedDate() {
+        return submittedDate;
+    }
+
+    public int getTotalCount() {
+        return new HashSet<String>(documentIds).size();
+    }
+
+    public synchronized int getCompletedCount() {
+        return completedDocumentIds.size();
+    }
+
+    public synchronized boolean isComplete() {
+        return getCompletedCount() >= getTotalCount();
+    }
+
+    /**
+     * Returns true once the mass action is too old for its progress to be worth tracking.
+     */
+    public boolean isExpired() {
+        return System.currentTimeMillis() - submittedDate.getTime() > TRACKING_MILLIS;
+    }
+
+}
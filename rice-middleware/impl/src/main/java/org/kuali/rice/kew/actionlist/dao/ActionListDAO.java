@@ -17,6 +17,8 @@ package org.kuali.rice.kew.actionlist.dao;
 
 import java.util.List;
 
+import org.kuali.rice.core.api.criteria.Predicate;
+import org.kuali.rice.core.api.criteria.QueryResults;
 import org.kuali.rice.kew.actionitem.ActionItem;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 
@@ -42,6 +44,21 @@ public interface ActionListDAO {
      */
     public List<Object> getMaxActionItemDateAssignedAndCountForUser(String principalId);
 
+    /**
+     * Get one page of the documents whose action items match the given criteria, holding the action item with the
+     * highest priority of each of them.  The documents are sorted by the given attribute of their action items and then
+     * by document id, the total row count is the number of documents matching the criteria.
+     *
+     * @param criteria the criteria the action items have to match
+     * @param sortAttribute the property path of the action item attribute to sort the documents by, which is expected
+     * to be the same for all the action items of a document
+     * @param ascending whether to sort in ascending order
+     * @param startIndex the index of the first document of the page
+     * @param pageSize the maximum number of documents on the page
+     */
+    QueryResults<ActionItem> getActionListPage(List<Predicate> criteria, String sortAttribute, boolean ascending,
+            int startIndex, int pageSize);
+
     /**
      * Pulls a proxied version of the document route header with only the properties needed by the
      * action list display.
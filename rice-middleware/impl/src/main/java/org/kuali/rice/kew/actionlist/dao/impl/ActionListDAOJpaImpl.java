@@ -15,14 +15,50 @@
  */
 package org.kuali.rice.kew.actionlist.dao.impl;
 
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.DateTime;
+import org.kuali.rice.core.api.criteria.AndPredicate;
+import org.kuali.rice.core.api.criteria.CompositePredicate;
+import org.kuali.rice.core.api.criteria.CriteriaValue;
+import org.kuali.rice.core.api.criteria.EqualPredicate;
+import org.kuali.rice.core.api.criteria.GenericQueryResults;
+import org.kuali.rice.core.api.criteria.GreaterThanOrEqualPredicate;
+import org.kuali.rice.core.api.criteria.GreaterThanPredicate;
+import org.kuali.rice.core.api.criteria.InPredicate;
+import org.kuali.rice.core.api.criteria.LessThanOrEqualPredicate;
+import org.kuali.rice.core.api.criteria.LessThanPredicate;
+import org.kuali.rice.core.api.criteria.LikePredicate;
+import org.kuali.rice.core.api.criteria.MultiValuedPredicate;
+import org.kuali.rice.core.api.criteria.NotEqualPredicate;
+import org.kuali.rice.core.api.criteria.NotInPredicate;
+import org.kuali.rice.core.api.criteria.NotLikePredicate;
+import org.kuali.rice.core.api.criteria.NotNullPredicate;
+import org.kuali.rice.core.api.criteria.NullPredicate;
+import org.kuali.rice.core.api.criteria.OrPredicate;
+import org.kuali.rice.core.api.criteria.Predicate;
+import org.kuali.rice.core.api.criteria.PropertyPathPredicate;
+import org.kuali.rice.core.api.criteria.QueryResults;
+import org.kuali.rice.core.api.criteria.SingleValuedPredicate;
+import org.kuali.rice.kew.actionitem.ActionItem;
 import org.kuali.rice.kew.actionlist.dao.ActionListDAO;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 
 import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * JPA implementation of the action list DAO for functions not easily handled by the data layer.
@@ -57,6 +93,156 @@ public class ActionListDAOJpaImpl implements ActionListDAO {
         return Arrays.asList( query.getSingleResult() );
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The documents of the page are counted and paged by grouping the matching action items by document, after
+     * which only the action items of the documents on the page are loaded to pick the one with the highest
+     * priority.</p>
+     */
+    @Override
+    public QueryResults<ActionItem> getActionListPage(List<Predicate> criteria, String sortAttribute,
+            boolean ascending, int startIndex, int pageSize) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
+        Root<ActionItem> countRoot = countQuery.from(ActionItem.class);
+        countQuery.select(builder.countDistinct(countRoot.get("documentId")));
+        countQuery.where(toJpaPredicates(builder, countRoot, criteria));
+        int totalCount = entityManager.createQuery(countQuery).getSingleResult().intValue();
+
+        List<String> documentIds = new ArrayList<String>();
+        if (startIndex < totalCount) {
+            CriteriaQuery<Object[]> documentQuery = builder.createQuery(Object[].class);
+            Root<ActionItem> documentRoot = documentQuery.from(ActionItem.class);
+            Path<String> documentId = documentRoot.get("documentId");
+            Path sortPath = getPath(documentRoot, sortAttribute);
+            Expression<?> sortValue = builder.greatest(sortPath);
+            documentQuery.multiselect(documentId, sortValue);
+            documentQuery.where(toJpaPredicates(builder, documentRoot, criteria));
+            documentQuery.groupBy(documentId);
+            documentQuery.orderBy(getOrder(builder, sortValue, ascending), getOrder(builder, documentId, ascending));
+            TypedQuery<Object[]> query = entityManager.createQuery(documentQuery);
+            query.setFirstResult(startIndex);
+            query.setMaxResults(pageSize);
+            for (Object[] row : query.getResultList()) {
+                documentIds.add((String) row[0]);
+            }
+        }
+
+        Map<String, ActionItem> actionItems = new HashMap<String, ActionItem>();
+        if (!documentIds.isEmpty()) {
+            CriteriaQuery<ActionItem> actionItemQuery = builder.createQuery(ActionItem.class);
+            Root<ActionItem> actionItemRoot = actionItemQuery.from(ActionItem.class);
+            actionItemQuery.where(builder.and(toJpaPredicates(builder, actionItemRoot, criteria)),
+                    actionItemRoot.get("documentId").in(documentIds));
+            ActionListPriorityComparator comparator = new ActionListPriorityComparator();
+            for (ActionItem actionItem : entityManager.createQuery(actionItemQuery).getResultList()) {
+                ActionItem existingActionItem = actionItems.get(actionItem.getDocumentId());
+                if (existingActionItem == null || comparator.compare(actionItem, existingActionItem) > 0) {
+                    actionItems.put(actionItem.getDocumentId(), actionItem);
+                }
+            }
+        }
+
+        List<ActionItem> page = new ArrayList<ActionItem>();
+        for (String documentId : documentIds) {
+            // the action items of a document may have been deleted since it was paged
+            if (actionItems.containsKey(documentId)) {
+                page.add(actionItems.get(documentId));
+            }
+        }
+        GenericQueryResults.Builder<ActionItem> results = GenericQueryResults.Builder.create();
+        results.setResults(page);
+        results.setTotalRowCount(Integer.valueOf(totalCount));
+        results.setMoreResultsAvailable(Boolean.valueOf(startIndex + documentIds.size() < totalCount));
+        return results.build();
+    }
+
+    private static Order getOrder(CriteriaBuilder builder, Expression<?> expression, boolean ascending) {
+        return ascending ? builder.asc(expression) : builder.desc(expression);
+    }
+
+    private static <T> Path<T> getPath(Root<?> root, String propertyPath) {
+        Path<?> path = root;
+        for (String attribute : StringUtils.split(propertyPath, '.')) {
+            path = path.get(attribute);
+        }
+        return (Path<T>) path;
+    }
+
+    private static javax.persistence.criteria.Predicate[] toJpaPredicates(CriteriaBuilder builder, Root<?> root,
+            Collection<Predicate> predicates) {
+        List<javax.persistence.criteria.Predicate> jpaPredicates = new ArrayList<javax.persistence.criteria.Predicate>();
+        for (Predicate predicate : predicates) {
+            jpaPredicates.add(toJpaPredicate(builder, root, predicate));
+        }
+        return jpaPredicates.toArray(new javax.persistence.criteria.Predicate[jpaPredicates.size()]);
+    }
+
+    /**
+     * Translates the criteria the action list is filtered by into a JPA predicate, the action list filter only uses
+     * simple comparisons combined by and and or.
+     */
+    @SuppressWarnings("unchecked")
+    private static javax.persistence.criteria.Predicate toJpaPredicate(CriteriaBuilder builder, Root<?> root,
+            Predicate predicate) {
+        if (predicate instanceof AndPredicate) {
+            return builder.and(toJpaPredicates(builder, root, ((CompositePredicate) predicate).getPredicates()));
+        } else if (predicate instanceof OrPredicate) {
+            return builder.or(toJpaPredicates(builder, root, ((CompositePredicate) predicate).getPredicates()));
+        } else if (predicate instanceof NullPredicate) {
+            return builder.isNull(getPath(root, ((PropertyPathPredicate) predicate).getPropertyPath()));
+        } else if (predicate instanceof NotNullPredicate) {
+            return builder.isNotNull(getPath(root, ((PropertyPathPredicate) predicate).getPropertyPath()));
+        } else if (predicate instanceof InPredicate || predicate instanceof NotInPredicate) {
+            MultiValuedPredicate multiValuedPredicate = (MultiValuedPredicate) predicate;
+            List<Object> values = new ArrayList<Object>();
+            for (CriteriaValue<?> value : multiValuedPredicate.getValues()) {
+                values.add(getValue(value));
+            }
+            javax.persistence.criteria.Predicate in = getPath(root, multiValuedPredicate.getPropertyPath()).in(values);
+            return (predicate instanceof InPredicate) ? in : builder.not(in);
+        } else if (predicate instanceof SingleValuedPredicate) {
+            SingleValuedPredicate singleValuedPredicate = (SingleValuedPredicate) predicate;
+            Path path = getPath(root, singleValuedPredicate.getPropertyPath());
+            Object value = getValue(singleValuedPredicate.getValue());
+            if (predicate instanceof EqualPredicate) {
+                return builder.equal(path, value);
+            } else if (predicate instanceof NotEqualPredicate) {
+                return builder.notEqual(path, value);
+            } else if (predicate instanceof GreaterThanPredicate) {
+                return builder.greaterThan(path, (Comparable) value);
+            } else if (predicate instanceof GreaterThanOrEqualPredicate) {
+                return builder.greaterThanOrEqualTo(path, (Comparable) value);
+            } else if (predicate instanceof LessThanPredicate) {
+                return builder.lessThan(path, (Comparable) value);
+            } else if (predicate instanceof LessThanOrEqualPredicate) {
+                return builder.lessThanOrEqualTo(path, (Comparable) value);
+            } else if (predicate instanceof LikePredicate) {
+                return builder.like(path, getLikePattern(value));
+            } else if (predicate instanceof NotLikePredicate) {
+                return builder.notLike(path, getLikePattern(value));
+            }
+        }
+        throw new IllegalArgumentException("Unsupported action list criteria: " + predicate);
+    }
+
+    private static Object getValue(CriteriaValue<?> criteriaValue) {
+        Object value = criteriaValue.getValue();
+        if (value instanceof DateTime) {
+            return new Timestamp(((DateTime) value).getMillis());
+        }
+        return value;
+    }
+
+    /**
+     * Converts the lookup wildcards the data layer accepts in like patterns into their JPQL equivalents.
+     */
+    private static String getLikePattern(Object value) {
+        return value.toString().replace('*', '%').replace('?', '_');
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -17,7 +17,9 @@ package org.kuali.rice.kew.actionlist.service;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import org.kuali.rice.core.api.criteria.QueryResults;
 import org.kuali.rice.kew.actionitem.ActionItem;
 import org.kuali.rice.kew.actionitem.OutboxItem;
 import org.kuali.rice.kew.actionlist.ActionListFilter;
@@ -39,6 +41,43 @@ public interface ActionListService {
 
     public Collection<ActionItem> getActionList(String principalId, ActionListFilter filter);
 
+    /**
+     * Returns whether the action list can be sorted by the given sort criterion by
+     * {@link #getActionListPage(String, ActionListFilter, String, boolean, int, int)}.  An action list which isn't
+     * sorted by a column can always be, it is then paged in a default order.
+     *
+     * @param sortCriterion the name of an action list column's sort property, may be blank if there is no sort
+     */
+    public boolean isSortableInDatabase(String sortCriterion);
+
+    /**
+     * Returns the unfiltered action lists of the given principals, as {@link #getActionList(String, ActionListFilter)}
+     * would return them without a filter, loading the action items of all of them at once.
+     *
+     * @param principalIds the principals whose action lists to return
+     * @return the action lists keyed by principal id, principals with an empty action list are left out
+     */
+    public Map<String, Collection<ActionItem>> getActionLists(Collection<String> principalIds);
+
+    /**
+     * Returns one page of the action list which {@link #getActionList(String, ActionListFilter)} would return, sorted
+     * by the database.  Only the action items themselves are loaded, the documents of the action items on the page are
+     * left to be loaded as they are displayed.
+     *
+     * @param principalId the principal whose action list to return
+     * @param filter the filter to apply to the action list, may be null
+     * @param sortCriterion the name of the column's sort property to sort by, which must be sortable in the database,
+     * if blank the documents are sorted by their create date and then by document id
+     * @param ascending whether to sort in ascending order
+     * @param startIndex the index of the first action item of the page within the whole action list
+     * @param pageSize the maximum number of action items on the page
+     * @return the action items of the page, along with the size of the whole action list as the total row count
+     * @throws org.kuali.rice.core.api.exception.RiceIllegalArgumentException if the action list can't be sorted by the
+     * given sort criterion in the database
+     */
+    public QueryResults<ActionItem> getActionListPage(String principalId, ActionListFilter filter, String sortCriterion,
+            boolean ascending, int startIndex, int pageSize);
+
     public Collection<ActionItem> getActionListForSingleDocument(String documentId);
 
     /**
@@ -63,6 +102,16 @@ public interface ActionListService {
 
     public void deleteActionItem(ActionItem actionItem, boolean forceIntoOutbox);
 
+    /**
+     * Deletes the given action items and puts them into the outbox as {@link #deleteActionItem(ActionItem, boolean)}
+     * does, but with a single delete statement per batch of action items and with the outbox state of all of the
+     * documents loaded at once.
+     *
+     * @param actionItems the action items to delete
+     * @param forceIntoOutbox whether to put the action items into the outbox even if no action was taken on them
+     */
+    public void deleteActionItems(List<ActionItem> actionItems, boolean forceIntoOutbox);
+
     public void deleteByDocumentId(String documentId);
 
     public Collection<ActionItem> findByPrincipalId(String principalId);
@@ -77,6 +126,11 @@ public interface ActionListService {
 
     public ActionItem findByActionItemId(String actionItemId);
 
+    /**
+     * Returns the action items with the given ids which exist, in no particular order.
+     */
+    public List<ActionItem> findByActionItemIds(Collection<String> actionItemIds);
+
     /**
      * Retrieves the number of Action List items in the given user's primary Action List (does not include secondary delegations)
      */
@@ -18,16 +18,21 @@ package org.kuali.rice.kew.actionlist.service.impl;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.criteria.OrderByField;
+import org.kuali.rice.core.api.criteria.OrderDirection;
 import org.kuali.rice.core.api.criteria.Predicate;
 import org.kuali.rice.core.api.criteria.QueryByCriteria;
 import org.kuali.rice.core.api.criteria.QueryResults;
 import org.kuali.rice.core.api.datetime.DateTimeService;
 import org.kuali.rice.core.api.delegation.DelegationType;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
 import org.kuali.rice.coreservice.framework.CoreFrameworkServiceLocator;
 import org.kuali.rice.kew.actionitem.ActionItem;
 import org.kuali.rice.kew.actionitem.ActionItemBase;
 import org.kuali.rice.kew.actionitem.OutboxItem;
 import org.kuali.rice.kew.actionlist.ActionListFilter;
+import org.kuali.rice.kew.actionlist.ActionListSummary;
+import org.kuali.rice.kew.actionlist.ActionListSummaryCache;
 import org.kuali.rice.kew.actionlist.dao.ActionListDAO;
 import org.kuali.rice.kew.actionlist.dao.impl.ActionListPriorityComparator;
 import org.kuali.rice.kew.actionlist.service.ActionListService;
@@ -52,13 +57,18 @@ import org.kuali.rice.krad.util.KRADConstants;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.kuali.rice.core.api.criteria.PredicateFactory.*;
 
@@ -71,6 +81,29 @@ public class ActionListServiceImpl implements ActionListService {
 
     private static final org.apache.log4j.Logger LOG = org.apache.log4j.Logger.getLogger(ActionListServiceImpl.class);
     private static final Integer DEFAULT_OUTBOX_ITEM_LIMIT = Integer.valueOf(10000);
+    // kept below the number of values Oracle allows in an IN list
+    private static final int IN_LIST_SIZE = 1000;
+
+    /**
+     * The action item attributes to sort by in the database for the sort properties of the action list columns which
+     * can be.
+     */
+    private static final Map<String, String> DATABASE_SORT_ATTRIBUTES;
+    static {
+        Map<String, String> sortAttributes = new HashMap<String, String>();
+        sortAttributes.put("documentId", "documentId");
+        sortAttributes.put("docLabel", "docLabel");
+        sortAttributes.put("docTitle", "docTitle");
+        sortAttributes.put("routeHeaderCreateDate", "routeHeader.createDate");
+        sortAttributes.put("routeHeader.createDate", "routeHeader.createDate");
+        DATABASE_SORT_ATTRIBUTES = Collections.unmodifiableMap(sortAttributes);
+    }
+
+    /**
+     * The action item attribute to sort by in the database when the action list isn't sorted by a column, the documents
+     * are then sorted by document id.
+     */
+    private static final String DEFAULT_DATABASE_SORT_ATTRIBUTE = "routeHeader.createDate";
 
     protected DataObjectService dataObjectService;
     protected NotificationService notificationService;
@@ -82,6 +115,8 @@ public class ActionListServiceImpl implements ActionListService {
 
     protected ActionListDAO actionListDAO;
 
+    protected ActionListSummaryCache actionListSummaryCache;
+
     @Override
     public Collection<Recipient> findUserSecondaryDelegators(String principalId) {
 
@@ -150,13 +185,76 @@ public class ActionListServiceImpl implements ActionListService {
             LOG.debug("found " + results.getResults().size() + " action items for user " + principalId);
         }
 
+        setFilterLegend(filter, filteredByItems);
+
+        return createActionListForUser(results.getResults());
+    }
+
+    @Override
+    public boolean isSortableInDatabase(String sortCriterion) {
+        return StringUtils.isBlank(sortCriterion) || DATABASE_SORT_ATTRIBUTES.containsKey(sortCriterion);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The database filters, sorts, pages and counts the documents, only the action items of the documents on the
+     * page are loaded, without their documents.  An action list without a sort criterion is sorted by document
+     * create date and then by document id.</p>
+     */
+    @Override
+    public QueryResults<ActionItem> getActionListPage(String principalId, ActionListFilter filter, String sortCriterion,
+            boolean ascending, int startIndex, int pageSize) {
+        String sortAttribute = StringUtils.isBlank(sortCriterion) ? DEFAULT_DATABASE_SORT_ATTRIBUTE
+                : DATABASE_SORT_ATTRIBUTES.get(sortCriterion);
+        if (sortAttribute == null) {
+            throw new RiceIllegalArgumentException("The action list can't be sorted by " + sortCriterion
+                    + " in the database");
+        }
+        if (startIndex < 0 || pageSize < 1) {
+            throw new RiceIllegalArgumentException("Invalid page starting at " + startIndex + " of size " + pageSize);
+        }
+        List<String> filteredByItems = new ArrayList<String>();
+        List<Predicate> crit = handleActionItemCriteria(principalId, filter, filteredByItems);
+        if ( LOG.isDebugEnabled() ) {
+            LOG.debug("running query to get action list page for criteria " + crit + " sorted by " + sortAttribute);
+        }
+        QueryResults<ActionItem> results = actionListDAO.getActionListPage(crit, sortAttribute, ascending, startIndex,
+                pageSize);
+
+        setFilterLegend(filter, filteredByItems);
+
+        return results;
+    }
+
+    @Override
+    public Map<String, Collection<ActionItem>> getActionLists(Collection<String> principalIds) {
+        Map<String, Collection<ActionItem>> actionLists = new HashMap<String, Collection<ActionItem>>();
+        for (List<String> ids : partition(new LinkedHashSet<String>(principalIds))) {
+            QueryByCriteria.Builder query = QueryByCriteria.Builder.create();
+            query.setPredicates(in("principalId", ids));
+            query.setOrderByFields(OrderByField.Builder.create("principalId", OrderDirection.ASCENDING).build());
+            List<ActionItem> actionItems = dataObjectService.findMatching(ActionItem.class, query.build()).getResults();
+            // the action items come grouped by principal, so each action list is complete once the next one starts
+            int start = 0;
+            for (int index = 1; index <= actionItems.size(); index++) {
+                if (index == actionItems.size() || !actionItems.get(index).getPrincipalId().equals(
+                        actionItems.get(start).getPrincipalId())) {
+                    actionLists.put(actionItems.get(start).getPrincipalId(), new ArrayList<ActionItem>(
+                            createActionListForUser(actionItems.subList(start, index))));
+                    start = index;
+                }
+            }
+        }
+        return actionLists;
+    }
+
+    private void setFilterLegend(ActionListFilter filter, List<String> filteredByItems) {
         if (filter != null) {
             boolean filterOn = !filteredByItems.isEmpty();
             filter.setFilterOn(filterOn);
             filter.setFilterLegend(StringUtils.join(filteredByItems, ", "));
         }
-
-        return createActionListForUser(results.getResults());
     }
 
     protected List<Predicate> handleActionItemCriteria( String principalId, ActionListFilter filter, List<String> filteredByItems ) {
@@ -512,6 +610,9 @@ public class ActionListServiceImpl implements ActionListService {
 
     protected void deleteActionItem(ActionItem actionItem, boolean forceIntoOutbox, boolean putInOutbox) {
         dataObjectService.delete(actionItem);
+        if (actionListSummaryCache != null) {
+            actionListSummaryCache.actionItemsDeleted(Collections.singletonList(actionItem));
+        }
         // remove notification from KCB
         notificationService.removeNotification(Collections.singletonList(ActionItem.to(actionItem)));
         if (putInOutbox) {
@@ -519,8 +620,114 @@ public class ActionListServiceImpl implements ActionListService {
         }
     }
 
+    @Override
+    public void deleteActionItems(List<ActionItem> actionItems, boolean forceIntoOutbox) {
+        if (actionItems == null || actionItems.isEmpty()) {
+            return;
+        }
+        // the outbox items are determined before deleting as that clears the action items from the persistence context
+        List<OutboxItem> outboxItems = createOutboxItems(actionItems, forceIntoOutbox);
+        List<String> actionItemIds = new ArrayList<String>(actionItems.size());
+        List<org.kuali.rice.kew.api.action.ActionItem> notifications =
+                new ArrayList<org.kuali.rice.kew.api.action.ActionItem>(actionItems.size());
+        for (ActionItem actionItem : actionItems) {
+            actionItemIds.add(actionItem.getId());
+            notifications.add(ActionItem.to(actionItem));
+        }
+        for (List<String> ids : partition(actionItemIds)) {
+            dataObjectService.deleteMatching(ActionItem.class, QueryByCriteria.Builder.fromPredicates(in("id", ids)));
+        }
+        if (actionListSummaryCache != null) {
+            actionListSummaryCache.actionItemsDeleted(actionItems);
+        }
+        // remove notifications from KCB
+        notificationService.removeNotification(notifications);
+        for (OutboxItem outboxItem : outboxItems) {
+            saveOutboxItem(outboxItem);
+        }
+    }
+
+    /**
+     * Creates the outbox items for the given action items as {@link #saveOutboxItem(ActionItem, boolean)} would, but
+     * looking up the outbox preference of each principal, the existing outbox items and the documents only once.
+     */
+    protected List<OutboxItem> createOutboxItems(List<ActionItem> actionItems, boolean forceIntoOutbox) {
+        List<OutboxItem> outboxItems = new ArrayList<OutboxItem>();
+        if (!ConfigContext.getCurrentContextConfig().getOutBoxOn()) {
+            return outboxItems;
+        }
+        Map<String, List<ActionItem>> actionItemsByPrincipal = new LinkedHashMap<String, List<ActionItem>>();
+        Set<String> documentIds = new HashSet<String>();
+        for (ActionItem actionItem : actionItems) {
+            List<ActionItem> principalActionItems = actionItemsByPrincipal.get(actionItem.getPrincipalId());
+            if (principalActionItems == null) {
+                principalActionItems = new ArrayList<ActionItem>();
+                actionItemsByPrincipal.put(actionItem.getPrincipalId(), principalActionItems);
+            }
+            principalActionItems.add(actionItem);
+            documentIds.add(actionItem.getDocumentId());
+        }
+        Set<String> savedDocumentIds = new HashSet<String>();
+        for (DocumentRouteHeaderValue document : routeHeaderService.getRouteHeaders(documentIds)) {
+            if (KewApiConstants.ROUTE_HEADER_SAVED_CD.equals(document.getDocRouteStatus())) {
+                savedDocumentIds.add(document.getDocumentId());
+            }
+        }
+        for (Map.Entry<String, List<ActionItem>> entry : actionItemsByPrincipal.entrySet()) {
+            String principalId = entry.getKey();
+            if (!isUsingOutbox(principalId)) {
+                continue;
+            }
+            Set<String> outboxDocumentIds = getOutboxDocumentIds(principalId, entry.getValue());
+            for (ActionItem actionItem : entry.getValue()) {
+                if (savedDocumentIds.contains(actionItem.getDocumentId())
+                        || !outboxDocumentIds.add(actionItem.getDocumentId())) {
+                    continue;
+                }
+                if (forceIntoOutbox || hasTakenAction(actionItem)) {
+                    outboxItems.add(new OutboxItem(actionItem));
+                }
+            }
+        }
+        return outboxItems;
+    }
+
+    private Set<String> getOutboxDocumentIds(String principalId, List<ActionItem> actionItems) {
+        Set<String> documentIds = new HashSet<String>();
+        for (ActionItem actionItem : actionItems) {
+            documentIds.add(actionItem.getDocumentId());
+        }
+        Set<String> outboxDocumentIds = new HashSet<String>();
+        for (List<String> ids : partition(documentIds)) {
+            QueryResults<OutboxItem> results = dataObjectService.findMatching(OutboxItem.class,
+                    QueryByCriteria.Builder.fromPredicates(equal("principalId", principalId), in("documentId", ids)));
+            for (OutboxItem outboxItem : results.getResults()) {
+                outboxDocumentIds.add(outboxItem.getDocumentId());
+            }
+        }
+        return outboxDocumentIds;
+    }
+
+    private boolean hasTakenAction(ActionItem actionItem) {
+        ActionRequestValue actionRequest = actionRequestService.findByActionRequestId(actionItem.getActionRequestId());
+        ActionTakenValue actionTaken = actionRequest.getActionTaken();
+        return actionTaken != null && actionTaken.getPrincipalId().equals(actionItem.getPrincipalId());
+    }
+
+    private static List<List<String>> partition(Collection<String> values) {
+        List<String> valueList = new ArrayList<String>(values);
+        List<List<String>> partitions = new ArrayList<List<String>>();
+        for (int start = 0; start < valueList.size(); start += IN_LIST_SIZE) {
+            partitions.add(valueList.subList(start, Math.min(start + IN_LIST_SIZE, valueList.size())));
+        }
+        return partitions;
+    }
+
     @Override
     public void deleteByDocumentId(String documentId) {
+        if (actionListSummaryCache != null && actionListSummaryCache.isEnabled()) {
+            actionListSummaryCache.actionItemsDeleted(findByDocumentId(documentId));
+        }
         dataObjectService.deleteMatching(ActionItem.class, QueryByCriteria.Builder.forAttribute("documentId", documentId).build());
     }
 
@@ -573,7 +780,7 @@ public class ActionListServiceImpl implements ActionListService {
         actionItem.setPrincipalId(actionRequest.getPrincipalId());
         actionItem.setDocumentId(actionRequest.getDocumentId());
         actionItem.setDateAssigned(new Timestamp(new Date().getTime()));
-        actionItem.setDocHandlerURL(docType.getResolvedDocumentHandlerUrl());
+        actionItem.setDocHandlerURL(docType.resolve().getResolvedDocumentHandlerUrl());
         actionItem.setDocLabel(docType.getLabel());
         actionItem.setDocTitle(routeHeader.getDocTitle());
         actionItem.setGroupId(actionRequest.getGroupId());
@@ -602,7 +809,11 @@ public class ActionListServiceImpl implements ActionListService {
 
     @Override
     public ActionItem saveActionItem(ActionItem actionItem) {
-        return saveActionItemBase(actionItem);
+        ActionItem savedActionItem = saveActionItemBase(actionItem);
+        if (actionListSummaryCache != null) {
+            actionListSummaryCache.actionItemSaved(savedActionItem);
+        }
+        return savedActionItem;
     }
 
     @Override
@@ -626,8 +837,22 @@ public class ActionListServiceImpl implements ActionListService {
         return dataObjectService.find(ActionItem.class, actionItemId);
     }
 
+    @Override
+    public List<ActionItem> findByActionItemIds(Collection<String> actionItemIds) {
+        List<ActionItem> actionItems = new ArrayList<ActionItem>();
+        for (List<String> ids : partition(new LinkedHashSet<String>(actionItemIds))) {
+            actionItems.addAll(dataObjectService.findMatching(ActionItem.class,
+                    QueryByCriteria.Builder.fromPredicates(in("id", ids))).getResults());
+        }
+        return actionItems;
+    }
+
     @Override
     public int getCount(String principalId) {
+        ActionListSummary summary = getActionListSummary(principalId);
+        if (summary != null) {
+            return summary.getCount();
+        }
         return actionListDAO.getCount(principalId);
     }
 
@@ -639,7 +864,14 @@ public class ActionListServiceImpl implements ActionListService {
         // KULRICE-12318 IU contribution, not sure if this is still needed with the JPA implementation
         // as no result should cause a no result exception, going to add it to make sure.
         List<Object> verifiedList = new ArrayList<Object>();
-        List<Object> maxDateAndUserCount =  getActionListDAO().getMaxActionItemDateAssignedAndCountForUser(principalId);
+        List<Object> maxDateAndUserCount;
+        ActionListSummary summary = getActionListSummary(principalId);
+        if (summary != null) {
+            maxDateAndUserCount = Arrays.<Object>asList(summary.getMaxDateAssigned(), Long.valueOf(
+                    summary.getTotalCount()));
+        } else {
+            maxDateAndUserCount = getActionListDAO().getMaxActionItemDateAssignedAndCountForUser(principalId);
+        }
 
         verifiedList.add(0, verifyMaxActionItemDateAssigned(maxDateAndUserCount));
         verifiedList.add(1, verifyCountForUser(maxDateAndUserCount));
@@ -647,6 +879,17 @@ public class ActionListServiceImpl implements ActionListService {
         return verifiedList;
     }
 
+    /**
+     * Returns the maintained summary of the principal's action list, or null if it is not available, in which case
+     * the action items are to be queried.
+     */
+    protected ActionListSummary getActionListSummary(String principalId) {
+        if (actionListSummaryCache == null) {
+            return null;
+        }
+        return actionListSummaryCache.getSummary(principalId);
+    }
+
     /**
      * Ensures the max action item date assigned is a valid {@link Timestamp} otherwise the current time stamp is
      *  returned
@@ -756,20 +999,7 @@ public class ActionListServiceImpl implements ActionListService {
      */
     @Override
     public OutboxItem saveOutboxItem(ActionItem actionItem, boolean forceIntoOutbox) {
-        Boolean isUsingOutBox = true;
-        List<UserOptions> options = userOptionsService.findByUserQualified(actionItem.getPrincipalId(), KewApiConstants.USE_OUT_BOX);
-        if (options == null || options.isEmpty()){
-            isUsingOutBox = true;
-        } else {
-            for ( UserOptions u : options ) {
-                if ( !StringUtils.equals(u.getOptionVal(), "yes") ) {
-                    isUsingOutBox = false;
-                    break;
-                }
-            }
-        }
-
-        if (isUsingOutBox
+        if (isUsingOutbox(actionItem.getPrincipalId())
                 && ConfigContext.getCurrentContextConfig().getOutBoxOn()
                 && getOutboxItemByDocumentIdUserId(actionItem.getDocumentId(), actionItem.getPrincipalId()) == null
                 && !routeHeaderService.getRouteHeader(actionItem.getDocumentId()).getDocRouteStatus().equals(
@@ -788,6 +1018,21 @@ public class ActionListServiceImpl implements ActionListService {
         return null;
     }
 
+    /**
+     * Returns true unless the given principal has turned off their outbox.
+     */
+    protected boolean isUsingOutbox(String principalId) {
+        List<UserOptions> options = userOptionsService.findByUserQualified(principalId, KewApiConstants.USE_OUT_BOX);
+        if (options != null) {
+            for ( UserOptions u : options ) {
+                if ( !StringUtils.equals(u.getOptionVal(), "yes") ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     protected OutboxItem getOutboxItemByDocumentIdUserId(String documentId, String principalId) {
         Map<String,String> criteria = new HashMap<String, String>(2);
         criteria.put( "principalId", principalId );
@@ -865,6 +1110,10 @@ public class ActionListServiceImpl implements ActionListService {
         this.userOptionsService = userOptionsService;
     }
 
+    public void setActionListSummaryCache(ActionListSummaryCache actionListSummaryCache) {
+        this.actionListSummaryCache = actionListSummaryCache;
+    }
+
     public void setRouteHeaderService(RouteHeaderService routeHeaderService) {
         this.routeHeaderService = routeHeaderService;
     }
@@ -47,6 +47,7 @@ import org.displaytag.pagination.PaginatedList;
 import org.displaytag.properties.SortOrderEnum;
 import org.displaytag.util.LookupUtil;
 import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.criteria.QueryResults;
 import org.kuali.rice.core.api.delegation.DelegationType;
 import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
 import org.kuali.rice.core.api.exception.RiceRuntimeException;
@@ -55,6 +56,7 @@ import org.kuali.rice.kew.actionitem.ActionItemBase;
 import org.kuali.rice.kew.actionitem.OutboxItem;
 import org.kuali.rice.kew.actionlist.ActionListFilter;
 import org.kuali.rice.kew.actionlist.ActionToTake;
+import org.kuali.rice.kew.actionlist.MassActionProgress;
 import org.kuali.rice.kew.actionlist.PaginatedActionList;
 import org.kuali.rice.kew.actionlist.service.ActionListService;
 import org.kuali.rice.kew.actionrequest.Recipient;
@@ -201,6 +203,8 @@ public class ActionListAction extends KualiAction {
         form.setDefaultActionToTake("NONE");
 
         boolean freshActionList = true;
+        // the size of the whole action list when only the current page of it is fetched
+        Integer pagedActionListSize = null;
         // retrieve cached action list
         List<? extends ActionItemBase> actionList = (List<? extends ActionItemBase>)request.getSession().getAttribute(ACTION_LIST_KEY);
         plog.log("Time to initialize");
@@ -279,9 +283,32 @@ public class ActionListAction extends KualiAction {
                 actionList = null;
             }
 
+            String pageSortCriterion = sortCriterion != null ? sortCriterion : form.getCurrentSort();
+            String pageSortDirection = form.getCurrentDir();
             if (isOutboxMode(form, request, preferences)) {
                 actionList = new ArrayList<OutboxItem>(actionListSrv.getOutbox(principalId, filter));
                 form.setOutBoxEmpty(actionList.isEmpty());
+            } else if (actionListSrv.isSortableInDatabase(pageSortCriterion)) {
+                // the database sorts the action list, so only the current page of it needs to be fetched, an action
+                // list without a sort is paged in the database's default order
+                boolean ascending = !SortOrderEnum.DESCENDING.equals(sortCriterion != null
+                        || form.getCurrentDir() == null ? sortOrder : parseSortOrder(form.getCurrentDir()));
+                pageSortDirection = getSortOrderValue(ascending ? SortOrderEnum.ASCENDING : SortOrderEnum.DESCENDING);
+                int pageSize = getPageSize(preferences);
+                QueryResults<ActionItem> pageResults = actionListSrv.getActionListPage(principalId, filter,
+                        pageSortCriterion, ascending, (form.getCurrentPage() - 1) * pageSize, pageSize);
+                int lastPage = Math.max(1, (pageResults.getTotalRowCount() + pageSize - 1) / pageSize);
+                if (form.getCurrentPage() > lastPage) {
+                    // action items were taken off the action list since the page was displayed
+                    form.setCurrentPage(lastPage);
+                    pageResults = actionListSrv.getActionListPage(principalId, filter, pageSortCriterion, ascending,
+                            (lastPage - 1) * pageSize, pageSize);
+                }
+                actionList = new ArrayList<ActionItem>(pageResults.getResults());
+                pagedActionListSize = pageResults.getTotalRowCount();
+                // mass actions are taken on the action items of the page, the whole list is fetched again if needed
+                request.getSession().setAttribute(ACTION_LIST_KEY, actionList);
+                request.getSession().removeAttribute(ACTION_LIST_USER_KEY);
             } else {
 
                     SimpleDateFormat dFormatter = new SimpleDateFormat(MAX_ACTION_ITEM_DATE_FORMAT);
@@ -351,6 +378,16 @@ public class ActionListAction extends KualiAction {
             plog.log("Setting attributes");
 
             int pageSize = getPageSize(preferences);
+            if (pagedActionListSize != null) {
+                plog.log("calling initializeActionList for the current page");
+                initializeActionList(actionList, preferences);
+                plog.log("calling buildCurrentPage");
+                PaginatedList currentPage = buildCurrentPage(actionList, 0, pagedActionListSize.intValue(),
+                        form.getCurrentPage(), pageSortCriterion, pageSortDirection, pageSize, preferences, form);
+                plog.log("done w/ buildCurrentPage");
+                request.setAttribute(ACTION_LIST_PAGE_KEY, currentPage);
+                freshActionList = false;
+            }
             // initialize the action list if necessary
             if (freshActionList) {
                 plog.log("calling initializeActionList");
@@ -364,15 +401,17 @@ public class ActionListAction extends KualiAction {
                 }
             }
             // sort the action list if necessary
-            if (sortCriterion != null) {
+            if (sortCriterion != null && pagedActionListSize == null) {
                 sortActionList(actionList, sortCriterion, sortOrder);
             }
 
-            plog.log("calling buildCurrentPage");
-            PaginatedList currentPage = buildCurrentPage(actionList, form.getCurrentPage(), form.getCurrentSort(),
-                    form.getCurrentDir(), pageSize, preferences, form);
-            plog.log("done w/ buildCurrentPage");
-            request.setAttribute(ACTION_LIST_PAGE_KEY, currentPage);
+            if (pagedActionListSize == null) {
+                plog.log("calling buildCurrentPage");
+                PaginatedList currentPage = buildCurrentPage(actionList, form.getCurrentPage(), form.getCurrentSort(),
+                        form.getCurrentDir(), pageSize, preferences, form);
+                plog.log("done w/ buildCurrentPage");
+                request.setAttribute(ACTION_LIST_PAGE_KEY, currentPage);
+            }
             synchronized(uSession) {
                 uSession.addObject(KewApiConstants.UPDATE_ACTION_LIST_ATTR_NAME, Boolean.FALSE);
                 uSession.addObject(KewApiConstants.CURRENT_PAGE_ATTR_NAME, form.getCurrentPage());
@@ -380,6 +419,7 @@ public class ActionListAction extends KualiAction {
                 uSession.addObject(KewApiConstants.SORT_ORDER_ATTR_NAME, form.getCurrentDir());
             }
             plog.log("finished setting attributes, finishing action list fetch");
+            reportMassActionProgress(request, uSession);
         } catch (Exception e) {
             LOG.error("Error loading action list.", e);
         }
@@ -388,6 +428,25 @@ public class ActionListAction extends KualiAction {
         return mapping.findForward("viewActionList");
     }
 
+    /**
+     * Reports the progress of the last mass action of the user while its actions are still being processed.
+     */
+    private void reportMassActionProgress(HttpServletRequest request, UserSession uSession) {
+        MassActionProgress progress = (MassActionProgress) uSession.retrieveObject(MassActionProgress.SESSION_KEY);
+        if (progress == null) {
+            return;
+        }
+        progress.refresh();
+        if (progress.isComplete() || progress.isExpired()) {
+            uSession.removeObject(MassActionProgress.SESSION_KEY);
+            return;
+        }
+        ActionMessages messages = getMessages(request);
+        messages.add(ActionMessages.GLOBAL_MESSAGE, new ActionMessage("actionList.massAction.inProgress",
+                progress.getCompletedCount(), progress.getTotalCount()));
+        saveMessages(request, messages);
+    }
+
     /**
      * Sets the maxActionItemDate and actionItemcount for user in the session
      * @param request
@@ -565,6 +624,18 @@ public class ActionListAction extends KualiAction {
 
     protected PaginatedList buildCurrentPage(List<? extends ActionItemBase> actionList, Integer page, String sortCriterion, String sortDirection,
                                              int pageSize, Preferences preferences, ActionListForm form) throws WorkflowException {
+        return buildCurrentPage(actionList, (page - 1) * pageSize, actionList.size(), page, sortCriterion,
+                sortDirection, pageSize, preferences, form);
+    }
+
+    /**
+     * Builds the current page out of the given action items, starting at the given index within them.  The action list
+     * may hold the whole list, or only the page itself when it was fetched that way, in which case the start index is
+     * 0 and the full list size the size of the whole list.
+     */
+    protected PaginatedList buildCurrentPage(List<? extends ActionItemBase> actionList, int startIndex, int fullListSize,
+            Integer page, String sortCriterion, String sortDirection, int pageSize, Preferences preferences,
+            ActionListForm form) throws WorkflowException {
         List<ActionItemBase> currentPage = new ArrayList<ActionItemBase>(pageSize);
 
         boolean haveCustomActions = false;
@@ -577,24 +648,25 @@ public class ActionListAction extends KualiAction {
 
         List<String> customActionListProblemIds = new ArrayList<String>();
         SortOrderEnum sortOrder = parseSortOrder(sortDirection);
-        int startIndex = (page - 1) * pageSize;
-        int endIndex = startIndex + pageSize;
-        generateActionItemErrors(actionList);
+        int endIndex = Math.min(startIndex + pageSize, actionList.size());
+        // only the action items displayed need their custom action list attributes evaluated
+        List<? extends ActionItemBase> pageItems = startIndex < endIndex ? actionList.subList(startIndex, endIndex)
+                : Collections.<ActionItemBase>emptyList();
+        generateActionItemErrors(pageItems);
 
-        LOG.info("Beginning processing of Action List Customizations (total: " + actionList.size() + " Action Items)");
+        LOG.info("Beginning processing of Action List Customizations (total: " + pageItems.size() + " Action Items)");
         long start = System.currentTimeMillis();
 
         Map<String, ActionItemCustomization>  customizationMap = new HashMap<String, ActionItemCustomization>();
-        if (!StringUtils.equalsIgnoreCase("true", form.getViewOutbox())) {
+        if (!StringUtils.equalsIgnoreCase("true", form.getViewOutbox()) && !pageItems.isEmpty()) {
             customizationMap = getActionListCustomizationMediator().getActionListCustomizations(
-                    getUserSession().getPrincipalId(), convertToApiActionItems(actionList));
+                    getUserSession().getPrincipalId(), convertToApiActionItems(pageItems));
         }
 
         long end = System.currentTimeMillis();
         LOG.info("Finished processing of Action List Customizations (total time: " + (end - start) + " ms)");
 
-        for (int index = startIndex; index < endIndex && index < actionList.size(); index++) {
-            ActionItemBase actionItem = actionList.get(index);
+        for (ActionItemBase actionItem : pageItems) {
             // evaluate custom action list component for mass actions
             try {
                 ActionItemCustomization customization = customizationMap.get(actionItem.getId());
@@ -667,7 +739,7 @@ public class ActionListAction extends KualiAction {
         form.setHasDisplayParameters(haveDisplayParameters);
 
         generateActionItemErrors(CUSTOMACTIONLIST_PROP, ACTIONLIST_BAD_CUSTOM_ACTION_LIST_ITEMS_ERRKEY, customActionListProblemIds);
-        return new PaginatedActionList(currentPage, actionList.size(), page, pageSize, "actionList", sortCriterion, sortOrder);
+        return new PaginatedActionList(currentPage, fullListSize, page, pageSize, "actionList", sortCriterion, sortOrder);
     }
 
     // convert a List of org.kuali.rice.kew.actionitem.ActionItemS to org.kuali.rice.kew.api.action.ActionItemS
@@ -721,7 +793,9 @@ public class ActionListAction extends KualiAction {
             }
             index++;
         }
-        KEWServiceLocator.getWorkflowDocumentService().takeMassActions(getUserSession().getPrincipalId(), invocations);
+        MassActionProgress progress = KEWServiceLocator.getWorkflowDocumentService().takeMassActions(
+                getUserSession().getPrincipalId(), invocations);
+        getUserSession().addObject(MassActionProgress.SESSION_KEY, progress);
         messages.add(ActionMessages.GLOBAL_MESSAGE, new ActionMessage("general.routing.processed"));
         saveMessages(request, messages);
         ActionListForm cleanForm = new ActionListForm();
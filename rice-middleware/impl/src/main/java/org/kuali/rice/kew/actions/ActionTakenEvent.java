@@ -174,7 +174,7 @@ public abstract class ActionTakenEvent {
      * @return the policy value or deflt if missing
      */
     protected static boolean isPolicySet(DocumentType docType, DocumentTypePolicy policy, boolean deflt) {
-        return docType.getPolicyByName(policy.name(), Boolean.valueOf(deflt)).getPolicyValue().booleanValue();
+        return docType.resolve().getPolicyByName(policy.name(), Boolean.valueOf(deflt)).getPolicyValue().booleanValue();
     }
 
     /**
@@ -218,7 +218,7 @@ public abstract class ActionTakenEvent {
 	    try{
 	        recordAction();
         }catch(InvalidActionTakenException e){
-            if(routeHeader.getDocumentType().getEnrouteErrorSuppression().getPolicyValue()){
+            if(routeHeader.getDocumentType().resolve().getEnrouteErrorSuppression().getPolicyValue()){
                 LOG.error("Invalid Action Taken Exception was thrown, but swallowed due to ENROUTE_ERROR_SUPPRESSION document type policy!");
                 return;
             }else{
@@ -237,9 +237,9 @@ public abstract class ActionTakenEvent {
 		// queue the document up so that it can be indexed for searching if it
 		// has searchable attributes
 		RouteContext routeContext = RouteContext.getCurrentRouteContext();
-		if (routeHeader.getDocumentType().hasSearchableAttributes() && !routeContext.isSearchIndexingRequestedForContext()) {
+		if (routeHeader.getDocumentType().resolve().hasSearchableAttributes() && !routeContext.isSearchIndexingRequestedForContext()) {
 			routeContext.requestSearchIndexingForContext();
-            DocumentAttributeIndexingQueue queue = KewApiServiceLocator.getDocumentAttributeIndexingQueue(routeHeader.getDocumentType().getApplicationId());
+            DocumentAttributeIndexingQueue queue = KewApiServiceLocator.getDocumentAttributeIndexingQueue(routeHeader.getDocumentType().resolve().getApplicationId());
             queue.indexDocument(getDocumentId());
 		}
 	}
@@ -268,7 +268,7 @@ public abstract class ActionTakenEvent {
 	protected void notifyActionTaken(final ActionTakenValue actionTaken) {
         invokePostProcessor("Notifying post processor of action taken", new Callable<ProcessDocReport>() {
             public ProcessDocReport call() throws Exception {
-                PostProcessor postProcessor = routeHeader.getDocumentType().getPostProcessor();
+                PostProcessor postProcessor = routeHeader.getDocumentType().resolve().getPostProcessor();
                 return postProcessor.doActionTaken(new org.kuali.rice.kew.framework.postprocessor.ActionTakenEvent(routeHeader.getDocumentId(), routeHeader.getAppDocId(), ActionTakenValue.to(actionTaken)));
             }
         });
@@ -277,7 +277,7 @@ public abstract class ActionTakenEvent {
     protected void notifyAfterActionTaken(final ActionTakenValue actionTaken) {
         invokePostProcessor("Notifying post processor after action taken", new Callable<ProcessDocReport>() {
             public ProcessDocReport call() throws Exception {
-                PostProcessor postProcessor = routeHeader.getDocumentType().getPostProcessor();
+                PostProcessor postProcessor = routeHeader.getDocumentType().resolve().getPostProcessor();
                 return postProcessor.afterActionTaken(ActionType.fromCode(getActionPerformedCode()), new org.kuali.rice.kew.framework.postprocessor.ActionTakenEvent(routeHeader.getDocumentId(), routeHeader.getAppDocId(), ActionTakenValue.to(actionTaken)));
             }
         });
@@ -287,7 +287,7 @@ public abstract class ActionTakenEvent {
         invokePostProcessor("Notifying post processor of status change " + oldStatusCode + "->" + newStatusCode, new Callable<ProcessDocReport>() {
             public ProcessDocReport call() throws Exception {
                 DocumentRouteStatusChange statusChangeEvent = new DocumentRouteStatusChange(routeHeader.getDocumentId(), routeHeader.getAppDocId(), oldStatusCode, newStatusCode);
-                PostProcessor postProcessor = routeHeader.getDocumentType().getPostProcessor();
+                PostProcessor postProcessor = routeHeader.getDocumentType().resolve().getPostProcessor();
                 return postProcessor.doRouteStatusChange(statusChangeEvent);
             }
         });
@@ -298,7 +298,7 @@ public abstract class ActionTakenEvent {
 	 */
 	protected void queueDocumentProcessing() {
     	DocumentRouteHeaderValue document = getRouteHeader();
-        String applicationId = document.getDocumentType().getApplicationId();
+        String applicationId = document.getDocumentType().resolve().getApplicationId();
         DocumentProcessingQueue documentProcessingQueue = (DocumentProcessingQueue) KewApiServiceLocator.getDocumentProcessingQueue(
             document.getDocumentId(), applicationId);
         DocumentProcessingOptions options = DocumentProcessingOptions.create(isRunPostProcessorLogic(), RouteContext.getCurrentRouteContext().isSearchIndexingRequestedForContext());
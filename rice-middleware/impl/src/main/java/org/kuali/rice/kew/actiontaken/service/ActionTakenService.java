@@ -22,6 +22,7 @@ import org.kuali.rice.kew.engine.node.RouteNodeInstance;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -49,6 +50,16 @@ public interface ActionTakenService {
 
     boolean hasUserTakenAction(String principalId, String documentId);
 
+    /**
+     * Returns those of the given documents on which the given principal has taken an action since the given date.
+     *
+     * @param principalId the id of the principal
+     * @param documentIds the ids of the documents to check
+     * @param since the date after which actions are counted
+     * @return the ids of the documents acted on, never null
+     */
+    Set<String> findDocumentIdsActedOnSince(String principalId, Collection<String> documentIds, Timestamp since);
+
     Timestamp getLastApprovedDate(String documentId);
 
     /**
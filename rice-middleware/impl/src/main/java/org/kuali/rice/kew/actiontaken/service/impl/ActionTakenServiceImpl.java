@@ -32,9 +32,14 @@ import org.kuali.rice.krad.data.DataObjectService;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.kuali.rice.core.api.criteria.PredicateFactory.equal;
+import static org.kuali.rice.core.api.criteria.PredicateFactory.greaterThanOrEqual;
+import static org.kuali.rice.core.api.criteria.PredicateFactory.in;
 
 /**
  * Default implementation of the {@link ActionTakenService}.
@@ -158,6 +163,26 @@ public class ActionTakenServiceImpl implements ActionTakenService {
         return getDataObjectService().findMatching(ActionTakenValue.class, criteria.build()).getTotalRowCount() > 0;
     }
 
+    @Override
+    public Set<String> findDocumentIdsActedOnSince(String principalId, Collection<String> documentIds,
+            Timestamp since) {
+        Set<String> actedOnDocumentIds = new HashSet<String>();
+        List<String> remainingIds = new ArrayList<String>(new LinkedHashSet<String>(documentIds));
+        // kept below the number of values Oracle allows in an IN list
+        for (int start = 0; start < remainingIds.size(); start += 1000) {
+            QueryByCriteria criteria = QueryByCriteria.Builder.fromPredicates(
+                    equal(PRINCIPAL_ID, principalId),
+                    in(DOCUMENT_ID, remainingIds.subList(start, Math.min(start + 1000, remainingIds.size()))),
+                    greaterThanOrEqual(ACTION_DATE, since),
+                    equal(CURRENT_INDICATOR, Boolean.TRUE));
+            for (ActionTakenValue actionTaken : getDataObjectService().findMatching(ActionTakenValue.class, criteria)
+                    .getResults()) {
+                actedOnDocumentIds.add(actionTaken.getDocumentId());
+            }
+        }
+        return actedOnDocumentIds;
+    }
+
 
     @Override
     public Timestamp getLastApprovedDate(String documentId)
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.docsearch;
+
+import org.kuali.rice.core.api.util.ChecksumUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The set of row level changes needed to bring the stored {@link SearchableAttributeValue}s of one or more documents
+ * in line with freshly extracted values.
+ *
+ * <p>Values are compared by table, key and value.  Stored rows which still match an extracted value are left alone,
+ * a stored row whose key is still extracted but with a different value is updated in place, and only the remaining
+ * rows are inserted or deleted.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class SearchableAttributeValueChanges {
+
+    private static final String NULL_VALUE = "\u0000null";
+    private static final String SEPARATOR = "\u0000";
+
+    private final List<SearchableAttributeValue> inserts = new ArrayList<SearchableAttributeValue>();
+    private final List<SearchableAttributeValue> updates = new ArrayList<SearchableAttributeValue>();
+    private final List<SearchableAttributeValue> deletes = new ArrayList<SearchableAttributeValue>();
+    private int unchangedCount = 0;
+
+    /**
+     * Adds the changes required to replace the existing values of a single document with the given new values.
+     *
+     * @param existingValues the values currently stored for the document, these must have their ids populated
+     * @param newValues the values which should be stored for the document, duplicates are ignored
+     */
+    public void addChanges(Collection<SearchableAttributeValue> existingValues,
+            Collection<SearchableAttributeValue> newValues) {
+        Map<String, LinkedList<SearchableAttributeValue>> existingByValue =
+                new LinkedHashMap<String, LinkedList<SearchableAttributeValue>>();
+        for (SearchableAttributeValue existingValue : existingValues) {
+            addToGroup(existingByValue, describe(existingValue), existingValue);
+        }
+
+        List<SearchableAttributeValue> unmatchedNewValues = new ArrayList<SearchableAttributeValue>();
+        for (SearchableAttributeValue newValue : deduplicate(newValues)) {
+            LinkedList<SearchableAttributeValue> matches = existingByValue.get(describe(newValue));
+            if (matches != null && !matches.isEmpty()) {
+                matches.removeFirst();
+                unchangedCount++;
+            } else {
+                unmatchedNewValues.add(newValue);
+            }
+        }
+
+        // whatever is left over can be reused for a value with the same key in the same table
+        Map<String, LinkedList<SearchableAttributeValue>> unmatchedByKey =
+                new HashMap<String, LinkedList<SearchableAttributeValue>>();
+        for (LinkedList<SearchableAttributeValue> unmatched : existingByValue.values()) {
+            for (SearchableAttributeValue existingValue : unmatched) {
+                addToGroup(unmatchedByKey, describeKey(existingValue), existingValue);
+            }
+        }
+        for (SearchableAttributeValue newValue : unmatchedNewValues) {
+            LinkedList<SearchableAttributeValue> reusable = unmatchedByKey.get(describeKey(newValue));
+            if (reusable != null && !reusable.isEmpty()) {
+                newValue.setSearchableAttributeValueId(reusable.removeFirst().getSearchableAttributeValueId());
+                updates.add(newValue);
+            } else {
+                inserts.add(newValue);
+            }
+        }
+        for (LinkedList<SearchableAttributeValue> unmatched : unmatchedByKey.values()) {
+            deletes.addAll(unmatched);
+        }
+    }
+
+    /**
+     * Returns the values which need to be inserted, these do not have an id yet.
+     */
+    public List<SearchableAttributeValue> getInserts() {
+        return Collections.unmodifiableList(inserts);
+    }
+
+    /**
+     * Returns the values which need to be updated, each carries the id of the stored row it replaces.
+     */
+    public List<SearchableAttributeValue> getUpdates() {
+        return Collections.unmodifiableList(updates);
+    }
+
+    /**
+     * Returns the stored values which need to be deleted.
+     */
+    public List<SearchableAttributeValue> getDeletes() {
+        return Collections.unmodifiableList(deletes);
+    }
+
+    /**
+     * Returns the number of stored values which were left untouched.
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+    }
+
+    /**
+     * Removes null entries and values which have the same table, key and value as an earlier entry.
+     */
+    public static List<SearchableAttributeValue> deduplicate(Collection<SearchableAttributeValue> values) {
+        Map<String, SearchableAttributeValue> unique = new LinkedHashMap<String, SearchableAttributeValue>();
+        for (SearchableAttributeValue value : values) {
+            if (value != null) {
+                String description = describe(value);
+                if (!unique.containsKey(description)) {
+                    unique.put(description, value);
+                }
+            }
+        }
+        return new ArrayList<SearchableAttributeValue>(unique.values());
+    }
+
+    /**
+     * Computes a digest of the given values which does not depend on their order, their ids, or duplicates.
+     */
+    public static String fingerprint(Collection<SearchableAttributeValue> values) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SearchableAttributeValue value : deduplicate(values)) {
+            descriptions.add(describe(value));
+        }
+        Collections.sort(descriptions);
+        StringBuilder builder = new StringBuilder();
+        for (String description : descriptions) {
+            builder.append(description).append('\n');
+        }
+        return ChecksumUtils.calculateChecksum(builder.toString());
+    }
+
+    private static void addToGroup(Map<String, LinkedList<SearchableAttributeValue>> groups, String key,
+            SearchableAttributeValue value) {
+        LinkedList<SearchableAttributeValue> group = groups.get(key);
+        if (group == null) {
+            group = new LinkedList<SearchableAttributeValue>();
+            groups.put(key, group);
+        }
+        group.add(value);
+    }
+
+    private static String describeKey(SearchableAttributeValue value) {
+        return value.getAttributeTableName() + SEPARATOR + value.getSearchableAttributeKey();
+    }
+
+    private static String describe(SearchableAttributeValue value) {
+        return describeKey(value) + SEPARATOR + normalize(value.getSearchableAttributeValue());
+    }
+
+    /**
+     * Renders a value so that values the database considers equal render the same, e.g. decimals read back with a
+     * different scale than they were written with.
+     */
+    private static String normalize(Object value) {
+        if (value == null) {
+            return NULL_VALUE;
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString();
+        } else if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            return timestamp.getTime() + ":" + timestamp.getNanos();
+        }
+        return value.toString();
+    }
+
+}
@@ -17,6 +17,7 @@ package org.kuali.rice.kew.docsearch.dao.impl;
 
 import org.apache.commons.lang.StringUtils;
 import org.kuali.rice.core.api.uif.RemotableAttributeField;
+import org.kuali.rice.core.framework.persistence.jdbc.sql.ParameterizedSql;
 import org.kuali.rice.coreservice.framework.CoreFrameworkServiceLocator;
 import org.kuali.rice.kew.api.document.search.DocumentSearchCriteria;
 import org.kuali.rice.kew.api.document.search.DocumentSearchResults;
@@ -32,6 +33,7 @@ import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -56,28 +58,31 @@ public class DocumentSearchDAOJdbcImpl implements DocumentSearchDAO {
 
     @Override
     public DocumentSearchResults.Builder findDocuments(final DocumentSearchGenerator documentSearchGenerator, final DocumentSearchCriteria criteria, final boolean criteriaModified, final List<RemotableAttributeField> searchFields) {
-        final int maxResultCap = getMaxResultCap(criteria);
+        // a keyset paged search fetches exactly one page (plus a row to detect whether another page exists)
+        final boolean paged = criteria.getPageSize() != null;
+        final int maxResultCap = paged ? Math.min(criteria.getPageSize(), getMaxResultCap(criteria)) : getMaxResultCap(criteria);
         try {
             final JdbcTemplate template = new JdbcTemplate(dataSource);
 
             return template.execute(new ConnectionCallback<DocumentSearchResults.Builder>() {
                 @Override
                 public DocumentSearchResults.Builder doInConnection(final Connection con) throws SQLException {
-                    final Statement statement = con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+                    PerformanceLogger perfLog = new PerformanceLogger();
+                    ParameterizedSql sql = documentSearchGenerator.generateParameterizedSearchSql(criteria, searchFields);
+                    perfLog.log("Time to generate search sql from documentSearchGenerator class: " + documentSearchGenerator
+                            .getClass().getName(), true);
+                    final PreparedStatement statement = con.prepareStatement(sql.getSql(), ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
                     try {
-                        final int fetchIterationLimit = getFetchMoreIterationLimit();
+                        final int fetchIterationLimit = paged ? 1 : getFetchMoreIterationLimit();
                         final int fetchLimit = fetchIterationLimit * maxResultCap;
                         statement.setFetchSize(maxResultCap + 1);
                         statement.setMaxRows(fetchLimit + 1);
+                        sql.bind(statement);
 
-                        PerformanceLogger perfLog = new PerformanceLogger();
-                        String sql = documentSearchGenerator.generateSearchSql(criteria, searchFields);
-                        perfLog.log("Time to generate search sql from documentSearchGenerator class: " + documentSearchGenerator
-                                .getClass().getName(), true);
                         LOG.info("Executing document search with statement max rows: " + statement.getMaxRows());
                         LOG.info("Executing document search with statement fetch size: " + statement.getFetchSize());
                         perfLog = new PerformanceLogger();
-                        final ResultSet rs = statement.executeQuery(sql);
+                        final ResultSet rs = statement.executeQuery();
                         try {
                             perfLog.log("Time to execute doc search database query.", true);
                             final Statement searchAttributeStatement = con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
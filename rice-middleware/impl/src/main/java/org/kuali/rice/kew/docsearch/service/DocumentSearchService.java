@@ -52,6 +52,22 @@ public interface DocumentSearchService {
      */
     DocumentSearchResults lookupDocuments(String principalId, DocumentSearchCriteria criteria, boolean saveSearch);
 
+    /**
+     * Performs a keyset paged document search, fetching only the requested page of results from the database.  Results
+     * are ordered by date created and document id, both descending.
+     *
+     * @param principalId the id of the principal who is executing the search, this may be null to indicate the
+     * search could be executed by an arbitrary user
+     * @param criteria criteria to use to search documents, any page size or continuation token on it is replaced
+     * @param pageSize the maximum number of documents to return, must be greater than zero
+     * @param continuationToken the continuation token from the results of the previous page, or null for the first
+     * page
+     * @return the requested page of results, with a continuation token if there are further pages
+     * @throws org.kuali.rice.core.api.exception.RiceIllegalArgumentException if the page size or continuation token
+     * is invalid
+     */
+    DocumentSearchResults lookupDocumentsPage(String principalId, DocumentSearchCriteria criteria, int pageSize, String continuationToken);
+
     /**
      * Returns a saved search criteria, either explicitly named by the user, or saved automatically as a recent search
      * @param principalId the user principal id
@@ -22,6 +22,7 @@ import org.joda.time.MutableDateTime;
 import org.kuali.rice.core.api.CoreApiServiceLocator;
 import org.kuali.rice.core.api.config.property.ConfigContext;
 import org.kuali.rice.core.api.config.property.ConfigurationService;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
 import org.kuali.rice.core.api.reflect.ObjectDefinition;
 import org.kuali.rice.core.api.resourceloader.GlobalResourceLoader;
 import org.kuali.rice.core.api.uif.RemotableAttributeError;
@@ -47,6 +48,7 @@ import org.kuali.rice.kew.framework.document.search.AttributeFields;
 import org.kuali.rice.kew.framework.document.search.DocumentSearchCriteriaConfiguration;
 import org.kuali.rice.kew.framework.document.search.DocumentSearchResultValue;
 import org.kuali.rice.kew.framework.document.search.DocumentSearchResultValues;
+import org.kuali.rice.kew.impl.document.search.DocumentSearchContinuationToken;
 import org.kuali.rice.kew.impl.document.search.DocumentSearchGenerator;
 import org.kuali.rice.kew.impl.document.search.DocumentSearchGeneratorImpl;
 import org.kuali.rice.kew.service.KEWServiceLocator;
@@ -170,8 +172,23 @@ public class DocumentSearchServiceImpl implements DocumentSearchService {
     }
 
 
+    @Override
+    public DocumentSearchResults lookupDocumentsPage(String principalId, DocumentSearchCriteria criteria, int pageSize, String continuationToken) {
+        DocumentSearchCriteria.Builder criteriaBuilder = DocumentSearchCriteria.Builder.create(criteria);
+        criteriaBuilder.setPageSize(pageSize);
+        criteriaBuilder.setContinuationToken(continuationToken);
+        return lookupDocuments(principalId, criteriaBuilder.build(), false);
+    }
+
     @Override
     public DocumentSearchResults lookupDocuments(String principalId, DocumentSearchCriteria criteria, boolean saveSearch) {
+        if (criteria.getPageSize() != null && criteria.getPageSize().intValue() <= 0) {
+            throw new RiceIllegalArgumentException("pageSize must be greater than zero, was " + criteria.getPageSize());
+        }
+        if (StringUtils.isNotBlank(criteria.getContinuationToken())) {
+            // fail fast on a malformed token rather than part way through generating the search
+            DocumentSearchContinuationToken.decode(criteria.getContinuationToken());
+        }
         DocumentSearchGenerator docSearchGenerator = getStandardDocumentSearchGenerator();
         DocumentType documentType = KEWServiceLocator.getDocumentTypeService().findByNameCaseInsensitive(criteria.getDocumentTypeName());
         DocumentSearchCriteria.Builder criteriaBuilder = DocumentSearchCriteria.Builder.create(criteria);
@@ -341,6 +358,8 @@ public class DocumentSearchServiceImpl implements DocumentSearchService {
         builder.setMaxResults(criteria.getMaxResults());
         builder.setIsAdvancedSearch(criteria.getIsAdvancedSearch());
         builder.setSearchOptions(criteria.getSearchOptions());
+        builder.setPageSize(criteria.getPageSize());
+        builder.setContinuationToken(criteria.getContinuationToken());
         return builder;
     }
 
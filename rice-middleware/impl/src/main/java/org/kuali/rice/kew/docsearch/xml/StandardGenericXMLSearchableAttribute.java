@@ -58,6 +58,7 @@ import org.kuali.rice.kew.api.extension.ExtensionDefinition;
 import org.kuali.rice.kew.docsearch.CaseAwareSearchableAttributeValue;
 import org.kuali.rice.kew.docsearch.DocumentSearchInternalUtils;
 import org.kuali.rice.kew.docsearch.SearchableAttributeValue;
+import org.kuali.rice.kew.engine.RouteContext;
 import org.kuali.rice.kew.framework.document.attribute.SearchableAttribute;
 import org.kuali.rice.kew.rule.xmlrouting.XPathHelper;
 import org.kuali.rice.kim.api.group.Group;
@@ -167,7 +168,9 @@ public class StandardGenericXMLSearchableAttribute implements SearchableAttribut
         }
         Document document;
         try {
-            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new BufferedReader(new StringReader(fullDocumentContent))));
+            // every searchable attribute of the document is handed the same content, so share a single parse of it
+            document = RouteContext.getCurrentRouteContext().getParsedDocumentContent(
+                    documentWithContent.getDocument().getDocumentId(), fullDocumentContent).getDocument();
         } catch (Exception e){
             LOG.error("error parsing docContent: "+documentWithContent.getDocumentContent(), e);
             throw new RuntimeException("Error trying to parse docContent: "+documentWithContent.getDocumentContent(), e);
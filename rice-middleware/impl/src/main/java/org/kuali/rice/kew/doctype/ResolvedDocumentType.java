@@ -0,0 +1,516 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.doctype;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.kuali.rice.core.api.config.CoreConfigHelper;
+import org.kuali.rice.core.api.reflect.ObjectDefinition;
+import org.kuali.rice.core.api.resourceloader.GlobalResourceLoader;
+import org.kuali.rice.kew.api.KewApiConstants;
+import org.kuali.rice.kew.api.WorkflowRuntimeException;
+import org.kuali.rice.kew.doctype.bo.DocumentType;
+import org.kuali.rice.kew.engine.node.ProcessDefinitionBo;
+import org.kuali.rice.kew.framework.postprocessor.PostProcessor;
+import org.kuali.rice.kew.postprocessor.DefaultPostProcessor;
+import org.kuali.rice.kew.rule.bo.RuleAttribute;
+import org.kuali.rice.kew.util.Utilities;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.kuali.rice.kew.api.doctype.DocumentTypePolicy.DOCUMENT_STATUS_POLICY;
+
+/**
+ * An immutable, flattened view of a single version of a {@link DocumentType} with everything it inherits from its
+ * parent document types already resolved.
+ *
+ * <p>The inherited accessors on the DocumentType business object walk the parent chain, looking each parent up through
+ * the document type service, every time they are called.  The engine, action list and document search call them for
+ * every action, action item and search result, so for a type a few levels deep the same chain is walked many times
+ * over.  A resolved document type walks the chain once, when it is built, and answers each of those accessors with the
+ * same result the business object would.</p>
+ *
+ * <p>Resolved document types are obtained through
+ * {@link org.kuali.rice.kew.doctype.service.DocumentTypeService#findResolvedById(String)} or
+ * {@link DocumentType#resolve()}, which share them through the document type cache.  A document type id identifies a
+ * single version of a document type, so a resolved type only goes stale when a parent is changed, which flushes the
+ * document type cache along with it.  Policies are handed out as copies, since callers are free to modify them.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class ResolvedDocumentType implements Serializable {
+
+    private static final long serialVersionUID = 2867352043542871641L;
+
+    private final DocumentType documentType;
+    private final boolean root;
+    private final String applicationId;
+    private final Map<String, ResolvedPolicy> policies;
+    private final boolean kewStatusInUse;
+    private final boolean appDocStatusInUse;
+    private final boolean bothStatusesInUse;
+    private final List<List<DocumentTypeAttributeBo>> attributeLevels;
+    private final List<DocumentTypeAttributeBo> searchableAttributes;
+    private final List<ApplicationDocumentStatus> validApplicationStatuses;
+    private final List<ApplicationDocumentStatusCategory> applicationStatusCategories;
+    private final DocumentTypeSecurity documentTypeSecurity;
+    private final String resolvedDocumentHandlerUrl;
+    private final String postProcessorName;
+    private final String postProcessorApplicationId;
+    private final String authorizer;
+    private final boolean active;
+    private final DocumentType routeDefiningDocumentType;
+    private final List<ProcessDefinitionBo> processes;
+
+    private ResolvedDocumentType(List<DocumentType> hierarchy) {
+        this.documentType = hierarchy.get(0);
+        this.root = hierarchy.size() == 1;
+
+        // the application id of each level of the hierarchy, other inherited values are resolved relative to the level
+        // which defines them
+        String[] applicationIds = new String[hierarchy.size()];
+        String inheritedApplicationId = CoreConfigHelper.getApplicationId();
+        for (int level = hierarchy.size() - 1; level >= 0; level--) {
+            if (StringUtils.isNotBlank(hierarchy.get(level).getActualApplicationId())) {
+                inheritedApplicationId = hierarchy.get(level).getActualApplicationId();
+            }
+            applicationIds[level] = inheritedApplicationId;
+        }
+        this.applicationId = applicationIds[0];
+
+        this.policies = resolvePolicies(hierarchy);
+        ResolvedPolicy documentStatusPolicy = policies.get(DOCUMENT_STATUS_POLICY.getCode());
+        if (documentStatusPolicy != null) {
+            String statusPolicy = documentStatusPolicy.stringValue;
+            this.kewStatusInUse = StringUtils.isEmpty(statusPolicy)
+                    || KewApiConstants.DOCUMENT_STATUS_POLICY_KEW_STATUS.equalsIgnoreCase(statusPolicy)
+                    || KewApiConstants.DOCUMENT_STATUS_POLICY_BOTH.equalsIgnoreCase(statusPolicy);
+            this.appDocStatusInUse = KewApiConstants.DOCUMENT_STATUS_POLICY_APP_DOC_STATUS.equalsIgnoreCase(
+                    statusPolicy) || KewApiConstants.DOCUMENT_STATUS_POLICY_BOTH.equalsIgnoreCase(statusPolicy);
+            this.bothStatusesInUse = KewApiConstants.DOCUMENT_STATUS_POLICY_BOTH.equalsIgnoreCase(statusPolicy);
+        } else {
+            this.kewStatusInUse = true;
+            this.appDocStatusInUse = false;
+            this.bothStatusesInUse = false;
+        }
+
+        List<List<DocumentTypeAttributeBo>> levels = new ArrayList<List<DocumentTypeAttributeBo>>(hierarchy.size());
+        for (DocumentType level : hierarchy) {
+            List<DocumentTypeAttributeBo> attributes = level.getDocumentTypeAttributes();
+            levels.add(attributes == null ? Collections.<DocumentTypeAttributeBo>emptyList() :
+                    Collections.unmodifiableList(new ArrayList<DocumentTypeAttributeBo>(attributes)));
+        }
+        this.attributeLevels = Collections.unmodifiableList(levels);
+        this.searchableAttributes = getDocumentTypeAttributes(KewApiConstants.SEARCHABLE_ATTRIBUTE_TYPE,
+                KewApiConstants.SEARCHABLE_XML_ATTRIBUTE_TYPE);
+
+        List<ApplicationDocumentStatus> statuses = null;
+        List<ApplicationDocumentStatusCategory> categories = null;
+        DocumentTypeSecurity security = null;
+        String docHandlerUrl = null;
+        String authorizerName = null;
+        boolean activeChain = documentType.getActive().booleanValue();
+        for (int level = 0; level < hierarchy.size(); level++) {
+            DocumentType current = hierarchy.get(level);
+            // application statuses are only inherited while the level inheriting them uses the application document
+            // status
+            if (statuses == null && (CollectionUtils.isNotEmpty(current.getValidApplicationStatuses())
+                    || level == hierarchy.size() - 1 || !isAppDocStatusInUse(hierarchy, level))) {
+                statuses = current.getValidApplicationStatuses();
+                categories = current.getApplicationStatusCategories();
+            }
+            if (security == null && StringUtils.isNotBlank(current.getDocumentTypeSecurityXml())) {
+                security = new DocumentTypeSecurity(applicationIds[level], current.getDocumentTypeSecurityXml());
+            }
+            if (docHandlerUrl == null && StringUtils.isNotBlank(current.getUnresolvedDocHandlerUrl())) {
+                docHandlerUrl = current.getUnresolvedDocHandlerUrl();
+            }
+            if (authorizerName == null && StringUtils.isNotBlank(current.getAuthorizer())) {
+                authorizerName = current.getAuthorizer();
+            }
+            if (level > 0 && current.getActive() != null && !current.getActive().booleanValue()) {
+                activeChain = false;
+            }
+        }
+        this.validApplicationStatuses = statuses;
+        this.applicationStatusCategories = categories;
+        this.documentTypeSecurity = security;
+        this.resolvedDocumentHandlerUrl = StringUtils.isBlank(docHandlerUrl) ? "" :
+                Utilities.substituteConfigParameters(applicationId, docHandlerUrl);
+        this.authorizer = authorizerName;
+        this.active = activeChain;
+
+        String processorName = null;
+        String processorApplicationId = null;
+        for (int level = 0; level < hierarchy.size(); level++) {
+            String name = hierarchy.get(level).getPostProcessorName();
+            if (StringUtils.isNotBlank(name)) {
+                processorName = name;
+                processorApplicationId = applicationIds[level];
+                break;
+            }
+        }
+        this.postProcessorName = processorName;
+        this.postProcessorApplicationId = processorApplicationId;
+
+        DocumentType routeDefining = hierarchy.get(hierarchy.size() - 1);
+        for (DocumentType level : hierarchy) {
+            if (level.getParentDocType() == null || !level.isRouteInherited()) {
+                routeDefining = level;
+                break;
+            }
+        }
+        this.routeDefiningDocumentType = routeDefining;
+        this.processes = Collections.unmodifiableList(new ArrayList<ProcessDefinitionBo>(
+                routeDefining.getProcesses()));
+    }
+
+    /**
+     * Resolves the given document type against its parents, looking each of them up once.
+     *
+     * @param documentType the document type to resolve
+     * @return the resolved document type
+     * @throws IllegalArgumentException if the document type is null
+     */
+    public static ResolvedDocumentType resolve(DocumentType documentType) {
+        if (documentType == null) {
+            throw new IllegalArgumentException("documentType was null");
+        }
+        List<DocumentType> hierarchy = new ArrayList<DocumentType>();
+        Set<String> documentTypeIds = new HashSet<String>();
+        for (DocumentType level = documentType; level != null; level = level.getParentDocType()) {
+            if (level.getDocumentTypeId() != null && !documentTypeIds.add(level.getDocumentTypeId())) {
+                throw new WorkflowRuntimeException("Document type " + documentType.getName()
+                        + " has a cycle in its parent document types");
+            }
+            hierarchy.add(level);
+        }
+        return new ResolvedDocumentType(hierarchy);
+    }
+
+    /**
+     * Determines whether the given level of the hierarchy uses the application document status, according to the
+     * document status policy it defines or inherits.
+     */
+    private static boolean isAppDocStatusInUse(List<DocumentType> hierarchy, int level) {
+        for (int current = level; current < hierarchy.size(); current++) {
+            for (DocumentTypePolicy policy : hierarchy.get(current).getDocumentTypePolicies()) {
+                if (DOCUMENT_STATUS_POLICY.getCode().equals(policy.getPolicyName())) {
+                    String statusPolicy = policy.getPolicyStringValue();
+                    return KewApiConstants.DOCUMENT_STATUS_POLICY_APP_DOC_STATUS.equalsIgnoreCase(statusPolicy)
+                            || KewApiConstants.DOCUMENT_STATUS_POLICY_BOTH.equalsIgnoreCase(statusPolicy);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, ResolvedPolicy> resolvePolicies(List<DocumentType> hierarchy) {
+        Map<String, ResolvedPolicy> resolved = new HashMap<String, ResolvedPolicy>();
+        for (int level = 0; level < hierarchy.size(); level++) {
+            for (DocumentTypePolicy policy : hierarchy.get(level).getDocumentTypePolicies()) {
+                if (resolved.containsKey(policy.getPolicyName())) {
+                    continue;
+                }
+                Boolean value = policy.getPolicyValue();
+                // as with DocumentType.getPolicyByName, an inherited policy without a value is on
+                if (level > 0 && value == null) {
+                    value = Boolean.TRUE;
+                }
+                resolved.put(policy.getPolicyName(), new ResolvedPolicy(policy.getDocumentTypeId(),
+                        policy.getPolicyName(), value, policy.getPolicyStringValue(), level > 0));
+            }
+        }
+        return Collections.unmodifiableMap(resolved);
+    }
+
+    /**
+     * Returns the underlying business object for this version of the document type.
+     */
+    public DocumentType getDocumentType() {
+        return documentType;
+    }
+
+    public String getDocumentTypeId() {
+        return documentType.getDocumentTypeId();
+    }
+
+    public String getName() {
+        return documentType.getName();
+    }
+
+    /**
+     * @see DocumentType#getApplicationId()
+     */
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    /**
+     * @see DocumentType#isPolicyDefined(org.kuali.rice.kew.api.doctype.DocumentTypePolicy)
+     */
+    public boolean isPolicyDefined(org.kuali.rice.kew.api.doctype.DocumentTypePolicy policy) {
+        return policies.containsKey(policy.getCode());
+    }
+
+    /**
+     * Returns a copy of the named policy as defined on this document type or inherited from a parent, or a new policy
+     * with the given default value if it is not defined anywhere in the hierarchy.
+     *
+     * @see DocumentType#getPolicyByName(String, Boolean)
+     */
+    public DocumentTypePolicy getPolicyByName(String policyName, Boolean defaultValue) {
+        ResolvedPolicy policy = policies.get(policyName);
+        if (policy != null) {
+            return policy.toPolicy();
+        }
+        DocumentTypePolicy defaultPolicy = new DocumentTypePolicy();
+        defaultPolicy.setPolicyName(policyName);
+        defaultPolicy.setInheritedFlag(Boolean.valueOf(isDefaultPolicyInherited()));
+        // like the document type, an inherited policy without a value defaults to true
+        if (defaultValue == null && isDefaultPolicyInherited()) {
+            defaultPolicy.setPolicyValue(Boolean.TRUE);
+        } else {
+            defaultPolicy.setPolicyValue(defaultValue);
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Returns a copy of the named policy as defined on this document type or inherited from a parent, or a new policy
+     * which is on and has the given default string value if it is not defined anywhere in the hierarchy.
+     *
+     * @see DocumentType#getPolicyByName(String, String)
+     */
+    public DocumentTypePolicy getPolicyByName(String policyName, String defaultValue) {
+        ResolvedPolicy policy = policies.get(policyName);
+        if (policy != null) {
+            return policy.toPolicy();
+        }
+        DocumentTypePolicy defaultPolicy = new DocumentTypePolicy();
+        defaultPolicy.setPolicyName(policyName);
+        defaultPolicy.setInheritedFlag(Boolean.valueOf(isDefaultPolicyInherited()));
+        defaultPolicy.setPolicyValue(Boolean.TRUE);
+        defaultPolicy.setPolicyStringValue(defaultValue);
+        return defaultPolicy;
+    }
+
+    /**
+     * The business object hands out the default policy from the root document type, so below the root it is flagged
+     * as inherited.
+     */
+    private boolean isDefaultPolicyInherited() {
+        return !root;
+    }
+
+    public DocumentTypePolicy getDefaultApprovePolicy() {
+        return getPolicyByName(org.kuali.rice.kew.api.doctype.DocumentTypePolicy.DEFAULT_APPROVE.getCode(),
+                Boolean.TRUE);
+    }
+
+    public DocumentTypePolicy getEnrouteErrorSuppression() {
+        return getPolicyByName(org.kuali.rice.kew.api.doctype.DocumentTypePolicy.ENROUTE_ERROR_SUPPRESSION.getCode(),
+                Boolean.FALSE);
+    }
+
+    public DocumentTypePolicy getDocumentStatusPolicy() {
+        return getPolicyByName(DOCUMENT_STATUS_POLICY.getCode(), KewApiConstants.DOCUMENT_STATUS_POLICY_KEW_STATUS);
+    }
+
+    public DocumentTypePolicy getDocSearchTarget() {
+        return getPolicyByName(org.kuali.rice.kew.api.doctype.DocumentTypePolicy.DOC_SEARCH_TARGET.getCode(),
+                (String) null);
+    }
+
+    /**
+     * @see DocumentType#isKEWStatusInUse()
+     */
+    public boolean isKEWStatusInUse() {
+        return kewStatusInUse;
+    }
+
+    /**
+     * @see DocumentType#isAppDocStatusInUse()
+     */
+    public boolean isAppDocStatusInUse() {
+        return appDocStatusInUse;
+    }
+
+    /**
+     * @see DocumentType#areBothStatusesInUse()
+     */
+    public boolean areBothStatusesInUse() {
+        return bothStatusesInUse;
+    }
+
+    /**
+     * Returns the attributes of the given types defined on the closest document type in the hierarchy which defines
+     * any, without looking up the parents again.
+     *
+     * @see DocumentType#getDocumentTypeAttributes(String...)
+     */
+    public List<DocumentTypeAttributeBo> getDocumentTypeAttributes(String... attributeTypes) {
+        List<String> attributeTypeList = attributeTypes == null ? null : Arrays.asList(attributeTypes);
+        for (List<DocumentTypeAttributeBo> attributes : attributeLevels) {
+            List<DocumentTypeAttributeBo> filteredAttributes = new ArrayList<DocumentTypeAttributeBo>();
+            for (DocumentTypeAttributeBo attribute : attributes) {
+                if (attributeTypeList == null || attributeTypeList.contains(attribute.getRuleAttribute().getType())) {
+                    filteredAttributes.add(attribute);
+                }
+            }
+            if (!filteredAttributes.isEmpty()) {
+                return Collections.unmodifiableList(filteredAttributes);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    public boolean hasSearchableAttributes() {
+        return !searchableAttributes.isEmpty();
+    }
+
+    public List<DocumentTypeAttributeBo> getSearchableAttributes() {
+        return searchableAttributes;
+    }
+
+    /**
+     * @see DocumentType#getCustomActionListRuleAttribute()
+     */
+    public RuleAttribute getCustomActionListRuleAttribute() {
+        List<DocumentTypeAttributeBo> attributes = getDocumentTypeAttributes(KewApiConstants.ACTION_LIST_ATTRIBUTE_TYPE);
+        if (attributes.size() > 1) {
+            throw new IllegalStateException("Encountered more than one ActionListAttribute on this document type: "
+                    + getName());
+        }
+        return attributes.isEmpty() ? null : attributes.get(0).getRuleAttribute();
+    }
+
+    /**
+     * @see DocumentType#getCustomizerAttribute()
+     */
+    public DocumentTypeAttributeBo getCustomizerAttribute() {
+        List<DocumentTypeAttributeBo> attributes = getDocumentTypeAttributes(
+                KewApiConstants.DOCUMENT_SEARCH_CUSTOMIZER_ATTRIBUTE_TYPE);
+        if (attributes.size() > 1) {
+            throw new IllegalStateException("Encountered more than one DocumentSearchCustomizer attribute on this "
+                    + "document type: " + getName());
+        }
+        return attributes.isEmpty() ? null : attributes.get(0);
+    }
+
+    public List<ApplicationDocumentStatus> getValidApplicationStatuses() {
+        return validApplicationStatuses;
+    }
+
+    public List<ApplicationDocumentStatusCategory> getApplicationStatusCategories() {
+        return applicationStatusCategories;
+    }
+
+    /**
+     * @see DocumentType#getDocumentTypeSecurity()
+     */
+    public DocumentTypeSecurity getDocumentTypeSecurity() {
+        return documentTypeSecurity;
+    }
+
+    /**
+     * @see DocumentType#getResolvedDocumentHandlerUrl()
+     */
+    public String getResolvedDocumentHandlerUrl() {
+        return resolvedDocumentHandlerUrl;
+    }
+
+    public String getAuthorizer() {
+        return authorizer;
+    }
+
+    /**
+     * @see DocumentType#isDocTypeActive()
+     */
+    public boolean isDocTypeActive() {
+        return active;
+    }
+
+    public boolean isRouteInherited() {
+        return routeDefiningDocumentType != documentType;
+    }
+
+    public DocumentType getRouteDefiningDocumentType() {
+        return routeDefiningDocumentType;
+    }
+
+    public List<ProcessDefinitionBo> getProcesses() {
+        return processes;
+    }
+
+    /**
+     * Returns the post processor defined on this document type or inherited from a parent, located in the application
+     * of the document type which defines it.
+     *
+     * @see DocumentType#getPostProcessor()
+     */
+    public PostProcessor getPostProcessor() {
+        if (postProcessorName == null
+                || StringUtils.equals(postProcessorName, KewApiConstants.POST_PROCESSOR_NON_DEFINED_VALUE)) {
+            return new DefaultPostProcessor();
+        }
+        Object postProcessor = GlobalResourceLoader.getObject(new ObjectDefinition(postProcessorName,
+                postProcessorApplicationId));
+        if (postProcessor == null) {
+            throw new WorkflowRuntimeException("Could not locate PostProcessor in this JVM or at application id "
+                    + postProcessorApplicationId + ": " + postProcessorName);
+        }
+        return (PostProcessor) postProcessor;
+    }
+
+    /**
+     * A policy as resolved for this document type, from which copies are handed out.
+     */
+    private static final class ResolvedPolicy implements Serializable {
+
+        private static final long serialVersionUID = -3349870312946517264L;
+
+        private final String documentTypeId;
+        private final String name;
+        private final Boolean value;
+        private final String stringValue;
+        private final boolean inherited;
+
+        ResolvedPolicy(String documentTypeId, String name, Boolean value, String stringValue, boolean inherited) {
+            this.documentTypeId = documentTypeId;
+            this.name = name;
+            this.value = value;
+            this.stringValue = stringValue;
+            this.inherited = inherited;
+        }
+
+        DocumentTypePolicy toPolicy() {
+            DocumentTypePolicy policy = new DocumentTypePolicy(documentTypeId, name, value);
+            policy.setPolicyStringValue(stringValue);
+            policy.setInheritedFlag(Boolean.valueOf(inherited));
+            return policy;
+        }
+    }
+
+}
@@ -41,6 +41,7 @@ import org.kuali.rice.kew.doctype.ApplicationDocumentStatusCategory;
 import org.kuali.rice.kew.doctype.DocumentTypeAttributeBo;
 import org.kuali.rice.kew.doctype.DocumentTypePolicy;
 import org.kuali.rice.kew.doctype.DocumentTypeSecurity;
+import org.kuali.rice.kew.doctype.ResolvedDocumentType;
 import org.kuali.rice.kew.doctype.service.DocumentTypeService;
 import org.kuali.rice.kew.engine.node.ProcessDefinitionBo;
 import org.kuali.rice.kew.framework.document.attribute.SearchableAttribute;
@@ -1341,6 +1342,23 @@ public class DocumentType extends PersistableBusinessObjectBase implements Mutab
         return new ObjectDefinition(objectName, getApplicationId());
     }
 
+    /**
+     * Returns this document type with everything it inherits from its parent document types resolved.  Saved
+     * document types are resolved once per version and shared through the document type cache, document types which
+     * have not been saved yet are resolved on every call.
+     *
+     * @return the resolved document type
+     */
+    public ResolvedDocumentType resolve() {
+        if (getDocumentTypeId() != null) {
+            ResolvedDocumentType resolved = getDocumentTypeService().findResolvedById(getDocumentTypeId());
+            if (resolved != null) {
+                return resolved;
+            }
+        }
+        return ResolvedDocumentType.resolve(this);
+    }
+
     /**
      * Returns true if this document type defines it's own routing, false if it inherits its routing
      * from a parent document type.
@@ -17,6 +17,7 @@ package org.kuali.rice.kew.doctype.service;
 
 import org.kuali.rice.core.framework.impex.xml.XmlExporter;
 import org.kuali.rice.kew.api.rule.Rule;
+import org.kuali.rice.kew.doctype.ResolvedDocumentType;
 import org.kuali.rice.kew.doctype.bo.DocumentType;
 import org.kuali.rice.kim.api.permission.Permission;
 import org.springframework.cache.annotation.CacheEvict;
@@ -49,6 +50,17 @@ public interface DocumentTypeService extends DocumentTypeQueryService, XmlExport
     @Cacheable(value= org.kuali.rice.kew.api.doctype.DocumentType.Cache.NAME, key="'{BO}{childDocumentTypes}' + 'documentTypeId=' + #p0")
     List<DocumentType> getChildDocumentTypes(String documentTypeId);
 
+    /**
+     * Returns the document type with the given id with everything it inherits from its parent document types
+     * resolved.  Resolved document types are cached along with the document types themselves, and are flushed with
+     * them whenever a document type is saved.
+     *
+     * @param documentTypeId the id of the document type version to resolve
+     * @return the resolved document type, or null if there is no document type with the given id
+     */
+    @Cacheable(value= org.kuali.rice.kew.api.doctype.DocumentType.Cache.NAME, key="'{BO}{resolved}' + 'documentTypeId=' + #p0")
+    ResolvedDocumentType findResolvedById(String documentTypeId);
+
     /**
      *
      * This method is similar to the findByName method except it is case insensitive.
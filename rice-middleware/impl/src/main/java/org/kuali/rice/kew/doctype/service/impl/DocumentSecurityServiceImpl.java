@@ -317,7 +317,7 @@ public class DocumentSecurityServiceImpl implements DocumentSecurityService {
         if (security == null) {
             DocumentType docType = KEWServiceLocator.getDocumentTypeService().findByName(documentTypeName);
             if (docType != null) {
-                security = docType.getDocumentTypeSecurity();
+                security = docType.resolve().getDocumentTypeSecurity();
                 session.getDocumentTypeSecurity().put(documentTypeName, security);
             }
         }
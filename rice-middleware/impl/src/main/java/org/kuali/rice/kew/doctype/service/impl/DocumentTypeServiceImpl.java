@@ -20,6 +20,7 @@ import org.jdom.Element;
 import org.kuali.rice.core.api.criteria.QueryByCriteria;
 import org.kuali.rice.core.api.criteria.QueryResults;
 import org.kuali.rice.core.api.impex.ExportDataSet;
+import org.kuali.rice.kew.doctype.ResolvedDocumentType;
 import org.kuali.rice.kew.doctype.bo.DocumentType;
 import org.kuali.rice.kew.doctype.dao.DocumentTypeDAO;
 import org.kuali.rice.kew.doctype.service.DocumentTypeService;
@@ -249,6 +250,15 @@ public class DocumentTypeServiceImpl implements DocumentTypeService {
     	return childDocumentTypes;
     }
 
+    @Override
+    public ResolvedDocumentType findResolvedById(String documentTypeId) {
+        DocumentType documentType = findById(documentTypeId);
+        if (documentType == null) {
+            return null;
+        }
+        return ResolvedDocumentType.resolve(documentType);
+    }
+
 
     public DataObjectService getDataObjectService() {
         return dataObjectService;
@@ -21,6 +21,8 @@ import org.apache.struts.action.ActionForward;
 import org.apache.struts.action.ActionMapping;
 import org.apache.struts.action.ActionMessage;
 import org.apache.struts.action.ActionMessages;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
+import org.kuali.rice.core.api.exception.RiceIllegalStateException;
 import org.kuali.rice.core.api.util.RiceConstants;
 import org.kuali.rice.core.api.util.RiceKeyConstants;
 import org.kuali.rice.kew.actionitem.ActionItem;
@@ -52,6 +54,7 @@ import org.kuali.rice.kew.engine.node.service.BranchService;
 import org.kuali.rice.kew.engine.node.service.RouteNodeService;
 import org.kuali.rice.kew.exception.WorkflowServiceErrorException;
 import org.kuali.rice.kew.exception.WorkflowServiceErrorImpl;
+import org.kuali.rice.kew.impl.document.attribute.DocumentAttributeReindexProgress;
 import org.kuali.rice.kew.notes.Note;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 import org.kuali.rice.kew.routeheader.service.RouteHeaderService;
@@ -644,6 +647,68 @@ public class DocumentOperationAction extends KewKualiAction {
 		return mapping.findForward("basic");
 	}
 
+	public ActionForward reindexSearchableAttributes(ActionMapping mapping, ActionForm form, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+		DocumentOperationForm docForm = (DocumentOperationForm) form;
+		if (StringUtils.isBlank(docForm.getReindexDocumentTypeNames())) {
+			GlobalVariables.getMessageMap().putError("reindexDocumentTypeNames", RiceKeyConstants.ERROR_REQUIRED, "Document Types");
+			return mapping.findForward("basic");
+		}
+		List<String> documentTypeNames = new ArrayList<String>();
+		for (String documentTypeName : docForm.getReindexDocumentTypeNames().split(",")) {
+			if (StringUtils.isNotBlank(documentTypeName)) {
+				documentTypeNames.add(documentTypeName.trim());
+			}
+		}
+		try {
+			docForm.setReindexId(KEWServiceLocator.getDocumentAttributeReindexService().submitReindex(documentTypeNames));
+		} catch (RiceIllegalArgumentException e) {
+			GlobalVariables.getMessageMap().putError("reindexDocumentTypeNames", RiceKeyConstants.ERROR_CUSTOM, e.getMessage());
+			return mapping.findForward("basic");
+		}
+		ActionMessages messages = new ActionMessages();
+		messages.add(ActionMessages.GLOBAL_MESSAGE, new ActionMessage("general.message", "Searchable Attribute Reindex " + docForm.getReindexId() + " was successfully started"));
+		saveMessages(request, messages);
+		return mapping.findForward("basic");
+	}
+
+	public ActionForward resumeReindexSearchableAttributes(ActionMapping mapping, ActionForm form, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+		DocumentOperationForm docForm = (DocumentOperationForm) form;
+		if (StringUtils.isBlank(docForm.getReindexId())) {
+			GlobalVariables.getMessageMap().putError("reindexId", RiceKeyConstants.ERROR_REQUIRED, "Reindex ID");
+			return mapping.findForward("basic");
+		}
+		try {
+			KEWServiceLocator.getDocumentAttributeReindexService().submitResume(docForm.getReindexId().trim());
+		} catch (RiceIllegalArgumentException e) {
+			GlobalVariables.getMessageMap().putError("reindexId", RiceKeyConstants.ERROR_CUSTOM, e.getMessage());
+			return mapping.findForward("basic");
+		} catch (RiceIllegalStateException e) {
+			GlobalVariables.getMessageMap().putError("reindexId", RiceKeyConstants.ERROR_CUSTOM, e.getMessage());
+			return mapping.findForward("basic");
+		}
+		ActionMessages messages = new ActionMessages();
+		messages.add(ActionMessages.GLOBAL_MESSAGE, new ActionMessage("general.message", "Searchable Attribute Reindex " + docForm.getReindexId().trim() + " was successfully resumed"));
+		saveMessages(request, messages);
+		return mapping.findForward("basic");
+	}
+
+	public ActionForward reindexSearchableAttributesStatus(ActionMapping mapping, ActionForm form, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+		DocumentOperationForm docForm = (DocumentOperationForm) form;
+		if (StringUtils.isBlank(docForm.getReindexId())) {
+			GlobalVariables.getMessageMap().putError("reindexId", RiceKeyConstants.ERROR_REQUIRED, "Reindex ID");
+			return mapping.findForward("basic");
+		}
+		DocumentAttributeReindexProgress progress = KEWServiceLocator.getDocumentAttributeReindexService().getProgress(docForm.getReindexId().trim());
+		if (progress == null) {
+			GlobalVariables.getMessageMap().putError("reindexId", RiceKeyConstants.ERROR_EXISTENCE, "reindex");
+			return mapping.findForward("basic");
+		}
+		ActionMessages messages = new ActionMessages();
+		messages.add(ActionMessages.GLOBAL_MESSAGE, new ActionMessage("general.message", progress.toString()));
+		saveMessages(request, messages);
+		return mapping.findForward("basic");
+	}
+
 	public ActionForward queueDocumentRefresh(ActionMapping mapping, ActionForm form, HttpServletRequest request,
             HttpServletResponse response) throws IOException, ServletException {
 		DocumentOperationForm docForm = (DocumentOperationForm) form;
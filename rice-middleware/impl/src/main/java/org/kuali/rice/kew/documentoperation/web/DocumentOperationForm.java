@@ -94,6 +94,8 @@ public class DocumentOperationForm extends KualiForm {
     private String actionInvocationUser;
     private String actionInvocationActionItemId;
     private String actionInvocationActionCode;
+    private String reindexDocumentTypeNames;
+    private String reindexId;
 
     private List<ActionRequestValue> actionRequests = new ArrayList<ActionRequestValue>();
     private List<ActionTakenValue> actionsTaken = new ArrayList<ActionTakenValue>();
@@ -441,5 +443,21 @@ public class DocumentOperationForm extends KualiForm {
 		this.blanketApproveUser = blanketApproveUser;
 	}
 
+	public String getReindexDocumentTypeNames() {
+		return reindexDocumentTypeNames;
+	}
+
+	public void setReindexDocumentTypeNames(String reindexDocumentTypeNames) {
+		this.reindexDocumentTypeNames = reindexDocumentTypeNames;
+	}
+
+	public String getReindexId() {
+		return reindexId;
+	}
+
+	public void setReindexId(String reindexId) {
+		this.reindexId = reindexId;
+	}
+
 
 }
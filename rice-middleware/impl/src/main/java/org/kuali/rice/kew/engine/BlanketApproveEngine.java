@@ -74,7 +74,7 @@ public class BlanketApproveEngine extends StandardWorkflowEngine {
                 RequestsNode.setSuppressPolicyErrors(RouteContext.getCurrentRouteContext());
             }
 
-            KEWServiceLocator.getRouteHeaderService().lockRouteHeader(documentId);
+            lockDocuments(documentId);
             if ( LOG.isInfoEnabled() ) {
             	LOG.info("Processing document for Blanket Approval: " + documentId + " : " + nodeInstanceId);
             }
@@ -104,7 +104,6 @@ public class BlanketApproveEngine extends StandardWorkflowEngine {
             if (config.isSendNotifications()) {
                 notifyContext = new NotificationContext(KewApiConstants.ACTION_REQUEST_ACKNOWLEDGE_REQ, config.getCause().getPrincipal(), config.getCause().getActionTaken());
             }
-            lockAdditionalDocuments(document);
             try {
                 List<ProcessEntry> processingQueue = new LinkedList<ProcessEntry>();
                 for (RouteNodeInstance nodeInstancesToProcesses : nodeInstancesToProcess)
@@ -28,6 +28,7 @@ import org.kuali.rice.kew.api.WorkflowRuntimeException;
 import org.kuali.rice.kew.engine.node.RouteNodeInstance;
 import org.kuali.rice.kew.routeheader.DocumentContent;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
+import org.kuali.rice.kew.routeheader.ParsedDocumentContentCache;
 import org.kuali.rice.kew.routeheader.StandardDocumentContent;
 
 
@@ -60,6 +61,14 @@ public class RouteContext implements Serializable {
 	
 	private boolean searchIndexingRequestedForContext = false;
 
+	/**
+	 * Whether content parsed within this context is kept for reuse.  Only contexts with a bounded lifetime, such as
+	 * those created by the engine for a routing pass, keep it, the base context of a thread lives as long as the
+	 * thread.
+	 */
+	private boolean parsedDocumentContentCached;
+	private transient ParsedDocumentContentCache parsedDocumentContentCache;
+
 	public RouteContext() {
         id = new String();
 	}
@@ -81,8 +90,8 @@ public class RouteContext implements Serializable {
             // Pop top stack element with matching document id and replace with empty
             for(int i = 0; i < ROUTE_CONTEXT_STACK.get().size(); i++) {
                 if(ROUTE_CONTEXT_STACK.get().get(i).routeHeader.getDocumentId().equals(documentId)) {
-                    ROUTE_CONTEXT_STACK.get().remove(i);
-                    ROUTE_CONTEXT_STACK.get().add(i, new RouteContext());
+                    RouteContext cleared = ROUTE_CONTEXT_STACK.get().remove(i);
+                    ROUTE_CONTEXT_STACK.get().add(i, replace(cleared));
                 }
             }
         }
@@ -90,17 +99,36 @@ public class RouteContext implements Serializable {
     }
 
 	public static void clearCurrentRouteContext() {
-        ROUTE_CONTEXT_STACK.get().remove(0);
-        ROUTE_CONTEXT_STACK.get().add(0, new RouteContext());
+        RouteContext cleared = ROUTE_CONTEXT_STACK.get().remove(0);
+        ROUTE_CONTEXT_STACK.get().add(0, replace(cleared));
 	}
 
+	/**
+	 * Creates a new context on top of the current one, which keeps the document content parsed within it until it is
+	 * released.
+	 */
 	public static RouteContext createNewRouteContext() {
-		ROUTE_CONTEXT_STACK.get().add(0, new RouteContext());
+		RouteContext context = new RouteContext();
+		context.parsedDocumentContentCached = true;
+		ROUTE_CONTEXT_STACK.get().add(0, context);
 		return getCurrentRouteContext();
 	}
 
+	/**
+	 * Releases the current context, discarding the document content parsed within it as the released context may
+	 * still be referenced, for instance by an exception.
+	 */
 	public static RouteContext releaseCurrentRouteContext() {
-		return ROUTE_CONTEXT_STACK.get().remove(0);
+		RouteContext released = ROUTE_CONTEXT_STACK.get().remove(0);
+		released.clearParsedDocumentContent();
+		return released;
+	}
+
+	private static RouteContext replace(RouteContext cleared) {
+		cleared.clearParsedDocumentContent();
+		RouteContext context = new RouteContext();
+		context.parsedDocumentContentCached = cleared.parsedDocumentContentCached;
+		return context;
 	}
 
 	/**
@@ -124,7 +152,7 @@ public class RouteContext implements Serializable {
 	public void setDocument(DocumentRouteHeaderValue routeHeader) {
 		this.routeHeader = routeHeader;
 		try {
-			setDocumentContent(new StandardDocumentContent(routeHeader.getDocContent(), this));
+			setDocumentContent(getParsedDocumentContent(routeHeader.getDocumentId(), routeHeader.getDocContent()));
 		} catch (Exception e) {
 			throw new WorkflowRuntimeException(e);
 		}
@@ -138,6 +166,52 @@ public class RouteContext implements Serializable {
 		this.documentContent = documentContent;
 	}
 
+	/**
+	 * Returns the parsed form of the given document content.  If this context keeps parsed content, see
+	 * {@link #isParsedDocumentContentCached()}, an earlier parse of the same content of the same document within this
+	 * context is reused.  The returned content may be shared and must not be modified.
+	 *
+	 * @param documentId the id of the document the content belongs to
+	 * @param docContent the XML content of the document
+	 * @return the parsed document content
+	 */
+	public DocumentContent getParsedDocumentContent(String documentId, String docContent) {
+		if (!parsedDocumentContentCached) {
+			return new StandardDocumentContent(docContent, this);
+		}
+		if (parsedDocumentContentCache == null) {
+			parsedDocumentContentCache = new ParsedDocumentContentCache();
+		}
+		return parsedDocumentContentCache.getDocumentContent(documentId, docContent, this);
+	}
+
+	/**
+	 * Discards the document content parsed within this context, for contexts which are reused across units of work.
+	 */
+	public void clearParsedDocumentContent() {
+		if (parsedDocumentContentCache != null) {
+			parsedDocumentContentCache.clear();
+		}
+	}
+
+	/**
+	 * @return whether document content parsed within this context is kept for reuse
+	 */
+	public boolean isParsedDocumentContentCached() {
+		return parsedDocumentContentCached;
+	}
+
+	/**
+	 * Sets whether document content parsed within this context is kept for reuse, the caller is responsible for
+	 * clearing it once its unit of work is over.  Parsed content is discarded when caching is turned off.
+	 */
+	public void setParsedDocumentContentCached(boolean parsedDocumentContentCached) {
+		this.parsedDocumentContentCached = parsedDocumentContentCached;
+		if (!parsedDocumentContentCached) {
+			clearParsedDocumentContent();
+		}
+	}
+
 	public RouteNodeInstance getNodeInstance() {
 		return nodeInstance;
 	}
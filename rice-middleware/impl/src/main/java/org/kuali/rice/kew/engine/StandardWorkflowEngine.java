@@ -100,14 +100,11 @@ public class StandardWorkflowEngine implements WorkflowEngine {
 			if ( LOG.isInfoEnabled() ) {
 				LOG.info("Aquiring lock on document " + documentId);
 			}
-			KEWServiceLocator.getRouteHeaderService().lockRouteHeader(documentId);
+			DocumentRouteHeaderValue document = lockDocuments(documentId);
 			if ( LOG.isInfoEnabled() ) {
 				LOG.info("Aquired lock on document " + documentId);
 			}
-
-			DocumentRouteHeaderValue document = getRouteHeaderService().getRouteHeader(documentId);
 			context.setDocument(document);
-			lockAdditionalDocuments(document);
 
 			if ( LOG.isInfoEnabled() ) {
 				LOG.info("Processing document: " + documentId + " : " + nodeInstanceId);
@@ -438,7 +435,7 @@ public class StandardWorkflowEngine implements WorkflowEngine {
 	 * @throws RouteManagerException
 	 */
 	private void checkDefaultApprovalPolicy(DocumentRouteHeaderValue document) throws RouteManagerException {
-		if (!document.getDocumentType().getDefaultApprovePolicy().getPolicyValue().booleanValue()) {
+		if (!document.getDocumentType().resolve().getDefaultApprovePolicy().getPolicyValue().booleanValue()) {
 			LOG.debug("Checking if any requests have been generated for the document");
 			List requests = KEWServiceLocator.getActionRequestService().findAllActionRequestsByDocumentId(
                     document.getDocumentId());
@@ -479,7 +476,7 @@ public class StandardWorkflowEngine implements WorkflowEngine {
             if (!isRunPostProcessorLogic()) {
                 postProc = new DefaultPostProcessor();
             } else {
-                postProc = document.getDocumentType().getPostProcessor();
+                postProc = document.getDocumentType().resolve().getPostProcessor();
             }
         } catch (Exception e) {
             LOG.error("Error retrieving PostProcessor for document " + document.getDocumentId(), e);
@@ -556,7 +553,7 @@ public class StandardWorkflowEngine implements WorkflowEngine {
 	        if (!isRunPostProcessorLogic()) {
 	            postProcessor = new DefaultPostProcessor();
 	        } else {
-	            postProcessor = document.getDocumentType().getPostProcessor();
+	            postProcessor = document.getDocumentType().resolve().getPostProcessor();
 	        }
 			report = postProcessor.doRouteLevelChange(event);
 		} catch (Exception e) {
@@ -591,7 +588,7 @@ public class StandardWorkflowEngine implements WorkflowEngine {
             if (!isRunPostProcessorLogic()) {
                 postProcessor = new DefaultPostProcessor();
             } else {
-                postProcessor = document.getDocumentType().getPostProcessor();
+                postProcessor = document.getDocumentType().resolve().getPostProcessor();
             }
             report = postProcessor.beforeProcess(event);
         } catch (Exception e) {
@@ -606,7 +603,28 @@ public class StandardWorkflowEngine implements WorkflowEngine {
         return document;
     }
 
-    protected void lockAdditionalDocuments(DocumentRouteHeaderValue document) throws Exception {
+    /**
+     * Locks the given document along with the additional documents its post processor asks to be locked, all in one
+     * consistent order so that engines locking overlapping documents do not deadlock, and returns the locked document.
+     */
+    protected DocumentRouteHeaderValue lockDocuments(String documentId) throws Exception {
+        List<String> documentIdsToLock = new ArrayList<String>();
+        documentIdsToLock.add(documentId);
+        DocumentRouteHeaderValue document = getRouteHeaderService().getRouteHeader(documentId);
+        if (document != null) {
+            List<String> additionalDocumentIds = getAdditionalDocumentIdsToLock(document);
+            if (additionalDocumentIds != null && !additionalDocumentIds.isEmpty()) {
+                if ( LOG.isInfoEnabled() ) {
+                    LOG.info("Aquiring additional locks on documents " + additionalDocumentIds);
+                }
+                documentIdsToLock.addAll(additionalDocumentIds);
+            }
+        }
+        getRouteHeaderService().lockRouteHeaders(documentIdsToLock);
+        return getRouteHeaderService().getRouteHeader(documentId);
+    }
+
+    protected List<String> getAdditionalDocumentIdsToLock(DocumentRouteHeaderValue document) throws Exception {
 		DocumentLockingEvent lockingEvent = new DocumentLockingEvent(document.getDocumentId(), document.getAppDocId());
 		// TODO this shows up in a few places and could totally be extracted to a method
 		PostProcessor postProcessor = null;
@@ -614,20 +632,9 @@ public class StandardWorkflowEngine implements WorkflowEngine {
         if (!isRunPostProcessorLogic()) {
             postProcessor = new DefaultPostProcessor();
         } else {
-            postProcessor = document.getDocumentType().getPostProcessor();
-        }
-        List<String> documentIdsToLock = postProcessor.getDocumentIdsToLock(lockingEvent);
-        if (documentIdsToLock != null && !documentIdsToLock.isEmpty()) {
-        	for (String documentId : documentIdsToLock) {
-        		if ( LOG.isInfoEnabled() ) {
-    				LOG.info("Aquiring additional lock on document " + documentId);
-    			}
-        		getRouteHeaderService().lockRouteHeader(documentId);
-        		if ( LOG.isInfoEnabled() ) {
-        			LOG.info("Aquired lock on document " + documentId);
-        		}
-        	}
+            postProcessor = document.getDocumentType().resolve().getPostProcessor();
         }
+        return postProcessor.getDocumentIdsToLock(lockingEvent);
 	}
 
     /**
@@ -654,7 +661,7 @@ public class StandardWorkflowEngine implements WorkflowEngine {
             if (!isRunPostProcessorLogic()) {
                 postProcessor = new DefaultPostProcessor();
             } else {
-                postProcessor = document.getDocumentType().getPostProcessor();
+                postProcessor = document.getDocumentType().resolve().getPostProcessor();
             }
             report = postProcessor.afterProcess(event);
         } catch (Exception e) {
@@ -22,7 +22,6 @@ import org.kuali.rice.kew.engine.RouteContext;
 import org.kuali.rice.kew.engine.RouteHelper;
 import org.kuali.rice.kew.exception.WorkflowServiceErrorException;
 import org.kuali.rice.kew.routeheader.DocumentContent;
-import org.kuali.rice.kew.routeheader.StandardDocumentContent;
 import org.kuali.rice.kew.rule.NetworkIdRoleAttribute;
 import org.kuali.rice.kew.service.KEWServiceLocator;
 import org.kuali.rice.kew.api.KewApiConstants;
@@ -49,7 +48,8 @@ public class FYIByNetworkId extends RequestActivationNode {
 
         LOG.debug("processing FYIByNetworkId simple node");
         String documentId = context.getDocument().getDocumentId();
-        Element rootElement = getRootElement(new StandardDocumentContent(context.getDocument().getDocContent()));
+        Element rootElement = getRootElement(context.getParsedDocumentContent(context.getDocument().getDocumentId(),
+                context.getDocument().getDocContent()));
 		Collection<Element> fieldElements = XmlHelper.findElements(rootElement, "field");
         Iterator<Element> elementIter = fieldElements.iterator();
         while (elementIter.hasNext()) {
@@ -24,7 +24,6 @@ import org.kuali.rice.kew.engine.RouteContext;
 import org.kuali.rice.kew.engine.RouteHelper;
 import org.kuali.rice.kew.exception.WorkflowServiceErrorException;
 import org.kuali.rice.kew.routeheader.DocumentContent;
-import org.kuali.rice.kew.routeheader.StandardDocumentContent;
 import org.kuali.rice.kew.service.KEWServiceLocator;
 import org.kuali.rice.kew.api.KewApiConstants;
 import org.kuali.rice.kim.api.identity.Person;
@@ -49,7 +48,8 @@ public class FYIByUniversityId extends RequestActivationNode {
 			throws Exception {
 
         LOG.debug("processing FYIByUniversityId node");
-        Element rootElement = getRootElement(new StandardDocumentContent(context.getDocument().getDocContent()));
+        Element rootElement = getRootElement(context.getParsedDocumentContent(context.getDocument().getDocumentId(),
+                context.getDocument().getDocContent()));
  		Collection<Element> fieldElements = XmlHelper.findElements(rootElement, "field");
         Iterator<Element> elementIter = fieldElements.iterator();
         while (elementIter.hasNext()) {
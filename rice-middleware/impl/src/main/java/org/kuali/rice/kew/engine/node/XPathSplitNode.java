@@ -19,6 +19,7 @@ package org.kuali.rice.kew.engine.node;
 import org.apache.log4j.Logger;
 import org.kuali.rice.kew.engine.RouteContext;
 import org.kuali.rice.kew.engine.RouteHelper;
+import org.kuali.rice.kew.rule.xmlrouting.XPathHelper;
 import org.springframework.util.CollectionUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -32,7 +33,6 @@ import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
@@ -104,8 +104,7 @@ public class XPathSplitNode implements SplitNode {
 
     public XPath getXPath() {
         if(this.xPath == null) {
-            XPathFactory xPathFactory = XPathFactory.newInstance();
-            this.xPath = xPathFactory.newXPath();
+            this.xPath = XPathHelper.newCachingXPath();
         }
         return xPath;
     }
@@ -23,6 +23,7 @@ import org.apache.log4j.Logger;
 import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
 import org.kuali.rice.core.api.reflect.DataDefinition;
 import org.kuali.rice.kew.actions.ActionTakenEvent;
+import org.kuali.rice.kew.api.KewApiServiceLocator;
 import org.kuali.rice.kew.api.WorkflowRuntimeException;
 import org.kuali.rice.kew.api.action.ActionInvocation;
 import org.kuali.rice.kew.api.action.ActionInvocationQueue;
@@ -32,6 +33,11 @@ import org.kuali.rice.kew.api.exception.ResourceUnavailableException;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 import org.kuali.rice.kew.service.KEWServiceLocator;
 import org.kuali.rice.kim.api.identity.principal.Principal;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Reference implementation of the ActionInvocationQueue.
@@ -42,6 +48,8 @@ public class ActionInvocationQueueImpl implements ActionInvocationQueue {
 
     private static final Logger LOG = Logger.getLogger(ActionInvocationQueueImpl.class);
 
+    private PlatformTransactionManager transactionManager;
+
     @Override
     public void invokeAction(String principalId, String documentId, ActionInvocation invocation) {
         if (StringUtils.isBlank(principalId)) {
@@ -56,11 +64,73 @@ public class ActionInvocationQueueImpl implements ActionInvocationQueue {
             throw new RiceIllegalArgumentException("invocation is null");
         }
 
+        invokeAction(KEWServiceLocator.getIdentityHelperService().getPrincipal(principalId), documentId, invocation);
+    }
+
+    @Override
+    public void invokeActions(String principalId, List<String> documentIds, List<ActionInvocation> actionInvocations) {
+        if (StringUtils.isBlank(principalId)) {
+            throw new RiceIllegalArgumentException("principalId is null or blank");
+        }
+        if (documentIds == null || documentIds.contains(null)) {
+            throw new RiceIllegalArgumentException("documentIds is null or contains a null value");
+        }
+        if (actionInvocations == null || actionInvocations.contains(null)) {
+            throw new RiceIllegalArgumentException("actionInvocations is null or contains a null value");
+        }
+        if (documentIds.size() != actionInvocations.size()) {
+            throw new RiceIllegalArgumentException("documentIds and actionInvocations are of different sizes");
+        }
 
+        final Principal principal = KEWServiceLocator.getIdentityHelperService().getPrincipal(principalId);
+        TransactionTemplate transactionTemplate = null;
+        if (getTransactionManager() != null) {
+            transactionTemplate = new TransactionTemplate(getTransactionManager());
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+        int failures = 0;
+        for (int index = 0; index < documentIds.size(); index++) {
+            final String documentId = documentIds.get(index);
+            final ActionInvocation invocation = actionInvocations.get(index);
+            try {
+                if (transactionTemplate == null) {
+                    invokeAction(principal, documentId, invocation);
+                } else {
+                    transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                        @Override
+                        protected void doInTransactionWithoutResult(TransactionStatus status) {
+                            invokeAction(principal, documentId, invocation);
+                        }
+                    });
+                }
+            } catch (RuntimeException e) {
+                failures++;
+                LOG.warn("Failed to invoke action " + invocation.getAction() + " on document " + documentId
+                        + " as part of a batch, requeuing it on its own", e);
+                requeue(principalId, documentId, invocation);
+            }
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Invoked a batch of " + documentIds.size() + " actions for principal " + principalId + ", "
+                    + failures + " of which were requeued");
+        }
+    }
+
+    /**
+     * Queues an action which failed as part of a batch as a message of its own, so that it is retried and its
+     * failure is handled as that of any other action invocation.
+     */
+    protected void requeue(String principalId, String documentId, ActionInvocation invocation) {
+        DocumentRouteHeaderValue document = KEWServiceLocator.getRouteHeaderService().getRouteHeader(documentId);
+        String applicationId = document == null ? null : document.getDocumentType().getApplicationId();
+        KewApiServiceLocator.getActionInvocationProcessorService(documentId, applicationId).invokeAction(principalId,
+                documentId, invocation);
+    }
+
+    protected void invokeAction(Principal principal, String documentId, ActionInvocation invocation) {
         KEWServiceLocator.getRouteHeaderService().lockRouteHeader(documentId);
         DocumentRouteHeaderValue document = KEWServiceLocator.getRouteHeaderService().getRouteHeader(documentId);
 
-        Principal principal = KEWServiceLocator.getIdentityHelperService().getPrincipal(principalId);
         List<DataDefinition> parameters = new ArrayList<DataDefinition>();
         parameters.add(new DataDefinition(document));
         parameters.add(new DataDefinition(principal));
@@ -97,4 +167,15 @@ public class ActionInvocationQueueImpl implements ActionInvocationQueue {
 
     }
 
+    public PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    /**
+     * Sets the transaction manager used to take each action of a batch in its own transaction.
+     */
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
 }
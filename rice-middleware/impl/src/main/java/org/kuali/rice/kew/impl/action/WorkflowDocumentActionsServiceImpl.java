@@ -48,6 +48,7 @@ import org.kuali.rice.kew.api.action.MovePoint;
 import org.kuali.rice.kew.api.action.RequestedActions;
 import org.kuali.rice.kew.api.action.ReturnPoint;
 import org.kuali.rice.kew.api.action.RoutingReportCriteria;
+import org.kuali.rice.kew.api.action.RoutingReportResult;
 import org.kuali.rice.kew.api.action.ValidActions;
 import org.kuali.rice.kew.api.action.WorkflowDocumentActionsService;
 import org.kuali.rice.kew.api.doctype.DocumentTypeService;
@@ -405,6 +406,15 @@ public class WorkflowDocumentActionsServiceImpl implements WorkflowDocumentActio
         return DTOConverter.convertDocumentDetailNew(KEWServiceLocator.getRoutingReportService().report(criteria));
     }
 
+    @Override
+    public List<RoutingReportResult> executeSimulations(List<RoutingReportCriteria> reportCriteria) {
+        incomingParamCheck(reportCriteria, "reportCriteria");
+        if ( LOG.isDebugEnabled() ) {
+            LOG.debug("Executing " + reportCriteria.size() + " routing reports");
+        }
+        return KEWServiceLocator.getRoutingReportService().report(reportCriteria);
+    }
+
     protected DocumentActionResult constructDocumentActionResult(DocumentRouteHeaderValue documentBo, String principalId) {
         Document document = DocumentRouteHeaderValue.to(documentBo);
         ValidActions validActions = determineValidActionsInternal(documentBo, principalId);
@@ -117,7 +117,7 @@ public class ActionListCustomizationMediatorImpl implements ActionListCustomizat
     // applicationId we need to use
     private String getActionListCustomizationApplicationId(DocumentType docType) {
         String applicationId = null;
-        RuleAttribute ruleAttribute = docType.getCustomActionListRuleAttribute();
+        RuleAttribute ruleAttribute = docType.resolve().getCustomActionListRuleAttribute();
         if (ruleAttribute != null) {
             applicationId = ruleAttribute.getApplicationId();
         }
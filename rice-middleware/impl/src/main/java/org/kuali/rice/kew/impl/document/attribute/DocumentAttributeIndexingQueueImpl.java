@@ -20,41 +20,78 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.MDC;
 import org.joda.time.DateTime;
 import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
-import org.kuali.rice.kew.api.KewApiServiceLocator;
+import org.kuali.rice.core.api.util.ChecksumUtils;
 import org.kuali.rice.kew.api.WorkflowRuntimeException;
 import org.kuali.rice.kew.api.document.Document;
 import org.kuali.rice.kew.api.document.DocumentContent;
 import org.kuali.rice.kew.api.document.DocumentWithContent;
-import org.kuali.rice.kew.api.document.WorkflowDocumentService;
 import org.kuali.rice.kew.api.document.attribute.DocumentAttribute;
 import org.kuali.rice.kew.api.document.attribute.DocumentAttributeDateTime;
 import org.kuali.rice.kew.api.document.attribute.DocumentAttributeDecimal;
 import org.kuali.rice.kew.api.document.attribute.DocumentAttributeIndexingQueue;
 import org.kuali.rice.kew.api.document.attribute.DocumentAttributeInteger;
 import org.kuali.rice.kew.api.document.attribute.DocumentAttributeString;
+import org.kuali.rice.kew.api.extension.ExtensionDefinition;
 import org.kuali.rice.kew.docsearch.SearchableAttributeDateTimeValue;
 import org.kuali.rice.kew.docsearch.SearchableAttributeFloatValue;
 import org.kuali.rice.kew.docsearch.SearchableAttributeLongValue;
 import org.kuali.rice.kew.docsearch.SearchableAttributeStringValue;
 import org.kuali.rice.kew.docsearch.SearchableAttributeValue;
+import org.kuali.rice.kew.docsearch.SearchableAttributeValueChanges;
 import org.kuali.rice.kew.doctype.bo.DocumentType;
+import org.kuali.rice.kew.doctype.service.DocumentTypeService;
+import org.kuali.rice.kew.engine.RouteContext;
 import org.kuali.rice.kew.framework.document.attribute.SearchableAttribute;
+import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
+import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValueContent;
+import org.kuali.rice.kew.routeheader.service.RouteHeaderService;
 import org.kuali.rice.kew.service.KEWServiceLocator;
 
 import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Reference implementation of the DocumentAttributeIndexingQueue.
  *
+ * <p>Documents are indexed in batches: the route headers and the stored searchable attribute values of all documents
+ * in a batch are loaded together, and only the rows which differ from the newly extracted values are written, using
+ * JDBC batches.  When {@link #isSkipUnchangedDocuments()} is enabled, a digest of the searchable attribute
+ * definitions, content and header fields of each indexed document is remembered, and a document is not re-indexed
+ * while both that digest and its stored values are unchanged since it was last indexed on this node.  This is only
+ * safe when every searchable attribute of the indexed documents reads nothing but the document content, see
+ * {@link #calculateContentHash(Document, List, DocumentRouteHeaderValueContent)}.</p>
+ *
  * @author Kuali Rice Team (rice.collab@kuali.org)
  */
 public class DocumentAttributeIndexingQueueImpl implements DocumentAttributeIndexingQueue {
 
 	private static Logger LOG = Logger.getLogger(DocumentAttributeIndexingQueueImpl.class);
 
+    /**
+     * The maximum number of documents for which the last indexed state is remembered.
+     */
+    private static final int INDEX_STATE_CACHE_SIZE = 10000;
+
+    private static final String HASH_SEPARATOR = "\u0000";
+
+    private final Map<String, IndexState> indexStates = Collections.synchronizedMap(
+            new LinkedHashMap<String, IndexState>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IndexState> eldest) {
+                    return size() > INDEX_STATE_CACHE_SIZE;
+                }
+            });
+
+    private boolean skipUnchangedDocuments = false;
+
     @Override
     public void indexDocument(String documentId) {
         if (StringUtils.isBlank(documentId)) {
@@ -64,30 +101,162 @@ public class DocumentAttributeIndexingQueueImpl implements DocumentAttributeInde
         try {
             long t1 = System.currentTimeMillis();
             LOG.info("Indexing document attributes for document " + documentId);
-            Document document = getWorkflowDocumentService().getDocument(documentId);
-            if (document == null) {
-                throw new RiceIllegalArgumentException("Failed to locate document with the given id: " + documentId);
-            }
-            DocumentContent documentContent =
-                    KewApiServiceLocator.getWorkflowDocumentService().getDocumentContent(documentId);
-            List<SearchableAttributeValue> attributes = buildSearchableAttributeValues(document, documentContent);
-            KEWServiceLocator.getRouteHeaderService().updateRouteHeaderSearchValues(documentId, attributes);
+            IndexingResult result = index(Collections.singletonList(documentId), true);
             long t2 = System.currentTimeMillis();
-            LOG.info("...finished indexing document " + documentId + " for document search, total time = " + (t2 - t1) +
+            LOG.info("...finished indexing document " + documentId + " for document search" +
+                    (result.skipped > 0 ? " (unchanged since last index)" : "") + ", total time = " + (t2 - t1) +
                     " ms.");
         } finally {
             MDC.remove("docId");
         }
     }
 
+    @Override
+    public void indexDocuments(List<String> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return;
+        }
+        List<String> uniqueDocumentIds = new ArrayList<String>(new LinkedHashSet<String>(documentIds));
+        for (String documentId : uniqueDocumentIds) {
+            if (StringUtils.isBlank(documentId)) {
+                throw new RiceIllegalArgumentException("documentIds contained a null or blank value");
+            }
+        }
+        long t1 = System.currentTimeMillis();
+        LOG.info("Indexing document attributes for " + uniqueDocumentIds.size() + " documents");
+        IndexingResult result = index(uniqueDocumentIds, false);
+        long t2 = System.currentTimeMillis();
+        LOG.info("...finished indexing " + uniqueDocumentIds.size() + " documents for document search (" +
+                result.indexed + " indexed, " + result.skipped + " unchanged, " + result.missing + " not found, " +
+                result.rowsWritten + " rows written), total time = " + (t2 - t1) + " ms.");
+    }
+
+    /**
+     * Indexes the given documents within a single unit of work.
+     *
+     * @param documentIds the unique ids of the documents to index
+     * @param failIfMissing whether a document which does not exist is an error, otherwise it is logged and ignored
+     */
+    protected IndexingResult index(List<String> documentIds, boolean failIfMissing) {
+        // searchable attributes share parsed content through the route context, which outlives this unit of work
+        RouteContext routeContext = RouteContext.getCurrentRouteContext();
+        boolean parsedDocumentContentCached = routeContext.isParsedDocumentContentCached();
+        routeContext.setParsedDocumentContentCached(true);
+        try {
+            return doIndex(documentIds, failIfMissing);
+        } finally {
+            routeContext.clearParsedDocumentContent();
+            routeContext.setParsedDocumentContentCached(parsedDocumentContentCached);
+        }
+    }
+
+    private IndexingResult doIndex(List<String> documentIds, boolean failIfMissing) {
+        IndexingResult result = new IndexingResult();
+        Map<String, DocumentRouteHeaderValue> routeHeaders = new HashMap<String, DocumentRouteHeaderValue>();
+        for (DocumentRouteHeaderValue routeHeader : getRouteHeaderService().getRouteHeaders(documentIds)) {
+            routeHeaders.put(routeHeader.getDocumentId(), routeHeader);
+        }
+        for (String documentId : documentIds) {
+            if (!routeHeaders.containsKey(documentId)) {
+                if (failIfMissing) {
+                    throw new RiceIllegalArgumentException("Failed to locate document with the given id: " + documentId);
+                }
+                LOG.warn("Failed to locate document with id " + documentId + ", it will not be indexed");
+                result.missing++;
+            }
+        }
+        if (routeHeaders.isEmpty()) {
+            return result;
+        }
+
+        Map<String, List<SearchableAttributeValue>> existingValues =
+                getRouteHeaderService().getSearchableAttributeValues(routeHeaders.keySet());
+        SearchableAttributeValueChanges changes = new SearchableAttributeValueChanges();
+        Map<String, IndexState> newIndexStates = new HashMap<String, IndexState>();
+        Map<String, List<DocumentType.ExtensionHolder<SearchableAttribute>>> searchableAttributesByType =
+                new HashMap<String, List<DocumentType.ExtensionHolder<SearchableAttribute>>>();
+        for (String documentId : documentIds) {
+            DocumentRouteHeaderValue routeHeader = routeHeaders.get(documentId);
+            if (routeHeader == null) {
+                continue;
+            }
+            Document document = DocumentRouteHeaderValue.to(routeHeader);
+            List<DocumentType.ExtensionHolder<SearchableAttribute>> searchableAttributes =
+                    searchableAttributesByType.get(document.getDocumentTypeName());
+            if (searchableAttributes == null) {
+                DocumentType documentType = getDocumentTypeService().findByName(document.getDocumentTypeName());
+                searchableAttributes = documentType.loadSearchableAttributes();
+                searchableAttributesByType.put(document.getDocumentTypeName(), searchableAttributes);
+            }
+            DocumentRouteHeaderValueContent content = getRouteHeaderService().getContent(documentId);
+            List<SearchableAttributeValue> documentExistingValues = existingValues.get(documentId);
+            if (documentExistingValues == null) {
+                documentExistingValues = Collections.emptyList();
+            }
+
+            String contentHash = calculateContentHash(document, searchableAttributes, content);
+            IndexState lastIndexState = indexStates.get(documentId);
+            if (isSkipUnchangedDocuments() && lastIndexState != null && lastIndexState.contentHash.equals(contentHash)
+                    && lastIndexState.valuesFingerprint.equals(SearchableAttributeValueChanges.fingerprint(
+                    documentExistingValues))) {
+                result.skipped++;
+                continue;
+            }
+
+            List<SearchableAttributeValue> newValues = buildSearchableAttributeValues(document, searchableAttributes,
+                    DocumentRouteHeaderValueContent.to(content));
+            changes.addChanges(documentExistingValues, newValues);
+            newIndexStates.put(documentId, new IndexState(contentHash, SearchableAttributeValueChanges.fingerprint(
+                    newValues)));
+            result.indexed++;
+        }
+
+        getRouteHeaderService().saveSearchableAttributeValueChanges(changes);
+        result.rowsWritten = changes.getInserts().size() + changes.getUpdates().size() + changes.getDeletes().size();
+        if (isSkipUnchangedDocuments()) {
+            indexStates.putAll(newIndexStates);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates a digest of everything the searchable attributes of the document are expected to depend on: the
+     * definitions of the attributes themselves, the document content, and the descriptive fields of the document
+     * header.  Fields which change on every action, such as the last modification date, are deliberately left out.
+     *
+     * <p>The digest does not cover the dates of the {@link Document}, anything an attribute looks up elsewhere (other
+     * documents, KIM, the database or external services), nor the code of the attribute itself, only its definition.
+     * Documents are therefore only skipped correctly when all of their searchable attributes read nothing but the
+     * document content, which is why {@link #isSkipUnchangedDocuments()} is off unless enabled.</p>
+     */
+    protected String calculateContentHash(Document document,
+            List<DocumentType.ExtensionHolder<SearchableAttribute>> searchableAttributes,
+            DocumentRouteHeaderValueContent content) {
+        StringBuilder builder = new StringBuilder();
+        for (DocumentType.ExtensionHolder<SearchableAttribute> searchableAttribute : searchableAttributes) {
+            ExtensionDefinition definition = searchableAttribute.getExtensionDefinition();
+            builder.append(definition.getId()).append(':').append(definition.getVersionNumber()).append(':');
+            builder.append(new TreeMap<String, String>(definition.getConfiguration())).append(HASH_SEPARATOR);
+        }
+        builder.append(document.getStatus()).append(HASH_SEPARATOR);
+        builder.append(document.getTitle()).append(HASH_SEPARATOR);
+        builder.append(document.getApplicationDocumentId()).append(HASH_SEPARATOR);
+        builder.append(document.getApplicationDocumentStatus()).append(HASH_SEPARATOR);
+        builder.append(document.getInitiatorPrincipalId()).append(HASH_SEPARATOR);
+        builder.append(document.getRoutedByPrincipalId()).append(HASH_SEPARATOR);
+        builder.append(new TreeMap<String, String>(document.getVariables())).append(HASH_SEPARATOR);
+        builder.append(content == null ? null : content.getDocumentContent());
+        return ChecksumUtils.calculateChecksum(builder.toString());
+    }
+
     /**
      * Determines the {@link DocumentAttribute}s for the given document and returns a List of SearchableAttributeValue
      * which will be saved.
      */
-	private List<SearchableAttributeValue> buildSearchableAttributeValues(Document document, DocumentContent documentContent) {
+	private List<SearchableAttributeValue> buildSearchableAttributeValues(Document document,
+            List<DocumentType.ExtensionHolder<SearchableAttribute>> searchableAttributes, DocumentContent documentContent) {
 		List<SearchableAttributeValue> searchableAttributeValues = new ArrayList<SearchableAttributeValue>();
-        DocumentType documentTypeBo = KEWServiceLocator.getDocumentTypeService().findByName(document.getDocumentTypeName());
-		for (DocumentType.ExtensionHolder<SearchableAttribute> searchableAttributeHolder : documentTypeBo.loadSearchableAttributes()) {
+		for (DocumentType.ExtensionHolder<SearchableAttribute> searchableAttributeHolder : searchableAttributes) {
             DocumentWithContent documentWithContent = DocumentWithContent.create(document, documentContent);
             SearchableAttribute searchableAttribute = searchableAttributeHolder.getExtension();
             if ( searchableAttribute == null ) {
@@ -132,7 +301,50 @@ public class DocumentAttributeIndexingQueueImpl implements DocumentAttributeInde
 		return searchableAttributeValues;
 	}
 
-    protected WorkflowDocumentService getWorkflowDocumentService() {
-        return KewApiServiceLocator.getWorkflowDocumentService();
+    protected RouteHeaderService getRouteHeaderService() {
+        return KEWServiceLocator.getRouteHeaderService();
+    }
+
+    protected DocumentTypeService getDocumentTypeService() {
+        return KEWServiceLocator.getDocumentTypeService();
+    }
+
+    /**
+     * Returns whether documents whose content, header fields and stored values are unchanged since they were last
+     * indexed by this queue are skipped, defaults to false.  Only enable this when the searchable attributes read
+     * nothing but the document content, see
+     * {@link #calculateContentHash(Document, List, DocumentRouteHeaderValueContent)}.
+     */
+    public boolean isSkipUnchangedDocuments() {
+        return skipUnchangedDocuments;
+    }
+
+    public void setSkipUnchangedDocuments(boolean skipUnchangedDocuments) {
+        this.skipUnchangedDocuments = skipUnchangedDocuments;
+    }
+
+    /**
+     * The state of a document as of the last time it was indexed.
+     */
+    private static final class IndexState {
+
+        private final String contentHash;
+        private final String valuesFingerprint;
+
+        IndexState(String contentHash, String valuesFingerprint) {
+            this.contentHash = contentHash;
+            this.valuesFingerprint = valuesFingerprint;
+        }
+    }
+
+    /**
+     * Counts of what happened to the documents of a single indexing request.
+     */
+    protected static final class IndexingResult {
+
+        int indexed;
+        int skipped;
+        int missing;
+        int rowsWritten;
     }
 }
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.attribute;
+
+import java.util.List;
+
+/**
+ * Data access for bulk searchable attribute reindexing: enumerates the documents to reindex and stores the checkpoint
+ * of each {@link DocumentAttributeReindexPartition}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public interface DocumentAttributeReindexDAO {
+
+    /**
+     * Splits the documents of the given document type, across all of its versions, into ranges of document ids of at
+     * most the given size.  The partitions returned are not saved.
+     *
+     * @param reindexId the id of the reindex the partitions belong to
+     * @param documentTypeName the name of the document type
+     * @param partitionSize the maximum number of documents in a partition
+     * @param firstPartitionNumber the number to give to the first partition, subsequent partitions are numbered
+     * sequentially
+     * @return the partitions, in document id order, empty if there are no documents of the type
+     */
+    List<DocumentAttributeReindexPartition> planPartitions(String reindexId, String documentTypeName,
+            int partitionSize, int firstPartitionNumber);
+
+    /**
+     * Returns the next ids of documents in the given partition which have not yet been reindexed, in document id
+     * order.
+     *
+     * @param partition the partition
+     * @param maxResults the maximum number of ids to return
+     * @return the document ids, empty once the partition is exhausted
+     */
+    List<String> findRemainingDocumentIds(DocumentAttributeReindexPartition partition, int maxResults);
+
+    void savePartitions(List<DocumentAttributeReindexPartition> partitions);
+
+    /**
+     * Records the progress and status of the given partition.
+     */
+    void updatePartition(DocumentAttributeReindexPartition partition);
+
+    /**
+     * Returns the partitions of the given reindex in partition number order, empty if the reindex does not exist.
+     */
+    List<DocumentAttributeReindexPartition> findPartitions(String reindexId);
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.attribute;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spring JdbcTemplate implementation of {@link DocumentAttributeReindexDAO}, checkpoints are stored in
+ * KREW_REIDX_PRTN_T.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DocumentAttributeReindexDAOJdbcImpl implements DocumentAttributeReindexDAO {
+
+    private static final int PLAN_FETCH_SIZE = 1000;
+
+    private static final String DOCUMENT_IDS_OF_TYPE_SQL = "SELECT DH.DOC_HDR_ID FROM KREW_DOC_HDR_T DH, "
+            + "KREW_DOC_TYP_T DT WHERE DH.DOC_TYP_ID = DT.DOC_TYP_ID AND DT.DOC_TYP_NM = ?";
+
+    private static final String PLAN_SQL = DOCUMENT_IDS_OF_TYPE_SQL + " ORDER BY DH.DOC_HDR_ID";
+
+    private static final String REMAINING_FROM_START_SQL = DOCUMENT_IDS_OF_TYPE_SQL
+            + " AND DH.DOC_HDR_ID >= ? AND DH.DOC_HDR_ID <= ? ORDER BY DH.DOC_HDR_ID";
+
+    private static final String REMAINING_AFTER_LAST_SQL = DOCUMENT_IDS_OF_TYPE_SQL
+            + " AND DH.DOC_HDR_ID > ? AND DH.DOC_HDR_ID <= ? ORDER BY DH.DOC_HDR_ID";
+
+    private static final String INSERT_PARTITION_SQL = "INSERT INTO KREW_REIDX_PRTN_T (REIDX_ID, PRTN_NBR, "
+            + "DOC_TYP_NM, FRM_DOC_HDR_ID, TO_DOC_HDR_ID, LAST_DOC_HDR_ID, STAT_CD, DOC_CNT, LAST_UPDT_DT) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_PARTITION_SQL = "UPDATE KREW_REIDX_PRTN_T SET LAST_DOC_HDR_ID = ?, "
+            + "STAT_CD = ?, DOC_CNT = ?, LAST_UPDT_DT = ? WHERE REIDX_ID = ? AND PRTN_NBR = ?";
+
+    private static final String SELECT_PARTITIONS_SQL = "SELECT REIDX_ID, PRTN_NBR, DOC_TYP_NM, FRM_DOC_HDR_ID, "
+            + "TO_DOC_HDR_ID, LAST_DOC_HDR_ID, STAT_CD, DOC_CNT FROM KREW_REIDX_PRTN_T WHERE REIDX_ID = ? "
+            + "ORDER BY PRTN_NBR";
+
+    private DataSource dataSource;
+
+    @Override
+    public List<DocumentAttributeReindexPartition> planPartitions(final String reindexId,
+            final String documentTypeName, final int partitionSize, final int firstPartitionNumber) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("partitionSize must be at least 1, was " + partitionSize);
+        }
+        final List<DocumentAttributeReindexPartition> partitions = new ArrayList<DocumentAttributeReindexPartition>();
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(PLAN_FETCH_SIZE);
+        template.query(PLAN_SQL, new Object[] {documentTypeName}, new ResultSetExtractor<Object>() {
+            @Override
+            public Object extractData(ResultSet rs) throws SQLException {
+                String fromDocumentId = null;
+                String toDocumentId = null;
+                int count = 0;
+                while (rs.next()) {
+                    toDocumentId = rs.getString(1);
+                    if (count++ == 0) {
+                        fromDocumentId = toDocumentId;
+                    }
+                    if (count == partitionSize) {
+                        partitions.add(newPartition(reindexId, firstPartitionNumber + partitions.size(),
+                                documentTypeName, fromDocumentId, toDocumentId));
+                        count = 0;
+                    }
+                }
+                if (count > 0) {
+                    partitions.add(newPartition(reindexId, firstPartitionNumber + partitions.size(), documentTypeName,
+                            fromDocumentId, toDocumentId));
+                }
+                return null;
+            }
+        });
+        return partitions;
+    }
+
+    private static DocumentAttributeReindexPartition newPartition(String reindexId, int partitionNumber,
+            String documentTypeName, String fromDocumentId, String toDocumentId) {
+        return new DocumentAttributeReindexPartition(reindexId, partitionNumber, documentTypeName, fromDocumentId,
+                toDocumentId, null, DocumentAttributeReindexPartition.Status.PENDING, 0);
+    }
+
+    @Override
+    public List<String> findRemainingDocumentIds(DocumentAttributeReindexPartition partition, int maxResults) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setMaxRows(maxResults);
+        template.setFetchSize(maxResults);
+        if (partition.getLastDocumentId() == null) {
+            return template.queryForList(REMAINING_FROM_START_SQL, String.class, partition.getDocumentTypeName(),
+                    partition.getFromDocumentId(), partition.getToDocumentId());
+        }
+        return template.queryForList(REMAINING_AFTER_LAST_SQL, String.class, partition.getDocumentTypeName(),
+                partition.getLastDocumentId(), partition.getToDocumentId());
+    }
+
+    @Override
+    public void savePartitions(final List<DocumentAttributeReindexPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        new JdbcTemplate(dataSource).batchUpdate(INSERT_PARTITION_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                DocumentAttributeReindexPartition partition = partitions.get(i);
+                ps.setString(1, partition.getReindexId());
+                ps.setInt(2, partition.getPartitionNumber());
+                ps.setString(3, partition.getDocumentTypeName());
+                ps.setString(4, partition.getFromDocumentId());
+                ps.setString(5, partition.getToDocumentId());
+                ps.setString(6, partition.getLastDocumentId());
+                ps.setString(7, partition.getStatus().getCode());
+                ps.setInt(8, partition.getDocumentCount());
+                ps.setTimestamp(9, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return partitions.size();
+            }
+        });
+    }
+
+    @Override
+    public void updatePartition(DocumentAttributeReindexPartition partition) {
+        int updated = new JdbcTemplate(dataSource).update(UPDATE_PARTITION_SQL, partition.getLastDocumentId(),
+                partition.getStatus().getCode(), partition.getDocumentCount(),
+                new Timestamp(System.currentTimeMillis()), partition.getReindexId(), partition.getPartitionNumber());
+        if (updated != 1) {
+            throw new IllegalStateException("Failed to locate the checkpoint of " + partition);
+        }
+    }
+
+    @Override
+    public List<DocumentAttributeReindexPartition> findPartitions(String reindexId) {
+        return new JdbcTemplate(dataSource).query(SELECT_PARTITIONS_SQL, new Object[] {reindexId},
+                new RowMapper<DocumentAttributeReindexPartition>() {
+                    @Override
+                    public DocumentAttributeReindexPartition mapRow(ResultSet rs, int rowNum) throws SQLException {
+                        return new DocumentAttributeReindexPartition(rs.getString("REIDX_ID"),
+                                rs.getInt("PRTN_NBR"), rs.getString("DOC_TYP_NM"), rs.getString("FRM_DOC_HDR_ID"),
+                                rs.getString("TO_DOC_HDR_ID"), rs.getString("LAST_DOC_HDR_ID"),
+                                DocumentAttributeReindexPartition.Status.fromCode(rs.getString("STAT_CD")),
+                                rs.getInt("DOC_CNT"));
+                    }
+                });
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = new TransactionAwareDataSourceProxy(dataSource);
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.attribute;
+
+/**
+ * A contiguous range of document ids of a single document type which is reindexed as one unit of a bulk searchable
+ * attribute reindex, together with its checkpoint.
+ *
+ * <p>Instances are immutable, progress is recorded by creating a new instance with {@link #advance(String, int)} or
+ * {@link #withStatus(Status)}.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class DocumentAttributeReindexPartition {
+
+    /**
+     * The state of a partition.
+     */
+    public enum Status {
+        PENDING("P"), COMPLETE("C"), FAILED("F");
+
+        private final String code;
+
+        Status(String code) {
+            this.code = code;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public static Status fromCode(String code) {
+            for (Status status : values()) {
+                if (status.code.equals(code)) {
+                    return status;
+                }
+            }
+            throw new IllegalArgumentException("Invalid reindex partition status code: " + code);
+        }
+    }
+
+    private final String reindexId;
+    private final int partitionNumber;
+    private final String documentTypeName;
+    private final String fromDocumentId;
+    private final String toDocumentId;
+    private final String lastDocumentId;
+    private final Status status;
+    private final int documentCount;
+
+    public DocumentAttributeReindexPartition(String reindexId, int partitionNumber, String documentTypeName,
+            String fromDocumentId, String toDocumentId, String lastDocumentId, Status status, int documentCount) {
+        this.reindexId = reindexId;
+        this.partitionNumber = partitionNumber;
+        this.documentTypeName = documentTypeName;
+        this.fromDocumentId = fromDocumentId;
+        this.toDocumentId = toDocumentId;
+        this.lastDocumentId = lastDocumentId;
+        this.status = status;
+        this.documentCount = documentCount;
+    }
+
+    /**
+     * Returns a copy of this partition which has additionally processed the given number of documents, up to and
+     * including the given document id.
+     */
+    public DocumentAttributeReindexPartition advance(String lastDocumentId, int processedDocumentCount) {
+        return new DocumentAttributeReindexPartition(reindexId, partitionNumber, documentTypeName, fromDocumentId,
+                toDocumentId, lastDocumentId, status, documentCount + processedDocumentCount);
+    }
+
+    public DocumentAttributeReindexPartition withStatus(Status status) {
+        return new DocumentAttributeReindexPartition(reindexId, partitionNumber, documentTypeName, fromDocumentId,
+                toDocumentId, lastDocumentId, status, documentCount);
+    }
+
+    public String getReindexId() {
+        return reindexId;
+    }
+
+    public int getPartitionNumber() {
+        return partitionNumber;
+    }
+
+    public String getDocumentTypeName() {
+        return documentTypeName;
+    }
+
+    /**
+     * Returns the first document id in this partition, inclusive.
+     */
+    public String getFromDocumentId() {
+        return fromDocumentId;
+    }
+
+    /**
+     * Returns the last document id in this partition, inclusive.
+     */
+    public String getToDocumentId() {
+        return toDocumentId;
+    }
+
+    /**
+     * Returns the id of the last document which has been reindexed, or null if processing has not started.
+     */
+    public String getLastDocumentId() {
+        return lastDocumentId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of documents of this partition which have been reindexed so far.
+     */
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    @Override
+    public String toString() {
+        return "partition " + partitionNumber + " of reindex " + reindexId + " (" + documentTypeName + ", " +
+                fromDocumentId + " - " + toDocumentId + ")";
+    }
+}
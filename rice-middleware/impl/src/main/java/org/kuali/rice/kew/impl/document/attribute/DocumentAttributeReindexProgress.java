@@ -0,0 +1,135 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.attribute;
+
+import java.util.List;
+
+/**
+ * A snapshot of the progress of a bulk searchable attribute reindex.
+ *
+ * <p>Partition and document counts are taken from the checkpoints and so include work done by earlier attempts of the
+ * same reindex.  The throughput only covers the most recent attempt made on this node, and is zero if there was
+ * none.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class DocumentAttributeReindexProgress {
+
+    private final String reindexId;
+    private final int partitionCount;
+    private final int completedPartitionCount;
+    private final int failedPartitionCount;
+    private final long documentCount;
+    private final boolean running;
+    private final long runDocumentCount;
+    private final long runElapsedMillis;
+
+    public DocumentAttributeReindexProgress(String reindexId, List<DocumentAttributeReindexPartition> partitions,
+            boolean running, long runDocumentCount, long runElapsedMillis) {
+        this.reindexId = reindexId;
+        this.running = running;
+        this.runDocumentCount = runDocumentCount;
+        this.runElapsedMillis = runElapsedMillis;
+        int completed = 0;
+        int failed = 0;
+        long documents = 0;
+        for (DocumentAttributeReindexPartition partition : partitions) {
+            if (partition.getStatus() == DocumentAttributeReindexPartition.Status.COMPLETE) {
+                completed++;
+            } else if (partition.getStatus() == DocumentAttributeReindexPartition.Status.FAILED) {
+                failed++;
+            }
+            documents += partition.getDocumentCount();
+        }
+        this.partitionCount = partitions.size();
+        this.completedPartitionCount = completed;
+        this.failedPartitionCount = failed;
+        this.documentCount = documents;
+    }
+
+    public String getReindexId() {
+        return reindexId;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public int getCompletedPartitionCount() {
+        return completedPartitionCount;
+    }
+
+    public int getFailedPartitionCount() {
+        return failedPartitionCount;
+    }
+
+    /**
+     * Returns the total number of documents reindexed so far.
+     */
+    public long getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Returns whether the reindex is currently being processed on this node.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns whether every partition of the reindex has been completed.
+     */
+    public boolean isComplete() {
+        return completedPartitionCount == partitionCount;
+    }
+
+    /**
+     * Returns the number of documents reindexed by the most recent attempt on this node.
+     */
+    public long getRunDocumentCount() {
+        return runDocumentCount;
+    }
+
+    public long getRunElapsedMillis() {
+        return runElapsedMillis;
+    }
+
+    /**
+     * Returns the throughput of the most recent attempt on this node in documents per second.
+     */
+    public double getDocumentsPerSecond() {
+        if (runElapsedMillis <= 0) {
+            return 0;
+        }
+        return runDocumentCount * 1000d / runElapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Reindex ").append(reindexId).append(": ");
+        builder.append(completedPartitionCount).append(" of ").append(partitionCount).append(" partitions complete");
+        if (failedPartitionCount > 0) {
+            builder.append(", ").append(failedPartitionCount).append(" failed");
+        }
+        builder.append(", ").append(documentCount).append(" documents reindexed");
+        if (runElapsedMillis > 0) {
+            builder.append(", ").append(String.format("%.1f", getDocumentsPerSecond())).append(" docs/sec");
+        }
+        builder.append(running ? " (running)" : isComplete() ? " (complete)" : " (stopped)");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.attribute;
+
+import org.apache.commons.lang.StringUtils;
+import org.kuali.rice.kew.service.KEWServiceLocator;
+import org.springframework.context.support.GenericXmlApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * Runs a bulk searchable attribute reindex outside of a running application.
+ *
+ * <p>The first argument is the location of a Spring context, such as {@code file:/path/reindex.xml} or
+ * {@code classpath:reindex.xml}, which configures Rice with KEW running embedded against the database to reindex.
+ * It is followed either by the comma separated names of the document types to reindex, or by {@code -resume} and the
+ * id of a reindex to continue.  The reindex runs in the foreground and its progress is printed once it finishes.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class DocumentAttributeReindexRunner {
+
+    private static final String RESUME_OPTION = "-resume";
+
+    private DocumentAttributeReindexRunner() {
+        throw new UnsupportedOperationException("do not call");
+    }
+
+    public static void main(String[] args) {
+        boolean resume = args.length == 3 && RESUME_OPTION.equals(args[1]);
+        if (args.length != 2 && !resume) {
+            System.err.println("Usage: " + DocumentAttributeReindexRunner.class.getName()
+                    + " <spring context location> (<document type names, comma separated> | " + RESUME_OPTION
+                    + " <reindex id>)");
+            System.exit(2);
+        }
+
+        GenericXmlApplicationContext context = new GenericXmlApplicationContext(args[0]);
+        DocumentAttributeReindexProgress progress;
+        try {
+            DocumentAttributeReindexService reindexService = KEWServiceLocator.getDocumentAttributeReindexService();
+            if (resume) {
+                progress = reindexService.resume(args[2]);
+            } else {
+                progress = reindexService.reindex(Arrays.asList(StringUtils.split(args[1], ',')));
+            }
+        } finally {
+            context.close();
+        }
+        System.out.println(progress);
+        System.exit(progress.isComplete() ? 0 : 1);
+    }
+
+}
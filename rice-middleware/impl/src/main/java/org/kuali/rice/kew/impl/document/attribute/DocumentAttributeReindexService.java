@@ -0,0 +1,73 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.attribute;
+
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
+import org.kuali.rice.core.api.exception.RiceIllegalStateException;
+
+import java.util.List;
+
+/**
+ * Rebuilds the searchable attribute values of all documents of one or more document types.
+ *
+ * <p>The documents are split by document type and document id range into partitions which are reindexed in parallel.
+ * The progress of each partition is checkpointed, so a reindex which was interrupted or which had failed partitions
+ * can be resumed using its id.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public interface DocumentAttributeReindexService {
+
+    /**
+     * Plans a reindex of the given document types, including their child document types, and reindexes them in the
+     * background.
+     *
+     * @param documentTypeNames the names of the document types to reindex
+     * @return the id of the new reindex
+     * @throws RiceIllegalArgumentException if no document type names are given, or one of them does not exist
+     */
+    String submitReindex(List<String> documentTypeNames) throws RiceIllegalArgumentException;
+
+    /**
+     * Continues the given reindex in the background, reprocessing every partition which is not complete.
+     *
+     * @param reindexId the id of the reindex
+     * @throws RiceIllegalArgumentException if the reindex does not exist
+     * @throws RiceIllegalStateException if the reindex is already running on this node
+     */
+    void submitResume(String reindexId) throws RiceIllegalArgumentException, RiceIllegalStateException;
+
+    /**
+     * Same as {@link #submitReindex(List)}, but reindexes in the calling thread.
+     *
+     * @return the progress once the reindex has finished
+     */
+    DocumentAttributeReindexProgress reindex(List<String> documentTypeNames) throws RiceIllegalArgumentException;
+
+    /**
+     * Same as {@link #submitResume(String)}, but reindexes in the calling thread.
+     *
+     * @return the progress once the reindex has finished
+     */
+    DocumentAttributeReindexProgress resume(String reindexId)
+            throws RiceIllegalArgumentException, RiceIllegalStateException;
+
+    /**
+     * Returns the progress of the given reindex, or null if it does not exist.
+     */
+    DocumentAttributeReindexProgress getProgress(String reindexId);
+
+}
@@ -0,0 +1,469 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.attribute;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
+import org.kuali.rice.core.api.exception.RiceIllegalStateException;
+import org.kuali.rice.kew.doctype.bo.DocumentType;
+import org.kuali.rice.kew.doctype.service.DocumentTypeService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reference implementation of {@link DocumentAttributeReindexService}.
+ *
+ * <p>Each reindex runs in its own {@link ForkJoinPool} of at most {@link #getParallelism()} threads, one task per
+ * partition.  A partition is processed in batches of {@link #getBatchSize()} documents, each batch being indexed and
+ * checkpointed in a single new transaction, so a resumed reindex picks up exactly after the last committed batch.
+ * Indexing itself is delegated to a dedicated {@link DocumentAttributeIndexingQueueImpl} which should not skip
+ * unchanged documents.</p>
+ *
+ * <p>Only one attempt of a given reindex may run on a node at a time, this is not enforced across nodes.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DocumentAttributeReindexServiceImpl implements DocumentAttributeReindexService, DisposableBean {
+
+    private static final Logger LOG = Logger.getLogger(DocumentAttributeReindexServiceImpl.class);
+
+    private static final long PROGRESS_LOG_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final ConcurrentMap<String, ReindexRun> runs = new ConcurrentHashMap<String, ReindexRun>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService submitExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "DocumentAttributeReindex-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private DocumentAttributeReindexDAO documentAttributeReindexDAO;
+    private DocumentAttributeIndexingQueueImpl documentAttributeIndexer;
+    private DocumentTypeService documentTypeService;
+    private PlatformTransactionManager transactionManager;
+    private int parallelism = 4;
+    private int partitionSize = 10000;
+    private int batchSize = 100;
+
+    @Override
+    public String submitReindex(List<String> documentTypeNames) {
+        final ReindexRun run = startRun(plan(documentTypeNames));
+        submit(run);
+        return run.reindexId;
+    }
+
+    @Override
+    public void submitResume(String reindexId) {
+        submit(startRun(loadIncompletePartitions(reindexId)));
+    }
+
+    @Override
+    public DocumentAttributeReindexProgress reindex(List<String> documentTypeNames) {
+        ReindexRun run = startRun(plan(documentTypeNames));
+        execute(run);
+        return getProgress(run.reindexId);
+    }
+
+    @Override
+    public DocumentAttributeReindexProgress resume(String reindexId) {
+        execute(startRun(loadIncompletePartitions(reindexId)));
+        return getProgress(reindexId);
+    }
+
+    @Override
+    public DocumentAttributeReindexProgress getProgress(String reindexId) {
+        if (StringUtils.isBlank(reindexId)) {
+            throw new RiceIllegalArgumentException("reindexId was null or blank");
+        }
+        List<DocumentAttributeReindexPartition> partitions = getDocumentAttributeReindexDAO().findPartitions(
+                reindexId);
+        if (partitions.isEmpty()) {
+            return null;
+        }
+        ReindexRun run = runs.get(reindexId);
+        if (run == null) {
+            return new DocumentAttributeReindexProgress(reindexId, partitions, false, 0, 0);
+        }
+        return new DocumentAttributeReindexProgress(reindexId, partitions, run.isRunning(), run.documentCount.get(),
+                run.getElapsedMillis());
+    }
+
+    /**
+     * Splits the documents of the given document types and their descendants into partitions and saves them.
+     */
+    protected List<DocumentAttributeReindexPartition> plan(List<String> documentTypeNames) {
+        if (documentTypeNames == null || documentTypeNames.isEmpty()) {
+            throw new RiceIllegalArgumentException("documentTypeNames was null or empty");
+        }
+        Set<String> names = new LinkedHashSet<String>();
+        for (String documentTypeName : documentTypeNames) {
+            if (StringUtils.isBlank(documentTypeName)) {
+                throw new RiceIllegalArgumentException("documentTypeNames contained a null or blank value");
+            }
+            DocumentType documentType = getDocumentTypeService().findByName(documentTypeName.trim());
+            if (documentType == null) {
+                throw new RiceIllegalArgumentException("Failed to locate document type with name: "
+                        + documentTypeName);
+            }
+            addWithDescendants(documentType, names);
+        }
+
+        String reindexId = UUID.randomUUID().toString();
+        final List<DocumentAttributeReindexPartition> partitions = new ArrayList<DocumentAttributeReindexPartition>();
+        for (String name : names) {
+            partitions.addAll(getDocumentAttributeReindexDAO().planPartitions(reindexId, name, getPartitionSize(),
+                    partitions.size() + 1));
+        }
+        if (partitions.isEmpty()) {
+            throw new RiceIllegalArgumentException("There are no documents of the document types " + names);
+        }
+        new TransactionTemplate(getTransactionManager()).execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                getDocumentAttributeReindexDAO().savePartitions(partitions);
+            }
+        });
+        LOG.info("Planned reindex " + reindexId + " of searchable attributes for document types " + names + " in "
+                + partitions.size() + " partitions");
+        return partitions;
+    }
+
+    private void addWithDescendants(DocumentType documentType, Set<String> names) {
+        if (names.add(documentType.getName())) {
+            @SuppressWarnings("unchecked")
+            Collection<DocumentType> children = getDocumentTypeService().getChildDocumentTypes(
+                    documentType.getDocumentTypeId());
+            for (DocumentType child : children) {
+                addWithDescendants(child, names);
+            }
+        }
+    }
+
+    protected List<DocumentAttributeReindexPartition> loadIncompletePartitions(String reindexId) {
+        if (StringUtils.isBlank(reindexId)) {
+            throw new RiceIllegalArgumentException("reindexId was null or blank");
+        }
+        List<DocumentAttributeReindexPartition> partitions = getDocumentAttributeReindexDAO().findPartitions(
+                reindexId.trim());
+        if (partitions.isEmpty()) {
+            throw new RiceIllegalArgumentException("Failed to locate reindex with the given id: " + reindexId);
+        }
+        List<DocumentAttributeReindexPartition> incomplete = new ArrayList<DocumentAttributeReindexPartition>();
+        for (DocumentAttributeReindexPartition partition : partitions) {
+            if (partition.getStatus() != DocumentAttributeReindexPartition.Status.COMPLETE) {
+                incomplete.add(partition.withStatus(DocumentAttributeReindexPartition.Status.PENDING));
+            }
+        }
+        return incomplete;
+    }
+
+    private ReindexRun startRun(List<DocumentAttributeReindexPartition> partitions) {
+        // a resumed reindex can have no incomplete partitions left, in which case the run is finished immediately
+        String reindexId = partitions.isEmpty() ? null : partitions.get(0).getReindexId();
+        ReindexRun run = new ReindexRun(reindexId, partitions);
+        if (reindexId != null) {
+            ReindexRun previous = runs.get(reindexId);
+            if (previous != null && previous.isRunning()) {
+                throw new RiceIllegalStateException("Reindex " + reindexId + " is already running");
+            }
+            if (previous == null ? runs.putIfAbsent(reindexId, run) != null : !runs.replace(reindexId, previous,
+                    run)) {
+                throw new RiceIllegalStateException("Reindex " + reindexId + " is already running");
+            }
+        }
+        return run;
+    }
+
+    private void submit(final ReindexRun run) {
+        submitExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    execute(run);
+                } catch (RuntimeException e) {
+                    LOG.error("Reindex " + run.reindexId + " failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Processes the partitions of the given run in a bounded fork join pool and blocks until they have all been
+     * completed or have failed.
+     */
+    protected void execute(ReindexRun run) {
+        if (run.partitions.isEmpty()) {
+            run.finish();
+            return;
+        }
+        LOG.info("Starting reindex " + run.reindexId + " of " + run.partitions.size() + " partitions with "
+                + getParallelism() + " threads");
+        ForkJoinPool pool = createPool(run.reindexId);
+        try {
+            pool.invoke(new PartitionsTask(run, run.partitions));
+        } finally {
+            pool.shutdown();
+            run.finish();
+        }
+        LOG.info(getProgress(run.reindexId));
+    }
+
+    private ForkJoinPool createPool(final String reindexId) {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger workerCount = new AtomicInteger();
+        return new ForkJoinPool(getParallelism(), new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                // searchable attributes are located through the context class loader
+                thread.setContextClassLoader(contextClassLoader);
+                thread.setName("DocumentAttributeReindex-" + reindexId + "-" + workerCount.incrementAndGet());
+                return thread;
+            }
+        }, null, false);
+    }
+
+    /**
+     * Reindexes the remaining documents of a single partition, marking it as failed if any batch fails.
+     */
+    protected void processPartition(final ReindexRun run, DocumentAttributeReindexPartition partition) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(getTransactionManager());
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            List<String> documentIds = getDocumentAttributeReindexDAO().findRemainingDocumentIds(partition,
+                    getBatchSize());
+            while (!documentIds.isEmpty()) {
+                final List<String> batch = documentIds;
+                final DocumentAttributeReindexPartition advanced = partition.advance(batch.get(batch.size() - 1),
+                        batch.size());
+                transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                    @Override
+                    protected void doInTransactionWithoutResult(TransactionStatus status) {
+                        getDocumentAttributeIndexer().index(batch, false);
+                        getDocumentAttributeReindexDAO().updatePartition(advanced);
+                    }
+                });
+                partition = advanced;
+                run.recordBatch(batch.size());
+                documentIds = batch.size() < getBatchSize() ? new ArrayList<String>() :
+                        getDocumentAttributeReindexDAO().findRemainingDocumentIds(partition, getBatchSize());
+            }
+            updateStatus(transactionTemplate, partition, DocumentAttributeReindexPartition.Status.COMPLETE);
+            run.completedPartitionCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            LOG.error("Failed to reindex " + partition + " after document " + partition.getLastDocumentId(), e);
+            run.failedPartitionCount.incrementAndGet();
+            try {
+                updateStatus(transactionTemplate, partition, DocumentAttributeReindexPartition.Status.FAILED);
+            } catch (RuntimeException updateException) {
+                LOG.error("Failed to record the failure of " + partition, updateException);
+            }
+        }
+    }
+
+    private void updateStatus(TransactionTemplate transactionTemplate,
+            final DocumentAttributeReindexPartition partition, final DocumentAttributeReindexPartition.Status status) {
+        transactionTemplate.execute(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus transactionStatus) {
+                getDocumentAttributeReindexDAO().updatePartition(partition.withStatus(status));
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        submitExecutor.shutdownNow();
+    }
+
+    public DocumentAttributeReindexDAO getDocumentAttributeReindexDAO() {
+        return documentAttributeReindexDAO;
+    }
+
+    public void setDocumentAttributeReindexDAO(DocumentAttributeReindexDAO documentAttributeReindexDAO) {
+        this.documentAttributeReindexDAO = documentAttributeReindexDAO;
+    }
+
+    /**
+     * Returns the indexer used to rebuild the searchable attribute values of each batch of documents.
+     */
+    public DocumentAttributeIndexingQueueImpl getDocumentAttributeIndexer() {
+        return documentAttributeIndexer;
+    }
+
+    public void setDocumentAttributeIndexer(DocumentAttributeIndexingQueueImpl documentAttributeIndexer) {
+        this.documentAttributeIndexer = documentAttributeIndexer;
+    }
+
+    public DocumentTypeService getDocumentTypeService() {
+        return documentTypeService;
+    }
+
+    public void setDocumentTypeService(DocumentTypeService documentTypeService) {
+        this.documentTypeService = documentTypeService;
+    }
+
+    public PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Returns the maximum number of partitions of a reindex which are processed concurrently, defaults to 4.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the maximum number of documents in a partition, defaults to 10000.
+     */
+    public int getPartitionSize() {
+        return partitionSize;
+    }
+
+    public void setPartitionSize(int partitionSize) {
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException("partitionSize must be at least 1, was " + partitionSize);
+        }
+        this.partitionSize = partitionSize;
+    }
+
+    /**
+     * Returns the number of documents indexed and checkpointed per transaction, defaults to 100.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1, was " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Splits a list of partitions in half until a single partition remains, which is then processed.
+     */
+    private final class PartitionsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ReindexRun run;
+        private final List<DocumentAttributeReindexPartition> partitions;
+
+        PartitionsTask(ReindexRun run, List<DocumentAttributeReindexPartition> partitions) {
+            this.run = run;
+            this.partitions = partitions;
+        }
+
+        @Override
+        protected void compute() {
+            if (partitions.size() == 1) {
+                processPartition(run, partitions.get(0));
+            } else {
+                int middle = partitions.size() / 2;
+                invokeAll(new PartitionsTask(run, partitions.subList(0, middle)),
+                        new PartitionsTask(run, partitions.subList(middle, partitions.size())));
+            }
+        }
+    }
+
+    /**
+     * The state of a single attempt at processing a reindex on this node.
+     */
+    protected final class ReindexRun {
+
+        private final String reindexId;
+        private final List<DocumentAttributeReindexPartition> partitions;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong documentCount = new AtomicLong();
+        private final AtomicInteger completedPartitionCount = new AtomicInteger();
+        private final AtomicInteger failedPartitionCount = new AtomicInteger();
+        private final AtomicLong lastProgressLogTime = new AtomicLong(startTime);
+        private volatile long endTime;
+
+        ReindexRun(String reindexId, List<DocumentAttributeReindexPartition> partitions) {
+            this.reindexId = reindexId;
+            this.partitions = partitions;
+        }
+
+        void recordBatch(int batchDocumentCount) {
+            long documents = documentCount.addAndGet(batchDocumentCount);
+            long now = System.currentTimeMillis();
+            long lastLogTime = lastProgressLogTime.get();
+            if (now - lastLogTime >= PROGRESS_LOG_INTERVAL_MILLIS && lastProgressLogTime.compareAndSet(lastLogTime,
+                    now)) {
+                LOG.info("Reindex " + reindexId + ": " + completedPartitionCount.get() + " of " + partitions.size()
+                        + " partitions complete, " + failedPartitionCount.get() + " failed, " + documents
+                        + " documents reindexed, " + String.format("%.1f", documents * 1000d / (now - startTime))
+                        + " docs/sec");
+            }
+        }
+
+        void finish() {
+            endTime = System.currentTimeMillis();
+        }
+
+        boolean isRunning() {
+            return endTime == 0;
+        }
+
+        long getElapsedMillis() {
+            return (isRunning() ? System.currentTimeMillis() : endTime) - startTime;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.search;
+
+import org.apache.commons.lang.StringUtils;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.UnsupportedEncodingException;
+import java.sql.Timestamp;
+
+/**
+ * The position of the last row of a keyset paged document search page.  Document search pages are ordered by date
+ * created and then document id, both descending, so this pair identifies where the next page begins.
+ *
+ * <p>Instances are passed to clients as an opaque token, see {@link #encode()} and {@link #decode(String)}.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class DocumentSearchContinuationToken {
+
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "|";
+    private static final String ENCODING = "UTF-8";
+
+    private final Timestamp dateCreated;
+    private final String documentId;
+
+    public DocumentSearchContinuationToken(Timestamp dateCreated, String documentId) {
+        if (dateCreated == null) {
+            throw new IllegalArgumentException("dateCreated was null");
+        }
+        if (StringUtils.isBlank(documentId)) {
+            throw new IllegalArgumentException("documentId was null or blank");
+        }
+        this.dateCreated = dateCreated;
+        this.documentId = documentId;
+    }
+
+    /**
+     * Returns the create date of the last document on the previous page.
+     */
+    public Timestamp getDateCreated() {
+        return dateCreated;
+    }
+
+    /**
+     * Returns the id of the last document on the previous page.
+     */
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * Encodes this position into an opaque token.
+     */
+    public String encode() {
+        String value = VERSION + SEPARATOR + dateCreated.toString() + SEPARATOR + documentId;
+        try {
+            return DatatypeConverter.printBase64Binary(value.getBytes(ENCODING));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes a token previously produced by {@link #encode()}.
+     *
+     * @param token the token to decode
+     * @return the decoded position
+     * @throws RiceIllegalArgumentException if the token is not a valid continuation token
+     */
+    public static DocumentSearchContinuationToken decode(String token) {
+        try {
+            String value = new String(DatatypeConverter.parseBase64Binary(token), ENCODING);
+            String[] parts = StringUtils.splitPreserveAllTokens(value, SEPARATOR, 3);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new RiceIllegalArgumentException("Invalid document search continuation token: " + token);
+            }
+            return new DocumentSearchContinuationToken(Timestamp.valueOf(parts[1]), parts[2]);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (RiceIllegalArgumentException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw new RiceIllegalArgumentException("Invalid document search continuation token: " + token, e);
+        }
+    }
+
+}
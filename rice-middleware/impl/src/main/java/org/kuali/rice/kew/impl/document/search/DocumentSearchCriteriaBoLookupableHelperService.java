@@ -527,7 +527,7 @@ public class DocumentSearchCriteriaBoLookupableHelperService extends KualiLookup
         link.setDisplayText(documentId);
 
         if (isDocumentHandlerPopup()) {
-            org.kuali.rice.kew.doctype.DocumentTypePolicy policy = documentType.getDocSearchTarget();
+            org.kuali.rice.kew.doctype.DocumentTypePolicy policy = documentType.resolve().getDocSearchTarget();
             if (policy.getPolicyStringValue() != null) {
                 //if (!policy.getPolicyStringValue().equals("_blank") && !policy.getPolicyStringValue().equals("_self") && !policy.getPolicyStringValue().equals("_parent") && !policy.getPolicyStringValue().equals("_top")) {
                 //throw new ValidationException("Invalid " + KewApiConstants.DOC_SEARCH_TARGET_POLICY + " value: " + policy.getPolicyStringValue());
@@ -538,7 +538,7 @@ public class DocumentSearchCriteriaBoLookupableHelperService extends KualiLookup
                 link.setTarget("_blank");
             }
         } else {
-            org.kuali.rice.kew.doctype.DocumentTypePolicy policy = documentType.getDocSearchTarget();
+            org.kuali.rice.kew.doctype.DocumentTypePolicy policy = documentType.resolve().getDocSearchTarget();
             if (policy.getPolicyStringValue() != null) {
                 //if (!policy.getPolicyStringValue().equals("_blank") && !policy.getPolicyStringValue().equals("_self") && !policy.getPolicyStringValue().equals("_parent") && !policy.getPolicyStringValue().equals("_top")) {
                     //throw new ValidationException("Invalid " + KewApiConstants.DOC_SEARCH_TARGET_POLICY + " value: " + policy.getPolicyStringValue());
@@ -17,6 +17,7 @@ package org.kuali.rice.kew.impl.document.search;
 
 import org.kuali.rice.core.api.uif.RemotableAttributeError;
 import org.kuali.rice.core.api.uif.RemotableAttributeField;
+import org.kuali.rice.core.framework.persistence.jdbc.sql.ParameterizedSql;
 import org.kuali.rice.kew.api.document.search.DocumentSearchCriteria;
 import org.kuali.rice.kew.api.document.search.DocumentSearchResults;
 
@@ -37,6 +38,12 @@ public interface DocumentSearchGenerator {
 
     String generateSearchSql(DocumentSearchCriteria criteria, List<RemotableAttributeField> searchFields);
 
+    /**
+     * Generates the search sql as a template with bind parameters, suitable for execution with a
+     * {@link java.sql.PreparedStatement}.
+     */
+    ParameterizedSql generateParameterizedSearchSql(DocumentSearchCriteria criteria, List<RemotableAttributeField> searchFields);
+
     DocumentSearchResults.Builder processResultSet(DocumentSearchCriteria criteria, boolean criteriaModified, Statement searchAttributeStatement, ResultSet resultSet, int actualMaxResults, int fetchLimit) throws SQLException;
     
     DocumentSearchCriteria clearSearch(DocumentSearchCriteria criteria);
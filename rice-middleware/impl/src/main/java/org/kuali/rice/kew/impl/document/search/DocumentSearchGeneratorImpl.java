@@ -19,11 +19,13 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.DateTime;
 import org.kuali.rice.core.api.CoreApiServiceLocator;
+import org.kuali.rice.core.api.datetime.DateTimeService;
 import org.kuali.rice.core.api.resourceloader.GlobalResourceLoader;
 import org.kuali.rice.core.api.uif.RemotableAttributeError;
 import org.kuali.rice.core.api.uif.RemotableAttributeField;
 import org.kuali.rice.core.api.util.RiceConstants;
 import org.kuali.rice.core.framework.persistence.jdbc.sql.Criteria;
+import org.kuali.rice.core.framework.persistence.jdbc.sql.ParameterizedSql;
 import org.kuali.rice.core.framework.persistence.jdbc.sql.SqlBuilder;
 import org.kuali.rice.core.framework.persistence.platform.DatabasePlatform;
 import org.kuali.rice.kew.api.KewApiConstants;
@@ -51,6 +53,8 @@ import org.kuali.rice.kim.api.services.KimApiServiceLocator;
 import org.kuali.rice.krad.util.KRADConstants;
 import org.kuali.rice.krad.util.MessageMap;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -60,6 +64,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -80,8 +86,26 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
     private static final String DATABASE_WILDCARD_CHARACTER_STRING = "%";
     private static final char DATABASE_WILDCARD_CHARACTER = DATABASE_WILDCARD_CHARACTER_STRING.toCharArray()[0];
 
+    /**
+     * Maximum number of document ids bound into a single searchable attribute {@code IN} list.  Kept well under the
+     * 1000 element limit some databases place on {@code IN} lists.
+     */
+    protected static final int SEARCH_ATTRIBUTE_BATCH_SIZE = 500;
+
     private org.kuali.rice.kew.api.doctype.DocumentTypeService apiDocumentTypeService;
 
+    /**
+     * The rows built by {@link #processRow} while {@link #processResultSet} is reading the results, whose searchable
+     * attribute values are then loaded for the whole page at once.  Null outside of processResultSet.
+     */
+    private Set<DocumentSearchResult.Builder> deferredAttributeRows;
+
+    /**
+     * The values bound to the placeholders of the search sql while {@link #generateParameterizedSearchSql} is
+     * generating it, in the order of the placeholders.  Null otherwise, in which case values are inlined as literals.
+     */
+    private List<Object> bindValues;
+
     private DatabasePlatform dbPlatform;
     private MessageMap messageMap;
 
@@ -154,6 +178,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                 // if there's more than one entry, we need to do an "in"
                 crit = new Criteria(tableName, tableAlias);
                 crit.setDbPlatform(sqlBuilder.getDbPlatform());
+                crit.setBindValues(sqlBuilder.isBindValues());
                 crit.in("VAL", searchValues, dataTypeClass);
             } else {
                 crit = sqlBuilder.createCriteria("VAL", searchValues.get(0) , tableName, tableAlias, dataTypeClass, !caseSensitive);
@@ -182,7 +207,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
 
         String whereClausePrefix = (whereSql.length() == 0) ? whereClausePredicatePrefix : getGeneratedPredicatePrefix(whereSql.length());
 
-        return new QueryComponent("", fromSql.toString(), whereClausePrefix + " " + finalCriteria.buildWhere());
+        return new QueryComponent("", fromSql.toString(), whereClausePrefix + " " + buildWhere(finalCriteria));
     }
 
     private RemotableAttributeField getSearchFieldByName(String fieldName, List<RemotableAttributeField> searchFields) {
@@ -242,33 +267,58 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         results.setSearchResults(resultList);
         Map<String, DocumentSearchResult.Builder> resultMap = new HashMap<String, DocumentSearchResult.Builder>();
 
-        int startAt = (criteria.getStartAtIndex()==null) ? 0 : criteria.getStartAtIndex();
+        // keyset paged searches begin at the continuation point in the sql itself, so the start index does not apply
+        boolean paged = criteria.getPageSize() != null;
+        int startAt = (criteria.getStartAtIndex()==null || paged) ? 0 : criteria.getStartAtIndex();
         int iteration = 0;
         boolean resultSetHasNext = resultSet.next();
+        Timestamp lastDateCreated = null;
+        String lastDocumentId = null;
 
         PerformanceLogger perfLog = new PerformanceLogger();
-
-        while (resultSetHasNext && resultMap.size() < maxResultCap && iteration < fetchLimit && startAt >= 0) {
-            if (iteration >= startAt) {
-                DocumentSearchResult.Builder resultBuilder = processRow(criteria, searchAttributeStatement, resultSet);
-                String documentId = resultBuilder.getDocument().getDocumentId();
-                if (!resultMap.containsKey(documentId)) {
-                    resultList.add(resultBuilder);
-                    resultMap.put(documentId, resultBuilder);
-                } else {
-                    // handle duplicate rows with different search data
-                    DocumentSearchResult.Builder previousEntry = resultMap.get(documentId);
-                    handleMultipleDocumentRows(previousEntry, resultBuilder);
+        deferredAttributeRows = Collections.newSetFromMap(new IdentityHashMap<DocumentSearchResult.Builder, Boolean>());
+        try {
+            while (resultSetHasNext && resultMap.size() < maxResultCap && iteration < fetchLimit && startAt >= 0) {
+                if (iteration >= startAt) {
+                    DocumentSearchResult.Builder resultBuilder = processRow(criteria, searchAttributeStatement, resultSet);
+                    String documentId = resultBuilder.getDocument().getDocumentId();
+                    if (!resultMap.containsKey(documentId)) {
+                        resultList.add(resultBuilder);
+                        resultMap.put(documentId, resultBuilder);
+                    } else {
+                        // handle duplicate rows with different search data
+                        DocumentSearchResult.Builder previousEntry = resultMap.get(documentId);
+                        handleMultipleDocumentRows(previousEntry, resultBuilder);
+                    }
+                    if (paged) {
+                        lastDateCreated = resultSet.getTimestamp("CRTE_DT");
+                        lastDocumentId = documentId;
+                    }
                 }
+
+                iteration++;
+                resultSetHasNext = resultSet.next();
             }
 
-            iteration++;
-            resultSetHasNext = resultSet.next();
-        }
+            perfLog.log("Time to read doc search results.", true);
+            // if we have threshold+1 results, then we have more results than we are going to display
+            results.setOverThreshold(resultSetHasNext);
+            if (paged && resultSetHasNext && lastDateCreated != null) {
+                results.setContinuationToken(new DocumentSearchContinuationToken(lastDateCreated, lastDocumentId).encode());
+            }
 
-        perfLog.log("Time to read doc search results.", true);
-        // if we have threshold+1 results, then we have more results than we are going to display
-        results.setOverThreshold(resultSetHasNext);
+            // load the searchable attribute values for the whole page at once rather than issuing queries for every row,
+            // skipping rows built by an overridden processRow which did not defer them
+            List<DocumentSearchResult.Builder> deferredResults = new ArrayList<DocumentSearchResult.Builder>();
+            for (DocumentSearchResult.Builder resultBuilder : resultList) {
+                if (deferredAttributeRows.contains(resultBuilder)) {
+                    deferredResults.add(resultBuilder);
+                }
+            }
+            populateDocumentAttributesValues(deferredResults, searchAttributeStatement);
+        } finally {
+            deferredAttributeRows = null;
+        }
 
         LOG.debug("Processed " + resultMap.size() + " document search result rows.");
         return results;
@@ -288,7 +338,9 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
     }
 
     /**
-     * Processes the search result row, returning a DocumentSearchResult
+     * Processes the search result row, returning a DocumentSearchResult.  When called from
+     * {@link #processResultSet} the searchable attribute values of the row are loaded together with those of the rest
+     * of the page once all rows have been processed, rather than by this method.
      * @param criteria the original search criteria
      * @param searchAttributeStatement statement being used to call the database for queries
      * @param rs the search result set
@@ -296,6 +348,28 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
      * @throws SQLException
      */
     protected DocumentSearchResult.Builder processRow(DocumentSearchCriteria criteria, Statement searchAttributeStatement, ResultSet rs) throws SQLException {
+        DocumentSearchResult.Builder resultBuilder = createResultBuilder(rs);
+
+        if (isUsingAtLeastOneSearchAttribute(criteria)) {
+            if (deferredAttributeRows != null) {
+                deferredAttributeRows.add(resultBuilder);
+            } else {
+                populateDocumentAttributesValues(resultBuilder, searchAttributeStatement);
+            }
+        }
+
+        return resultBuilder;
+    }
+
+    /**
+     * Builds a DocumentSearchResult from the document header columns of the current search result row.  Searchable
+     * attribute values are not loaded.
+     *
+     * @param rs the search result set
+     * @return a DocumentSearchResult representing the current ResultSet row, without document attributes
+     * @throws SQLException
+     */
+    protected DocumentSearchResult.Builder createResultBuilder(ResultSet rs) throws SQLException {
 
         String documentId = rs.getString("DOC_HDR_ID");
         String initiatorPrincipalId = rs.getString("INITR_PRNCPL_ID");
@@ -332,10 +406,6 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         // TODO - KULRICE-5755 - should probably set as many properties on the document as we can
         documentBuilder.setDocumentHandlerUrl(rs.getString("DOC_HDLR_URL"));
 
-        if (isUsingAtLeastOneSearchAttribute(criteria)) {
-            populateDocumentAttributesValues(resultBuilder, searchAttributeStatement);
-        }
-
         return resultBuilder;
     }
 
@@ -359,13 +429,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
             try {
                 attributeResultSet = searchAttributeStatement.executeQuery(attributeSql);
                 while (attributeResultSet.next()) {
-                    searchAttValue.setSearchableAttributeKey(attributeResultSet.getString("KEY_CD"));
-                    searchAttValue.setupAttributeValue(attributeResultSet, "VAL");
-                    if ( (!org.apache.commons.lang.StringUtils.isEmpty(searchAttValue.getSearchableAttributeKey())) && (searchAttValue.getSearchableAttributeValue() != null) ) {
-                        DocumentAttribute documentAttribute = searchAttValue.toDocumentAttribute();
-                        resultBuilder.getDocumentAttributes().add(DocumentAttributeFactory.loadContractIntoBuilder(
-                                documentAttribute));
-                    }
+                    addDocumentAttribute(resultBuilder, searchAttValue, attributeResultSet);
                 }
             } finally {
                 if (attributeResultSet != null) {
@@ -380,6 +444,99 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         perfLog.log("Time to execute doc search search attribute queries.", true);
     }
 
+    /**
+     * Performs searches against the search attribute value tables (see classes implementing
+     * {@link org.kuali.rice.kew.docsearch.SearchableAttributeValue}) to fill in search attribute values on all of the
+     * given result builders.
+     *
+     * <p>Rather than querying every table once per document, the document ids are bound into {@code IN} lists of at
+     * most {@link #SEARCH_ATTRIBUTE_BATCH_SIZE} entries, so a page of N results costs roughly
+     * {@code 4 * ceil(N / SEARCH_ATTRIBUTE_BATCH_SIZE)} queries instead of {@code 4 * N}.</p>
+     *
+     * @param resultBuilders - document search result objects getting search attributes added to them
+     * @param searchAttributeStatement - statement being used to call the database for queries, its connection is used
+     * to prepare the batched queries
+     * @throws SQLException
+     */
+    public void populateDocumentAttributesValues(List<DocumentSearchResult.Builder> resultBuilders, Statement searchAttributeStatement) throws SQLException {
+        if (resultBuilders.isEmpty()) {
+            return;
+        }
+        Map<String, DocumentSearchResult.Builder> resultsByDocumentId = new LinkedHashMap<String, DocumentSearchResult.Builder>();
+        for (DocumentSearchResult.Builder resultBuilder : resultBuilders) {
+            resultsByDocumentId.put(resultBuilder.getDocument().getDocumentId(), resultBuilder);
+        }
+        List<String> documentIds = new ArrayList<String>(resultsByDocumentId.keySet());
+        List<SearchableAttributeValue> attributeValues = DocumentSearchInternalUtils
+                .getSearchableAttributeValueObjectTypes();
+        Connection connection = searchAttributeStatement.getConnection();
+        PerformanceLogger perfLog = new PerformanceLogger();
+        for (SearchableAttributeValue searchAttValue : attributeValues) {
+            for (int fromIndex = 0; fromIndex < documentIds.size(); fromIndex += SEARCH_ATTRIBUTE_BATCH_SIZE) {
+                List<String> batch = documentIds.subList(fromIndex,
+                        Math.min(fromIndex + SEARCH_ATTRIBUTE_BATCH_SIZE, documentIds.size()));
+                PreparedStatement attributeStatement = null;
+                ResultSet attributeResultSet = null;
+                try {
+                    attributeStatement = connection.prepareStatement(generateBatchedSearchableAttributeSql(
+                            searchAttValue.getAttributeTableName(), batch.size()));
+                    attributeStatement.setFetchSize(SEARCH_ATTRIBUTE_BATCH_SIZE);
+                    for (int index = 0; index < batch.size(); index++) {
+                        attributeStatement.setString(index + 1, batch.get(index));
+                    }
+                    attributeResultSet = attributeStatement.executeQuery();
+                    while (attributeResultSet.next()) {
+                        DocumentSearchResult.Builder resultBuilder = resultsByDocumentId.get(attributeResultSet.getString("DOC_HDR_ID"));
+                        if (resultBuilder != null) {
+                            addDocumentAttribute(resultBuilder, searchAttValue, attributeResultSet);
+                        }
+                    }
+                } finally {
+                    if (attributeResultSet != null) {
+                        try {
+                            attributeResultSet.close();
+                        } catch (Exception e) {
+                            LOG.warn("Could not close searchable attribute result set for class " + searchAttValue.getClass().getName(),e);
+                        }
+                    }
+                    if (attributeStatement != null) {
+                        try {
+                            attributeStatement.close();
+                        } catch (Exception e) {
+                            LOG.warn("Could not close searchable attribute statement for class " + searchAttValue.getClass().getName(),e);
+                        }
+                    }
+                }
+            }
+        }
+        perfLog.log("Time to execute batched doc search search attribute queries for " + documentIds.size() + " documents.", true);
+    }
+
+    /**
+     * Generates the sql used to load searchable attribute values from the given table for a batch of documents.
+     *
+     * @param tableName the searchable attribute value table
+     * @param documentCount the number of document id bind parameters to include in the {@code IN} list
+     * @return the parameterized sql
+     */
+    protected String generateBatchedSearchableAttributeSql(String tableName, int documentCount) {
+        StringBuilder attributeSql = new StringBuilder("select DOC_HDR_ID, KEY_CD, VAL from ").append(tableName).append(" where DOC_HDR_ID in (");
+        for (int index = 0; index < documentCount; index++) {
+            attributeSql.append(index == 0 ? "?" : ", ?");
+        }
+        return attributeSql.append(")").toString();
+    }
+
+    private void addDocumentAttribute(DocumentSearchResult.Builder resultBuilder, SearchableAttributeValue searchAttValue, ResultSet attributeResultSet) throws SQLException {
+        searchAttValue.setSearchableAttributeKey(attributeResultSet.getString("KEY_CD"));
+        searchAttValue.setupAttributeValue(attributeResultSet, "VAL");
+        if ( (!org.apache.commons.lang.StringUtils.isEmpty(searchAttValue.getSearchableAttributeKey())) && (searchAttValue.getSearchableAttributeValue() != null) ) {
+            DocumentAttribute documentAttribute = searchAttValue.toDocumentAttribute();
+            resultBuilder.getDocumentAttributes().add(DocumentAttributeFactory.loadContractIntoBuilder(
+                    documentAttribute));
+        }
+    }
+
     @SuppressWarnings("deprecation")
     public String generateSearchSql(DocumentSearchCriteria criteria, List<RemotableAttributeField> searchFields) {
 
@@ -387,7 +544,6 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         String docHeaderTableAlias = "DOC_HDR";
 
         String sqlPrefix = "Select * from (";
-        String sqlSuffix = ") FINAL_SEARCH order by FINAL_SEARCH.CRTE_DT desc";
 
         // the DISTINCT here is important as it filters out duplicate rows which could occur as the result of doc search extension values...
         StringBuilder selectSQL = new StringBuilder("select DISTINCT("+ docHeaderTableAlias +".DOC_HDR_ID), "
@@ -427,11 +583,11 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         whereSQL.append(getDateFinalizedSql(criteria.getDateFinalizedFrom(), criteria.getDateFinalizedTo(), getGeneratedPredicatePrefix(whereSQL.length())));
 
         // flags for the table being added to the FROM class of the sql
-        String principalViewerSql = getViewerSql(criteria.getViewerPrincipalName(), getGeneratedPredicatePrefix(whereSQL.length()));
         String principalViewerIdSql = getViewerIdSql(criteria.getViewerPrincipalId(), getGeneratedPredicatePrefix(whereSQL.length()));
         // if principalId criteria exists ignore deprecated principalName search term
-        if (StringUtils.isNotBlank(principalViewerIdSql)){
-            principalViewerSql = "";
+        String principalViewerSql = "";
+        if (StringUtils.isBlank(principalViewerIdSql)){
+            principalViewerSql = getViewerSql(criteria.getViewerPrincipalName(), getGeneratedPredicatePrefix(whereSQL.length()));
         }
         String groupViewerSql = getGroupViewerSql(criteria.getGroupViewerId(), getGeneratedPredicatePrefix(whereSQL.length()));
         if (StringUtils.isNotBlank(principalViewerSql) || StringUtils.isNotBlank(groupViewerSql) || StringUtils.isNotBlank(principalViewerIdSql) ) {
@@ -441,11 +597,11 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
             fromSQL.append(", KREW_ACTN_RQST_T ");
         }
 
-        String principalApproverSql =  getApproverSql(criteria.getApproverPrincipalName(), getGeneratedPredicatePrefix(whereSQL.length()));
         String principalApproverIdSql = getApproverIdSql(criteria.getApproverPrincipalId(), getGeneratedPredicatePrefix(whereSQL.length()));
         // if principalId criteria exists ignore deprecated principalName search term
-        if (StringUtils.isNotBlank(principalApproverIdSql)){
-            principalApproverSql = "";
+        String principalApproverSql = "";
+        if (StringUtils.isBlank(principalApproverIdSql)){
+            principalApproverSql = getApproverSql(criteria.getApproverPrincipalName(), getGeneratedPredicatePrefix(whereSQL.length()));
         }
         if (StringUtils.isNotBlank(principalApproverSql) || StringUtils.isNotBlank(principalApproverIdSql)) {
             whereSQL.append(principalApproverSql);
@@ -476,8 +632,16 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         whereSQL.append(getGeneratedPredicatePrefix(whereSQL.length())).append(" DOC_HDR.DOC_TYP_ID = DOC1.DOC_TYP_ID ");
         fromSQL.append(fromSQLForDocHeaderTable);
 
-        // App Doc Status Value and Transition clauses
+        // App Doc Status Value and Transition clauses, the transition clause is appended after the status clause
+        // which depends on it, so its bind values are set aside until then
+        int statusTransitionValueIndex = (bindValues == null) ? 0 : bindValues.size();
         String statusTransitionWhereClause = getStatusTransitionDateSql(criteria.getDateApplicationDocumentStatusChangedFrom(), criteria.getDateApplicationDocumentStatusChangedTo(), getGeneratedPredicatePrefix(whereSQL.length()));
+        List<Object> statusTransitionValues = Collections.emptyList();
+        if (bindValues != null) {
+            List<Object> addedValues = bindValues.subList(statusTransitionValueIndex, bindValues.size());
+            statusTransitionValues = new ArrayList<Object>(addedValues);
+            addedValues.clear();
+        }
 
         List<String> applicationDocumentStatuses = criteria.getApplicationDocumentStatuses();
         // deal with legacy usage of applicationDocumentStatus (which is deprecated)
@@ -492,10 +656,20 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                 whereSQL.length()), statusTransitionWhereClause.length()));
         if (statusTransitionWhereClause.length() > 0){
         	whereSQL.append(statusTransitionWhereClause);
+            if (bindValues != null) {
+                bindValues.addAll(statusTransitionValues);
+            }
             whereSQL.append(getGeneratedPredicatePrefix(whereSQL.length())).append(" DOC_HDR.DOC_HDR_ID = STAT_TRAN.DOC_HDR_ID ");
         	fromSQL.append(", KREW_APP_DOC_STAT_TRAN_T STAT_TRAN ");
         }
 
+        String sqlSuffix = ") FINAL_SEARCH order by FINAL_SEARCH.CRTE_DT desc";
+        if (criteria.getPageSize() != null) {
+            // keyset paging needs a total order, so the document id breaks ties between equal create dates
+            sqlSuffix = ") FINAL_SEARCH " + getContinuationSql(criteria.getContinuationToken())
+                    + " order by FINAL_SEARCH.CRTE_DT desc, FINAL_SEARCH.DOC_HDR_ID desc";
+        }
+
         String finalizedSql = sqlPrefix + " " + selectSQL.toString() + " " + fromSQL.toString() + " " + whereSQL.toString() + " " + sqlSuffix;
 
         LOG.info("*********** SEARCH SQL ***************");
@@ -504,6 +678,100 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         return finalizedSql;
     }
 
+    /**
+     * Generates the search sql with bind parameters in place of the values of the criteria, including those of the
+     * searchable attribute criteria, so that searches of the same shape share one sql text and with it the statement
+     * caches of the driver and database.  The criteria helpers of this class collect the values as they build the
+     * sql.
+     *
+     * <p>When {@link #generateSearchSql} is overridden, the order in which the override calls the helpers is unknown,
+     * so the sql it generates is used as it is, with its values inlined.</p>
+     */
+    @Override
+    public ParameterizedSql generateParameterizedSearchSql(DocumentSearchCriteria criteria, List<RemotableAttributeField> searchFields) {
+        if (isSearchSqlOverridden()) {
+            return new ParameterizedSql(generateSearchSql(criteria, searchFields), null);
+        }
+        SqlBuilder sqlBuilder = getSqlBuilder();
+        boolean sqlBuilderBindValues = sqlBuilder.isBindValues();
+        bindValues = new ArrayList<Object>();
+        sqlBuilder.setBindValues(true);
+        try {
+            ParameterizedSql parameterizedSql = new ParameterizedSql(generateSearchSql(criteria, searchFields), bindValues);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Search sql parameters: " + parameterizedSql.getParameters());
+            }
+            return parameterizedSql;
+        } finally {
+            bindValues = null;
+            sqlBuilder.setBindValues(sqlBuilderBindValues);
+        }
+    }
+
+    private boolean isSearchSqlOverridden() {
+        try {
+            return getClass().getMethod("generateSearchSql", DocumentSearchCriteria.class, List.class)
+                    .getDeclaringClass() != DocumentSearchGeneratorImpl.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the sql for the given value: a placeholder while the values of the search sql are bound, see
+     * {@link #generateParameterizedSearchSql}, otherwise the value as an escaped string literal.
+     */
+    protected String getSqlValue(Object value) {
+        if (bindValues != null) {
+            bindValues.add(value);
+            return "?";
+        }
+        return "'" + getDbPlatform().escapeString(value.toString()) + "'";
+    }
+
+    /**
+     * Builds the where clause of the given criteria, collecting its bind values.
+     */
+    protected String buildWhere(Criteria criteria) {
+        String where = criteria.buildWhere();
+        if (bindValues != null) {
+            bindValues.addAll(criteria.getBindValues());
+        }
+        return where;
+    }
+
+    /**
+     * Creates criteria which bind their values while the values of the search sql are bound.
+     */
+    protected Criteria createCriteria(String tableName, String tableAlias) {
+        Criteria criteria = new Criteria(tableName, tableAlias);
+        criteria.setDbPlatform(getDbPlatform());
+        criteria.setBindValues(bindValues != null);
+        return criteria;
+    }
+
+    /**
+     * Generates the predicate which restricts a keyset paged search to the documents following the position encoded in
+     * the given continuation token.
+     *
+     * @param continuationToken the token returned with the previous page, may be blank for the first page
+     * @return the where clause to apply to the outer search query, or an empty string for the first page
+     */
+    public String getContinuationSql(String continuationToken) {
+        if (StringUtils.isBlank(continuationToken)) {
+            return "";
+        }
+        DocumentSearchContinuationToken position = DocumentSearchContinuationToken.decode(continuationToken);
+        if (bindValues != null) {
+            return " where (FINAL_SEARCH.CRTE_DT < " + getSqlValue(position.getDateCreated())
+                    + " or (FINAL_SEARCH.CRTE_DT = " + getSqlValue(position.getDateCreated())
+                    + " and FINAL_SEARCH.DOC_HDR_ID < " + getSqlValue(position.getDocumentId()) + ")) ";
+        }
+        String dateCreated = "{ts '" + position.getDateCreated().toString() + "'}";
+        return " where (FINAL_SEARCH.CRTE_DT < " + dateCreated + " or (FINAL_SEARCH.CRTE_DT = " + dateCreated
+                + " and FINAL_SEARCH.DOC_HDR_ID < '" + getDbPlatform().escapeString(position.getDocumentId()) + "')) ";
+    }
+
     public String getDocumentIdSql(String documentId, String whereClausePredicatePrefix, String tableAlias) {
         if (StringUtils.isBlank(documentId)) {
             return "";
@@ -511,7 +779,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         	// Using true for caseInsensitive causes bad performance for MYSQL databases since function indexes cannot be added.
         	// Due to this, false is passed for caseInsensitive
             Criteria crit = getSqlBuilder().createCriteria("DOC_HDR_ID", documentId, "KREW_DOC_HDR_T", tableAlias, String.class, false, true);
-            return new StringBuilder(whereClausePredicatePrefix + crit.buildWhere()).toString();
+            return new StringBuilder(whereClausePredicatePrefix + buildWhere(crit)).toString();
         }
     }
 
@@ -519,12 +787,14 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         if (StringUtils.isBlank(docTitle)) {
             return "";
         } else {
-            // quick and dirty ' replacement that isn't the best but should work for all dbs
-            docTitle = docTitle.trim().replace("\'", "\'\'");
-            SqlBuilder sqlBuild = new SqlBuilder();
-            Criteria crit = new Criteria("KREW_DOC_HDR_T", "DOC_HDR");
-            sqlBuild.addCriteria("TTL", docTitle, String.class, true, true, crit);
-            return new StringBuilder(whereClausePredicatePrefix + crit.buildWhere()).toString();
+            docTitle = docTitle.trim();
+            if (bindValues == null) {
+                // quick and dirty ' replacement that isn't the best but should work for all dbs
+                docTitle = docTitle.replace("\'", "\'\'");
+            }
+            Criteria crit = createCriteria("KREW_DOC_HDR_T", "DOC_HDR");
+            getSqlBuilder().addCriteria("TTL", docTitle, String.class, true, true, crit);
+            return new StringBuilder(whereClausePredicatePrefix + buildWhere(crit)).toString();
         }
     }
 
@@ -536,7 +806,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         } else {
             String tableAlias = "DOC_HDR";
             Criteria crit = getSqlBuilder().createCriteria("APP_DOC_ID", appDocId, "KREW_DOC_HDR_T", tableAlias,String.class);
-            return new StringBuilder(whereClausePredicatePrefix + crit.buildWhere()).toString();
+            return new StringBuilder(whereClausePredicatePrefix + buildWhere(crit)).toString();
         }
     }
 
@@ -587,9 +857,9 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                 principalList.add(person.getPrincipalId());
             }
 
-            Criteria crit = new Criteria("KREW_ACTN_RQST_T", "KREW_ACTN_RQST_T");
+            Criteria crit = createCriteria("KREW_ACTN_RQST_T", "KREW_ACTN_RQST_T");
             crit.in("PRNCPL_ID", principalList, String.class);
-            returnSql.append(whereClausePredicatePrefix + "( (DOC_HDR.DOC_HDR_ID = KREW_ACTN_RQST_T.DOC_HDR_ID and " + crit.buildWhere() + " )");
+            returnSql.append(whereClausePredicatePrefix + "( (DOC_HDR.DOC_HDR_ID = KREW_ACTN_RQST_T.DOC_HDR_ID and " + buildWhere(crit) + " )");
 
             Set<String> viewerGroupIds = new TreeSet<String>();
 
@@ -612,7 +882,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                     if(!first){
                         returnSql.append(",");
                     }
-                    returnSql.append("'").append(groupId).append("'");
+                    returnSql.append(getSqlValue(groupId));
                     first = false;
                 }
                 returnSql.append("))");
@@ -641,9 +911,9 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                 principalList.add(person.getPrincipalId());
             }
 
-            Criteria crit = new Criteria("KREW_ACTN_RQST_T", "KREW_ACTN_RQST_T");
+            Criteria crit = createCriteria("KREW_ACTN_RQST_T", "KREW_ACTN_RQST_T");
             crit.in("PRNCPL_ID", principalList, String.class);
-            returnSql.append(whereClausePredicatePrefix + "( DOC_HDR.DOC_HDR_ID = KREW_ACTN_RQST_T.DOC_HDR_ID and " + crit.buildWhere() + " )");
+            returnSql.append(whereClausePredicatePrefix + "( DOC_HDR.DOC_HDR_ID = KREW_ACTN_RQST_T.DOC_HDR_ID and " + buildWhere(crit) + " )");
         }
         return returnSql.toString();
     }
@@ -651,7 +921,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
     public String getGroupViewerSql(String groupId, String whereClausePredicatePrefix) {
         String sql = "";
         if (StringUtils.isNotBlank(groupId)) {
-            sql = whereClausePredicatePrefix + " DOC_HDR.DOC_HDR_ID = KREW_ACTN_RQST_T.DOC_HDR_ID and KREW_ACTN_RQST_T.GRP_ID = '" + groupId + "'";
+            sql = whereClausePredicatePrefix + " DOC_HDR.DOC_HDR_ID = KREW_ACTN_RQST_T.DOC_HDR_ID and KREW_ACTN_RQST_T.GRP_ID = " + getSqlValue(groupId);
         }
         return sql;
     }
@@ -687,10 +957,10 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
             principalList.add(p.getPrincipalId());
         }
 
-        Criteria crit = new Criteria("KREW_DOC_HDR_T", tableAlias);
+        Criteria crit = createCriteria("KREW_DOC_HDR_T", tableAlias);
         crit.in("INITR_PRNCPL_ID", principalList, String.class);
 
-        return new StringBuilder(whereClausePredicatePrefix + crit.buildWhere()).toString();
+        return new StringBuilder(whereClausePredicatePrefix + buildWhere(crit)).toString();
     }
 
     public String getInitiatorIdSql(String initiatorPrincipalId, String whereClausePredicatePrefix) {
@@ -717,10 +987,10 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
             principalList.add(p.getPrincipalId());
         }
 
-        Criteria crit = new Criteria("KREW_DOC_HDR_T", tableAlias);
+        Criteria crit = createCriteria("KREW_DOC_HDR_T", tableAlias);
         crit.in("INITR_PRNCPL_ID", principalList, String.class);
 
-        return new StringBuilder(whereClausePredicatePrefix + crit.buildWhere()).toString();
+        return new StringBuilder(whereClausePredicatePrefix + buildWhere(crit)).toString();
     }
 
     public String getApproverSql(String approver, String whereClausePredicatePrefix) {
@@ -750,13 +1020,13 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                 principalList.add(p.getPrincipalId());
             }
 
-            Criteria crit = new Criteria("KREW_ACTN_TKN_T", "KREW_ACTN_TKN_T");
+            Criteria crit = createCriteria("KREW_ACTN_TKN_T", "KREW_ACTN_TKN_T");
             crit.in("PRNCPL_ID", principalList, String.class);
 
             returnSql = whereClausePredicatePrefix +
             " DOC_HDR.DOC_HDR_ID = KREW_ACTN_TKN_T.DOC_HDR_ID and upper(KREW_ACTN_TKN_T.ACTN_CD) in ('" +
             KewApiConstants.ACTION_TAKEN_APPROVED_CD + "','" + KewApiConstants.ACTION_TAKEN_BLANKET_APPROVE_CD + "')" +
-            " and " + crit.buildWhere();
+            " and " + buildWhere(crit);
         }
         return returnSql;
     }
@@ -780,13 +1050,13 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                 principalList.add(p.getPrincipalId());
             }
 
-            Criteria crit = new Criteria("KREW_ACTN_TKN_T", "KREW_ACTN_TKN_T");
+            Criteria crit = createCriteria("KREW_ACTN_TKN_T", "KREW_ACTN_TKN_T");
             crit.in("PRNCPL_ID", principalList, String.class);
 
             returnSql = whereClausePredicatePrefix +
                     " DOC_HDR.DOC_HDR_ID = KREW_ACTN_TKN_T.DOC_HDR_ID and upper(KREW_ACTN_TKN_T.ACTN_CD) in ('" +
                     KewApiConstants.ACTION_TAKEN_APPROVED_CD + "','" + KewApiConstants.ACTION_TAKEN_BLANKET_APPROVE_CD + "')" +
-                    " and " + crit.buildWhere();
+                    " and " + buildWhere(crit);
         }
         return returnSql;
     }
@@ -841,11 +1111,11 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
     }
 
     public void addDocumentTypeNameToSearchOn(StringBuilder whereSql, String documentTypeName, String clause) {
-        whereSql.append(clause).append("upper(DOC1.DOC_TYP_NM) = '" + documentTypeName.toUpperCase() + "'");
+        whereSql.append(clause).append("upper(DOC1.DOC_TYP_NM) = " + getSqlValue(documentTypeName.toUpperCase()));
     }
     public void addDocumentTypeLikeNameToSearchOn(StringBuilder whereSql, String documentTypeName, String clause) {
         documentTypeName = documentTypeName.replace('*', '%');
-        whereSql.append(clause).append(" upper(DOC1.DOC_TYP_NM) LIKE '" + documentTypeName.toUpperCase() + "'");
+        whereSql.append(clause).append(" upper(DOC1.DOC_TYP_NM) LIKE " + getSqlValue(documentTypeName.toUpperCase()));
     }
 
     public String getDocRouteNodeSql(String documentTypeFullName, String routeNodeName, RouteNodeLookupLogic docRouteLevelLogic, String whereClausePredicatePrefix) {
@@ -858,7 +1128,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
             }
             StringBuilder routeNodeCriteria = new StringBuilder("and " + ROUTE_NODE_TABLE + ".NM ");
             if (RouteNodeLookupLogic.EXACTLY == docRouteLevelLogic) {
-        		routeNodeCriteria.append("= '" + getDbPlatform().escapeString(routeNodeName) + "' ");
+        		routeNodeCriteria.append("= " + getSqlValue(routeNodeName) + " ");
             } else {
                 routeNodeCriteria.append("in (");
                 // below buffer used to facilitate the addition of the string ", " to separate out route node names
@@ -879,7 +1149,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                         if (routeNodeInCriteria.length() > 0) {
                             routeNodeInCriteria.append(", ");
                         }
-                        routeNodeInCriteria.append("'" + routeNode.getRouteNodeName() + "'");
+                        routeNodeInCriteria.append(getSqlValue(routeNode.getRouteNodeName()));
                     }
                 }
                 if (routeNodeInCriteria.length() > 0) {
@@ -907,11 +1177,16 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                 statusesToInclude.addAll(categoryStatuses);
             }
 
-            Set<String> statusCodes = new HashSet<String>();
+            // sorted, so that searches for the same statuses share their sql
+            Set<String> statusCodes = new TreeSet<String>();
             for (DocumentStatus statusToInclude : statusesToInclude) {
-                statusCodes.add("'" + getDbPlatform().escapeString(statusToInclude.getCode()) + "'");
+                statusCodes.add(statusToInclude.getCode());
             }
-            return whereClausePredicatePrefix + " DOC_HDR.DOC_HDR_STAT_CD in (" + StringUtils.join(statusCodes, ", ") +")";
+            List<String> statusValues = new ArrayList<String>();
+            for (String statusCode : statusCodes) {
+                statusValues.add(getSqlValue(statusCode));
+            }
+            return whereClausePredicatePrefix + " DOC_HDR.DOC_HDR_STAT_CD in (" + StringUtils.join(statusValues, ", ") +")";
         }
     }
 
@@ -946,9 +1221,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
                 sql.append(",");
             }
 
-            sql.append("'");
-            sql.append(getDbPlatform().escapeString(appDocStatus.trim()));
-            sql.append("'");
+            sql.append(getSqlValue(appDocStatus.trim()));
         }
 
         sql.append(")");
@@ -964,12 +1237,12 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
 
         String fromDateValue = null;
         if (fromDate != null) {
-            fromDateValue = CoreApiServiceLocator.getDateTimeService().toDateString(fromDate.toDate());
+            fromDateValue = getDateTimeService().toDateString(fromDate.toDate());
         }
 
         String toDateValue = null;
         if (toDate != null) {
-            toDateValue = CoreApiServiceLocator.getDateTimeService().toDateString(toDate.toDate());
+            toDateValue = getDateTimeService().toDateString(toDate.toDate());
             toDateValue += " 23:59:59";
         }
 
@@ -985,7 +1258,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         }
 
         Criteria crit = getSqlBuilder().createCriteria(colName, searchValue, tableName, tableAlias, java.sql.Date.class, true, true);
-        return new StringBuilder(whereStatementClause).append(crit.buildWhere()).toString();
+        return new StringBuilder(whereStatementClause).append(buildWhere(crit)).toString();
 
     }
 
@@ -1000,7 +1273,7 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         if(sqlBuilder == null){
             sqlBuilder = new SqlBuilder();
             sqlBuilder.setDbPlatform(getDbPlatform());
-            sqlBuilder.setDateTimeService(CoreApiServiceLocator.getDateTimeService());
+            sqlBuilder.setDateTimeService(getDateTimeService());
         }
         return this.sqlBuilder;
     }
@@ -1009,6 +1282,10 @@ public class DocumentSearchGeneratorImpl implements DocumentSearchGenerator {
         this.sqlBuilder = sqlBuilder;
     }
 
+    protected DateTimeService getDateTimeService() {
+        return CoreApiServiceLocator.getDateTimeService();
+    }
+
     /**
      * A helper method for determining whether any searchable attributes are in use for the search.
      *
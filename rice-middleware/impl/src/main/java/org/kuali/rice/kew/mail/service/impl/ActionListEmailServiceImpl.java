@@ -17,10 +17,12 @@ package org.kuali.rice.kew.mail.service.impl;
 
 import java.text.FieldPosition;
 import java.text.MessageFormat;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -28,6 +30,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 import org.kuali.rice.core.api.config.property.ConfigContext;
@@ -95,10 +103,20 @@ public class ActionListEmailServiceImpl implements ActionListEmailService {
     private static final String WEEKLY_TRIGGER_NAME = "Weekly Email Trigger";
     private static final String WEEKLY_JOB_NAME = "Weekly Email";
 
+    /**
+     * The prefix of the user option recording the period in which the user was last sent the reminder of an email
+     * setting.
+     */
+    private static final String REMINDER_SENT_OPTION_PREFIX = "EMAIL_REMINDER_SENT.";
+
     private String deploymentEnvironment;
 
     private Mailer mailer;
 
+    private int reminderThreads = 4;
+
+    private int reminderPartitionSize = 250;
+
     public void setMailer(Mailer mailer) {
         this.mailer = mailer;
     }
@@ -394,19 +412,7 @@ public class ActionListEmailServiceImpl implements ActionListEmailService {
     public void sendDailyReminder() {
         LOG.info("Starting SendDailyReminder");
         if (sendActionListEmailNotification()) {
-            Collection<String> users = getUsersWithEmailSetting(KewApiConstants.EMAIL_RMNDR_DAY_VAL);
-            for (Iterator<String> userIter = users.iterator(); userIter.hasNext();) {
-            	String principalId = userIter.next();
-                try {
-                    Collection<ActionItem> actionItems = getActionListService().getActionList(principalId, null);
-                    if (actionItems != null && actionItems.size() > 0) {
-                        sendPeriodicReminder(principalId, actionItems,
-                                KewApiConstants.EMAIL_RMNDR_DAY_VAL);
-                    }
-                } catch (Exception e) {
-                    LOG.error("Error sending daily action list reminder to user: " + principalId, e);
-                }
-            }
+            sendPeriodicReminders(KewApiConstants.EMAIL_RMNDR_DAY_VAL);
         }
         LOG.info("Daily action list emails successfully sent");
     }
@@ -415,21 +421,115 @@ public class ActionListEmailServiceImpl implements ActionListEmailService {
     public void sendWeeklyReminder() {
         LOG.info("Starting sendWeeklyReminder");
         if (sendActionListEmailNotification()) {
-            Collection<String> users = getUsersWithEmailSetting(KewApiConstants.EMAIL_RMNDR_WEEK_VAL);
-            for (Iterator<String> userIter = users.iterator(); userIter.hasNext();) {
-            	String principalId = userIter.next();
-                try {
-                    Collection<ActionItem> actionItems = getActionListService().getActionList(principalId, null);
-                    if (actionItems != null && actionItems.size() > 0) {
-                        sendPeriodicReminder(principalId, actionItems,
-                                KewApiConstants.EMAIL_RMNDR_WEEK_VAL);
+            sendPeriodicReminders(KewApiConstants.EMAIL_RMNDR_WEEK_VAL);
+        }
+        LOG.info("Weekly action list emails successfully sent");
+    }
+
+    /**
+     * Sends the periodic reminders of the given email setting to all users with the setting.  The users are split
+     * into partitions which are processed concurrently, the action lists of the users of a partition being loaded
+     * together.
+     *
+     * <p>Each user reminded is recorded in their user options, so if the reminders are sent again in the same period,
+     * such as after the server went down part way through, the users which were already reminded are skipped.</p>
+     */
+    protected void sendPeriodicReminders(final String emailSetting) {
+        final String period = getReminderPeriod(emailSetting, new Date());
+        List<String> principalIds = new ArrayList<String>(getUsersWithEmailSetting(emailSetting));
+        int userCount = principalIds.size();
+        principalIds.removeAll(getUsersRemindedInPeriod(emailSetting, period));
+        Collections.sort(principalIds);
+        final ReminderRun run = new ReminderRun(emailSetting, principalIds.size(), userCount - principalIds.size());
+        LOG.info("Sending " + emailSetting + " action list reminders to " + principalIds.size() + " users, "
+                + run.skippedCount + " were already reminded for " + period);
+
+        ExecutorService executor = createReminderExecutor();
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int start = 0; start < principalIds.size(); start += reminderPartitionSize) {
+                final List<String> partition = principalIds.subList(start, Math.min(start + reminderPartitionSize,
+                        principalIds.size()));
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendPeriodicReminders(partition, emailSetting, period, run);
                     }
-                } catch (Exception e) {
-                    LOG.error("Error sending weekly action list reminder to user: " + principalId, e);
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOG.error("Error sending " + emailSetting + " action list reminders", e.getCause());
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while sending " + emailSetting + " action list reminders, they will be resumed the "
+                    + "next time they are sent for " + period);
+        } finally {
+            executor.shutdownNow();
         }
-        LOG.info("Weekly action list emails successfully sent");
+        LOG.info(run.report());
+    }
+
+    /**
+     * Sends the periodic reminders to the given partition of the users, loading their action lists at once.
+     */
+    protected void sendPeriodicReminders(List<String> principalIds, String emailSetting, String period,
+            ReminderRun run) {
+        Map<String, Collection<ActionItem>> actionLists = getActionListService().getActionLists(principalIds);
+        for (String principalId : principalIds) {
+            try {
+                Collection<ActionItem> actionItems = actionLists.get(principalId);
+                if (actionItems != null && actionItems.size() > 0) {
+                    sendPeriodicReminder(principalId, actionItems, emailSetting);
+                    getUserOptionsService().save(principalId, REMINDER_SENT_OPTION_PREFIX + emailSetting, period);
+                    run.reminderSent();
+                }
+                run.userProcessed();
+            } catch (Exception e) {
+                LOG.error("Error sending " + emailSetting + " action list reminder to user: " + principalId, e);
+                run.userFailed();
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(run.report());
+        }
+    }
+
+    /**
+     * Returns the period in which a reminder of the given email setting sent on the given date falls, users are only
+     * reminded once per period.
+     */
+    protected String getReminderPeriod(String emailSetting, Date date) {
+        String pattern = KewApiConstants.EMAIL_RMNDR_WEEK_VAL.equals(emailSetting) ? "YYYY-'W'ww" : "yyyy-MM-dd";
+        return new SimpleDateFormat(pattern).format(date);
+    }
+
+    /**
+     * Returns the users which were already sent the reminder of the given email setting in the given period.
+     */
+    protected Set<String> getUsersRemindedInPeriod(String emailSetting, String period) {
+        Set<String> users = new HashSet<String>();
+        for (UserOptions userOption : getUserOptionsService().findByOptionValue(
+                REMINDER_SENT_OPTION_PREFIX + emailSetting, period)) {
+            users.add(userOption.getWorkflowId());
+        }
+        return users;
+    }
+
+    private ExecutorService createReminderExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(reminderThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ActionListReminder-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
     protected void sendPeriodicReminder(String principalId, Collection<ActionItem> actionItems, String emailSetting) {
@@ -808,6 +908,34 @@ public class ActionListEmailServiceImpl implements ActionListEmailService {
         this.deploymentEnvironment = deploymentEnvironment;
     }
 
+    public int getReminderThreads() {
+        return reminderThreads;
+    }
+
+    /**
+     * Sets the number of partitions of users sent their daily or weekly reminders concurrently.
+     */
+    public void setReminderThreads(int reminderThreads) {
+        if (reminderThreads < 1) {
+            throw new IllegalArgumentException("reminderThreads must be at least 1, was " + reminderThreads);
+        }
+        this.reminderThreads = reminderThreads;
+    }
+
+    public int getReminderPartitionSize() {
+        return reminderPartitionSize;
+    }
+
+    /**
+     * Sets the number of users whose action lists are loaded together when sending daily or weekly reminders.
+     */
+    public void setReminderPartitionSize(int reminderPartitionSize) {
+        if (reminderPartitionSize < 1) {
+            throw new IllegalArgumentException("reminderPartitionSize must be at least 1, was " + reminderPartitionSize);
+        }
+        this.reminderPartitionSize = reminderPartitionSize;
+    }
+
     protected String getActionListUrl() {
         return ConfigContext.getCurrentContextConfig().getProperty(KRADConstants.WORKFLOW_URL_KEY)
                 + "/" + "ActionList.do";
@@ -817,4 +945,45 @@ public class ActionListEmailServiceImpl implements ActionListEmailService {
         return ConfigContext.getCurrentContextConfig().getProperty(KRADConstants.WORKFLOW_URL_KEY)
                 + "/" + "Preferences.do";
     }
+
+    /**
+     * Counts the users processed while sending the reminders of an email setting, for reporting the throughput.
+     */
+    protected static class ReminderRun {
+
+        private final String emailSetting;
+        private final int userCount;
+        private final int skippedCount;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicInteger processedCount = new AtomicInteger();
+        private final AtomicInteger remindedCount = new AtomicInteger();
+        private final AtomicInteger failedCount = new AtomicInteger();
+
+        ReminderRun(String emailSetting, int userCount, int skippedCount) {
+            this.emailSetting = emailSetting;
+            this.userCount = userCount;
+            this.skippedCount = skippedCount;
+        }
+
+        void userProcessed() {
+            processedCount.incrementAndGet();
+        }
+
+        void reminderSent() {
+            remindedCount.incrementAndGet();
+        }
+
+        void userFailed() {
+            failedCount.incrementAndGet();
+        }
+
+        String report() {
+            long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+            int processed = processedCount.get() + failedCount.get();
+            return "Processed " + processed + " of " + userCount + " users for " + emailSetting
+                    + " action list reminders in " + elapsed + " ms (" + (processed * 1000L / elapsed)
+                    + " users/s): " + remindedCount.get() + " with action items reminded, " + failedCount.get()
+                    + " failed, " + skippedCount + " skipped as already reminded";
+        }
+    }
 }
@@ -0,0 +1,463 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.routeheader;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Serializes access to documents within this JVM ahead of the database row lock taken on the route header.
+ *
+ * <p>Workflow processing locks a document by selecting its route header for update, which holds a database connection
+ * for as long as the lock is waited on.  When a number of workers on the same node process the same hot document they
+ * all wait on the database.  Taking a local lock on the document first lets them queue in memory instead, so only one
+ * worker per node holds a connection waiting for the row lock.  The database lock remains the lock which guarantees
+ * exclusive access, across nodes as well as within one.</p>
+ *
+ * <p>Each document being locked has its own lock, which is discarded once no thread holds or waits for it, so that
+ * unrelated documents never wait on each other.  A local lock is held until the transaction which took it completes,
+ * at which point the database releases the row lock as well, so local locks are only taken within a transaction.
+ * Locks are reentrant within a transaction.  Documents are locked in the order of their ids, see
+ * {@link #orderForLocking(java.util.Collection)}.  A transaction which already holds the lock of a document later in
+ * that order does not wait for a lock held by another thread, as the other thread may be waiting for it in turn; it
+ * skips the local lock and leaves the document to the database lock and its deadlock detection.  So does a lock which
+ * is not acquired within the wait timeout.</p>
+ *
+ * <p>The time spent waiting for both locks is recorded in a histogram per document type, exposed along with the lock
+ * counts through JMX.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DocumentLockManager implements DocumentLockManagerMBean, InitializingBean, DisposableBean {
+
+    private static final Logger LOG = Logger.getLogger(DocumentLockManager.class);
+
+    static final long DEFAULT_WAIT_TIMEOUT_SECONDS = 60;
+
+    private static final long[] HISTOGRAM_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000, 10000, 60000};
+
+    private volatile boolean enabled = true;
+    private long waitTimeoutSeconds = DEFAULT_WAIT_TIMEOUT_SECONDS;
+    private ObjectName objectName;
+
+    /**
+     * The locks of the documents which are currently locked or waited for, by document id.
+     */
+    private final ConcurrentMap<String, DocumentLock> locks = new ConcurrentHashMap<String, DocumentLock>();
+
+    private final AtomicLong lockCount = new AtomicLong();
+    private final AtomicLong contendedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong outOfOrderCount = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLongArray> histograms = new ConcurrentHashMap<String, AtomicLongArray>();
+
+    @Override
+    public void afterPropertiesSet() {
+        registerMBean();
+    }
+
+    @Override
+    public void destroy() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            LOG.warn("Failed to unregister MBean for the document lock manager", e);
+        }
+        objectName = null;
+    }
+
+    /**
+     * Locks the given document within this JVM until the current transaction completes.
+     *
+     * @param documentId the id of the document to lock
+     * @return true if the document was locked, false if local locking is disabled, there is no transaction, the
+     * document is locked by another thread while this transaction holds a document later in the locking order, or the
+     * lock was not acquired within the wait timeout
+     */
+    public boolean lock(String documentId) {
+        if (documentId == null) {
+            throw new IllegalArgumentException("documentId was null");
+        }
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionLocks transactionLocks = getTransactionLocks();
+        if (transactionLocks.isHeld(documentId)) {
+            lockCount.incrementAndGet();
+            return true;
+        }
+        // waiting for a document earlier in the locking order than one already held could deadlock
+        boolean inOrder = transactionLocks.isInLockingOrder(documentId);
+        Thread owner = Thread.currentThread();
+        DocumentLock lock = reference(documentId);
+        boolean acquired;
+        try {
+            acquired = lock.acquire(owner, inOrder ? TimeUnit.SECONDS.toNanos(waitTimeoutSeconds) : 0,
+                    contendedCount);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            dereference(documentId, lock);
+            if (inOrder) {
+                timeoutCount.incrementAndGet();
+                LOG.warn("Timed out waiting " + waitTimeoutSeconds + " seconds for the local lock on document "
+                        + documentId + ", waiting on the database lock alone");
+            } else {
+                outOfOrderCount.incrementAndGet();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Document " + documentId + " is locked by another thread and was requested out of "
+                            + "order, waiting on the database lock alone");
+                }
+            }
+            return false;
+        }
+        transactionLocks.add(documentId, lock);
+        lockCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records the time spent waiting to lock a document of the given document type.
+     */
+    public void recordWait(String documentTypeName, long waitNanos) {
+        String key = documentTypeName == null ? "unknown" : documentTypeName;
+        AtomicLongArray histogram = histograms.get(key);
+        if (histogram == null) {
+            AtomicLongArray newHistogram = new AtomicLongArray(HISTOGRAM_BOUNDS_MILLIS.length + 1);
+            histogram = histograms.putIfAbsent(key, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        int bucket = 0;
+        while (bucket < HISTOGRAM_BOUNDS_MILLIS.length && waitMillis >= HISTOGRAM_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        histogram.incrementAndGet(bucket);
+    }
+
+    /**
+     * Returns the given document ids, without duplicates, in the order in which they should be locked so that threads
+     * locking overlapping sets of documents do not deadlock on each other, locally or in the database.
+     */
+    public List<String> orderForLocking(Collection<String> documentIds) {
+        TreeSet<String> orderedIds = new TreeSet<String>();
+        for (String documentId : documentIds) {
+            if (documentId != null) {
+                orderedIds.add(documentId);
+            }
+        }
+        return new ArrayList<String>(orderedIds);
+    }
+
+    /**
+     * Returns the locks taken by the current transaction, binding them to the transaction on its first lock.
+     */
+    private TransactionLocks getTransactionLocks() {
+        TransactionLocks transactionLocks = (TransactionLocks) TransactionSynchronizationManager.getResource(this);
+        if (transactionLocks != null && !transactionLocks.isCompleted()) {
+            return transactionLocks;
+        }
+        if (transactionLocks != null) {
+            // completed without being unbound, as when completed on another thread
+            TransactionSynchronizationManager.unbindResource(this);
+        }
+        transactionLocks = new TransactionLocks(Thread.currentThread());
+        TransactionSynchronizationManager.bindResource(this, transactionLocks);
+        TransactionSynchronizationManager.registerSynchronization(transactionLocks);
+        return transactionLocks;
+    }
+
+    /**
+     * Returns the lock of the given document, counting the caller as a user of it until it
+     * {@link #dereference(String, DocumentLock)}s it.
+     */
+    private DocumentLock reference(String documentId) {
+        while (true) {
+            DocumentLock lock = locks.get(documentId);
+            if (lock == null) {
+                DocumentLock newLock = new DocumentLock();
+                lock = locks.putIfAbsent(documentId, newLock);
+                if (lock == null) {
+                    lock = newLock;
+                }
+            }
+            if (lock.reference()) {
+                return lock;
+            }
+            // discarded by its last user in the meantime
+        }
+    }
+
+    private void dereference(String documentId, DocumentLock lock) {
+        if (lock.dereference()) {
+            locks.remove(documentId, lock);
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("org.kuali.rice.kew:type=DocumentLockManager");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                objectName = name;
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to register MBean for the document lock manager", e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getWaitTimeoutSeconds() {
+        return waitTimeoutSeconds;
+    }
+
+    public void setWaitTimeoutSeconds(long waitTimeoutSeconds) {
+        this.waitTimeoutSeconds = waitTimeoutSeconds;
+    }
+
+    @Override
+    public long getLockCount() {
+        return lockCount.get();
+    }
+
+    @Override
+    public long getContendedCount() {
+        return contendedCount.get();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public long getOutOfOrderCount() {
+        return outOfOrderCount.get();
+    }
+
+    @Override
+    public int getLockedDocumentCount() {
+        return locks.size();
+    }
+
+    @Override
+    public long[] getWaitHistogramBoundsMillis() {
+        return HISTOGRAM_BOUNDS_MILLIS.clone();
+    }
+
+    @Override
+    public String[] getDocumentTypeNames() {
+        return new TreeSet<String>(histograms.keySet()).toArray(new String[0]);
+    }
+
+    @Override
+    public long[] getWaitHistogram(String documentTypeName) {
+        AtomicLongArray histogram = histograms.get(documentTypeName);
+        if (histogram == null) {
+            return null;
+        }
+        long[] counts = new long[histogram.length()];
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            counts[bucket] = histogram.get(bucket);
+        }
+        return counts;
+    }
+
+    @Override
+    public String[] getWaitHistogramSummary() {
+        List<String> lines = new ArrayList<String>();
+        for (Map.Entry<String, AtomicLongArray> entry : new TreeMap<String, AtomicLongArray>(histograms)
+                .entrySet()) {
+            StringBuilder line = new StringBuilder(entry.getKey()).append(':');
+            AtomicLongArray histogram = entry.getValue();
+            for (int bucket = 0; bucket < histogram.length(); bucket++) {
+                line.append(bucket < HISTOGRAM_BOUNDS_MILLIS.length ? " <" + HISTOGRAM_BOUNDS_MILLIS[bucket] + "ms=" :
+                        " >=" + HISTOGRAM_BOUNDS_MILLIS[HISTOGRAM_BOUNDS_MILLIS.length - 1] + "ms=");
+                line.append(histogram.get(bucket));
+            }
+            lines.add(line.toString());
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    @Override
+    public void resetStatistics() {
+        lockCount.set(0);
+        contendedCount.set(0);
+        timeoutCount.set(0);
+        outOfOrderCount.set(0);
+        histograms.clear();
+    }
+
+    /**
+     * The lock of a single document.  Unlike {@link java.util.concurrent.locks.ReentrantLock} it can be released by a
+     * thread other than its owner, as some transaction managers complete transactions on a different thread.  It counts
+     * the threads holding or waiting for it, so that it can be discarded once there are none.
+     */
+    private static final class DocumentLock {
+
+        private Thread owner;
+        private int holds;
+        private int references;
+        private boolean discarded;
+
+        synchronized boolean reference() {
+            if (discarded) {
+                return false;
+            }
+            references++;
+            return true;
+        }
+
+        /**
+         * @return true if this was the last reference, in which case the lock is discarded
+         */
+        synchronized boolean dereference() {
+            if (--references == 0) {
+                discarded = true;
+            }
+            return discarded;
+        }
+
+        synchronized boolean acquire(Thread thread, long timeoutNanos, AtomicLong contendedCount)
+                throws InterruptedException {
+            if (owner == thread) {
+                holds++;
+                return true;
+            }
+            if (owner != null) {
+                contendedCount.incrementAndGet();
+                long deadline = System.nanoTime() + timeoutNanos;
+                while (owner != null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            owner = thread;
+            holds = 1;
+            return true;
+        }
+
+        synchronized void release(Thread thread) {
+            if (owner != thread) {
+                return;
+            }
+            if (--holds == 0) {
+                owner = null;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * The document locks held by a transaction, bound to the transaction as a resource of the lock manager and
+     * released when it completes.
+     */
+    private final class TransactionLocks extends TransactionSynchronizationAdapter {
+
+        private final Thread owner;
+        private final TreeMap<String, DocumentLock> heldLocks = new TreeMap<String, DocumentLock>();
+        private volatile boolean completed;
+
+        TransactionLocks(Thread owner) {
+            this.owner = owner;
+        }
+
+        boolean isHeld(String documentId) {
+            return heldLocks.containsKey(documentId);
+        }
+
+        /**
+         * Returns whether the given document comes after every document held by the transaction in the locking order.
+         */
+        boolean isInLockingOrder(String documentId) {
+            return heldLocks.isEmpty() || heldLocks.lastKey().compareTo(documentId) < 0;
+        }
+
+        void add(String documentId, DocumentLock lock) {
+            heldLocks.put(documentId, lock);
+        }
+
+        boolean isCompleted() {
+            return completed;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(DocumentLockManager.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(DocumentLockManager.this, this);
+        }
+
+        @Override
+        public void beforeCompletion() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DocumentLockManager.this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            completed = true;
+            for (Map.Entry<String, DocumentLock> entry : heldLocks.entrySet()) {
+                entry.getValue().release(owner);
+                dereference(entry.getKey(), entry.getValue());
+            }
+            heldLocks.clear();
+        }
+    }
+
+}
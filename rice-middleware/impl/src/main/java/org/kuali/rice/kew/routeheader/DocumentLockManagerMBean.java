@@ -0,0 +1,81 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.routeheader;
+
+/**
+ * JMX management interface of the {@link DocumentLockManager}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public interface DocumentLockManagerMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getWaitTimeoutSeconds();
+
+    /**
+     * Returns the number of local document locks acquired.
+     */
+    long getLockCount();
+
+    /**
+     * Returns the number of local document locks which had to wait for another thread.
+     */
+    long getContendedCount();
+
+    /**
+     * Returns the number of local document locks which were not acquired within the wait timeout, and so were left to
+     * the database lock alone.
+     */
+    long getTimeoutCount();
+
+    /**
+     * Returns the number of local document locks which were held by another thread while the requesting transaction
+     * held a document later in the locking order, and so were left to the database lock alone rather than waited for.
+     */
+    long getOutOfOrderCount();
+
+    /**
+     * Returns the number of documents currently locked or waited for on this node.
+     */
+    int getLockedDocumentCount();
+
+    /**
+     * Returns the upper bound in milliseconds of each bucket of the wait time histograms, the last bucket is unbounded.
+     */
+    long[] getWaitHistogramBoundsMillis();
+
+    /**
+     * Returns the names of the document types for which lock wait times have been recorded.
+     */
+    String[] getDocumentTypeNames();
+
+    /**
+     * Returns the number of document locks of the given document type whose wait time fell into each bucket of
+     * {@link #getWaitHistogramBoundsMillis()}, or null if none have been recorded.
+     */
+    long[] getWaitHistogram(String documentTypeName);
+
+    /**
+     * Returns a line per document type summarizing its lock wait time histogram.
+     */
+    String[] getWaitHistogramSummary();
+
+    void resetStatistics();
+
+}
@@ -344,7 +344,7 @@ public class DocumentRouteHeaderValue extends DataObjectBase implements Document
      * @return
      */
     public String getDocStatusPolicy() {
-        return getDocumentType().getDocumentStatusPolicy().getPolicyStringValue();
+        return getDocumentType().resolve().getDocumentStatusPolicy().getPolicyStringValue();
     }
 
     public List<ActionItem> getActionItems() {
@@ -1143,7 +1143,7 @@ public class DocumentRouteHeaderValue extends DataObjectBase implements Document
 
     @Override
     public String getDocumentHandlerUrl() {
-        return getDocumentType().getResolvedDocumentHandlerUrl();
+        return getDocumentType().resolve().getResolvedDocumentHandlerUrl();
     }
 
     @Override
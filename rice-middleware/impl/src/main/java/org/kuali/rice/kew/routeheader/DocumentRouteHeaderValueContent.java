@@ -16,6 +16,7 @@
 package org.kuali.rice.kew.routeheader;
 
 import org.kuali.rice.core.api.util.xml.XmlJotter;
+import org.kuali.rice.kew.engine.RouteContext;
 
 import javax.persistence.Basic;
 import javax.persistence.Column;
@@ -86,7 +87,8 @@ public class DocumentRouteHeaderValueContent implements Serializable {
 		builder.setApplicationContent("");
 		builder.setAttributeContent("");
 		builder.setSearchableContent("");
-		DocumentContent documentContent = new StandardDocumentContent(content.getDocumentContent());
+		DocumentContent documentContent = RouteContext.getCurrentRouteContext().getParsedDocumentContent(
+                content.getDocumentId(), content.getDocumentContent());
 		if (documentContent.getApplicationContent() != null) {
 			builder.setApplicationContent(XmlJotter.jotNode(documentContent.getApplicationContent()));
 		}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.routeheader;
+
+import org.kuali.rice.kew.engine.RouteContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the parsed content of the documents processed within a single {@link RouteContext}, so that the engine, rule
+ * attributes, qualifier resolvers and searchable attributes which are handed the same content during a routing pass
+ * share a single parse of it.
+ *
+ * <p>Entries are keyed by document id and the content itself, the content table has no version of its own and any
+ * change to the content has to result in a new parse.  The parsed content is shared by everything which asks for it,
+ * so it must be treated as read only.  Like the RouteContext which holds it, a cache is confined to a single
+ * thread.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ParsedDocumentContentCache {
+
+    /**
+     * A routing pass generally works on one document, but may touch a few more, for instance when a parent document
+     * routes its children.
+     */
+    static final int MAX_ENTRIES = 4;
+
+    private final Map<Key, StandardDocumentContent> entries = new LinkedHashMap<Key, StandardDocumentContent>(
+            MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, StandardDocumentContent> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Returns the parsed form of the given content of the given document, parsing it only if it has not already been
+     * parsed.
+     *
+     * @param documentId the id of the document the content belongs to, may be null for content which is not yet
+     * associated with a document
+     * @param docContent the XML content of the document, may be null or empty
+     * @param routeContext the route context to associate with newly parsed content, may be null
+     * @return the parsed content, never null
+     * @throws org.kuali.rice.kew.api.document.InvalidDocumentContentException if the content is not well formed
+     */
+    public StandardDocumentContent getDocumentContent(String documentId, String docContent,
+            RouteContext routeContext) {
+        Key key = new Key(documentId, docContent == null ? "" : docContent);
+        StandardDocumentContent documentContent = entries.get(key);
+        if (documentContent != null) {
+            hitCount++;
+            return documentContent;
+        }
+        missCount++;
+        documentContent = new StandardDocumentContent(docContent, routeContext);
+        entries.put(key, documentContent);
+        return documentContent;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    private static final class Key {
+
+        private final String documentId;
+        private final String docContent;
+
+        Key(String documentId, String docContent) {
+            this.documentId = documentId;
+            this.docContent = docContent;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object;
+            // the engine hands the same String instance back on every setDocument, so equals is usually an identity
+            // check, the length check avoids comparing large content which has obviously changed
+            return (documentId == null ? other.documentId == null : documentId.equals(other.documentId))
+                    && docContent.length() == other.docContent.length() && docContent.equals(other.docContent);
+        }
+
+        @Override
+        public int hashCode() {
+            // String caches its hash code, so the content is only hashed once per instance
+            return 31 * (documentId == null ? 0 : documentId.hashCode()) + docContent.hashCode();
+        }
+    }
+
+}
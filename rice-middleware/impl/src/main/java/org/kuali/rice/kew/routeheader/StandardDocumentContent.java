@@ -50,6 +50,20 @@ public class StandardDocumentContent implements DocumentContent, Serializable {
 	
 	private static final String LEGACY_FLEXDOC_ELEMENT = "flexdoc";
 
+	/**
+	 * Locating a DocumentBuilderFactory scans the classpath, so each thread keeps a builder which is reset before use.
+	 */
+	private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<DocumentBuilder>() {
+		@Override
+		protected DocumentBuilder initialValue() {
+			try {
+				return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				throw new RiceRuntimeException("XML parser configuration error when attempting to parse document content.", e);
+			}
+		}
+	};
+
 	private String docContent;
 
 	private transient Document document;
@@ -91,7 +105,8 @@ public class StandardDocumentContent implements DocumentContent, Serializable {
 	}
 
 	private Document parseDocContent(String docContent) throws IOException, SAXException, ParserConfigurationException {
-		DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		DocumentBuilder documentBuilder = DOCUMENT_BUILDER.get();
+		documentBuilder.reset();
 		return documentBuilder.parse(new InputSource(new BufferedReader(new StringReader(docContent))));
 	}
 
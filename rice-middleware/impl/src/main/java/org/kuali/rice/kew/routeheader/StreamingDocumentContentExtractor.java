@@ -0,0 +1,215 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.routeheader;
+
+import org.apache.commons.lang.StringUtils;
+import org.kuali.rice.kew.api.document.InvalidDocumentContentException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts the text of a few elements from XML content with a StAX reader, without building a DOM of the whole
+ * content.  Intended for attributes which only need a handful of leaf values out of document content or attribute
+ * configuration, where parsing the whole content into a DOM allocates many times the size of the content.
+ *
+ * <p>Paths are a simple subset of XPath: element names separated by slashes, either absolute such as
+ * {@code /documentContent/attributeContent/chart} or, when starting with {@code //}, matching at any depth such as
+ * {@code //chartOrgAttribute/chart}.  The value of an element is its text and the text of its descendants, as with the
+ * XPath {@code string()} function.  Namespaces, attributes and predicates are not supported.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class StreamingDocumentContentExtractor {
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final List<Path> paths;
+
+    /**
+     * Creates an extractor for the given paths, which can be reused and shared between threads.
+     *
+     * @param paths the paths of the elements to extract
+     * @throws IllegalArgumentException if there are no paths or a path is blank
+     */
+    public StreamingDocumentContentExtractor(Collection<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("paths was null or empty");
+        }
+        List<Path> parsedPaths = new ArrayList<Path>(paths.size());
+        for (String path : paths) {
+            parsedPaths.add(new Path(path));
+        }
+        this.paths = Collections.unmodifiableList(parsedPaths);
+    }
+
+    /**
+     * Returns the value of the first element matching each path, stopping as soon as every path has been matched.
+     *
+     * @param content the XML content, may be null or empty
+     * @return the values by path, in the order the paths were given, omitting paths which did not match
+     * @throws InvalidDocumentContentException if the content is not well formed
+     */
+    public Map<String, String> extractFirst(String content) {
+        Map<String, List<String>> values = extract(content, true);
+        Map<String, String> firstValues = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                firstValues.put(entry.getKey(), entry.getValue().get(0));
+            }
+        }
+        return firstValues;
+    }
+
+    /**
+     * Returns the values of every element matching each path, in document order.
+     *
+     * @param content the XML content, may be null or empty
+     * @return the values by path, in the order the paths were given, with an empty list for paths which did not match
+     * @throws InvalidDocumentContentException if the content is not well formed
+     */
+    public Map<String, List<String>> extractAll(String content) {
+        return extract(content, false);
+    }
+
+    private Map<String, List<String>> extract(String content, boolean firstOnly) {
+        Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+        for (Path path : paths) {
+            values.put(path.expression, new ArrayList<String>(1));
+        }
+        if (StringUtils.isBlank(content)) {
+            return values;
+        }
+        int unmatched = paths.size();
+        List<String> elements = new ArrayList<String>();
+        List<Capture> captures = new ArrayList<Capture>();
+        try {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(content));
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            elements.add(reader.getLocalName());
+                            for (Path path : paths) {
+                                List<String> pathValues = values.get(path.expression);
+                                if ((!firstOnly || pathValues.isEmpty()) && path.matches(elements)) {
+                                    // reserve the value's place, an element may contain another matching element
+                                    // which ends first
+                                    captures.add(new Capture(path, elements.size(), pathValues.size()));
+                                    pathValues.add(null);
+                                }
+                            }
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                        case XMLStreamConstants.SPACE:
+                            for (Capture capture : captures) {
+                                capture.text.append(reader.getTextCharacters(), reader.getTextStart(),
+                                        reader.getTextLength());
+                            }
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            // captures are nested, so any which end here are at the end of the list
+                            while (!captures.isEmpty() && captures.get(captures.size() - 1).depth == elements.size()) {
+                                Capture capture = captures.remove(captures.size() - 1);
+                                values.get(capture.path.expression).set(capture.index, capture.text.toString());
+                                if (capture.index == 0) {
+                                    unmatched--;
+                                }
+                            }
+                            elements.remove(elements.size() - 1);
+                            if (firstOnly && unmatched == 0) {
+                                return values;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new InvalidDocumentContentException("XML parse error when attempting to extract from document content.",
+                    e);
+        }
+        return values;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        return factory;
+    }
+
+    private static final class Path {
+
+        private final String expression;
+        private final String[] names;
+        private final boolean anyDepth;
+
+        Path(String expression) {
+            if (StringUtils.isBlank(expression)) {
+                throw new IllegalArgumentException("path was blank");
+            }
+            this.expression = expression;
+            this.anyDepth = expression.startsWith("//");
+            this.names = StringUtils.split(expression, '/');
+            if (names.length == 0) {
+                throw new IllegalArgumentException("path has no element names: " + expression);
+            }
+        }
+
+        boolean matches(List<String> elements) {
+            int offset = elements.size() - names.length;
+            if (offset < 0 || (!anyDepth && offset != 0)) {
+                return false;
+            }
+            for (int index = names.length - 1; index >= 0; index--) {
+                if (!names[index].equals(elements.get(offset + index))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Capture {
+
+        private final Path path;
+        private final int depth;
+        private final int index;
+        private final StringBuilder text = new StringBuilder();
+
+        Capture(Path path, int depth, int index) {
+            this.path = path;
+            this.depth = depth;
+            this.index = index;
+        }
+    }
+
+}
@@ -16,10 +16,13 @@
 package org.kuali.rice.kew.routeheader.dao;
 
 import org.kuali.rice.kew.docsearch.SearchableAttributeValue;
+import org.kuali.rice.kew.docsearch.SearchableAttributeValueChanges;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValueContent;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -29,8 +32,10 @@ public interface DocumentRouteHeaderDAO {
 
     /**
      * "Locks" the route header at the datasource level.
+     *
+     * @return the locked route header, or null if there is no such document
      */
-    void lockRouteHeader(String documentId);
+    DocumentRouteHeaderValue lockRouteHeader(String documentId);
 
     DocumentRouteHeaderValue findRouteHeader(String documentId, boolean clearCache);
 
@@ -46,6 +51,16 @@ public interface DocumentRouteHeaderDAO {
 
     Collection<SearchableAttributeValue> findSearchableAttributeValues(String documentId);
 
+    /**
+     * Loads the searchable attribute values of many documents at once, keyed by document id.
+     */
+    Map<String, List<SearchableAttributeValue>> findSearchableAttributeValues(Collection<String> documentIds);
+
+    /**
+     * Applies the given inserts, updates and deletes using JDBC batches.
+     */
+    void saveSearchableAttributeValueChanges(SearchableAttributeValueChanges changes);
+
     String getApplicationIdByDocumentId(String documentId);
 
     DocumentRouteHeaderValueContent getContent(String documentId);
@@ -17,13 +17,20 @@ package org.kuali.rice.kew.routeheader.dao.impl;
 
 import org.apache.commons.lang.StringUtils;
 import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.exception.RiceRuntimeException;
+import org.kuali.rice.kew.docsearch.DocumentSearchInternalUtils;
 import org.kuali.rice.kew.docsearch.SearchableAttributeValue;
+import org.kuali.rice.kew.docsearch.SearchableAttributeValueChanges;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValueContent;
 import org.kuali.rice.kew.routeheader.dao.DocumentRouteHeaderDAO;
 import org.kuali.rice.krad.data.DataObjectService;
 import org.kuali.rice.krad.data.platform.MaxValueIncrementerFactory;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
 
 import javax.persistence.EntityManager;
@@ -31,9 +38,14 @@ import javax.persistence.LockModeType;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -63,6 +75,35 @@ public class DocumentRouteHeaderDAOJpa implements DocumentRouteHeaderDAO {
             + "DISTINCT(DH.documentId) FROM DocumentRouteHeaderValue DH, DocumentType DT "
             + "WHERE DH.appDocId = :appDocId AND DH.documentTypeId = DT.documentTypeId  AND DT.name = :name";
 
+    /**
+     * The maximum number of document ids in the IN list used to load searchable attribute values, and the number of
+     * statements sent to the database per JDBC batch when writing them.
+     */
+    private static final int SEARCHABLE_ATTRIBUTE_BATCH_SIZE = 500;
+
+    private static final String SEARCHABLE_ATTRIBUTE_SEQUENCE = "KREW_SRCH_ATTR_S";
+
+    /**
+     * The primary key column of each searchable attribute value table.
+     */
+    private static final Map<String, String> SEARCHABLE_ATTRIBUTE_ID_COLUMNS = new HashMap<String, String>();
+
+    /**
+     * The JDBC type of the VAL column of each searchable attribute value table, used when binding null values.
+     */
+    private static final Map<String, Integer> SEARCHABLE_ATTRIBUTE_VALUE_TYPES = new HashMap<String, Integer>();
+
+    static {
+        SEARCHABLE_ATTRIBUTE_ID_COLUMNS.put("KREW_DOC_HDR_EXT_T", "DOC_HDR_EXT_ID");
+        SEARCHABLE_ATTRIBUTE_ID_COLUMNS.put("KREW_DOC_HDR_EXT_DT_T", "DOC_HDR_EXT_DT_ID");
+        SEARCHABLE_ATTRIBUTE_ID_COLUMNS.put("KREW_DOC_HDR_EXT_FLT_T", "DOC_HDR_EXT_FLT_ID");
+        SEARCHABLE_ATTRIBUTE_ID_COLUMNS.put("KREW_DOC_HDR_EXT_LONG_T", "DOC_HDR_EXT_LONG_ID");
+        SEARCHABLE_ATTRIBUTE_VALUE_TYPES.put("KREW_DOC_HDR_EXT_T", Types.VARCHAR);
+        SEARCHABLE_ATTRIBUTE_VALUE_TYPES.put("KREW_DOC_HDR_EXT_DT_T", Types.TIMESTAMP);
+        SEARCHABLE_ATTRIBUTE_VALUE_TYPES.put("KREW_DOC_HDR_EXT_FLT_T", Types.DECIMAL);
+        SEARCHABLE_ATTRIBUTE_VALUE_TYPES.put("KREW_DOC_HDR_EXT_LONG_T", Types.NUMERIC);
+    }
+
 	private EntityManager entityManager;
     private DataSource dataSource;
 
@@ -92,7 +133,7 @@ public class DocumentRouteHeaderDAOJpa implements DocumentRouteHeaderDAO {
     }
 
     @Override
-    public void lockRouteHeader(final String documentId) {
+    public DocumentRouteHeaderValue lockRouteHeader(final String documentId) {
         // passing a hint here on the lock timeout, this will really only work on Oracle since it supports "wait"
         // on a SELECT ... FOR UPDATE but other databases don't
         //
@@ -104,7 +145,8 @@ public class DocumentRouteHeaderDAOJpa implements DocumentRouteHeaderDAO {
         // the moral of the story? don't ever set the timeout to zero, at least not until EclipseLink fixes that bug
         Map<String, Object> options = new HashMap<String, Object>();
         options.put(LOCK_TIMEOUT_HINT, getTimeoutMilliseconds());
-        getEntityManager().find(DocumentRouteHeaderValue.class, documentId, LockModeType.PESSIMISTIC_WRITE, options);
+        return getEntityManager().find(DocumentRouteHeaderValue.class, documentId, LockModeType.PESSIMISTIC_WRITE,
+                options);
     }
 
     protected Long getTimeoutMilliseconds() {
@@ -167,6 +209,137 @@ public class DocumentRouteHeaderDAOJpa implements DocumentRouteHeaderDAO {
         return query.getResultList();
     }
 
+    @Override
+    public Map<String, List<SearchableAttributeValue>> findSearchableAttributeValues(Collection<String> documentIds) {
+        final Map<String, List<SearchableAttributeValue>> valuesByDocumentId =
+                new HashMap<String, List<SearchableAttributeValue>>();
+        if (documentIds == null || documentIds.isEmpty()) {
+            return valuesByDocumentId;
+        }
+        List<String> uniqueDocumentIds = new ArrayList<String>(new LinkedHashSet<String>(documentIds));
+        JdbcTemplate template = new JdbcTemplate(getDataSource());
+        for (final SearchableAttributeValue prototype : DocumentSearchInternalUtils.getSearchableAttributeValueObjectTypes()) {
+            String tableName = prototype.getAttributeTableName();
+            for (int start = 0; start < uniqueDocumentIds.size(); start += SEARCHABLE_ATTRIBUTE_BATCH_SIZE) {
+                List<String> batch = uniqueDocumentIds.subList(start,
+                        Math.min(start + SEARCHABLE_ATTRIBUTE_BATCH_SIZE, uniqueDocumentIds.size()));
+                StringBuilder sql = new StringBuilder("SELECT ").append(getSearchableAttributeIdColumn(tableName))
+                        .append(", DOC_HDR_ID, KEY_CD, VAL FROM ").append(tableName).append(" WHERE DOC_HDR_ID IN (");
+                for (int index = 0; index < batch.size(); index++) {
+                    sql.append(index == 0 ? "?" : ", ?");
+                }
+                sql.append(")");
+                template.query(sql.toString(), batch.toArray(), new RowCallbackHandler() {
+                    @Override
+                    public void processRow(ResultSet resultSet) throws SQLException {
+                        SearchableAttributeValue value = newSearchableAttributeValue(prototype);
+                        value.setSearchableAttributeValueId(resultSet.getString(1));
+                        value.setDocumentId(resultSet.getString(2));
+                        value.setSearchableAttributeKey(resultSet.getString(3));
+                        value.setupAttributeValue(resultSet, "VAL");
+                        if (resultSet.wasNull()) {
+                            value.setupAttributeValue((String) null);
+                        }
+                        List<SearchableAttributeValue> values = valuesByDocumentId.get(value.getDocumentId());
+                        if (values == null) {
+                            values = new ArrayList<SearchableAttributeValue>();
+                            valuesByDocumentId.put(value.getDocumentId(), values);
+                        }
+                        values.add(value);
+                    }
+                });
+            }
+        }
+        return valuesByDocumentId;
+    }
+
+    @Override
+    public void saveSearchableAttributeValueChanges(SearchableAttributeValueChanges changes) {
+        JdbcTemplate template = new JdbcTemplate(getDataSource());
+        DataFieldMaxValueIncrementer incrementer =
+                MaxValueIncrementerFactory.getIncrementer(getDataSource(), SEARCHABLE_ATTRIBUTE_SEQUENCE);
+        for (SearchableAttributeValue insert : changes.getInserts()) {
+            insert.setSearchableAttributeValueId(incrementer.nextStringValue());
+        }
+        for (Map.Entry<String, List<SearchableAttributeValue>> entry : groupByTable(changes.getDeletes()).entrySet()) {
+            template.batchUpdate("DELETE FROM " + entry.getKey() + " WHERE " + getSearchableAttributeIdColumn(
+                    entry.getKey()) + " = ?", entry.getValue(), SEARCHABLE_ATTRIBUTE_BATCH_SIZE,
+                    new ParameterizedPreparedStatementSetter<SearchableAttributeValue>() {
+                        @Override
+                        public void setValues(PreparedStatement statement, SearchableAttributeValue value) throws SQLException {
+                            statement.setString(1, value.getSearchableAttributeValueId());
+                        }
+                    });
+        }
+        for (Map.Entry<String, List<SearchableAttributeValue>> entry : groupByTable(changes.getUpdates()).entrySet()) {
+            final int valueType = getSearchableAttributeValueType(entry.getKey());
+            template.batchUpdate("UPDATE " + entry.getKey() + " SET VAL = ? WHERE " + getSearchableAttributeIdColumn(
+                    entry.getKey()) + " = ?", entry.getValue(), SEARCHABLE_ATTRIBUTE_BATCH_SIZE,
+                    new ParameterizedPreparedStatementSetter<SearchableAttributeValue>() {
+                        @Override
+                        public void setValues(PreparedStatement statement, SearchableAttributeValue value) throws SQLException {
+                            StatementCreatorUtils.setParameterValue(statement, 1, valueType,
+                                    value.getSearchableAttributeValue());
+                            statement.setString(2, value.getSearchableAttributeValueId());
+                        }
+                    });
+        }
+        for (Map.Entry<String, List<SearchableAttributeValue>> entry : groupByTable(changes.getInserts()).entrySet()) {
+            final int valueType = getSearchableAttributeValueType(entry.getKey());
+            template.batchUpdate("INSERT INTO " + entry.getKey() + " (" + getSearchableAttributeIdColumn(entry.getKey())
+                    + ", DOC_HDR_ID, KEY_CD, VAL) VALUES (?, ?, ?, ?)", entry.getValue(),
+                    SEARCHABLE_ATTRIBUTE_BATCH_SIZE, new ParameterizedPreparedStatementSetter<SearchableAttributeValue>() {
+                        @Override
+                        public void setValues(PreparedStatement statement, SearchableAttributeValue value) throws SQLException {
+                            statement.setString(1, value.getSearchableAttributeValueId());
+                            statement.setString(2, value.getDocumentId());
+                            statement.setString(3, value.getSearchableAttributeKey());
+                            StatementCreatorUtils.setParameterValue(statement, 4, valueType,
+                                    value.getSearchableAttributeValue());
+                        }
+                    });
+        }
+    }
+
+    private Map<String, List<SearchableAttributeValue>> groupByTable(List<SearchableAttributeValue> values) {
+        Map<String, List<SearchableAttributeValue>> valuesByTable = new HashMap<String, List<SearchableAttributeValue>>();
+        for (SearchableAttributeValue value : values) {
+            List<SearchableAttributeValue> tableValues = valuesByTable.get(value.getAttributeTableName());
+            if (tableValues == null) {
+                tableValues = new ArrayList<SearchableAttributeValue>();
+                valuesByTable.put(value.getAttributeTableName(), tableValues);
+            }
+            tableValues.add(value);
+        }
+        return valuesByTable;
+    }
+
+    private String getSearchableAttributeIdColumn(String tableName) {
+        String idColumn = SEARCHABLE_ATTRIBUTE_ID_COLUMNS.get(tableName);
+        if (idColumn == null) {
+            throw new IllegalStateException("Unknown searchable attribute value table: " + tableName);
+        }
+        return idColumn;
+    }
+
+    private int getSearchableAttributeValueType(String tableName) {
+        Integer valueType = SEARCHABLE_ATTRIBUTE_VALUE_TYPES.get(tableName);
+        if (valueType == null) {
+            throw new IllegalStateException("Unknown searchable attribute value table: " + tableName);
+        }
+        return valueType.intValue();
+    }
+
+    private SearchableAttributeValue newSearchableAttributeValue(SearchableAttributeValue prototype) {
+        try {
+            return prototype.getClass().newInstance();
+        } catch (InstantiationException e) {
+            throw new RiceRuntimeException("Failed to create searchable attribute value " + prototype.getClass(), e);
+        } catch (IllegalAccessException e) {
+            throw new RiceRuntimeException("Failed to create searchable attribute value " + prototype.getClass(), e);
+        }
+    }
+
     @Override
     public DocumentRouteHeaderValueContent getContent(String documentId) {
         DocumentRouteHeaderValueContent content = null;
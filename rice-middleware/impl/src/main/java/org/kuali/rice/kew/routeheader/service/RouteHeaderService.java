@@ -17,6 +17,7 @@ package org.kuali.rice.kew.routeheader.service;
 
 import org.kuali.rice.kew.api.action.ActionItem;
 import org.kuali.rice.kew.docsearch.SearchableAttributeValue;
+import org.kuali.rice.kew.docsearch.SearchableAttributeValueChanges;
 import org.kuali.rice.kew.doctype.bo.DocumentType;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValueContent;
@@ -50,6 +51,14 @@ public interface RouteHeaderService {
 
     void lockRouteHeader(String documentId);
 
+    /**
+     * Locks the route headers of the given documents, in a consistent order so that processes locking overlapping
+     * sets of documents do not deadlock on each other.
+     *
+     * @param documentIds the ids of the documents to lock
+     */
+    void lockRouteHeaders(Collection<String> documentIds);
+
     DocumentRouteHeaderValue saveRouteHeader(DocumentRouteHeaderValue routeHeader);
 
     void deleteRouteHeader(DocumentRouteHeaderValue routeHeader);
@@ -73,6 +82,17 @@ public interface RouteHeaderService {
      * This method will clear existing search attribute values and replace with the ones given.
      */
     void updateRouteHeaderSearchValues(String documentId, List<SearchableAttributeValue> searchAttributes);
+
+    /**
+     * Returns the stored searchable attribute values of the documents with the given ids, keyed by document id.
+     * Documents without any values are not included in the returned map.
+     */
+    Map<String, List<SearchableAttributeValue>> getSearchableAttributeValues(Collection<String> documentIds);
+
+    /**
+     * Writes the given row level searchable attribute value changes, leaving all other stored values untouched.
+     */
+    void saveSearchableAttributeValueChanges(SearchableAttributeValueChanges changes);
     
     /**
      * Returns the application id of the {@link DocumentType} for the Document with the given ID.
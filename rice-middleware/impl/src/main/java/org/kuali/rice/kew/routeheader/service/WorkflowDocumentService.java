@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.kuali.rice.kew.actions.ActionTakenEvent;
+import org.kuali.rice.kew.actionlist.MassActionProgress;
 import org.kuali.rice.kew.api.action.ActionInvocation;
 import org.kuali.rice.kew.api.action.AdHocRevoke;
 import org.kuali.rice.kew.api.action.MovePoint;
@@ -110,11 +111,13 @@ public interface WorkflowDocumentService {
 
     /**
      * Invokes a List of actions at once.  This method will remove the approriate action items from the user's action
-     * list and then schedule the actual processing of the actions.
+     * list and then schedule the actual processing of the actions, in batches of actions on documents of the same
+     * document type.
      *
+     * @return the progress of the scheduled actions
      * @since 2.2
      */
-    public void takeMassActions(String principalId, List<ActionInvocation> actionInvocations);
+    public MassActionProgress takeMassActions(String principalId, List<ActionInvocation> actionInvocations);
 
     /**
      * @since 2.2
@@ -20,10 +20,12 @@ import org.apache.commons.lang.exception.ExceptionUtils;
 import org.kuali.rice.kew.api.KewApiConstants;
 import org.kuali.rice.kew.api.action.ActionItem;
 import org.kuali.rice.kew.docsearch.SearchableAttributeValue;
+import org.kuali.rice.kew.docsearch.SearchableAttributeValueChanges;
 import org.kuali.rice.kew.docsearch.dao.SearchableAttributeDAO;
 import org.kuali.rice.kew.doctype.bo.DocumentType;
 import org.kuali.rice.kew.exception.WorkflowServiceErrorException;
 import org.kuali.rice.kew.exception.WorkflowServiceErrorImpl;
+import org.kuali.rice.kew.routeheader.DocumentLockManager;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValueContent;
 import org.kuali.rice.kew.routeheader.dao.DocumentRouteHeaderDAO;
@@ -45,6 +47,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 public class RouteHeaderServiceImpl implements RouteHeaderService {
 
@@ -54,6 +57,7 @@ public class RouteHeaderServiceImpl implements RouteHeaderService {
     private SearchableAttributeDAO searchableAttributeDAO;
 
     private DataObjectService dataObjectService;
+    private DocumentLockManager documentLockManager;
 
     public DocumentRouteHeaderValue getRouteHeader(String documentId) {
         return getDataObjectService().find(DocumentRouteHeaderValue.class, documentId);
@@ -87,10 +91,40 @@ public class RouteHeaderServiceImpl implements RouteHeaderService {
     }
     
     public void lockRouteHeader(String documentId) {
-        getRouteHeaderDAO().lockRouteHeader(documentId);
+        long start = System.nanoTime();
+        // queue behind other threads of this node locking the same document before waiting on the database
+        if (getDocumentLockManager() != null) {
+            getDocumentLockManager().lock(documentId);
+        }
+        DocumentRouteHeaderValue routeHeader = getRouteHeaderDAO().lockRouteHeader(documentId);
+        if (getDocumentLockManager() != null && getDocumentLockManager().isEnabled()) {
+            getDocumentLockManager().recordWait(getDocumentTypeName(routeHeader), System.nanoTime() - start);
+        }
         LOG.debug("Successfully locked document [docId=" + documentId + "]");
     }
 
+    public void lockRouteHeaders(Collection<String> documentIds) {
+        List<String> orderedIds;
+        if (getDocumentLockManager() != null) {
+            orderedIds = getDocumentLockManager().orderForLocking(documentIds);
+        } else {
+            orderedIds = new ArrayList<String>(new TreeSet<String>(documentIds));
+        }
+        for (String documentId : orderedIds) {
+            lockRouteHeader(documentId);
+        }
+    }
+
+    /**
+     * Returns the name of the document type of the given locked route header, served from the document type cache.
+     */
+    private String getDocumentTypeName(DocumentRouteHeaderValue routeHeader) {
+        if (routeHeader == null || routeHeader.getDocumentType() == null) {
+            return null;
+        }
+        return routeHeader.getDocumentType().getName();
+    }
+
     public DocumentRouteHeaderValue saveRouteHeader(DocumentRouteHeaderValue routeHeader) {
         if ( LOG.isDebugEnabled() ) {
             LOG.debug( "About to Save the route Header: " + routeHeader.getDocumentId() + " / version="
@@ -157,6 +191,18 @@ public class RouteHeaderServiceImpl implements RouteHeaderService {
         LOG.warn("Deduplication adjusted incoming SearchableAttributeValue list from original: " + searchAttributes.size() + " entries into : "  + (searchAttributes.size() - dupedSet.size()) + " entries.");
     }
 
+    @Override
+    public Map<String, List<SearchableAttributeValue>> getSearchableAttributeValues(Collection<String> documentIds) {
+        return getRouteHeaderDAO().findSearchableAttributeValues(documentIds);
+    }
+
+    @Override
+    public void saveSearchableAttributeValueChanges(SearchableAttributeValueChanges changes) {
+        if (!changes.isEmpty()) {
+            getRouteHeaderDAO().saveSearchableAttributeValueChanges(changes);
+        }
+    }
+
     public void validateRouteHeader(DocumentRouteHeaderValue routeHeader){
         LOG.debug("Enter validateRouteHeader(..)");
         List errors = new ArrayList();
@@ -294,4 +340,12 @@ public class RouteHeaderServiceImpl implements RouteHeaderService {
     public void setDataObjectService(DataObjectService dataObjectService) {
         this.dataObjectService = dataObjectService;
     }
+
+    public DocumentLockManager getDocumentLockManager() {
+        return documentLockManager;
+    }
+
+    public void setDocumentLockManager(DocumentLockManager documentLockManager) {
+        this.documentLockManager = documentLockManager;
+    }
 }
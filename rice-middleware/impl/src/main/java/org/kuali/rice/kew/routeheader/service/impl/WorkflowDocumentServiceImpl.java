@@ -15,9 +15,12 @@
  */
 package org.kuali.rice.kew.routeheader.service.impl;
 
+import org.kuali.rice.core.api.CoreConstants;
 import org.kuali.rice.core.api.exception.RiceRuntimeException;
 import org.kuali.rice.core.api.util.RiceKeyConstants;
+import org.kuali.rice.core.api.util.VersionHelper;
 import org.kuali.rice.kew.actionitem.ActionItem;
+import org.kuali.rice.kew.actionlist.MassActionProgress;
 import org.kuali.rice.kew.actionrequest.KimGroupRecipient;
 import org.kuali.rice.kew.actionrequest.Recipient;
 import org.kuali.rice.kew.actions.AcknowledgeAction;
@@ -56,6 +59,7 @@ import org.kuali.rice.kew.api.doctype.IllegalDocumentTypeException;
 import org.kuali.rice.kew.api.document.attribute.DocumentAttributeIndexingQueue;
 import org.kuali.rice.kew.api.exception.InvalidActionTakenException;
 import org.kuali.rice.kew.api.exception.WorkflowException;
+import org.kuali.rice.kew.doctype.bo.DocumentType;
 import org.kuali.rice.kew.engine.CompatUtils;
 import org.kuali.rice.kew.engine.OrchestrationConfig;
 import org.kuali.rice.kew.engine.OrchestrationConfig.EngineCapability;
@@ -68,12 +72,18 @@ import org.kuali.rice.kew.service.KEWServiceLocator;
 import org.kuali.rice.kim.api.identity.principal.Principal;
 import org.kuali.rice.kim.api.services.KimApiServiceLocator;
 import org.kuali.rice.krad.util.GlobalVariables;
+import org.kuali.rice.ksb.api.KsbApiServiceLocator;
+import org.kuali.rice.ksb.api.bus.Endpoint;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -87,6 +97,8 @@ public class WorkflowDocumentServiceImpl implements WorkflowDocumentService {
 
 	private static final org.apache.log4j.Logger LOG = org.apache.log4j.Logger.getLogger(WorkflowDocumentServiceImpl.class);
 
+	private int massActionBatchSize = 25;
+
 	private void init(DocumentRouteHeaderValue routeHeader) {
 		KEWServiceLocator.getRouteHeaderService().lockRouteHeader(routeHeader.getDocumentId());
 		KEWServiceLocator.getRouteHeaderService().saveRouteHeader(routeHeader);
@@ -464,22 +476,94 @@ public class WorkflowDocumentServiceImpl implements WorkflowDocumentService {
 		return finish(routeHeader);
 	}
 
-	public void takeMassActions(String principalId, List<ActionInvocation> actionInvocations) {
-		Principal principal = loadPrincipal(principalId);
+	public MassActionProgress takeMassActions(String principalId, List<ActionInvocation> actionInvocations) {
+		Timestamp submittedDate = new Timestamp(System.currentTimeMillis());
+		Set<String> actionItemIds = new HashSet<String>();
 		for (ActionInvocation invocation : actionInvocations) {
-			ActionItem actionItem = KEWServiceLocator.getActionListService().findByActionItemId(invocation.getActionItemId());
+			actionItemIds.add(invocation.getActionItemId());
+		}
+		Map<String, ActionItem> actionItems = new HashMap<String, ActionItem>();
+		for (ActionItem actionItem : KEWServiceLocator.getActionListService().findByActionItemIds(actionItemIds)) {
+			actionItems.put(actionItem.getId(), actionItem);
+		}
+
+		// actions are grouped by document type, as a batch of actions is processed by the application of its documents
+		List<ActionItem> actionItemsToDelete = new ArrayList<ActionItem>();
+		Map<String, List<ActionItem>> actionItemsByDocumentType = new LinkedHashMap<String, List<ActionItem>>();
+		Map<String, ActionInvocation> invocationsByActionItemId = new HashMap<String, ActionInvocation>();
+		for (ActionInvocation invocation : actionInvocations) {
+			ActionItem actionItem = actionItems.get(invocation.getActionItemId());
 			if (actionItem == null) {
 				LOG.warn("Could not locate action item for the given action item id [" + invocation.getActionItemId() + "], not taking mass action on it.");
 				continue;
 			}
-			KEWServiceLocator.getActionListService().deleteActionItem(actionItem, true);
-            DocumentRouteHeaderValue document = KEWServiceLocator.getRouteHeaderService().getRouteHeader(actionItem.getDocumentId());
-            String applicationId = document.getDocumentType().getApplicationId();
-			ActionInvocationQueue actionInvocQueue = KewApiServiceLocator.getActionInvocationProcessorService(
-                    document.getDocumentId(), applicationId);
-			actionInvocQueue.invokeAction(principalId, actionItem.getDocumentId(), invocation);
-//			ActionInvocationQueueImpl.queueActionInvocation(user, actionItem.getDocumentId(), invocation);
+			if (invocationsByActionItemId.containsKey(actionItem.getId())) {
+				// the same action item selected more than once
+				continue;
+			}
+			invocationsByActionItemId.put(actionItem.getId(), invocation);
+			actionItemsToDelete.add(actionItem);
+			List<ActionItem> documentTypeActionItems = actionItemsByDocumentType.get(actionItem.getDocName());
+			if (documentTypeActionItems == null) {
+				documentTypeActionItems = new ArrayList<ActionItem>();
+				actionItemsByDocumentType.put(actionItem.getDocName(), documentTypeActionItems);
+			}
+			documentTypeActionItems.add(actionItem);
+		}
+		KEWServiceLocator.getActionListService().deleteActionItems(actionItemsToDelete, true);
+
+		List<String> documentIds = new ArrayList<String>(actionItemsToDelete.size());
+		for (List<ActionItem> documentTypeActionItems : actionItemsByDocumentType.values()) {
+			String applicationId = getApplicationId(documentTypeActionItems.get(0));
+			// applications running an older version can only invoke actions one at a time
+			int batchSize = isBatchInvocationSupported(applicationId) ? getMassActionBatchSize() : 1;
+			for (int start = 0; start < documentTypeActionItems.size(); start += batchSize) {
+				List<ActionItem> batch = documentTypeActionItems.subList(start, Math.min(start + batchSize,
+						documentTypeActionItems.size()));
+				List<String> batchDocumentIds = new ArrayList<String>(batch.size());
+				List<ActionInvocation> batchInvocations = new ArrayList<ActionInvocation>(batch.size());
+				for (ActionItem actionItem : batch) {
+					batchDocumentIds.add(actionItem.getDocumentId());
+					batchInvocations.add(invocationsByActionItemId.get(actionItem.getId()));
+				}
+				ActionInvocationQueue actionInvocQueue = KewApiServiceLocator.getActionInvocationProcessorService(
+						batchDocumentIds.get(0), applicationId);
+				if (batch.size() == 1) {
+					actionInvocQueue.invokeAction(principalId, batchDocumentIds.get(0), batchInvocations.get(0));
+				} else {
+					actionInvocQueue.invokeActions(principalId, batchDocumentIds, batchInvocations);
+				}
+				documentIds.addAll(batchDocumentIds);
+			}
+		}
+		return new MassActionProgress(principalId, documentIds, submittedDate);
+	}
+
+	/**
+	 * Returns the id of the application which processes the documents of the document type of the given action item.
+	 */
+	private String getApplicationId(ActionItem actionItem) {
+		DocumentType documentType = KEWServiceLocator.getDocumentTypeService().findByName(actionItem.getDocName());
+		if (documentType == null) {
+			documentType = KEWServiceLocator.getRouteHeaderService().getRouteHeader(actionItem.getDocumentId())
+					.getDocumentType();
+		}
+		return documentType.getApplicationId();
+	}
+
+	/**
+	 * Returns whether the action invocation queue of the given application supports
+	 * {@link ActionInvocationQueue#invokeActions(String, List, List)}, which is available from Rice 2.6.0.  The queue
+	 * is published with the Rice version of its application as its service version.
+	 */
+	protected boolean isBatchInvocationSupported(String applicationId) {
+		Endpoint endpoint = KsbApiServiceLocator.getServiceBus().getEndpoint(KewApiServiceLocator.ACTION_INVOCATION_QUEUE,
+				applicationId);
+		if (endpoint == null) {
+			return false;
 		}
+		String serviceVersion = endpoint.getServiceConfiguration().getServiceVersion();
+		return VersionHelper.compareVersion(serviceVersion, CoreConstants.Versions.VERSION_2_6_0) != -1;
 	}
 
 	public DocumentRouteHeaderValue revokeAdHocRequests(String principalId, DocumentRouteHeaderValue document, AdHocRevoke revoke, String annotation) throws InvalidActionTakenException {
@@ -500,4 +584,18 @@ public class WorkflowDocumentServiceImpl implements WorkflowDocumentService {
 		return KEWServiceLocator.getIdentityHelperService().getPrincipal(principalId);
 	}
 
+	/**
+	 * Returns the maximum number of mass actions on documents of the same document type processed as one message.
+	 */
+	public int getMassActionBatchSize() {
+		return massActionBatchSize;
+	}
+
+	public void setMassActionBatchSize(int massActionBatchSize) {
+		if (massActionBatchSize < 1) {
+			throw new IllegalArgumentException("massActionBatchSize must be at least 1");
+		}
+		this.massActionBatchSize = massActionBatchSize;
+	}
+
 }
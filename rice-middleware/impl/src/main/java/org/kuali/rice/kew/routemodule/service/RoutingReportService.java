@@ -15,9 +15,13 @@
  */
 package org.kuali.rice.kew.routemodule.service;
 
+import org.kuali.rice.kew.api.action.RoutingReportCriteria;
+import org.kuali.rice.kew.api.action.RoutingReportResult;
 import org.kuali.rice.kew.engine.simulation.SimulationCriteria;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 
+import java.util.List;
+
 
 /**
  * A service for executing routing reports from {@link SimulationCriteria}.
@@ -33,5 +37,13 @@ public interface RoutingReportService {
 	//public DocumentRouteHeaderValue simulationReport(DocumentRouteHeaderValue document, List actionsToTake) throws WorkflowException;
     
     public DocumentRouteHeaderValue report(SimulationCriteria criteria);
+
+    /**
+     * Executes the simulations of the given criteria in parallel.  Identical criteria are only simulated once.
+     *
+     * @param criteria the criteria of each simulation
+     * @return the result of each simulation, in the order of the given criteria
+     */
+    public List<RoutingReportResult> report(List<RoutingReportCriteria> criteria);
 	
 }
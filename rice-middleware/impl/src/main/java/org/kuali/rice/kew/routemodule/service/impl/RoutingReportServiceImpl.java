@@ -15,15 +15,65 @@
  */
 package org.kuali.rice.kew.routemodule.service.impl;
 
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
+import org.kuali.rice.core.api.util.ChecksumUtils;
+import org.kuali.rice.kew.api.action.RoutingReportCriteria;
+import org.kuali.rice.kew.api.action.RoutingReportResult;
+import org.kuali.rice.kew.doctype.bo.DocumentType;
+import org.kuali.rice.kew.doctype.service.DocumentTypeService;
+import org.kuali.rice.kew.dto.DTOConverter;
 import org.kuali.rice.kew.engine.simulation.SimulationCriteria;
 import org.kuali.rice.kew.engine.simulation.SimulationResults;
 import org.kuali.rice.kew.engine.simulation.SimulationWorkflowEngine;
 import org.kuali.rice.kew.routeheader.DocumentRouteHeaderValue;
 import org.kuali.rice.kew.routemodule.service.RoutingReportService;
 import org.kuali.rice.kew.service.KEWServiceLocator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class RoutingReportServiceImpl implements RoutingReportService {
+
+/**
+ * Reference implementation of {@link RoutingReportService}.
+ *
+ * <p>Batches of simulations are executed on a pool of at most {@link #getParallelism()} threads shared by all
+ * batches, each simulation in its own read-only transaction which is always rolled back.  Document types are loaded
+ * once per batch before the simulations start, so that the simulations share the cached document types rather than
+ * each loading them.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class RoutingReportServiceImpl implements RoutingReportService, DisposableBean {
+
+    private static final Logger LOG = Logger.getLogger(RoutingReportServiceImpl.class);
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private PlatformTransactionManager transactionManager;
+    private DocumentTypeService documentTypeService;
+    private int parallelism = 4;
+    private ThreadPoolExecutor executor;
 
     public DocumentRouteHeaderValue report(SimulationCriteria criteria) {
     	try {
@@ -38,6 +88,162 @@ public class RoutingReportServiceImpl implements RoutingReportService {
         }
     }
 
+    @Override
+    public List<RoutingReportResult> report(List<RoutingReportCriteria> criteria) {
+        if (criteria == null) {
+            throw new RiceIllegalArgumentException("criteria was null");
+        }
+        // identical simulations of the batch are only executed once
+        Map<List<Object>, RoutingReportCriteria> distinctCriteria = new LinkedHashMap<List<Object>, RoutingReportCriteria>();
+        List<List<Object>> keys = new ArrayList<List<Object>>(criteria.size());
+        for (RoutingReportCriteria reportCriteria : criteria) {
+            if (reportCriteria == null) {
+                throw new RiceIllegalArgumentException("criteria contained a null value");
+            }
+            List<Object> key = memoizationKey(reportCriteria);
+            keys.add(key);
+            if (!distinctCriteria.containsKey(key)) {
+                distinctCriteria.put(key, reportCriteria);
+            }
+        }
+        loadDocumentTypes(distinctCriteria.values());
+
+        Map<List<Object>, RoutingReportResult> results = new LinkedHashMap<List<Object>, RoutingReportResult>();
+        if (distinctCriteria.size() <= 1 || getParallelism() <= 1 || getTransactionManager() == null) {
+            for (Map.Entry<List<Object>, RoutingReportCriteria> entry : distinctCriteria.entrySet()) {
+                results.put(entry.getKey(), simulate(entry.getValue()));
+            }
+        } else {
+            results.putAll(simulateInParallel(distinctCriteria));
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Executed " + distinctCriteria.size() + " distinct simulations for a batch of "
+                    + criteria.size());
+        }
+
+        List<RoutingReportResult> orderedResults = new ArrayList<RoutingReportResult>(criteria.size());
+        Set<List<Object>> returnedKeys = new HashSet<List<Object>>();
+        for (List<Object> key : keys) {
+            RoutingReportResult result = results.get(key);
+            orderedResults.add(returnedKeys.add(key) ? result : result.asMemoized());
+        }
+        return orderedResults;
+    }
+
+    private Map<List<Object>, RoutingReportResult> simulateInParallel(
+            Map<List<Object>, RoutingReportCriteria> distinctCriteria) {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Map<List<Object>, Future<RoutingReportResult>> futures =
+                new LinkedHashMap<List<Object>, Future<RoutingReportResult>>();
+        for (Map.Entry<List<Object>, RoutingReportCriteria> entry : distinctCriteria.entrySet()) {
+            final RoutingReportCriteria reportCriteria = entry.getValue();
+            futures.put(entry.getKey(), getExecutor().submit(new Callable<RoutingReportResult>() {
+                @Override
+                public RoutingReportResult call() {
+                    Thread thread = Thread.currentThread();
+                    ClassLoader previousClassLoader = thread.getContextClassLoader();
+                    // attributes used by the simulation are located through the context class loader
+                    thread.setContextClassLoader(contextClassLoader);
+                    try {
+                        return simulateInTransaction(reportCriteria);
+                    } finally {
+                        thread.setContextClassLoader(previousClassLoader);
+                    }
+                }
+            }));
+        }
+        Map<List<Object>, RoutingReportResult> results = new LinkedHashMap<List<Object>, RoutingReportResult>();
+        try {
+            for (Map.Entry<List<Object>, Future<RoutingReportResult>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            cancel(futures.values());
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for simulations to complete", e);
+        } catch (ExecutionException e) {
+            cancel(futures.values());
+            throw new IllegalStateException("Problem running report: " + e.getCause().getMessage(), e.getCause());
+        }
+        return results;
+    }
+
+    private void cancel(Iterable<Future<RoutingReportResult>> futures) {
+        for (Future<RoutingReportResult> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Executes the given simulation in a new read-only transaction which is rolled back once it completes, so nothing
+     * the simulation may have flushed is ever committed.
+     */
+    protected RoutingReportResult simulateInTransaction(final RoutingReportCriteria reportCriteria) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(getTransactionManager());
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(new TransactionCallback<RoutingReportResult>() {
+            @Override
+            public RoutingReportResult doInTransaction(TransactionStatus status) {
+                status.setRollbackOnly();
+                return simulate(reportCriteria);
+            }
+        });
+    }
+
+    /**
+     * Executes the given simulation and converts its results, timing it and capturing the error if it fails.
+     */
+    protected RoutingReportResult simulate(RoutingReportCriteria reportCriteria) {
+        long start = System.nanoTime();
+        try {
+            DocumentRouteHeaderValue document = report(SimulationCriteria.from(reportCriteria));
+            return RoutingReportResult.create(DTOConverter.convertDocumentDetailNew(document), elapsedMillis(start),
+                    false);
+        } catch (RuntimeException e) {
+            LOG.error("Error running simulation for document " + (StringUtils.isNotBlank(
+                    reportCriteria.getDocumentId()) ? "id " + reportCriteria.getDocumentId() :
+                    "type " + reportCriteria.getDocumentTypeName()), e);
+            return RoutingReportResult.createFailure(e.getMessage(), elapsedMillis(start), false);
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Loads the document types of the simulations by name so that their simulations, potentially running
+     * concurrently, find them already cached.
+     */
+    private void loadDocumentTypes(Iterable<RoutingReportCriteria> criteria) {
+        if (getDocumentTypeService() == null) {
+            return;
+        }
+        Set<String> documentTypeNames = new HashSet<String>();
+        for (RoutingReportCriteria reportCriteria : criteria) {
+            String documentTypeName = reportCriteria.getDocumentTypeName();
+            if (StringUtils.isNotBlank(documentTypeName) && documentTypeNames.add(documentTypeName)) {
+                DocumentType documentType = getDocumentTypeService().findByName(documentTypeName);
+                if (documentType != null) {
+                    documentType.resolve();
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the key identifying simulations which will produce the same results: simulations of the same document
+     * or document type, up to the same node, with the same content hash, principals and actions.
+     */
+    protected List<Object> memoizationKey(RoutingReportCriteria criteria) {
+        String contentHash = criteria.getXmlContent() == null ? null : ChecksumUtils.calculateChecksum(
+                criteria.getXmlContent());
+        return Arrays.<Object>asList(criteria.getDocumentId(), criteria.getDocumentTypeName(),
+                criteria.getTargetNodeName(), contentHash, criteria.getRoutingPrincipalId(),
+                criteria.getTargetPrincipalIds(), criteria.getRuleTemplateNames(), criteria.getNodeNames(),
+                criteria.getActionsToTake(), criteria.isActivateRequests(), criteria.isFlattenNodes());
+    }
+
     /**
      * The document returned does not have any of the simulated action requests set on it, we'll want to set them.
      */
@@ -48,4 +254,59 @@ public class RoutingReportServiceImpl implements RoutingReportService {
         return document;
 
     }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(getParallelism(), getParallelism(), 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RoutingReport-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    /**
+     * Sets the transaction manager used to run each of the simulations of a batch in its own transaction, batches are
+     * executed serially without one.
+     */
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    public DocumentTypeService getDocumentTypeService() {
+        return documentTypeService;
+    }
+
+    public void setDocumentTypeService(DocumentTypeService documentTypeService) {
+        this.documentTypeService = documentTypeService;
+    }
+
+    /**
+     * Returns the maximum number of simulations executed concurrently, across all batches.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
 }
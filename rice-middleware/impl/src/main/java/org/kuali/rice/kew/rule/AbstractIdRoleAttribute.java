@@ -18,21 +18,22 @@ package org.kuali.rice.kew.rule;
 import org.apache.commons.lang.StringUtils;
 import org.kuali.rice.kew.api.KewApiConstants;
 import org.kuali.rice.kew.api.WorkflowRuntimeException;
+import org.kuali.rice.kew.api.document.InvalidDocumentContentException;
 import org.kuali.rice.kew.api.extension.ExtensionDefinition;
 import org.kuali.rice.kew.api.identity.Id;
 import org.kuali.rice.kew.engine.RouteContext;
 import org.kuali.rice.kew.routeheader.DocumentContent;
+import org.kuali.rice.kew.routeheader.StreamingDocumentContentExtractor;
 import org.kuali.rice.kew.rule.xmlrouting.GenericXMLRuleAttribute;
 import org.kuali.rice.kew.rule.xmlrouting.XPathHelper;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +53,17 @@ public abstract class AbstractIdRoleAttribute extends AbstractRoleAttribute
     private static final String GROUP_TOGETHER_LABEL = "groupTogether";
     private static final String STRING_ID_SEPERATOR = ",";
 
+	private static final String XML_ELEMENT_LABEL_PATH = "/configuration/" + XML_ELEMENT_LABEL;
+	private static final String ROLE_NAME_LABEL_PATH = "/configuration/" + ROLE_NAME_LABEL;
+	private static final String GROUP_TOGETHER_LABEL_PATH = "/configuration/" + GROUP_TOGETHER_LABEL;
+
+	/**
+	 * The configuration is read on every use of the attribute and only a few labels are needed out of it.
+	 */
+	private static final StreamingDocumentContentExtractor CONFIGURATION_EXTRACTOR =
+			new StreamingDocumentContentExtractor(Arrays.asList(XML_ELEMENT_LABEL_PATH, ROLE_NAME_LABEL_PATH,
+					GROUP_TOGETHER_LABEL_PATH));
+
 	private String idValue;
 	private Map paramMap = new HashMap();
 	private ExtensionDefinition extensionDefinition;
@@ -175,17 +187,11 @@ public abstract class AbstractIdRoleAttribute extends AbstractRoleAttribute
 		if (extensionDefinition != null) {
 			String xmlConfigData = extensionDefinition.getConfiguration().get(KewApiConstants.ATTRIBUTE_XML_CONFIG_DATA);
 			if (!StringUtils.isBlank(xmlConfigData)) {
-				XPath xPath = XPathHelper.newXPath();
 				try {
-					String xmlElementLabel = xPath.evaluate("/configuration/"
-							+ XML_ELEMENT_LABEL, new InputSource(
-							new StringReader(xmlConfigData)));
-					String roleNameLabel = xPath.evaluate("/configuration/"
-							+ ROLE_NAME_LABEL, new InputSource(
-							new StringReader(xmlConfigData)));
-                    String groupTogetherLabel = xPath.evaluate("/configuration/"
-                            + GROUP_TOGETHER_LABEL, new InputSource(
-                            new StringReader(xmlConfigData)));
+					Map<String, String> configuration = CONFIGURATION_EXTRACTOR.extractFirst(xmlConfigData);
+					String xmlElementLabel = configuration.get(XML_ELEMENT_LABEL_PATH);
+					String roleNameLabel = configuration.get(ROLE_NAME_LABEL_PATH);
+                    String groupTogetherLabel = configuration.get(GROUP_TOGETHER_LABEL_PATH);
 					if (!StringUtils.isBlank(xmlElementLabel)) {
 						getParamMap().put(XML_ELEMENT_LABEL, xmlElementLabel);
 					}
@@ -196,7 +202,7 @@ public abstract class AbstractIdRoleAttribute extends AbstractRoleAttribute
                         getParamMap().put(GROUP_TOGETHER_LABEL, groupTogetherLabel);
                     }
 
-				} catch (XPathExpressionException e) {
+				} catch (InvalidDocumentContentException e) {
 					throw new WorkflowRuntimeException(
 							"Failed to locate Rule Attribute configuration.");
 				}
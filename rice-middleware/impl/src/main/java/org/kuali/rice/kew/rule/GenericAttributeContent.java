@@ -17,15 +17,14 @@ package org.kuali.rice.kew.rule;
 
 import org.apache.log4j.Logger;
 import org.kuali.rice.core.api.util.xml.XmlJotter;
+import org.kuali.rice.kew.rule.xmlrouting.XPathHelper;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -39,24 +38,13 @@ import java.util.Map;
  * @author Kuali Rice Team (rice.collab@kuali.org)
  */
 public class GenericAttributeContent {
-    private static final XPathExpression NAME_EXPR;
-    private static final XPathExpression VALUE_EXPR;
-    private static final XPathExpression FIELD_EXPR;
-    static {
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        try {
-            NAME_EXPR = xpath.compile("name");
-            VALUE_EXPR = xpath.compile("value");
-            FIELD_EXPR = xpath.compile("field");
-        } catch (XPathExpressionException xpee) {
-            throw new RuntimeException(xpee);
-        }
-    }
+    private static final String NAME_EXPR = "name";
+    private static final String VALUE_EXPR = "value";
+    private static final String FIELD_EXPR = "field";
 
     private final Logger log;
 
     private final String elementName;
-    private final XPathExpression attr_expr;
 
     public GenericAttributeContent(Class clazz) {
         this(clazz.getName());
@@ -65,7 +53,9 @@ public class GenericAttributeContent {
         this.elementName = elementName;
         log = Logger.getLogger(GenericAttributeContent.class + "[" + elementName + "]");
         try {
-            attr_expr = XPathFactory.newInstance().newXPath().compile(elementName);
+            // compiled expressions are not thread safe, so only validate the element name here and let
+            // parseContent evaluate through the shared expression cache
+            XPathHelper.newCachingXPath().compile(elementName);
         } catch (XPathExpressionException xpee) {
             throw new RuntimeException(xpee);
         }
@@ -103,27 +93,28 @@ public class GenericAttributeContent {
             return attrs;
         }
         log.info("Parsing content: "+ XmlJotter.jotNode(attributeContent));
-        NodeList attrNodes = (NodeList) attr_expr.evaluate(attributeContent, XPathConstants.NODESET);
+        XPath xpath = XPathHelper.newCachingXPath();
+        NodeList attrNodes = (NodeList) xpath.evaluate(elementName, attributeContent, XPathConstants.NODESET);
         if (attrNodes != null) {
             for (int i = 0; i < attrNodes.getLength(); i++) {
                 Map<String, String> props = new HashMap<String, String>();
                 attrs.add(props);
                 Node node = attrNodes.item(i);
                 log.info("Found matching attribute: " + XmlJotter.jotNode(node));
-                NodeList fieldNodes = (NodeList) FIELD_EXPR.evaluate(node, XPathConstants.NODESET);
+                NodeList fieldNodes = (NodeList) xpath.evaluate(FIELD_EXPR, node, XPathConstants.NODESET);
                 for (int j = 0; j < fieldNodes.getLength(); j++) {
                     node = fieldNodes.item(j);
                     log.info("Found matching attribute content field: " + XmlJotter.jotNode(node));
-                    Boolean b = (Boolean) NAME_EXPR.evaluate(node, XPathConstants.BOOLEAN);
+                    Boolean b = (Boolean) xpath.evaluate(NAME_EXPR, node, XPathConstants.BOOLEAN);
                     if (!b.booleanValue()) {
                         log.error("Encountered field with no name, skipping!");
                         continue;
                     }
-                    String name = NAME_EXPR.evaluate(node);
-                    b = (Boolean) VALUE_EXPR.evaluate(node, XPathConstants.BOOLEAN);
+                    String name = xpath.evaluate(NAME_EXPR, node);
+                    b = (Boolean) xpath.evaluate(VALUE_EXPR, node, XPathConstants.BOOLEAN);
                     String value = null;
                     if (b.booleanValue()) {
-                        value = VALUE_EXPR.evaluate(node);
+                        value = xpath.evaluate(VALUE_EXPR, node);
                     } else {
                         log.warn("No value defined for transmitted field named: " + name);
                     }
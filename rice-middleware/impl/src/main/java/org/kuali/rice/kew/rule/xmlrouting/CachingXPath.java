@@ -0,0 +1,117 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.rule.xmlrouting;
+
+import org.xml.sax.InputSource;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFunctionResolver;
+import javax.xml.xpath.XPathVariableResolver;
+
+/**
+ * An XPath whose {@code evaluate} methods reuse compiled expressions from the shared {@link XPathExpressionCache}
+ * instead of compiling the expression on every call.
+ *
+ * <p>Like any XPath, instances are not thread safe.  Expressions obtained from {@link #compile(String)} are not
+ * cached.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class CachingXPath implements XPath {
+
+    private final XPath xpath;
+    private final XPathExpressionCache cache;
+
+    public CachingXPath(XPath xpath) {
+        this(xpath, XPathExpressionCache.getInstance());
+    }
+
+    CachingXPath(XPath xpath, XPathExpressionCache cache) {
+        if (xpath == null) {
+            throw new IllegalArgumentException("xpath was null");
+        }
+        this.xpath = xpath;
+        this.cache = cache;
+    }
+
+    @Override
+    public Object evaluate(String expression, Object item, QName returnType) throws XPathExpressionException {
+        return cache.evaluate(expression, item, returnType, getNamespaceContext(), getXPathFunctionResolver(),
+                getXPathVariableResolver());
+    }
+
+    @Override
+    public String evaluate(String expression, Object item) throws XPathExpressionException {
+        return (String) evaluate(expression, item, XPathConstants.STRING);
+    }
+
+    @Override
+    public Object evaluate(String expression, InputSource source, QName returnType) throws XPathExpressionException {
+        return cache.evaluate(expression, source, returnType, getNamespaceContext(), getXPathFunctionResolver(),
+                getXPathVariableResolver());
+    }
+
+    @Override
+    public String evaluate(String expression, InputSource source) throws XPathExpressionException {
+        return (String) evaluate(expression, source, XPathConstants.STRING);
+    }
+
+    @Override
+    public XPathExpression compile(String expression) throws XPathExpressionException {
+        return xpath.compile(expression);
+    }
+
+    @Override
+    public void reset() {
+        xpath.reset();
+    }
+
+    @Override
+    public void setXPathVariableResolver(XPathVariableResolver resolver) {
+        xpath.setXPathVariableResolver(resolver);
+    }
+
+    @Override
+    public XPathVariableResolver getXPathVariableResolver() {
+        return xpath.getXPathVariableResolver();
+    }
+
+    @Override
+    public void setXPathFunctionResolver(XPathFunctionResolver resolver) {
+        xpath.setXPathFunctionResolver(resolver);
+    }
+
+    @Override
+    public XPathFunctionResolver getXPathFunctionResolver() {
+        return xpath.getXPathFunctionResolver();
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext namespaceContext) {
+        xpath.setNamespaceContext(namespaceContext);
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return xpath.getNamespaceContext();
+    }
+
+}
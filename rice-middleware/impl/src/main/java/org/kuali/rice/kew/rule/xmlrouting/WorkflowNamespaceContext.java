@@ -51,4 +51,18 @@ public class WorkflowNamespaceContext implements NamespaceContext {
 	public Iterator getPrefixes(String namespace) {
 		return null;
 	}
+
+	/**
+	 * All instances resolve the same namespaces, which allows expressions compiled against one instance to be
+	 * shared through the {@link XPathExpressionCache}.
+	 */
+	@Override
+	public boolean equals(Object object) {
+		return object != null && object.getClass() == getClass();
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().hashCode();
+	}
 }
@@ -0,0 +1,369 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.rule.xmlrouting;
+
+import org.apache.log4j.Logger;
+import org.kuali.rice.core.api.config.property.Config;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.xml.sax.InputSource;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFunction;
+import javax.xml.xpath.XPathFunctionResolver;
+import javax.xml.xpath.XPathVariableResolver;
+import java.lang.management.ManagementFactory;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A JVM wide cache of compiled {@link XPathExpression}s, keyed by expression text and {@link NamespaceContext}.
+ *
+ * <p>Compiled expressions are not thread safe, so the cache keeps a small pool of compiled instances per expression
+ * which are borrowed for the duration of a single evaluation.  Function and variable resolvers are looked up by the
+ * XPath engine while evaluating rather than while compiling, so every pooled instance is compiled against delegating
+ * resolvers which are pointed at the caller's resolvers while it is borrowed.  This allows expressions using stateful
+ * resolvers, such as the {@link WorkflowFunctionResolver} which holds the document being routed, to be shared.</p>
+ *
+ * <p>Expressions are generally taken from configuration, but some are built from document data, so the number of
+ * distinct expressions is bounded by the {@value #MAX_SIZE_PARAM} parameter; when it is exceeded the cache is emptied.
+ * A maximum size of zero disables caching.</p>
+ *
+ * <p>The shared cache is exposed as an MBean while it is defined as a Spring bean, see {@link #getInstance()}.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public final class XPathExpressionCache implements XPathExpressionCacheMBean, InitializingBean, DisposableBean {
+
+    private static final Logger LOG = Logger.getLogger(XPathExpressionCache.class);
+
+    public static final String MAX_SIZE_PARAM = "rice.kew.xpath.expressionCache.maxSize";
+
+    static final int DEFAULT_MAX_SIZE = 2000;
+
+    /**
+     * The maximum number of idle compiled instances kept per expression, roughly the number of threads expected to
+     * evaluate the same expression at once.
+     */
+    private static final int MAX_IDLE_PER_EXPRESSION = 16;
+
+    private static final XPathExpressionCache INSTANCE = new XPathExpressionCache(readMaxSize());
+
+    private static final ThreadLocal<XPathFactory> FACTORY = new ThreadLocal<XPathFactory>() {
+        @Override
+        protected XPathFactory initialValue() {
+            return XPathFactory.newInstance();
+        }
+    };
+
+    private final ConcurrentMap<CacheKey, Queue<PooledExpression>> pools =
+            new ConcurrentHashMap<CacheKey, Queue<PooledExpression>>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private volatile int maxSize;
+
+    private ObjectName objectName;
+
+    XPathExpressionCache(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the shared cache, also used as the factory method of its Spring bean definition.
+     */
+    public static XPathExpressionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns an XPathFactory for use by the calling thread only, factories are expensive to locate and are not
+     * thread safe.
+     */
+    static XPathFactory getThreadFactory() {
+        return FACTORY.get();
+    }
+
+    /**
+     * Evaluates the given expression against the given item.
+     *
+     * @param expression the XPath expression
+     * @param item the context item, may be null
+     * @param returnType one of the {@link javax.xml.xpath.XPathConstants} return types
+     * @param namespaceContext the namespace context used to compile the expression, may be null
+     * @param functionResolver the resolver for extension functions, may be null
+     * @param variableResolver the resolver for variables, may be null
+     * @return the result of the evaluation
+     * @throws XPathExpressionException if the expression cannot be compiled or evaluated
+     */
+    public Object evaluate(String expression, Object item, QName returnType, NamespaceContext namespaceContext,
+            XPathFunctionResolver functionResolver, XPathVariableResolver variableResolver)
+            throws XPathExpressionException {
+        CacheKey key = new CacheKey(expression, namespaceContext);
+        PooledExpression pooled = borrow(key);
+        pooled.bind(functionResolver, variableResolver);
+        try {
+            return pooled.expression.evaluate(item, returnType);
+        } finally {
+            pooled.bind(null, null);
+            release(key, pooled);
+        }
+    }
+
+    /**
+     * Evaluates the given expression against the document read from the given source.
+     *
+     * @see #evaluate(String, Object, javax.xml.namespace.QName, javax.xml.namespace.NamespaceContext,
+     * javax.xml.xpath.XPathFunctionResolver, javax.xml.xpath.XPathVariableResolver)
+     */
+    public Object evaluate(String expression, InputSource source, QName returnType, NamespaceContext namespaceContext,
+            XPathFunctionResolver functionResolver, XPathVariableResolver variableResolver)
+            throws XPathExpressionException {
+        CacheKey key = new CacheKey(expression, namespaceContext);
+        PooledExpression pooled = borrow(key);
+        pooled.bind(functionResolver, variableResolver);
+        try {
+            return pooled.expression.evaluate(source, returnType);
+        } finally {
+            pooled.bind(null, null);
+            release(key, pooled);
+        }
+    }
+
+    private PooledExpression borrow(CacheKey key) throws XPathExpressionException {
+        if (maxSize > 0) {
+            Queue<PooledExpression> pool = pools.get(key);
+            PooledExpression pooled = pool == null ? null : pool.poll();
+            if (pooled != null) {
+                hitCount.incrementAndGet();
+                return pooled;
+            }
+        }
+        missCount.incrementAndGet();
+        return new PooledExpression(key);
+    }
+
+    private void release(CacheKey key, PooledExpression pooled) {
+        if (maxSize <= 0) {
+            return;
+        }
+        Queue<PooledExpression> pool = pools.get(key);
+        if (pool == null) {
+            if (size.get() >= maxSize) {
+                // dynamically built expressions can grow the cache without bound, start over rather than track usage
+                clearPools();
+                evictionCount.incrementAndGet();
+            }
+            Queue<PooledExpression> newPool = new ConcurrentLinkedQueue<PooledExpression>();
+            pool = pools.putIfAbsent(key, newPool);
+            if (pool == null) {
+                pool = newPool;
+                size.incrementAndGet();
+            }
+        }
+        // ConcurrentLinkedQueue.size() is linear, but pools are kept small
+        if (pool.size() < MAX_IDLE_PER_EXPRESSION) {
+            pool.offer(pooled);
+        }
+    }
+
+    private void clearPools() {
+        pools.clear();
+        size.set(0);
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public int getSize() {
+        return size.get();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative, was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        if (maxSize == 0) {
+            clearPools();
+        }
+    }
+
+    @Override
+    public void clear() {
+        clearPools();
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    private static int readMaxSize() {
+        Config config = ConfigContext.getCurrentContextConfig();
+        if (config == null) {
+            return DEFAULT_MAX_SIZE;
+        }
+        return (int) config.getNumericProperty(MAX_SIZE_PARAM, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Registers the cache as an MBean.
+     */
+    @Override
+    public synchronized void afterPropertiesSet() {
+        try {
+            ObjectName name = new ObjectName("org.kuali.rice.kew:type=XPathExpressionCache");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                objectName = name;
+            } else {
+                LOG.warn("An MBean is already registered as " + name + ", the XPath expression cache is not exposed");
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to register MBean for the XPath expression cache", e);
+        }
+    }
+
+    /**
+     * Unregisters the MBean so that it does not keep the application's classloader alive once it is shut down.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            LOG.warn("Failed to unregister MBean for the XPath expression cache", e);
+        }
+        objectName = null;
+    }
+
+    private static final class CacheKey {
+
+        private final String expression;
+        private final NamespaceContext namespaceContext;
+
+        CacheKey(String expression, NamespaceContext namespaceContext) {
+            if (expression == null) {
+                throw new NullPointerException("The XPath expression cannot be null.");
+            }
+            this.expression = expression;
+            this.namespaceContext = namespaceContext;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) object;
+            return expression.equals(other.expression) && (namespaceContext == null ? other.namespaceContext == null :
+                    namespaceContext.equals(other.namespaceContext));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * expression.hashCode() + (namespaceContext == null ? 0 : namespaceContext.hashCode());
+        }
+    }
+
+    /**
+     * A compiled expression together with the resolvers it was compiled against.
+     */
+    private static final class PooledExpression {
+
+        private final XPathExpression expression;
+        private final DelegatingFunctionResolver functionResolver = new DelegatingFunctionResolver();
+        private final DelegatingVariableResolver variableResolver = new DelegatingVariableResolver();
+
+        PooledExpression(CacheKey key) throws XPathExpressionException {
+            XPath xpath = getThreadFactory().newXPath();
+            if (key.namespaceContext != null) {
+                xpath.setNamespaceContext(key.namespaceContext);
+            }
+            xpath.setXPathFunctionResolver(functionResolver);
+            xpath.setXPathVariableResolver(variableResolver);
+            this.expression = xpath.compile(key.expression);
+        }
+
+        void bind(XPathFunctionResolver functionResolver, XPathVariableResolver variableResolver) {
+            this.functionResolver.delegate = functionResolver;
+            this.variableResolver.delegate = variableResolver;
+        }
+    }
+
+    private static final class DelegatingFunctionResolver implements XPathFunctionResolver {
+
+        private XPathFunctionResolver delegate;
+
+        @Override
+        public XPathFunction resolveFunction(QName functionName, int arity) {
+            return delegate == null ? null : delegate.resolveFunction(functionName, arity);
+        }
+    }
+
+    private static final class DelegatingVariableResolver implements XPathVariableResolver {
+
+        private XPathVariableResolver delegate;
+
+        @Override
+        public Object resolveVariable(QName variableName) {
+            return delegate == null ? null : delegate.resolveVariable(variableName);
+        }
+    }
+
+}
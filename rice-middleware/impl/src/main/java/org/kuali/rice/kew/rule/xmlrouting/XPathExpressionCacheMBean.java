@@ -0,0 +1,62 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.rule.xmlrouting;
+
+/**
+ * Management interface exposing the effectiveness of the {@link XPathExpressionCache}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public interface XPathExpressionCacheMBean {
+
+    /**
+     * @return the number of evaluations which reused a previously compiled expression
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of evaluations which had to compile their expression
+     */
+    long getMissCount();
+
+    /**
+     * @return the fraction of evaluations which reused a previously compiled expression
+     */
+    double getHitRatio();
+
+    /**
+     * @return the number of times the cache was emptied because it held too many distinct expressions
+     */
+    long getEvictionCount();
+
+    /**
+     * @return the number of distinct expressions currently cached
+     */
+    int getSize();
+
+    /**
+     * @return the maximum number of distinct expressions which are cached, zero if caching is disabled
+     */
+    int getMaxSize();
+
+    void setMaxSize(int maxSize);
+
+    /**
+     * Discards every cached expression and resets the counters.
+     */
+    void clear();
+
+}
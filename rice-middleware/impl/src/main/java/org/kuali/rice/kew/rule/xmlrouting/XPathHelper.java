@@ -16,7 +16,6 @@
 package org.kuali.rice.kew.rule.xmlrouting;
 
 import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathFactory;
 import javax.xml.xpath.XPathFunctionResolver;
 
 import org.kuali.rice.kew.api.WorkflowRuntimeException;
@@ -33,10 +32,11 @@ public class XPathHelper {
 
 	/**
 	 * Creates a new XPath instance and initializes it with the WorkflowNamespaceContext and the
-	 * WorkflowFunctionResolver.
+	 * WorkflowFunctionResolver.  The returned instance evaluates expressions through the shared
+	 * {@link XPathExpressionCache}.
 	 */
 	public static XPath newXPath() {
-		XPath xPath = XPathFactory.newInstance().newXPath();
+		XPath xPath = newCachingXPath();
 		xPath.setNamespaceContext(new WorkflowNamespaceContext());
 		WorkflowFunctionResolver resolver = new WorkflowFunctionResolver();
 		xPath.setXPathFunctionResolver(resolver); 
@@ -57,6 +57,14 @@ public class XPathHelper {
 		return xPath;
 	}
 	
+	/**
+	 * Creates a new XPath instance without any namespace context or function resolver which evaluates expressions
+	 * through the shared {@link XPathExpressionCache}.
+	 */
+	public static XPath newCachingXPath() {
+		return new CachingXPath(XPathExpressionCache.getThreadFactory().newXPath());
+	}
+
 	/**
 	 * A utility to extract the WorkflowFunctionResolver from the given XPath instances.  If the XPath instance
 	 * does not contain a WorkflowFunctionResolver, then this method will throw a WorkflowRuntimeException.
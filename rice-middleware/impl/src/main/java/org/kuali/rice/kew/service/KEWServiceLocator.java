@@ -40,6 +40,7 @@ import org.kuali.rice.kew.engine.simulation.SimulationWorkflowEngine;
 import org.kuali.rice.kew.exception.WorkflowDocumentExceptionRoutingService;
 import org.kuali.rice.kew.identity.service.IdentityHelperService;
 import org.kuali.rice.kew.impl.document.WorkflowDocumentPrototype;
+import org.kuali.rice.kew.impl.document.attribute.DocumentAttributeReindexService;
 import org.kuali.rice.kew.mail.service.ActionListEmailService;
 import org.kuali.rice.kew.mail.service.EmailContentService;
 import org.kuali.rice.kew.notes.service.NoteService;
@@ -213,6 +214,8 @@ public final class KEWServiceLocator {
 
     public static final String LOCAL_CACHE_MANAGER = "kewLocalCacheManager";
 
+    public static final String DOCUMENT_ATTRIBUTE_REINDEX_SERVICE = "rice.kew.documentAttributeReindexService";
+
     public static EntityManagerFactory getEntityManagerFactory() {
         return (EntityManagerFactory) getService(ENTITY_MANAGER_FACTORY);
     }
@@ -408,6 +411,10 @@ public final class KEWServiceLocator {
         return getBean(WORKFLOW_RULE_ATTRIBUTE_MEDIATOR);
     }
 
+    public static DocumentAttributeReindexService getDocumentAttributeReindexService() {
+        return getBean(DOCUMENT_ATTRIBUTE_REINDEX_SERVICE);
+    }
+
     public static RuleValidationAttributeResolver getRuleValidationAttributeResolver() {
         return getBean(RULE_VALIDATION_ATTRIBUTE_RESOLVER);
     }
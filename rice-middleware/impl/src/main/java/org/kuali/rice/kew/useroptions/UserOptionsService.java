@@ -83,4 +83,12 @@ public interface UserOptionsService {
      * @return a {@link List} of {@link UserOptions} or an empty collection if no results are found.
      */
     List<UserOptions> retrieveEmailPreferenceUserOptions(String emailSetting);
+
+    /**
+     * Finds the {@link UserOptions} of all principals with the given option id and value.
+     * @param optionId the option id to search by.
+     * @param optionValue the option value to search by.
+     * @return a {@link List} of {@link UserOptions} or an empty collection if no results are found.
+     */
+    List<UserOptions> findByOptionValue(String optionId, String optionValue);
 }
@@ -74,6 +74,17 @@ public class UserOptionsServiceImpl implements UserOptionsService {
         return this.dataObjectService.findMatching(UserOptions.class, criteria.build()).getResults();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserOptions> findByOptionValue(String optionId, String optionValue) {
+        QueryByCriteria.Builder criteria = QueryByCriteria.Builder.create();
+        criteria.setPredicates(equal("optionId", optionId), equal("optionVal", optionValue));
+
+        return this.dataObjectService.findMatching(UserOptions.class, criteria.build()).getResults();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -22,12 +22,12 @@ import java.util.Properties;
 
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.lang.StringUtils;
 import org.kuali.rice.kew.engine.RouteContext;
 import org.kuali.rice.kew.rule.xmlrouting.WorkflowFunctionResolver;
 import org.kuali.rice.kew.rule.xmlrouting.WorkflowNamespaceContext;
+import org.kuali.rice.kew.rule.xmlrouting.XPathHelper;
 import org.kuali.rice.kns.util.FieldUtils;
 import org.kuali.rice.kns.web.ui.Field;
 import org.kuali.rice.kns.web.ui.Row;
@@ -75,10 +75,10 @@ public final class WorkflowUtils {
 
     public final static XPath getXPath(RouteContext routeContext) {
         if (routeContext == null) {
-            return XPathFactory.newInstance().newXPath();
+            return XPathHelper.newCachingXPath();
         }
         if (!routeContext.getParameters().containsKey(XPATH_ROUTE_CONTEXT_KEY)) {
-            routeContext.getParameters().put(XPATH_ROUTE_CONTEXT_KEY, XPathFactory.newInstance().newXPath());
+            routeContext.getParameters().put(XPATH_ROUTE_CONTEXT_KEY, XPathHelper.newCachingXPath());
         }
         return (XPath) routeContext.getParameters().get(XPATH_ROUTE_CONTEXT_KEY);
     }
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.actionlist;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.cache.CacheTarget;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.framework.config.property.SimpleConfig;
+import org.kuali.rice.core.impl.cache.CacheInvalidationTransport;
+import org.kuali.rice.core.impl.cache.DistributedCacheManagerDecorator;
+import org.kuali.rice.kew.actionitem.ActionItem;
+import org.kuali.rice.kew.actionlist.dao.ActionListDAO;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the {@link ActionListSummaryCache}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ActionListSummaryCacheTest {
+
+    private static final Timestamp DATE_1 = new Timestamp(1000000000000L);
+    private static final Timestamp DATE_2 = new Timestamp(DATE_1.getTime() + 60000);
+
+    private final List<Collection<CacheTarget>> messages = new ArrayList<Collection<CacheTarget>>();
+    private ActionListDAO actionListDAO;
+    private ConcurrentMapCacheManager localCacheManager;
+    private DistributedCacheManagerDecorator distributedCacheManager;
+    private ActionListSummaryCache cache;
+
+    @Before
+    public void setUp() {
+        ConfigContext.init(new SimpleConfig());
+        actionListDAO = mock(ActionListDAO.class);
+        when(actionListDAO.getCount("admin")).thenReturn(1);
+        when(actionListDAO.getMaxActionItemDateAssignedAndCountForUser("admin")).thenReturn(Arrays.<Object>asList(
+                DATE_1, 2L));
+
+        localCacheManager = new ConcurrentMapCacheManager(ActionListSummaryCache.NAME);
+        distributedCacheManager = new DistributedCacheManagerDecorator();
+        distributedCacheManager.setCacheManager(localCacheManager);
+        distributedCacheManager.setServiceName("{http://rice.kuali.org/kew/v2_0}kewCacheDistributionQueue");
+        distributedCacheManager.setInvalidationTransport(new RecordingTransport());
+        distributedCacheManager.afterPropertiesSet();
+
+        cache = new ActionListSummaryCache();
+        cache.setActionListDAO(actionListDAO);
+        cache.setCacheManager(localCacheManager);
+        cache.setDistributedCacheManager(distributedCacheManager);
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        distributedCacheManager.destroy();
+        ConfigContext.destroy();
+    }
+
+    @Test
+    public void testLoad() {
+        ActionListSummary summary = cache.getSummary("admin");
+        assertEquals(1, summary.getCount());
+        assertEquals(2, summary.getTotalCount());
+        assertEquals(DATE_1, summary.getMaxDateAssigned());
+
+        assertSame(summary, cache.getSummary("admin"));
+        verify(actionListDAO, times(1)).getCount("admin");
+        assertEquals(1, cache.getLoadCount());
+        assertEquals(1, cache.getHitCount());
+
+        ActionListSummary empty = cache.getSummary("nobody");
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getTotalCount());
+        assertNull(empty.getMaxDateAssigned());
+    }
+
+    @Test
+    public void testEvictedOnCommit() {
+        cache.getSummary("admin");
+
+        beginTransaction();
+        cache.actionItemSaved(actionItem("admin"));
+        assertTrue("the other nodes are only flushed once the transaction commits", messages.isEmpty());
+        when(actionListDAO.getCount("admin")).thenReturn(2);
+        when(actionListDAO.getMaxActionItemDateAssignedAndCountForUser("admin")).thenReturn(Arrays.<Object>asList(
+                DATE_2, 3L));
+        assertSummary(2, 3, DATE_2);
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(Collections.singletonList(Collections.singletonList(CacheTarget.singleEntry(
+                ActionListSummaryCache.NAME, "admin"))), messages);
+        assertNull("summaries loaded before the eviction committed are not cached",
+                localCacheManager.getCache(ActionListSummaryCache.NAME).get("admin"));
+        assertSummary(2, 3, DATE_2);
+        assertSummary(2, 3, DATE_2);
+        assertEquals(3, cache.getLoadCount());
+    }
+
+    @Test
+    public void testNotCachedOnRollback() {
+        beginTransaction();
+        cache.actionItemsDeleted(Arrays.asList(actionItem("admin"), actionItem("admin"), actionItem("other")));
+        assertSummary(1, 2, DATE_1);
+        assertNull(localCacheManager.getCache(ActionListSummaryCache.NAME).get("admin"));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTrue(messages.isEmpty());
+        assertNull(localCacheManager.getCache(ActionListSummaryCache.NAME).get("admin"));
+        assertSummary(1, 2, DATE_1);
+        assertEquals(2, cache.getLoadCount());
+
+        // loaded within a transaction which commits
+        beginTransaction();
+        cache.getSummary("other");
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertNotNull(localCacheManager.getCache(ActionListSummaryCache.NAME).get("other"));
+    }
+
+    @Test
+    public void testEvictedWhileLoading() {
+        when(actionListDAO.getCount("admin")).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                // committed by another thread while the action items are being read
+                cache.actionItemSaved(actionItem("admin"));
+                return 1;
+            }
+        });
+        cache.getSummary("admin");
+        assertNull(localCacheManager.getCache(ActionListSummaryCache.NAME).get("admin"));
+    }
+
+    @Test
+    public void testDisabled() {
+        assertNull(cache.getSummary(null));
+        cache.getSummary("admin");
+
+        cache.setEnabled(false);
+        assertNull(cache.getSummary("admin"));
+        assertNull(localCacheManager.getCache(ActionListSummaryCache.NAME).get("admin"));
+    }
+
+    private void assertSummary(int count, int totalCount, Timestamp maxDateAssigned) {
+        ActionListSummary summary = cache.getSummary("admin");
+        assertEquals(count, summary.getCount());
+        assertEquals(totalCount, summary.getTotalCount());
+        assertEquals(maxDateAssigned, summary.getMaxDateAssigned());
+    }
+
+    private static ActionItem actionItem(String principalId) {
+        ActionItem actionItem = new ActionItem();
+        actionItem.setPrincipalId(principalId);
+        return actionItem;
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            for (TransactionSynchronization synchronization : synchronizations) {
+                synchronization.beforeCommit(false);
+            }
+        }
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.beforeCompletion();
+        }
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            for (TransactionSynchronization synchronization : synchronizations) {
+                synchronization.afterCommit();
+            }
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private final class RecordingTransport implements CacheInvalidationTransport {
+
+        @Override
+        public void send(String serviceName, Collection<CacheTarget> cacheTargets) {
+            messages.add(cacheTargets);
+        }
+
+        @Override
+        public void register(String serviceName, CacheManager localCacheManager) {
+        }
+
+        @Override
+        public void unregister(String serviceName) {
+        }
+    }
+
+}
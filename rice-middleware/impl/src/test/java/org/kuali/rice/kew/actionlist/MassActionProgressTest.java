@@ -0,0 +1,111 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.actionlist;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.CoreConstants;
+import org.kuali.rice.core.api.config.module.RunMode;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.resourceloader.GlobalResourceLoaderTestUtils;
+import org.kuali.rice.core.impl.config.property.JAXBConfigImpl;
+import org.kuali.rice.kew.actiontaken.service.ActionTakenService;
+import org.kuali.rice.kew.service.KEWServiceLocator;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the {@link MassActionProgress}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class MassActionProgressTest {
+
+    private ActionTakenService actionTakenService;
+
+    @Before
+    public void setUp() {
+        actionTakenService = mock(ActionTakenService.class);
+        GlobalResourceLoaderTestUtils.addMockService(KEWServiceLocator.ACTION_TAKEN_SRV, actionTakenService);
+        JAXBConfigImpl config = new JAXBConfigImpl();
+        config.putProperty(CoreConstants.Config.APPLICATION_ID, "APPID");
+        config.putProperty(KEWServiceLocator.KEW_RUN_MODE_PROPERTY, RunMode.LOCAL.name());
+        ConfigContext.init(config);
+    }
+
+    @After
+    public void tearDown() {
+        ConfigContext.destroy();
+    }
+
+    @Test
+    public void testRefresh() {
+        Timestamp submittedDate = new Timestamp(System.currentTimeMillis());
+        MassActionProgress progress = new MassActionProgress("admin", Arrays.asList("1001", "1002", "1003", "1001"),
+                submittedDate);
+        assertEquals(3, progress.getTotalCount());
+        assertEquals(0, progress.getCompletedCount());
+        assertFalse(progress.isComplete());
+        assertFalse(progress.isExpired());
+
+        when(actionTakenService.findDocumentIdsActedOnSince(eq("admin"), anyCollectionOf(String.class), eq(
+                submittedDate))).thenReturn(new HashSet<String>(Arrays.asList("1001", "1003")));
+        progress.refresh();
+        assertEquals(2, progress.getCompletedCount());
+        assertFalse(progress.isComplete());
+
+        // only the documents which have not been acted on yet are checked again
+        when(actionTakenService.findDocumentIdsActedOnSince(eq("admin"), eq(Arrays.asList("1002")), eq(
+                submittedDate))).thenReturn(Collections.singleton("1002"));
+        progress.refresh();
+        assertEquals(3, progress.getCompletedCount());
+        assertTrue(progress.isComplete());
+
+        // nothing is queried once complete
+        progress.refresh();
+        verify(actionTakenService, times(2)).findDocumentIdsActedOnSince(anyString(), anyCollectionOf(String.class),
+                any(Timestamp.class));
+    }
+
+    @Test
+    public void testExpired() {
+        List<String> documentIds = Collections.singletonList("1001");
+        Timestamp submittedDate = new Timestamp(System.currentTimeMillis() - 60 * 60 * 1000);
+        MassActionProgress progress = new MassActionProgress("admin", documentIds, submittedDate);
+        assertTrue(progress.isExpired());
+        assertFalse(progress.isComplete());
+    }
+
+    @Test
+    public void testEmpty() {
+        MassActionProgress progress = new MassActionProgress("admin", Collections.<String>emptyList(), new Timestamp(
+                System.currentTimeMillis()));
+        assertTrue(progress.isComplete());
+        progress.refresh();
+        verify(actionTakenService, never()).findDocumentIdsActedOnSince(anyString(), anyCollectionOf(
+                String.class), any(Timestamp.class));
+    }
+
+}
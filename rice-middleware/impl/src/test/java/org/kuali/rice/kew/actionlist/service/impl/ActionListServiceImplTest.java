@@ -0,0 +1,94 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.actionlist.service.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.criteria.EqualPredicate;
+import org.kuali.rice.core.api.criteria.GenericQueryResults;
+import org.kuali.rice.core.api.criteria.Predicate;
+import org.kuali.rice.core.api.criteria.QueryResults;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
+import org.kuali.rice.kew.actionitem.ActionItem;
+import org.kuali.rice.kew.actionlist.dao.ActionListDAO;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the paged action list of the {@link ActionListServiceImpl}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ActionListServiceImplTest {
+
+    private ActionListDAO actionListDAO;
+    private ActionListServiceImpl actionListService;
+
+    @Before
+    public void setUp() {
+        actionListDAO = mock(ActionListDAO.class);
+        actionListService = new ActionListServiceImpl();
+        actionListService.setActionListDAO(actionListDAO);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetActionListPage() {
+        QueryResults<ActionItem> results = GenericQueryResults.Builder.<ActionItem>create().build();
+        when(actionListDAO.getActionListPage(anyList(), anyString(), anyBoolean(), anyInt(), anyInt())).thenReturn(
+                results);
+
+        assertSame(results, actionListService.getActionListPage("admin", null, "routeHeaderCreateDate", false, 20, 10));
+
+        // the database sorts, pages and counts the documents
+        ArgumentCaptor<List> criteria = ArgumentCaptor.forClass(List.class);
+        verify(actionListDAO).getActionListPage(criteria.capture(), eq("routeHeader.createDate"), eq(false), eq(20),
+                eq(10));
+        List<Predicate> predicates = criteria.getValue();
+        assertEquals(1, predicates.size());
+        assertEquals("principalId", ((EqualPredicate) predicates.get(0)).getPropertyPath());
+        assertEquals("admin", ((EqualPredicate) predicates.get(0)).getValue().getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetActionListPageWithoutSort() {
+        actionListService.getActionListPage("admin", null, null, true, 0, 10);
+        verify(actionListDAO).getActionListPage(anyList(), eq("routeHeader.createDate"), eq(true), eq(0), eq(10));
+    }
+
+    @Test
+    public void testSortableInDatabase() {
+        assertTrue(actionListService.isSortableInDatabase("routeHeader.createDate"));
+        assertTrue(actionListService.isSortableInDatabase("documentId"));
+        assertFalse(actionListService.isSortableInDatabase("routeHeaderInitiatorName"));
+        // an action list without a sort is paged in the default order
+        assertTrue(actionListService.isSortableInDatabase(null));
+        assertTrue(actionListService.isSortableInDatabase(""));
+        try {
+            actionListService.getActionListPage("admin", null, "routeHeaderInitiatorName", true, 0, 10);
+            fail("expected a RiceIllegalArgumentException");
+        } catch (RiceIllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
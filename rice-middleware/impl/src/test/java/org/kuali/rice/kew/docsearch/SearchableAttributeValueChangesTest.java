@@ -0,0 +1,167 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.docsearch;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link SearchableAttributeValueChanges}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class SearchableAttributeValueChangesTest {
+
+    @Test
+    public void testUnchangedValuesProduceNoChanges() {
+        List<SearchableAttributeValue> existing = Arrays.asList(
+                string("1", "title", "Budget"),
+                decimal("2", "amount", new BigDecimal("10.500000000000000")),
+                dateTime("3", "due", new Timestamp(1000L)),
+                longValue("4", "count", 5L));
+        List<SearchableAttributeValue> extracted = Arrays.asList(
+                string(null, "title", "Budget"),
+                decimal(null, "amount", new BigDecimal("10.5")),
+                dateTime(null, "due", new Timestamp(1000L)),
+                longValue(null, "count", 5L));
+
+        SearchableAttributeValueChanges changes = new SearchableAttributeValueChanges();
+        changes.addChanges(existing, extracted);
+        assertTrue(changes.isEmpty());
+        assertEquals(4, changes.getUnchangedCount());
+        assertEquals(SearchableAttributeValueChanges.fingerprint(existing),
+                SearchableAttributeValueChanges.fingerprint(extracted));
+    }
+
+    @Test
+    public void testChangedValuesAreUpdatedInPlace() {
+        List<SearchableAttributeValue> existing = Arrays.asList(
+                string("1", "title", "Budget"),
+                string("2", "owner", "admin"),
+                longValue("3", "count", 5L));
+        SearchableAttributeValue newTitle = string(null, "title", "Final Budget");
+        SearchableAttributeValue newTag = string(null, "tag", "urgent");
+        List<SearchableAttributeValue> extracted = Arrays.asList(newTitle, string(null, "owner", "admin"), newTag);
+
+        SearchableAttributeValueChanges changes = new SearchableAttributeValueChanges();
+        changes.addChanges(existing, extracted);
+        assertEquals(1, changes.getUnchangedCount());
+        assertEquals(Collections.singletonList(newTitle), changes.getUpdates());
+        assertEquals("1", newTitle.getSearchableAttributeValueId());
+        assertEquals(Collections.singletonList(newTag), changes.getInserts());
+        assertNull(newTag.getSearchableAttributeValueId());
+        assertEquals(Collections.singletonList(existing.get(2)), changes.getDeletes());
+    }
+
+    @Test
+    public void testValuesInDifferentTablesAreNotReused() {
+        List<SearchableAttributeValue> existing = new ArrayList<SearchableAttributeValue>();
+        existing.add(string("1", "amount", "5"));
+        SearchableAttributeValue extracted = longValue(null, "amount", 5L);
+
+        SearchableAttributeValueChanges changes = new SearchableAttributeValueChanges();
+        changes.addChanges(existing, Collections.singletonList(extracted));
+        assertEquals(Collections.singletonList(extracted), changes.getInserts());
+        assertEquals(existing, changes.getDeletes());
+        assertTrue(changes.getUpdates().isEmpty());
+    }
+
+    @Test
+    public void testDuplicatesAreIgnored() {
+        List<SearchableAttributeValue> existing = Arrays.asList(
+                string("1", "reviewer", "fran"),
+                string("2", "reviewer", "fran"));
+        List<SearchableAttributeValue> extracted = Arrays.asList(
+                string(null, "reviewer", "fran"),
+                null,
+                string(null, "reviewer", "fran"),
+                string(null, "reviewer", "dewey"));
+
+        SearchableAttributeValueChanges changes = new SearchableAttributeValueChanges();
+        changes.addChanges(existing, extracted);
+        assertEquals(1, changes.getUnchangedCount());
+        assertEquals(1, changes.getUpdates().size());
+        assertEquals("2", changes.getUpdates().get(0).getSearchableAttributeValueId());
+        assertEquals("dewey", changes.getUpdates().get(0).getSearchableAttributeValue());
+        assertTrue(changes.getInserts().isEmpty());
+        assertTrue(changes.getDeletes().isEmpty());
+        assertEquals(2, SearchableAttributeValueChanges.deduplicate(extracted).size());
+    }
+
+    @Test
+    public void testNullValues() {
+        List<SearchableAttributeValue> existing = Arrays.asList(longValue("1", "count", null));
+        SearchableAttributeValueChanges changes = new SearchableAttributeValueChanges();
+        changes.addChanges(existing, Arrays.asList(longValue(null, "count", null)));
+        assertTrue(changes.isEmpty());
+
+        changes = new SearchableAttributeValueChanges();
+        changes.addChanges(existing, Arrays.asList(longValue(null, "count", 0L)));
+        assertEquals(1, changes.getUpdates().size());
+    }
+
+    @Test
+    public void testFingerprintDependsOnValues() {
+        String fingerprint = SearchableAttributeValueChanges.fingerprint(Arrays.asList(
+                string("1", "title", "Budget"), longValue("2", "count", 5L)));
+        assertEquals(fingerprint, SearchableAttributeValueChanges.fingerprint(Arrays.asList(
+                longValue("3", "count", 5L), string("4", "title", "Budget"), string("5", "title", "Budget"))));
+        assertFalse(fingerprint.equals(SearchableAttributeValueChanges.fingerprint(Arrays.asList(
+                string("1", "title", "Budget"), longValue("2", "count", 6L)))));
+        assertFalse(fingerprint.equals(SearchableAttributeValueChanges.fingerprint(
+                new ArrayList<SearchableAttributeValue>())));
+    }
+
+    private static SearchableAttributeValue string(String id, String key, String value) {
+        SearchableAttributeStringValue attributeValue = new SearchableAttributeStringValue();
+        attributeValue.setSearchableAttributeValue(value);
+        return initialize(attributeValue, id, key);
+    }
+
+    private static SearchableAttributeValue decimal(String id, String key, BigDecimal value) {
+        SearchableAttributeFloatValue attributeValue = new SearchableAttributeFloatValue();
+        attributeValue.setSearchableAttributeValue(value);
+        return initialize(attributeValue, id, key);
+    }
+
+    private static SearchableAttributeValue dateTime(String id, String key, Timestamp value) {
+        SearchableAttributeDateTimeValue attributeValue = new SearchableAttributeDateTimeValue();
+        attributeValue.setSearchableAttributeValue(value);
+        return initialize(attributeValue, id, key);
+    }
+
+    private static SearchableAttributeValue longValue(String id, String key, Long value) {
+        SearchableAttributeLongValue attributeValue = new SearchableAttributeLongValue();
+        attributeValue.setSearchableAttributeValue(value);
+        return initialize(attributeValue, id, key);
+    }
+
+    private static SearchableAttributeValue initialize(SearchableAttributeValue attributeValue, String id, String key) {
+        attributeValue.setSearchableAttributeValueId(id);
+        attributeValue.setDocumentId("1234");
+        attributeValue.setSearchableAttributeKey(key);
+        return attributeValue;
+    }
+
+}
@@ -103,6 +103,10 @@ public class DocSearchSavingTest {
         public List<UserOptions> retrieveEmailPreferenceUserOptions(String emailSetting) {
             return null;
         }
+
+        public List<UserOptions> findByOptionValue(String optionId, String optionValue) {
+            return null;
+        }
     }
 
     private class MockDocumentSearchService extends DocumentSearchServiceImpl {
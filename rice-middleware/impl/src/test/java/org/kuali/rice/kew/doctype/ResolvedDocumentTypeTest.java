@@ -0,0 +1,266 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.doctype;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.CoreConstants;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.resourceloader.GlobalResourceLoaderTestUtils;
+import org.kuali.rice.core.impl.config.property.JAXBConfigImpl;
+import org.kuali.rice.kew.api.KewApiConstants;
+import org.kuali.rice.kew.doctype.bo.DocumentType;
+import org.kuali.rice.kew.engine.node.ProcessDefinitionBo;
+import org.kuali.rice.kew.rule.bo.RuleAttribute;
+import org.kuali.rice.krad.service.KRADServiceLocatorWeb;
+import org.kuali.rice.krad.service.LegacyDataAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that a {@link ResolvedDocumentType} resolves inherited values the same way as the {@link DocumentType} business
+ * object does.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ResolvedDocumentTypeTest {
+
+    private static final String SECURITY_XML = "<documentTypeSecurity active=\"true\"><initiator>true</initiator>"
+            + "</documentTypeSecurity>";
+
+    /**
+     * The hierarchy from the root down to the leaf document type.
+     */
+    private List<DocumentType> hierarchy;
+
+    @Before
+    public void setUp() {
+        JAXBConfigImpl config = new JAXBConfigImpl();
+        config.putProperty(CoreConstants.Config.APPLICATION_ID, "APPID");
+        ConfigContext.init(config);
+        // the document type business object checks its parents through the legacy data adapter
+        GlobalResourceLoaderTestUtils.addMockService(KRADServiceLocatorWeb.LEGACY_DATA_ADAPTER, mock(
+                LegacyDataAdapter.class));
+
+        hierarchy = new ArrayList<DocumentType>();
+        DocumentType root = newDocumentType("1", null);
+        root.setUnresolvedDocHandlerUrl("http://localhost/root/handler");
+        root.setPostProcessorName(KewApiConstants.POST_PROCESSOR_NON_DEFINED_VALUE);
+        root.setDocumentTypeSecurityXml(SECURITY_XML);
+        root.getDocumentTypePolicies().add(newPolicy(root, org.kuali.rice.kew.api.doctype.DocumentTypePolicy
+                .DEFAULT_APPROVE, Boolean.FALSE, null));
+        root.getDocumentTypePolicies().add(newPolicy(root, org.kuali.rice.kew.api.doctype.DocumentTypePolicy
+                .DOCUMENT_STATUS_POLICY, Boolean.TRUE, KewApiConstants.DOCUMENT_STATUS_POLICY_BOTH));
+        root.getDocumentTypeAttributes().add(newAttribute(KewApiConstants.SEARCHABLE_ATTRIBUTE_TYPE));
+        ApplicationDocumentStatus status = new ApplicationDocumentStatus();
+        status.setStatusName("Submitted");
+        root.setValidApplicationStatuses(Collections.singletonList(status));
+        ProcessDefinitionBo process = new ProcessDefinitionBo();
+        process.setName("PRIMARY");
+        process.setInitial(true);
+        root.addProcess(process);
+
+        DocumentType level4 = newDocumentType("2", root);
+        level4.setActualApplicationId("LEVEL4");
+        level4.getDocumentTypePolicies().add(newPolicy(level4, org.kuali.rice.kew.api.doctype.DocumentTypePolicy
+                .LOOK_FUTURE, null, null));
+
+        DocumentType level3 = newDocumentType("3", level4);
+        level3.setAuthorizer("org.kuali.rice.kew.doctype.TestAuthorizer");
+
+        DocumentType level2 = newDocumentType("4", level3);
+        level2.getDocumentTypeAttributes().add(newAttribute(KewApiConstants.ACTION_LIST_ATTRIBUTE_TYPE));
+        level2.getDocumentTypePolicies().add(newPolicy(level2, org.kuali.rice.kew.api.doctype.DocumentTypePolicy
+                .DOC_SEARCH_TARGET, null, "_top"));
+
+        DocumentType level1 = newDocumentType("5", level2);
+        level1.getDocumentTypePolicies().add(newPolicy(level1, org.kuali.rice.kew.api.doctype.DocumentTypePolicy
+                .DEFAULT_APPROVE, Boolean.TRUE, null));
+        level1.setDocumentTypeSecurityXml(SECURITY_XML);
+
+        DocumentType leaf = newDocumentType("6", level1);
+        leaf.setUnresolvedDocHandlerUrl("http://localhost/leaf/handler");
+        hierarchy.add(root);
+        hierarchy.add(level4);
+        hierarchy.add(level3);
+        hierarchy.add(level2);
+        hierarchy.add(level1);
+        hierarchy.add(leaf);
+    }
+
+    @After
+    public void tearDown() {
+        ConfigContext.destroy();
+    }
+
+    @Test
+    public void testResolvesLikeDocumentType() {
+        for (DocumentType documentType : hierarchy) {
+            ResolvedDocumentType resolved = ResolvedDocumentType.resolve(documentType);
+            String name = documentType.getName();
+            assertSame(documentType, resolved.getDocumentType());
+            assertEquals(name, documentType.getApplicationId(), resolved.getApplicationId());
+            assertEquals(name, documentType.getResolvedDocumentHandlerUrl(), resolved.getResolvedDocumentHandlerUrl());
+            assertEquals(name, documentType.getAuthorizer(), resolved.getAuthorizer());
+            assertEquals(name, documentType.isDocTypeActive(), resolved.isDocTypeActive());
+            assertEquals(name, documentType.isKEWStatusInUse(), resolved.isKEWStatusInUse());
+            assertEquals(name, documentType.isAppDocStatusInUse(), resolved.isAppDocStatusInUse());
+            assertEquals(name, documentType.areBothStatusesInUse(), resolved.areBothStatusesInUse());
+            assertEquals(name, documentType.getSearchableAttributes(), resolved.getSearchableAttributes());
+            assertEquals(name, documentType.getCustomActionListRuleAttribute(),
+                    resolved.getCustomActionListRuleAttribute());
+            assertEquals(name, documentType.getCustomizerAttribute(), resolved.getCustomizerAttribute());
+            assertEquals(name, documentType.getValidApplicationStatuses(), resolved.getValidApplicationStatuses());
+            assertEquals(name, documentType.getApplicationStatusCategories(),
+                    resolved.getApplicationStatusCategories());
+            assertEquals(name, documentType.isRouteInherited(), resolved.isRouteInherited());
+            assertSame(name, documentType.getRouteDefiningDocumentType(), resolved.getRouteDefiningDocumentType());
+            assertEquals(name, documentType.getProcesses(), resolved.getProcesses());
+            assertEquals(name, documentType.getPostProcessor().getClass(), resolved.getPostProcessor().getClass());
+            assertEquals(name, documentType.getDocumentTypeSecurity().getInitiatorOk(),
+                    resolved.getDocumentTypeSecurity().getInitiatorOk());
+
+            for (org.kuali.rice.kew.api.doctype.DocumentTypePolicy policy :
+                    org.kuali.rice.kew.api.doctype.DocumentTypePolicy.values()) {
+                assertEquals(name + " " + policy, documentType.isPolicyDefined(policy),
+                        resolved.isPolicyDefined(policy));
+                assertPolicyEquals(documentType.getPolicyByName(policy.getCode(), Boolean.FALSE),
+                        resolved.getPolicyByName(policy.getCode(), Boolean.FALSE));
+                assertPolicyEquals(documentType.getPolicyByName(policy.getCode(), "default"),
+                        resolved.getPolicyByName(policy.getCode(), "default"));
+            }
+        }
+    }
+
+    @Test
+    public void testResolvedValues() {
+        ResolvedDocumentType leaf = ResolvedDocumentType.resolve(hierarchy.get(5));
+        assertEquals("LEVEL4", leaf.getApplicationId());
+        assertEquals("http://localhost/leaf/handler", leaf.getResolvedDocumentHandlerUrl());
+        assertTrue(leaf.getDefaultApprovePolicy().getInheritedFlag());
+        assertTrue(leaf.getDefaultApprovePolicy().getPolicyValue());
+        assertEquals("_top", leaf.getDocSearchTarget().getPolicyStringValue());
+        assertTrue(leaf.getDocSearchTarget().getInheritedFlag());
+        assertTrue(leaf.getDocSearchTarget().getPolicyValue());
+        assertSame(hierarchy.get(0), leaf.getRouteDefiningDocumentType());
+        assertEquals(1, leaf.getSearchableAttributes().size());
+
+        ResolvedDocumentType root = ResolvedDocumentType.resolve(hierarchy.get(0));
+        assertEquals("APPID", root.getApplicationId());
+        assertFalse(root.getDefaultApprovePolicy().getPolicyValue());
+        assertNull(root.getCustomActionListRuleAttribute());
+    }
+
+    @Test
+    public void testPoliciesAreCopies() {
+        ResolvedDocumentType leaf = ResolvedDocumentType.resolve(hierarchy.get(5));
+        DocumentTypePolicy policy = leaf.getDefaultApprovePolicy();
+        policy.setPolicyValue(Boolean.FALSE);
+        policy.setInheritedFlag(Boolean.FALSE);
+        assertTrue(leaf.getDefaultApprovePolicy().getPolicyValue());
+        assertTrue(leaf.getDefaultApprovePolicy().getInheritedFlag());
+        assertNotSame(leaf.getDefaultApprovePolicy(), leaf.getDefaultApprovePolicy());
+    }
+
+    @Test
+    public void testInactiveParent() {
+        hierarchy.get(2).setActive(Boolean.FALSE);
+        assertFalse(ResolvedDocumentType.resolve(hierarchy.get(5)).isDocTypeActive());
+        assertTrue(ResolvedDocumentType.resolve(hierarchy.get(1)).isDocTypeActive());
+    }
+
+    /**
+     * Checks the values the engine and action list read for every action against the document type business object,
+     * including policy lookups without a default value.
+     */
+    @Test
+    public void testEngineReadsMatchDocumentType() {
+        for (DocumentType documentType : hierarchy) {
+            ResolvedDocumentType resolved = ResolvedDocumentType.resolve(documentType);
+            String name = documentType.getName();
+            assertPolicyEquals(documentType.getDefaultApprovePolicy(), resolved.getDefaultApprovePolicy());
+            assertPolicyEquals(documentType.getEnrouteErrorSuppression(), resolved.getEnrouteErrorSuppression());
+            assertEquals(name, documentType.hasSearchableAttributes(), resolved.hasSearchableAttributes());
+            for (org.kuali.rice.kew.api.doctype.DocumentTypePolicy policy :
+                    org.kuali.rice.kew.api.doctype.DocumentTypePolicy.values()) {
+                assertPolicyEquals(documentType.getPolicyByName(policy.getCode(), (Boolean) null),
+                        resolved.getPolicyByName(policy.getCode(), (Boolean) null));
+                assertPolicyEquals(documentType.getPolicyByName(policy.getCode(), Boolean.TRUE),
+                        resolved.getPolicyByName(policy.getCode(), Boolean.TRUE));
+            }
+        }
+    }
+
+    private static void assertPolicyEquals(DocumentTypePolicy expected, DocumentTypePolicy actual) {
+        String name = expected.getPolicyName();
+        assertEquals(name, expected.getPolicyName(), actual.getPolicyName());
+        assertEquals(name, expected.getPolicyValue(), actual.getPolicyValue());
+        assertEquals(name, expected.getPolicyStringValue(), actual.getPolicyStringValue());
+        assertEquals(name, expected.getInheritedFlag(), actual.getInheritedFlag());
+    }
+
+    private static DocumentType newDocumentType(String documentTypeId, DocumentType parent) {
+        DocumentType documentType = new HierarchyDocumentType(parent);
+        documentType.setDocumentTypeId(documentTypeId);
+        documentType.setName("DocumentType" + documentTypeId);
+        documentType.setActive(Boolean.TRUE);
+        if (parent != null) {
+            documentType.setDocTypeParentId(parent.getDocumentTypeId());
+        }
+        return documentType;
+    }
+
+    private static DocumentTypePolicy newPolicy(DocumentType documentType,
+            org.kuali.rice.kew.api.doctype.DocumentTypePolicy policy, Boolean value, String stringValue) {
+        DocumentTypePolicy documentTypePolicy = new DocumentTypePolicy(documentType.getDocumentTypeId(),
+                policy.getCode(), value);
+        documentTypePolicy.setPolicyStringValue(stringValue);
+        return documentTypePolicy;
+    }
+
+    private static DocumentTypeAttributeBo newAttribute(String type) {
+        RuleAttribute ruleAttribute = new RuleAttribute();
+        ruleAttribute.setName(type + "Attribute");
+        ruleAttribute.setType(type);
+        DocumentTypeAttributeBo attribute = new DocumentTypeAttributeBo();
+        attribute.setRuleAttribute(ruleAttribute);
+        return attribute;
+    }
+
+    /**
+     * A document type which holds its parent rather than looking it up through the document type service.
+     */
+    private static final class HierarchyDocumentType extends DocumentType {
+
+        private final DocumentType parent;
+
+        HierarchyDocumentType(DocumentType parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public DocumentType getParentDocType() {
+            return parent;
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.attribute;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the partition planning and checkpointing of {@link DocumentAttributeReindexDAOJdbcImpl} against an in memory
+ * database.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DocumentAttributeReindexDAOJdbcImplTest {
+
+    private static final String[] CREATE_TABLE_SQL = {
+            "create table KREW_DOC_TYP_T (DOC_TYP_ID varchar(40), DOC_TYP_NM varchar(64))",
+            "create table KREW_DOC_HDR_T (DOC_HDR_ID varchar(40), DOC_TYP_ID varchar(40))",
+            "create table KREW_REIDX_PRTN_T (REIDX_ID varchar(40) not null, PRTN_NBR decimal(10) not null, "
+                    + "DOC_TYP_NM varchar(64) not null, FRM_DOC_HDR_ID varchar(40) not null, "
+                    + "TO_DOC_HDR_ID varchar(40) not null, LAST_DOC_HDR_ID varchar(40), STAT_CD varchar(1) not null, "
+                    + "DOC_CNT decimal(10) default 0 not null, LAST_UPDT_DT timestamp not null, "
+                    + "primary key (REIDX_ID, PRTN_NBR))"
+    };
+
+    private static SingleConnectionDataSource dataSource;
+    private static DocumentAttributeReindexDAOJdbcImpl dao;
+
+    @BeforeClass
+    public static void createFixture() throws Exception {
+        dataSource = new SingleConnectionDataSource("jdbc:hsqldb:mem:reindex", "SA", "", true);
+        dataSource.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        for (String sql : CREATE_TABLE_SQL) {
+            template.execute(sql);
+        }
+        // two versions of the same document type, and another type whose documents must not be picked up
+        template.update("insert into KREW_DOC_TYP_T values ('1', 'Budget')");
+        template.update("insert into KREW_DOC_TYP_T values ('2', 'Budget')");
+        template.update("insert into KREW_DOC_TYP_T values ('3', 'Travel')");
+        for (int documentId = 1001; documentId <= 1007; documentId++) {
+            template.update("insert into KREW_DOC_HDR_T values (?, ?)", String.valueOf(documentId),
+                    documentId <= 1003 ? "1" : "2");
+            template.update("insert into KREW_DOC_HDR_T values (?, '3')", String.valueOf(documentId + 1000));
+        }
+        dao = new DocumentAttributeReindexDAOJdbcImpl();
+        dao.setDataSource(dataSource);
+    }
+
+    @AfterClass
+    public static void destroyFixture() {
+        new JdbcTemplate(dataSource).execute("shutdown");
+        dataSource.destroy();
+    }
+
+    @Test
+    public void testPlanPartitions() {
+        List<DocumentAttributeReindexPartition> partitions = dao.planPartitions("plan", "Budget", 3, 5);
+        assertEquals(3, partitions.size());
+        assertPartition(partitions.get(0), 5, "1001", "1003");
+        assertPartition(partitions.get(1), 6, "1004", "1006");
+        assertPartition(partitions.get(2), 7, "1007", "1007");
+        for (DocumentAttributeReindexPartition partition : partitions) {
+            assertEquals("plan", partition.getReindexId());
+            assertEquals("Budget", partition.getDocumentTypeName());
+            assertEquals(DocumentAttributeReindexPartition.Status.PENDING, partition.getStatus());
+            assertNull(partition.getLastDocumentId());
+            assertEquals(0, partition.getDocumentCount());
+        }
+
+        assertEquals(1, dao.planPartitions("plan", "Budget", 7, 1).size());
+        assertTrue(dao.planPartitions("plan", "Unknown", 3, 1).isEmpty());
+        assertTrue(dao.findPartitions("plan").isEmpty());
+    }
+
+    @Test
+    public void testRemainingDocumentIdsAndCheckpoints() {
+        List<DocumentAttributeReindexPartition> partitions = dao.planPartitions("checkpoint", "Budget", 5, 1);
+        dao.savePartitions(partitions);
+        DocumentAttributeReindexPartition partition = partitions.get(0);
+        assertEquals(Arrays.asList("1001", "1002"), dao.findRemainingDocumentIds(partition, 2));
+
+        partition = partition.advance("1002", 2);
+        dao.updatePartition(partition);
+        assertEquals(Arrays.asList("1003", "1004", "1005"), dao.findRemainingDocumentIds(partition, 10));
+        partition = partition.advance("1005", 3);
+        dao.updatePartition(partition);
+        assertEquals(Collections.<String>emptyList(), dao.findRemainingDocumentIds(partition, 10));
+        dao.updatePartition(partition.withStatus(DocumentAttributeReindexPartition.Status.COMPLETE));
+        dao.updatePartition(partitions.get(1).withStatus(DocumentAttributeReindexPartition.Status.FAILED));
+
+        List<DocumentAttributeReindexPartition> saved = dao.findPartitions("checkpoint");
+        assertEquals(2, saved.size());
+        assertPartition(saved.get(0), 1, "1001", "1005");
+        assertEquals("1005", saved.get(0).getLastDocumentId());
+        assertEquals(5, saved.get(0).getDocumentCount());
+        assertEquals(DocumentAttributeReindexPartition.Status.COMPLETE, saved.get(0).getStatus());
+        assertPartition(saved.get(1), 2, "1006", "1007");
+        assertEquals(DocumentAttributeReindexPartition.Status.FAILED, saved.get(1).getStatus());
+
+        DocumentAttributeReindexProgress progress = new DocumentAttributeReindexProgress("checkpoint", saved, false,
+                5, 2000);
+        assertEquals(2, progress.getPartitionCount());
+        assertEquals(1, progress.getCompletedPartitionCount());
+        assertEquals(1, progress.getFailedPartitionCount());
+        assertEquals(5, progress.getDocumentCount());
+        assertFalse(progress.isComplete());
+        assertEquals(2.5, progress.getDocumentsPerSecond(), 0.001);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUpdateUnknownPartition() {
+        dao.updatePartition(new DocumentAttributeReindexPartition("unknown", 1, "Budget", "1001", "1007", "1001",
+                DocumentAttributeReindexPartition.Status.COMPLETE, 1));
+    }
+
+    private static void assertPartition(DocumentAttributeReindexPartition partition, int partitionNumber,
+            String fromDocumentId, String toDocumentId) {
+        assertEquals(partitionNumber, partition.getPartitionNumber());
+        assertEquals(fromDocumentId, partition.getFromDocumentId());
+        assertEquals(toDocumentId, partition.getToDocumentId());
+    }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.search;
+
+import org.junit.Test;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
+
+import java.sql.Timestamp;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link DocumentSearchContinuationToken}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DocumentSearchContinuationTokenTest {
+
+    @Test
+    public void testRoundTrip() {
+        Timestamp dateCreated = Timestamp.valueOf("2015-03-04 05:06:07.123456789");
+        String token = new DocumentSearchContinuationToken(dateCreated, "4|5").encode();
+        DocumentSearchContinuationToken decoded = DocumentSearchContinuationToken.decode(token);
+        assertEquals(dateCreated, decoded.getDateCreated());
+        assertEquals("4|5", decoded.getDocumentId());
+    }
+
+    @Test(expected = RiceIllegalArgumentException.class)
+    public void testMalformedToken() {
+        DocumentSearchContinuationToken.decode("not a token");
+    }
+
+    @Test(expected = RiceIllegalArgumentException.class)
+    public void testInvalidDate() throws Exception {
+        DocumentSearchContinuationToken.decode(javax.xml.bind.DatatypeConverter.printBase64Binary(
+                "1|yesterday|1234".getBytes("UTF-8")));
+    }
+
+}
@@ -0,0 +1,362 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.search;
+
+import org.joda.time.DateTime;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kuali.rice.core.api.data.DataType;
+import org.kuali.rice.core.api.datetime.DateTimeService;
+import org.kuali.rice.core.api.uif.RemotableAttributeField;
+import org.kuali.rice.core.framework.persistence.jdbc.sql.ParameterizedSql;
+import org.kuali.rice.core.framework.persistence.jdbc.sql.SqlBuilder;
+import org.kuali.rice.core.framework.persistence.platform.DatabasePlatform;
+import org.kuali.rice.core.framework.persistence.platform.MySQLDatabasePlatform;
+import org.kuali.rice.core.framework.persistence.platform.OracleDatabasePlatform;
+import org.kuali.rice.kew.api.document.DocumentStatus;
+import org.kuali.rice.kew.api.document.search.DocumentSearchCriteria;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the parameterized sql generated by {@link DocumentSearchGeneratorImpl} for each database platform, by executing
+ * it against an in-memory database.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DocumentSearchGeneratorImplSqlTest {
+
+    private static final String[] CREATE_TABLE_SQL = {
+            "create table KREW_DOC_TYP_T (DOC_TYP_ID varchar(40), DOC_TYP_NM varchar(64), LBL varchar(128), "
+                    + "DOC_HDLR_URL varchar(255), ACTV_IND numeric(1))",
+            "create table KREW_DOC_HDR_T (DOC_HDR_ID varchar(40), DOC_TYP_ID varchar(40), INITR_PRNCPL_ID varchar(40), "
+                    + "DOC_HDR_STAT_CD char(1), CRTE_DT timestamp, TTL varchar(255), APP_DOC_STAT varchar(64), "
+                    + "STAT_MDFN_DT timestamp, APRV_DT timestamp, FNL_DT timestamp, APP_DOC_ID varchar(255), "
+                    + "RTE_PRNCPL_ID varchar(40), APP_DOC_STAT_MDFN_DT timestamp)",
+            "create table KREW_DOC_HDR_EXT_T (DOC_HDR_ID varchar(40), KEY_CD varchar(256), VAL varchar(2000))",
+            "create table KREW_DOC_HDR_EXT_LONG_T (DOC_HDR_ID varchar(40), KEY_CD varchar(256), VAL numeric(22))",
+            "create table KREW_DOC_HDR_EXT_DT_T (DOC_HDR_ID varchar(40), KEY_CD varchar(256), VAL timestamp)",
+            "insert into KREW_DOC_TYP_T values ('1', 'TestDocumentType', 'Test', null, 1)"
+    };
+
+    private static final String DATE_FORMAT = "MM/dd/yyyy";
+    private static final String DATE_TIME_FORMAT = "MM/dd/yyyy HH:mm:ss";
+
+    private static final List<DatabasePlatform> PLATFORMS = Arrays.<DatabasePlatform>asList(
+            new OracleDatabasePlatform(), new MySQLDatabasePlatform());
+
+    private static Connection connection;
+
+    @BeforeClass
+    public static void createFixture() throws Exception {
+        Class.forName("org.hsqldb.jdbc.JDBCDriver");
+        connection = DriverManager.getConnection("jdbc:hsqldb:mem:docsearchsql", "SA", "");
+        Statement statement = connection.createStatement();
+        try {
+            for (String sql : CREATE_TABLE_SQL) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+        insertDocument("1", "O'Brien's report", "F", "2015-01-02 10:00:00", "Approved");
+        insertDocument("2", "C:\\temp\\report", "R", "2015-01-03 10:00:00", "In Review");
+        insertDocument("3", "100% done", "F", "2015-01-04 10:00:00", "Approved");
+        insertDocument("4", "100 percent done", "I", "2015-01-05 10:00:00", null);
+        insertDocument("5", "report_5", "F", "2015-01-03 12:00:00", "Approved");
+        insertAttribute("KREW_DOC_HDR_EXT_T", "1", "color", "red");
+        insertAttribute("KREW_DOC_HDR_EXT_T", "2", "color", "blue");
+        insertAttribute("KREW_DOC_HDR_EXT_T", "3", "color", "green");
+        insertAttribute("KREW_DOC_HDR_EXT_LONG_T", "1", "amount", Long.valueOf(5));
+        insertAttribute("KREW_DOC_HDR_EXT_LONG_T", "2", "amount", Long.valueOf(50));
+        insertAttribute("KREW_DOC_HDR_EXT_DT_T", "1", "due", Timestamp.valueOf("2015-03-01 00:00:00"));
+        insertAttribute("KREW_DOC_HDR_EXT_DT_T", "2", "due", Timestamp.valueOf("2015-01-15 00:00:00"));
+    }
+
+    @AfterClass
+    public static void destroyFixture() throws Exception {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("shutdown");
+        } finally {
+            statement.close();
+            connection.close();
+        }
+    }
+
+    private static void insertDocument(String documentId, String title, String status, String dateCreated,
+            String applicationDocumentStatus) throws Exception {
+        PreparedStatement insert = connection.prepareStatement("insert into KREW_DOC_HDR_T (DOC_HDR_ID, DOC_TYP_ID, "
+                + "INITR_PRNCPL_ID, DOC_HDR_STAT_CD, CRTE_DT, TTL, APP_DOC_STAT) values (?, '1', 'admin', ?, ?, ?, ?)");
+        try {
+            insert.setString(1, documentId);
+            insert.setString(2, status);
+            insert.setTimestamp(3, Timestamp.valueOf(dateCreated));
+            insert.setString(4, title);
+            insert.setString(5, applicationDocumentStatus);
+            insert.executeUpdate();
+        } finally {
+            insert.close();
+        }
+    }
+
+    private static void insertAttribute(String tableName, String documentId, String key, Object value)
+            throws Exception {
+        PreparedStatement insert = connection.prepareStatement("insert into " + tableName + " values (?, ?, ?)");
+        try {
+            insert.setString(1, documentId);
+            insert.setString(2, key);
+            insert.setObject(3, value);
+            insert.executeUpdate();
+        } finally {
+            insert.close();
+        }
+    }
+
+    @Test
+    public void testQuotes() throws Exception {
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setTitle("o'brien's*");
+        for (DatabasePlatform platform : PLATFORMS) {
+            ParameterizedSql sql = generate(platform, criteria);
+            assertTrue(sql.getParameters().contains("O'BRIEN'S%"));
+            assertFalse(sql.getSql().contains("BRIEN"));
+            assertEquals(Arrays.asList("1"), search(sql));
+        }
+    }
+
+    @Test
+    public void testBackslashes() throws Exception {
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setTitle("c:\\temp\\*");
+        for (DatabasePlatform platform : PLATFORMS) {
+            ParameterizedSql sql = generate(platform, criteria);
+            assertTrue("backslashes are bound as they are on every platform",
+                    sql.getParameters().contains("C:\\TEMP\\%"));
+            assertEquals(Arrays.asList("2"), search(sql));
+        }
+    }
+
+    @Test
+    public void testLikeWildcards() throws Exception {
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setTitle("report?5");
+        for (DatabasePlatform platform : PLATFORMS) {
+            ParameterizedSql sql = generate(platform, criteria);
+            assertTrue(sql.getParameters().contains("REPORT_5"));
+            assertEquals(Arrays.asList("5"), search(sql));
+        }
+
+        // the initiated document is excluded by default
+        criteria.setTitle("*done");
+        for (DatabasePlatform platform : PLATFORMS) {
+            assertEquals(Arrays.asList("3"), search(generate(platform, criteria)));
+        }
+    }
+
+    @Test
+    public void testDates() throws Exception {
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setDateCreatedFrom(new DateTime(2015, 1, 3, 0, 0, 0, 0));
+        criteria.setDateCreatedTo(new DateTime(2015, 1, 3, 0, 0, 0, 0));
+        for (DatabasePlatform platform : PLATFORMS) {
+            ParameterizedSql sql = generate(platform, criteria);
+            assertTrue(sql.getParameters().contains(Timestamp.valueOf("2015-01-03 00:00:00")));
+            assertTrue(sql.getParameters().contains(Timestamp.valueOf("2015-01-03 23:59:59")));
+            assertFalse(sql.getSql().contains("2015"));
+            assertEquals(Arrays.asList("5", "2"), search(sql));
+        }
+
+        criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setDocumentAttributeValues(attributeValues("due", ">=02/01/2015"));
+        for (DatabasePlatform platform : PLATFORMS) {
+            assertEquals(Arrays.asList("1"), search(generate(platform, criteria)));
+        }
+    }
+
+    @Test
+    public void testInLists() throws Exception {
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setDocumentStatuses(Arrays.asList(DocumentStatus.FINAL, DocumentStatus.ENROUTE));
+        criteria.setApplicationDocumentStatuses(Arrays.asList("Approved", "In Review"));
+        criteria.setDocumentAttributeValues(attributeValues("color", "red", "blue"));
+        for (DatabasePlatform platform : PLATFORMS) {
+            ParameterizedSql sql = generate(platform, criteria);
+            assertTrue(sql.getSql().contains("DOC_HDR.DOC_HDR_STAT_CD in (?, ?)"));
+            assertFalse(sql.getSql().contains("In Review"));
+            assertEquals(Arrays.asList("2", "1"), search(sql));
+        }
+
+        criteria.setDocumentAttributeValues(attributeValues("amount", ">=10"));
+        for (DatabasePlatform platform : PLATFORMS) {
+            assertEquals(Arrays.asList("2"), search(generate(platform, criteria)));
+        }
+    }
+
+    @Test
+    public void testContinuation() throws Exception {
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setPageSize(2);
+        criteria.setContinuationToken(new DocumentSearchContinuationToken(Timestamp.valueOf("2015-01-03 12:00:00"),
+                "5").encode());
+        for (DatabasePlatform platform : PLATFORMS) {
+            assertEquals(Arrays.asList("2", "1"), search(generate(platform, criteria)));
+        }
+    }
+
+    @Test
+    public void testSameShapeSharesSql() {
+        DocumentSearchCriteria.Builder first = DocumentSearchCriteria.Builder.create();
+        first.setTitle("one");
+        first.setDocumentAttributeValues(attributeValues("color", "red"));
+        DocumentSearchCriteria.Builder second = DocumentSearchCriteria.Builder.create();
+        second.setTitle("it's two");
+        second.setDocumentAttributeValues(attributeValues("color", "blue"));
+        for (DatabasePlatform platform : PLATFORMS) {
+            ParameterizedSql firstSql = generate(platform, first);
+            ParameterizedSql secondSql = generate(platform, second);
+            assertEquals(firstSql.getSql(), secondSql.getSql());
+            assertFalse(firstSql.getParameters().equals(secondSql.getParameters()));
+        }
+    }
+
+    @Test
+    public void testLiteralSqlUnchanged() {
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setTitle("o'brien");
+        criteria.setApplicationDocumentStatuses(Arrays.asList("Approved"));
+        DocumentSearchGeneratorImpl generator = createGenerator(new OracleDatabasePlatform());
+        String sql = generator.generateSearchSql(criteria.build(), searchFields());
+        assertTrue(sql, sql.contains("UPPER(DOC_HDR.TTL) LIKE  'O''"));
+        assertTrue(sql, sql.contains("DOC_HDR.APP_DOC_STAT IN ('Approved')"));
+        assertFalse(sql.contains("?"));
+    }
+
+    @Test
+    public void testOverriddenSearchSqlIsNotBound() {
+        DocumentSearchGeneratorImpl generator = new DocumentSearchGeneratorImpl() {
+            @Override
+            public String generateSearchSql(DocumentSearchCriteria criteria,
+                    List<RemotableAttributeField> searchFields) {
+                return "select * from KREW_DOC_HDR_T where TTL = '" + criteria.getTitle() + "'";
+            }
+        };
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setTitle("custom");
+        ParameterizedSql sql = generator.generateParameterizedSearchSql(criteria.build(), searchFields());
+        assertEquals("select * from KREW_DOC_HDR_T where TTL = 'custom'", sql.getSql());
+        assertTrue(sql.getParameters().isEmpty());
+    }
+
+    private ParameterizedSql generate(DatabasePlatform platform, DocumentSearchCriteria.Builder criteria) {
+        return createGenerator(platform).generateParameterizedSearchSql(criteria.build(), searchFields());
+    }
+
+    private List<String> search(ParameterizedSql sql) throws Exception {
+        List<String> documentIds = new ArrayList<String>();
+        PreparedStatement statement = connection.prepareStatement(sql.getSql());
+        try {
+            sql.bind(statement);
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                documentIds.add(resultSet.getString("DOC_HDR_ID"));
+            }
+        } finally {
+            statement.close();
+        }
+        return documentIds;
+    }
+
+    private static Map<String, List<String>> attributeValues(String name, String... values) {
+        Map<String, List<String>> attributeValues = new HashMap<String, List<String>>();
+        attributeValues.put(name, Arrays.asList(values));
+        return attributeValues;
+    }
+
+    private static List<RemotableAttributeField> searchFields() {
+        return Arrays.asList(searchField("color", DataType.STRING), searchField("amount", DataType.LONG),
+                searchField("due", DataType.DATE));
+    }
+
+    private static RemotableAttributeField searchField(String name, DataType dataType) {
+        RemotableAttributeField.Builder field = RemotableAttributeField.Builder.create(name);
+        field.setDataType(dataType);
+        return field.build();
+    }
+
+    private static DocumentSearchGeneratorImpl createGenerator(final DatabasePlatform platform) {
+        final DateTimeService dateTimeService = createDateTimeService();
+        DocumentSearchGeneratorImpl generator = new DocumentSearchGeneratorImpl() {
+            @Override
+            public DatabasePlatform getDbPlatform() {
+                return platform;
+            }
+
+            @Override
+            protected DateTimeService getDateTimeService() {
+                return dateTimeService;
+            }
+        };
+        SqlBuilder sqlBuilder = new SqlBuilder();
+        sqlBuilder.setDbPlatform(platform);
+        sqlBuilder.setDateTimeService(dateTimeService);
+        generator.setSqlBuilder(sqlBuilder);
+        return generator;
+    }
+
+    private static DateTimeService createDateTimeService() {
+        DateTimeService dateTimeService = mock(DateTimeService.class);
+        try {
+            when(dateTimeService.toDateString(any(Date.class))).thenAnswer(new Answer<String>() {
+                @Override
+                public String answer(InvocationOnMock invocation) {
+                    return new SimpleDateFormat(DATE_FORMAT).format((Date) invocation.getArguments()[0]);
+                }
+            });
+            when(dateTimeService.convertToSqlTimestamp(anyString())).thenAnswer(new Answer<Timestamp>() {
+                @Override
+                public Timestamp answer(InvocationOnMock invocation) throws Exception {
+                    String value = ((String) invocation.getArguments()[0]).trim();
+                    String format = value.contains(":") ? DATE_TIME_FORMAT : DATE_FORMAT;
+                    return new Timestamp(new SimpleDateFormat(format).parse(value).getTime());
+                }
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return dateTimeService;
+    }
+
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.impl.document.search;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kuali.rice.kew.api.document.Document;
+import org.kuali.rice.kew.api.document.attribute.DocumentAttribute;
+import org.kuali.rice.kew.api.doctype.DocumentTypeService;
+import org.kuali.rice.kew.api.document.search.DocumentSearchCriteria;
+import org.kuali.rice.kew.api.document.search.DocumentSearchResult;
+import org.kuali.rice.kew.api.document.search.DocumentSearchResults;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the batched loading of searchable attribute values in {@link DocumentSearchGeneratorImpl} against an in-memory
+ * database, and counts the queries it issues compared with the legacy per-document loading.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DocumentSearchGeneratorImplTest {
+
+    private static final int DOCUMENT_COUNT = 2000;
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * Selects three documents with the columns of a document search result row.
+     */
+    private static final String RESULT_SQL = "select DOC_HDR_ID, 'admin' as INITR_PRNCPL_ID, "
+            + "'TestDocumentType' as DOC_TYP_NM, 'F' as DOC_HDR_STAT_CD, VAL as CRTE_DT, 'title' as TTL, "
+            + "cast(null as varchar(64)) as APP_DOC_STAT, VAL as APP_DOC_STAT_MDFN_DT, VAL as APRV_DT, VAL as FNL_DT, "
+            + "cast(null as varchar(255)) as APP_DOC_ID, VAL as STAT_MDFN_DT, 'admin' as RTE_PRNCPL_ID, "
+            + "cast(null as varchar(255)) as DOC_HDLR_URL from KREW_DOC_HDR_EXT_DT_T "
+            + "where DOC_HDR_ID in ('10', '11', '12') order by DOC_HDR_ID";
+
+    private static final String[] CREATE_TABLE_SQL = {
+            "create table KREW_DOC_HDR_EXT_T (DOC_HDR_EXT_ID varchar(40), DOC_HDR_ID varchar(40), KEY_CD varchar(256), VAL varchar(2000))",
+            "create table KREW_DOC_HDR_EXT_FLT_T (DOC_HDR_EXT_FLT_ID varchar(40), DOC_HDR_ID varchar(40), KEY_CD varchar(256), VAL numeric(30, 15))",
+            "create table KREW_DOC_HDR_EXT_LONG_T (DOC_HDR_EXT_LONG_ID varchar(40), DOC_HDR_ID varchar(40), KEY_CD varchar(256), VAL numeric(22))",
+            "create table KREW_DOC_HDR_EXT_DT_T (DOC_HDR_EXT_DT_ID varchar(40), DOC_HDR_ID varchar(40), KEY_CD varchar(256), VAL timestamp)",
+            "create index KREW_DOC_HDR_EXT_TI1 on KREW_DOC_HDR_EXT_T (DOC_HDR_ID)",
+            "create index KREW_DOC_HDR_EXT_FLT_TI1 on KREW_DOC_HDR_EXT_FLT_T (DOC_HDR_ID)",
+            "create index KREW_DOC_HDR_EXT_LONG_TI1 on KREW_DOC_HDR_EXT_LONG_T (DOC_HDR_ID)",
+            "create index KREW_DOC_HDR_EXT_DT_TI1 on KREW_DOC_HDR_EXT_DT_T (DOC_HDR_ID)"
+    };
+
+    private static Connection connection;
+
+    private DocumentSearchGeneratorImpl generator = new DocumentSearchGeneratorImpl();
+
+    @BeforeClass
+    public static void createFixture() throws Exception {
+        Class.forName("org.hsqldb.jdbc.JDBCDriver");
+        connection = DriverManager.getConnection("jdbc:hsqldb:mem:docsearch", "SA", "");
+        Statement statement = connection.createStatement();
+        try {
+            for (String sql : CREATE_TABLE_SQL) {
+                statement.execute(sql);
+            }
+        } finally {
+            statement.close();
+        }
+        populate("insert into KREW_DOC_HDR_EXT_T values (?, ?, 'string', ?)", 0);
+        populate("insert into KREW_DOC_HDR_EXT_FLT_T values (?, ?, 'float', ?)", 1);
+        populate("insert into KREW_DOC_HDR_EXT_LONG_T values (?, ?, 'long', ?)", 2);
+        populate("insert into KREW_DOC_HDR_EXT_DT_T values (?, ?, 'date', ?)", 3);
+    }
+
+    @AfterClass
+    public static void destroyFixture() throws Exception {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("shutdown");
+        } finally {
+            statement.close();
+            connection.close();
+        }
+    }
+
+    private static void populate(String sql, int type) throws Exception {
+        PreparedStatement insert = connection.prepareStatement(sql);
+        try {
+            for (int index = 0; index < DOCUMENT_COUNT; index++) {
+                insert.setString(1, String.valueOf(index));
+                insert.setString(2, String.valueOf(index));
+                switch (type) {
+                    case 0: insert.setString(3, "value" + index); break;
+                    case 1: insert.setBigDecimal(3, new BigDecimal(index + ".5")); break;
+                    case 2: insert.setLong(3, index); break;
+                    default: insert.setTimestamp(3, new Timestamp(1000L * index)); break;
+                }
+                insert.addBatch();
+                if (index % 1000 == 999 || index == DOCUMENT_COUNT - 1) {
+                    insert.executeBatch();
+                }
+            }
+        } finally {
+            insert.close();
+        }
+    }
+
+    private List<DocumentSearchResult.Builder> createPage(int firstDocumentId) {
+        List<DocumentSearchResult.Builder> page = new ArrayList<DocumentSearchResult.Builder>();
+        for (int index = firstDocumentId; index < firstDocumentId + PAGE_SIZE; index++) {
+            page.add(DocumentSearchResult.Builder.create(Document.Builder.create(String.valueOf(index), "admin",
+                    "TestDocumentType", "1")));
+        }
+        return page;
+    }
+
+    @Test
+    public void testBatchedAttributesMatchPerDocumentAttributes() throws Exception {
+        List<DocumentSearchResult.Builder> perDocument = createPage(1234);
+        List<DocumentSearchResult.Builder> batched = createPage(1234);
+        Statement statement = connection.createStatement();
+        try {
+            for (DocumentSearchResult.Builder resultBuilder : perDocument) {
+                generator.populateDocumentAttributesValues(resultBuilder, statement);
+            }
+            generator.populateDocumentAttributesValues(batched, statement);
+        } finally {
+            statement.close();
+        }
+
+        for (int index = 0; index < PAGE_SIZE; index++) {
+            Set<String> expected = describeAttributes(perDocument.get(index));
+            assertEquals(4, expected.size());
+            assertEquals(expected, describeAttributes(batched.get(index)));
+        }
+    }
+
+    @Test
+    public void testBatchedAttributesIgnoreUnknownDocuments() throws Exception {
+        List<DocumentSearchResult.Builder> page = new ArrayList<DocumentSearchResult.Builder>();
+        page.add(DocumentSearchResult.Builder.create(Document.Builder.create("-1", "admin", "TestDocumentType", "1")));
+        Statement statement = connection.createStatement();
+        try {
+            generator.populateDocumentAttributesValues(page, statement);
+            generator.populateDocumentAttributesValues(new ArrayList<DocumentSearchResult.Builder>(), statement);
+        } finally {
+            statement.close();
+        }
+        assertTrue(page.get(0).getDocumentAttributes().isEmpty());
+    }
+
+    @Test
+    public void testBatchedAttributeLoadingQueries() throws Exception {
+        QueryCounter counter = new QueryCounter();
+        Statement statement = counter.createStatement();
+        try {
+            for (DocumentSearchResult.Builder resultBuilder : createPage(0)) {
+                generator.populateDocumentAttributesValues(resultBuilder, statement);
+            }
+            assertEquals("one query per attribute table and document", 4 * PAGE_SIZE, counter.queries);
+
+            counter.queries = 0;
+            List<DocumentSearchResult.Builder> page = createPage(0);
+            page.addAll(createPage(PAGE_SIZE));
+            generator.populateDocumentAttributesValues(page, statement);
+            int batches = (2 * PAGE_SIZE + DocumentSearchGeneratorImpl.SEARCH_ATTRIBUTE_BATCH_SIZE - 1)
+                    / DocumentSearchGeneratorImpl.SEARCH_ATTRIBUTE_BATCH_SIZE;
+            assertEquals("one query per attribute table and batch", 4 * batches, counter.queries);
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Test
+    public void testProcessResultSetBatchesAttributesOfProcessedRows() throws Exception {
+        final List<String> processedDocumentIds = new ArrayList<String>();
+        generator = new DocumentSearchGeneratorImpl() {
+            @Override
+            protected DocumentSearchResult.Builder processRow(DocumentSearchCriteria criteria,
+                    Statement searchAttributeStatement, ResultSet rs) throws SQLException {
+                processedDocumentIds.add(rs.getString("DOC_HDR_ID"));
+                return super.processRow(criteria, searchAttributeStatement, rs);
+            }
+        };
+        generator.setApiDocumentTypeService(mock(DocumentTypeService.class));
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setDocumentTypeName("TestDocumentType");
+
+        QueryCounter counter = new QueryCounter();
+        Statement statement = counter.createStatement();
+        try {
+            ResultSet resultSet = connection.createStatement().executeQuery(RESULT_SQL);
+            counter.queries = 0;
+            DocumentSearchResults.Builder results = generator.processResultSet(criteria.build(), false, statement,
+                    resultSet, 100, 100);
+            assertEquals(Arrays.asList("10", "11", "12"), processedDocumentIds);
+            assertEquals(3, results.getSearchResults().size());
+            for (DocumentSearchResult.Builder result : results.getSearchResults()) {
+                assertEquals(4, describeAttributes(result).size());
+            }
+            assertEquals("the attributes of all rows should be loaded with one query per table", 4, counter.queries);
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Test
+    public void testProcessResultSetKeepsOverriddenProcessRow() throws Exception {
+        generator = new DocumentSearchGeneratorImpl() {
+            @Override
+            protected DocumentSearchResult.Builder processRow(DocumentSearchCriteria criteria,
+                    Statement searchAttributeStatement, ResultSet rs) throws SQLException {
+                return DocumentSearchResult.Builder.create(Document.Builder.create(rs.getString("DOC_HDR_ID"),
+                        "custom", "TestDocumentType", "1"));
+            }
+        };
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setDocumentTypeName("TestDocumentType");
+
+        QueryCounter counter = new QueryCounter();
+        Statement statement = counter.createStatement();
+        try {
+            ResultSet resultSet = connection.createStatement().executeQuery(RESULT_SQL);
+            counter.queries = 0;
+            DocumentSearchResults.Builder results = generator.processResultSet(criteria.build(), false, statement,
+                    resultSet, 100, 100);
+            assertEquals(3, results.getSearchResults().size());
+            for (DocumentSearchResult.Builder result : results.getSearchResults()) {
+                assertEquals("custom", result.getDocument().getInitiatorPrincipalId());
+                assertTrue(result.getDocumentAttributes().isEmpty());
+            }
+            assertEquals(0, counter.queries);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private Set<String> describeAttributes(DocumentSearchResult.Builder resultBuilder) {
+        Set<String> descriptions = new HashSet<String>();
+        for (DocumentAttribute.AbstractBuilder<?> attribute : resultBuilder.getDocumentAttributes()) {
+            descriptions.add(attribute.getName() + "=" + attribute.getValue());
+        }
+        return descriptions;
+    }
+
+    /**
+     * Hands out statements on a proxy of the connection which count the queries they execute.
+     */
+    private static final class QueryCounter implements InvocationHandler {
+
+        private int queries;
+
+        private Statement createStatement() throws SQLException {
+            Connection countingConnection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {Connection.class}, this);
+            return countingConnection.createStatement();
+        }
+
+        @Override
+        public Object invoke(Object connectionProxy, Method method, Object[] args) throws Throwable {
+            Object result = delegate(connection, method, args);
+            return (result instanceof Statement) ? countQueries((Statement) result, connectionProxy) : result;
+        }
+
+        private Statement countQueries(final Statement statement, final Object connectionProxy) {
+            Class<?> type = (statement instanceof PreparedStatement) ? PreparedStatement.class : Statement.class;
+            return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type},
+                    new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getName().equals("getConnection")) {
+                        return connectionProxy;
+                    }
+                    if (method.getName().startsWith("execute")) {
+                        queries++;
+                    }
+                    return delegate(statement, method, args);
+                }
+            });
+        }
+
+        private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+}
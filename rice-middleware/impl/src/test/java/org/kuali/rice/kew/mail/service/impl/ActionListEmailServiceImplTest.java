@@ -0,0 +1,151 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.mail.service.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.CoreConstants;
+import org.kuali.rice.core.api.config.module.RunMode;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.resourceloader.GlobalResourceLoaderTestUtils;
+import org.kuali.rice.core.impl.config.property.JAXBConfigImpl;
+import org.kuali.rice.kew.actionitem.ActionItem;
+import org.kuali.rice.kew.actionlist.service.ActionListService;
+import org.kuali.rice.kew.api.KewApiConstants;
+import org.kuali.rice.kew.service.KEWServiceLocator;
+import org.kuali.rice.kew.useroptions.UserOptions;
+import org.kuali.rice.kew.useroptions.UserOptionsService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the sending of the periodic reminders by the {@link ActionListEmailServiceImpl}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ActionListEmailServiceImplTest {
+
+    private UserOptionsService userOptionsService;
+    private ActionListService actionListService;
+    private TestActionListEmailService emailService;
+
+    @Before
+    public void setUp() {
+        userOptionsService = mock(UserOptionsService.class);
+        actionListService = mock(ActionListService.class);
+        GlobalResourceLoaderTestUtils.addMockService(KEWServiceLocator.USER_OPTIONS_SRV, userOptionsService);
+        JAXBConfigImpl config = new JAXBConfigImpl();
+        config.putProperty(CoreConstants.Config.APPLICATION_ID, "APPID");
+        config.putProperty(KEWServiceLocator.KEW_RUN_MODE_PROPERTY, RunMode.LOCAL.name());
+        ConfigContext.init(config);
+
+        emailService = new TestActionListEmailService();
+        emailService.setReminderThreads(3);
+        emailService.setReminderPartitionSize(2);
+    }
+
+    @After
+    public void tearDown() {
+        ConfigContext.destroy();
+    }
+
+    @Test
+    public void testSendPeriodicReminders() {
+        List<UserOptions> emailOptions = new ArrayList<UserOptions>();
+        Map<String, Collection<ActionItem>> actionLists = new HashMap<String, Collection<ActionItem>>();
+        for (int i = 1; i <= 7; i++) {
+            emailOptions.add(userOptions("user" + i, KewApiConstants.EMAIL_RMNDR_KEY, KewApiConstants.EMAIL_RMNDR_DAY_VAL));
+            if (i != 4) {
+                actionLists.put("user" + i, Collections.singletonList(new ActionItem()));
+            }
+        }
+        when(userOptionsService.retrieveEmailPreferenceUserOptions(KewApiConstants.EMAIL_RMNDR_DAY_VAL)).thenReturn(
+                emailOptions);
+        when(actionListService.getActionLists(anyCollectionOf(String.class))).thenReturn(actionLists);
+        // user2 was reminded before the job was interrupted
+        String period = emailService.getReminderPeriod(KewApiConstants.EMAIL_RMNDR_DAY_VAL, new Date());
+        when(userOptionsService.findByOptionValue("EMAIL_REMINDER_SENT." + KewApiConstants.EMAIL_RMNDR_DAY_VAL,
+                period)).thenReturn(Collections.singletonList(userOptions("user2", "EMAIL_REMINDER_SENT."
+                + KewApiConstants.EMAIL_RMNDR_DAY_VAL, period)));
+
+        emailService.sendDailyReminder();
+
+        assertEquals(new HashSet<String>(Arrays.asList("user1", "user3", "user5", "user6", "user7")),
+                emailService.remindedPrincipalIds);
+        verify(actionListService, times(3)).getActionLists(anyCollectionOf(String.class));
+        verify(userOptionsService).save("user5", "EMAIL_REMINDER_SENT." + KewApiConstants.EMAIL_RMNDR_DAY_VAL,
+                period);
+        verify(userOptionsService, never()).save(eq("user2"), anyString(), anyString());
+        verify(userOptionsService, never()).save(eq("user4"), anyString(), anyString());
+    }
+
+    @Test
+    public void testGetReminderPeriod() {
+        Date date = new Date();
+        assertFalse(emailService.getReminderPeriod(KewApiConstants.EMAIL_RMNDR_DAY_VAL, date).equals(
+                emailService.getReminderPeriod(KewApiConstants.EMAIL_RMNDR_WEEK_VAL, date)));
+        // a week later is another week
+        assertFalse(emailService.getReminderPeriod(KewApiConstants.EMAIL_RMNDR_WEEK_VAL, date).equals(
+                emailService.getReminderPeriod(KewApiConstants.EMAIL_RMNDR_WEEK_VAL, new Date(date.getTime()
+                        + 7L * 24 * 60 * 60 * 1000))));
+    }
+
+    private static UserOptions userOptions(String principalId, String optionId, String optionValue) {
+        UserOptions userOptions = new UserOptions();
+        userOptions.setWorkflowId(principalId);
+        userOptions.setOptionId(optionId);
+        userOptions.setOptionVal(optionValue);
+        return userOptions;
+    }
+
+    private class TestActionListEmailService extends ActionListEmailServiceImpl {
+
+        private final Set<String> remindedPrincipalIds = Collections.synchronizedSet(new HashSet<String>());
+
+        @Override
+        protected boolean sendActionListEmailNotification() {
+            return true;
+        }
+
+        @Override
+        protected ActionListService getActionListService() {
+            return actionListService;
+        }
+
+        @Override
+        protected void sendPeriodicReminder(String principalId, Collection<ActionItem> actionItems,
+                String emailSetting) {
+            if (!remindedPrincipalIds.add(principalId)) {
+                fail(principalId + " was reminded twice");
+            }
+        }
+    }
+
+}
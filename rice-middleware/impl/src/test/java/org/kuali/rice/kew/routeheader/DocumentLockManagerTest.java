@@ -0,0 +1,213 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.routeheader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link DocumentLockManager}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class DocumentLockManagerTest {
+
+    private DocumentLockManager lockManager;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        lockManager = new DocumentLockManager();
+        lockManager.setWaitTimeoutSeconds(1);
+        lockManager.afterPropertiesSet();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(lockManager);
+        lockManager.destroy();
+    }
+
+    @Test
+    public void testNoLockOutsideTransaction() {
+        assertFalse(lockManager.lock("1000"));
+        assertEquals(0, lockManager.getLockCount());
+
+        TransactionSynchronizationManager.initSynchronization();
+        lockManager.setEnabled(false);
+        assertFalse(lockManager.lock("1000"));
+        assertEquals(0, lockManager.getLockCount());
+    }
+
+    @Test
+    public void testReentrant() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(lockManager.lock("1000"));
+        assertTrue(lockManager.lock("1000"));
+        assertEquals(2, lockManager.getLockCount());
+        assertEquals(0, lockManager.getContendedCount());
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+        assertEquals(1, lockManager.getLockedDocumentCount());
+        completeTransaction();
+        assertEquals("the lock should be discarded once released", 0, lockManager.getLockedDocumentCount());
+    }
+
+    @Test
+    public void testUnrelatedDocumentsDoNotBlock() throws Exception {
+        lockManager.setWaitTimeoutSeconds(10);
+        TransactionSynchronizationManager.initSynchronization();
+        for (int documentId = 1000; documentId < 1100; documentId++) {
+            assertTrue(lockManager.lock(String.valueOf(documentId)));
+        }
+        assertTrue(executor.submit(lockInTransaction("1100")).get(5, TimeUnit.SECONDS));
+        assertEquals(0, lockManager.getContendedCount());
+        assertEquals(100, lockManager.getLockedDocumentCount());
+        completeTransaction();
+        assertEquals(0, lockManager.getLockedDocumentCount());
+    }
+
+    @Test
+    public void testOutOfOrderDoesNotWait() throws Exception {
+        lockManager.setWaitTimeoutSeconds(10);
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(lockManager.lock("2000"));
+
+        // holding 3000, waiting for 2000 could deadlock with a thread holding 2000 and waiting for 3000
+        assertFalse(executor.submit(lockInTransaction("3000", "2000")).get(5, TimeUnit.SECONDS));
+        assertEquals(1, lockManager.getOutOfOrderCount());
+        assertEquals(0, lockManager.getTimeoutCount());
+        assertEquals(1, lockManager.getLockedDocumentCount());
+        completeTransaction();
+        assertEquals(0, lockManager.getLockedDocumentCount());
+    }
+
+    @Test
+    public void testBlocksUntilTransactionCompletes() throws Exception {
+        lockManager.setWaitTimeoutSeconds(10);
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(lockManager.lock("1000"));
+        assertTrue(lockManager.lock("1000"));
+
+        Future<Boolean> other = executor.submit(lockInTransaction("1000"));
+        try {
+            other.get(200, TimeUnit.MILLISECONDS);
+            fail("the lock should not have been acquired while held by another transaction");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        completeTransaction();
+        assertTrue(other.get(5, TimeUnit.SECONDS));
+        assertEquals(1, lockManager.getContendedCount());
+        assertEquals(0, lockManager.getTimeoutCount());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(lockManager.lock("1000"));
+        assertFalse(executor.submit(lockInTransaction("1000")).get(5, TimeUnit.SECONDS));
+        assertEquals(1, lockManager.getTimeoutCount());
+        completeTransaction();
+        assertTrue(executor.submit(lockInTransaction("1000")).get(5, TimeUnit.SECONDS));
+        assertEquals(0, lockManager.getLockedDocumentCount());
+    }
+
+    @Test
+    public void testOrderForLocking() {
+        List<String> ordered = lockManager.orderForLocking(Arrays.asList("1003", "1001", null, "1002", "1001"));
+        assertEquals(3, ordered.size());
+        assertTrue(ordered.containsAll(Arrays.asList("1001", "1002", "1003")));
+        // any set of ids is ordered consistently, whatever order it is given in
+        assertEquals(ordered, lockManager.orderForLocking(Arrays.asList("1002", "1003", "1001")));
+        assertEquals(Arrays.asList("1001", "1002", "1003"), ordered);
+        assertEquals(Arrays.asList("1001", "1003"), lockManager.orderForLocking(Arrays.asList("1003", "1001")));
+    }
+
+    @Test
+    public void testWaitHistogram() {
+        lockManager.recordWait("TravelRequest", TimeUnit.MICROSECONDS.toNanos(500));
+        lockManager.recordWait("TravelRequest", TimeUnit.MILLISECONDS.toNanos(7));
+        lockManager.recordWait("TravelRequest", TimeUnit.MINUTES.toNanos(2));
+        lockManager.recordWait(null, 0);
+
+        assertArrayEquals(new String[] {"TravelRequest", "unknown"}, lockManager.getDocumentTypeNames());
+        long[] histogram = lockManager.getWaitHistogram("TravelRequest");
+        assertEquals(lockManager.getWaitHistogramBoundsMillis().length + 1, histogram.length);
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[histogram.length - 1]);
+        assertNull(lockManager.getWaitHistogram("Missing"));
+        assertEquals(2, lockManager.getWaitHistogramSummary().length);
+
+        lockManager.resetStatistics();
+        assertEquals(0, lockManager.getDocumentTypeNames().length);
+    }
+
+    /**
+     * Returns a task which locks the given documents in one transaction, returning whether the last one was locked.
+     */
+    private Callable<Boolean> lockInTransaction(final String... documentIds) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    boolean locked = false;
+                    for (String documentId : documentIds) {
+                        locked = lockManager.lock(documentId);
+                    }
+                    completeTransaction();
+                    return locked;
+                } finally {
+                    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                        TransactionSynchronizationManager.clearSynchronization();
+                    }
+                }
+            }
+        };
+    }
+
+    private static void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.beforeCompletion();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.routeheader;
+
+import org.junit.Test;
+import org.kuali.rice.kew.engine.RouteContext;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the sharing of parsed document content within a {@link RouteContext}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ParsedDocumentContentCacheTest {
+
+    private static final String CONTENT = "<documentContent><applicationContent><chart>BL</chart></applicationContent>"
+            + "<attributeContent><org>PSY</org></attributeContent></documentContent>";
+
+    @Test
+    public void testSharesParsedContent() {
+        ParsedDocumentContentCache cache = new ParsedDocumentContentCache();
+        StandardDocumentContent content = cache.getDocumentContent("1", CONTENT, null);
+        assertEquals("chart", content.getApplicationContent().getNodeName());
+        assertSame(content, cache.getDocumentContent("1", CONTENT, null));
+        // an equal copy of the content, as loaded again from the database
+        assertSame(content, cache.getDocumentContent("1", new String(CONTENT), null));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertNotSame(content, cache.getDocumentContent("2", CONTENT, null));
+        StandardDocumentContent changed = cache.getDocumentContent("1", CONTENT.replace("BL", "KO"), null);
+        assertNotSame(content, changed);
+        assertEquals("KO", changed.getApplicationContent().getTextContent());
+        assertEquals(3, cache.getMissCount());
+
+        StandardDocumentContent empty = cache.getDocumentContent("3", null, null);
+        assertNull(empty.getDocument());
+        assertSame(empty, cache.getDocumentContent("3", "", null));
+
+        cache.clear();
+        assertNotSame(content, cache.getDocumentContent("1", CONTENT, null));
+    }
+
+    @Test
+    public void testEviction() {
+        ParsedDocumentContentCache cache = new ParsedDocumentContentCache();
+        StandardDocumentContent first = cache.getDocumentContent("0", CONTENT, null);
+        for (int documentId = 1; documentId <= ParsedDocumentContentCache.MAX_ENTRIES; documentId++) {
+            cache.getDocumentContent(String.valueOf(documentId), CONTENT, null);
+        }
+        assertNotSame(first, cache.getDocumentContent("0", CONTENT, null));
+    }
+
+    @Test
+    public void testRouteContextParsesOnce() {
+        RouteContext context = RouteContext.createNewRouteContext();
+        try {
+            DocumentRouteHeaderValue routeHeader = newRouteHeader("1", CONTENT);
+            context.setDocument(routeHeader);
+            DocumentContent content = context.getDocumentContent();
+            assertSame(context, content.getRouteContext());
+
+            // the engine sets the document again after every node and post processor call
+            context.setDocument(newRouteHeader("1", CONTENT));
+            assertSame(content, context.getDocumentContent());
+            assertSame(content, context.getParsedDocumentContent("1", CONTENT));
+
+            context.setDocument(newRouteHeader("1", CONTENT.replace("PSY", "MATH")));
+            assertNotSame(content, context.getDocumentContent());
+            assertEquals("MATH", context.getDocumentContent().getAttributeContent().getTextContent());
+        } finally {
+            RouteContext.releaseCurrentRouteContext();
+        }
+    }
+
+    /**
+     * A routing pass hands the same large document content to a number of attributes, which should share one parse.
+     */
+    @Test
+    public void testLargeContentParsedOnce() {
+        String content = StreamingDocumentContentExtractorTest.buildContent(200 * 1024);
+        RouteContext context = RouteContext.createNewRouteContext();
+        DocumentContent parsed;
+        try {
+            parsed = context.getParsedDocumentContent("1", content);
+            assertNotNull(parsed.getAttributeContent());
+            for (int attribute = 0; attribute < 20; attribute++) {
+                assertSame(parsed, context.getParsedDocumentContent("1", new String(content)));
+            }
+        } finally {
+            RouteContext.releaseCurrentRouteContext();
+        }
+        // discarded when the context is released
+        assertNotSame(parsed, context.getParsedDocumentContent("1", content));
+    }
+
+    /**
+     * The base context of a thread lives as long as the thread, so it must not hold on to parsed content.
+     */
+    @Test
+    public void testBaseContextDoesNotKeepContent() {
+        RouteContext context = RouteContext.getCurrentRouteContext();
+        assertFalse(context.isParsedDocumentContentCached());
+        DocumentContent content = context.getParsedDocumentContent("1", CONTENT);
+        assertEquals("PSY", content.getAttributeContent().getTextContent());
+        assertNotSame(content, context.getParsedDocumentContent("1", CONTENT));
+
+        context.setParsedDocumentContentCached(true);
+        try {
+            content = context.getParsedDocumentContent("1", CONTENT);
+            assertSame(content, context.getParsedDocumentContent("1", CONTENT));
+        } finally {
+            context.setParsedDocumentContentCached(false);
+        }
+        assertNotSame(content, context.getParsedDocumentContent("1", CONTENT));
+    }
+
+    private static DocumentRouteHeaderValue newRouteHeader(String documentId, String docContent) {
+        DocumentRouteHeaderValue routeHeader = new DocumentRouteHeaderValue();
+        routeHeader.setDocumentId(documentId);
+        DocumentRouteHeaderValueContent content = new DocumentRouteHeaderValueContent(documentId);
+        content.setDocumentContent(docContent);
+        routeHeader.setDocumentContent(content);
+        return routeHeader;
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.routeheader;
+
+import org.junit.Test;
+import org.kuali.rice.kew.api.document.InvalidDocumentContentException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link StreamingDocumentContentExtractor}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class StreamingDocumentContentExtractorTest {
+
+    private static final String CONTENT = "<documentContent><applicationContent><edlContent>"
+            + "<field name=\"chart\"><value>BL</value></field>"
+            + "<field name=\"org\"><value><![CDATA[P&S]]></value></field>"
+            + "</edlContent></applicationContent>"
+            + "<attributeContent><chartOrgAttribute><chart>BL</chart><org>PSY <b>dept</b></org></chartOrgAttribute>"
+            + "</attributeContent></documentContent>";
+
+    @Test
+    public void testExtractFirst() {
+        StreamingDocumentContentExtractor extractor = new StreamingDocumentContentExtractor(Arrays.asList(
+                "/documentContent/attributeContent/chartOrgAttribute/chart", "//field/value",
+                "//chartOrgAttribute/org", "/chartOrgAttribute/chart", "//missing"));
+        Map<String, String> values = extractor.extractFirst(CONTENT);
+        assertEquals("BL", values.get("/documentContent/attributeContent/chartOrgAttribute/chart"));
+        assertEquals("BL", values.get("//field/value"));
+        assertEquals("PSY dept", values.get("//chartOrgAttribute/org"));
+        // absolute paths only match from the root element
+        assertFalse(values.containsKey("/chartOrgAttribute/chart"));
+        assertFalse(values.containsKey("//missing"));
+
+        assertTrue(extractor.extractFirst(null).isEmpty());
+        assertTrue(extractor.extractFirst("").isEmpty());
+    }
+
+    @Test
+    public void testExtractAll() {
+        StreamingDocumentContentExtractor extractor = new StreamingDocumentContentExtractor(Arrays.asList(
+                "//field/value", "//missing", "//a"));
+        Map<String, List<String>> values = extractor.extractAll(CONTENT);
+        assertEquals(Arrays.asList("BL", "P&S"), values.get("//field/value"));
+        assertEquals(Collections.<String>emptyList(), values.get("//missing"));
+
+        // nested matches are returned in document order even though the inner element ends first
+        values = extractor.extractAll("<a>x<a>y</a>z</a>");
+        assertEquals(Arrays.asList("xyz", "y"), values.get("//a"));
+    }
+
+    @Test
+    public void testStopsAtFirstMatches() {
+        StreamingDocumentContentExtractor extractor = new StreamingDocumentContentExtractor(Collections.singletonList(
+                "/configuration/xmlElementLabel"));
+        // the content after the match is never read, so is not required to be well formed
+        Map<String, String> values = extractor.extractFirst(
+                "<configuration><xmlElementLabel>networkId</xmlElementLabel><unclosed></configuration>");
+        assertEquals("networkId", values.get("/configuration/xmlElementLabel"));
+    }
+
+    @Test(expected = InvalidDocumentContentException.class)
+    public void testMalformedContent() {
+        new StreamingDocumentContentExtractor(Collections.singletonList("//missing")).extractFirst("<a><b></a>");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoPaths() {
+        new StreamingDocumentContentExtractor(Collections.<String>emptyList());
+    }
+
+    /**
+     * Extracts values from the head of large document content whose remainder is not well formed, which can only
+     * succeed if the extractor stops reading at its matches rather than parsing the whole content into a DOM.
+     */
+    @Test
+    public void testDoesNotBuildDocument() {
+        String content = "<documentContent><attributeContent><chartOrgAttribute><chart>BL</chart><org>PSY</org>"
+                + "</chartOrgAttribute></attributeContent>" + buildContent(200 * 1024).replace("</documentContent>", "");
+        StreamingDocumentContentExtractor extractor = new StreamingDocumentContentExtractor(Arrays.asList(
+                "//chartOrgAttribute/chart", "//chartOrgAttribute/org"));
+        Map<String, String> values = extractor.extractFirst(content);
+        assertEquals("BL", values.get("//chartOrgAttribute/chart"));
+        assertEquals("PSY", values.get("//chartOrgAttribute/org"));
+        try {
+            // collecting every match has to read to the end of the content
+            extractor.extractAll(content);
+            fail("reading all of content that is not well formed should fail");
+        } catch (InvalidDocumentContentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Builds document content of roughly the given size in the shape of eDoc Lite content, with the attribute content
+     * after a large application content section.
+     */
+    static String buildContent(int size) {
+        StringBuilder content = new StringBuilder(size + 512);
+        content.append("<documentContent><applicationContent><edlContent><data><version current=\"true\">");
+        for (int field = 0; content.length() < size; field++) {
+            content.append("<field name=\"field").append(field).append("\"><value>value ").append(field)
+                    .append(" of a line item description</value></field>");
+        }
+        content.append("</version></data></edlContent></applicationContent><attributeContent>");
+        content.append("<chartOrgAttribute><chart>BL</chart><org>PSY</org></chartOrgAttribute>");
+        content.append("</attributeContent></documentContent>");
+        return content.toString();
+    }
+
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.routemodule.service.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.CoreConstants;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
+import org.kuali.rice.core.impl.config.property.JAXBConfigImpl;
+import org.kuali.rice.kew.api.action.RoutingReportCriteria;
+import org.kuali.rice.kew.api.action.RoutingReportResult;
+import org.kuali.rice.kew.api.document.Document;
+import org.kuali.rice.kew.api.document.DocumentDetail;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the batch execution of simulations by the {@link RoutingReportServiceImpl}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class RoutingReportServiceImplTest {
+
+    private static final long SIMULATION_MILLIS = 50;
+
+    private TestRoutingReportService routingReportService;
+    private TestTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        JAXBConfigImpl config = new JAXBConfigImpl();
+        config.putProperty(CoreConstants.Config.APPLICATION_ID, "APPID");
+        ConfigContext.init(config);
+        transactionManager = new TestTransactionManager();
+        routingReportService = new TestRoutingReportService();
+        routingReportService.setTransactionManager(transactionManager);
+        routingReportService.setParallelism(4);
+    }
+
+    @After
+    public void tearDown() {
+        routingReportService.destroy();
+        ConfigContext.destroy();
+    }
+
+    @Test
+    public void testResultsInOrder() {
+        List<RoutingReportCriteria> criteria = new ArrayList<RoutingReportCriteria>();
+        for (int index = 0; index < 8; index++) {
+            criteria.add(criteria("TravelRequest", "<content>" + index + "</content>"));
+        }
+        List<RoutingReportResult> results = routingReportService.report(criteria);
+        assertEquals(8, results.size());
+        for (int index = 0; index < 8; index++) {
+            RoutingReportResult result = results.get(index);
+            assertTrue(result.isSuccessful());
+            assertFalse(result.isMemoized());
+            assertEquals("<content>" + index + "</content>", result.getDocumentDetail().getDocument().getTitle());
+            assertTrue(result.getElapsedMillis() >= SIMULATION_MILLIS - 5);
+        }
+        assertEquals(8, routingReportService.simulationCount.get());
+        // every simulation ran in its own transaction, which was rolled back
+        assertEquals(8, transactionManager.rollbackCount.get());
+        assertEquals(0, transactionManager.commitCount.get());
+    }
+
+    @Test
+    public void testIdenticalSimulationsMemoized() {
+        List<RoutingReportResult> results = routingReportService.report(Arrays.asList(
+                criteria("TravelRequest", "<content>a</content>"),
+                criteria("TravelRequest", "<content>b</content>"),
+                criteria("TravelRequest", "<content>a</content>"),
+                criteria("TravelAccount", "<content>a</content>"),
+                builder("TravelRequest", "<content>a</content>").build()));
+        assertEquals(3, routingReportService.simulationCount.get());
+        assertFalse(results.get(0).isMemoized());
+        assertFalse(results.get(1).isMemoized());
+        assertTrue(results.get(2).isMemoized());
+        assertFalse(results.get(3).isMemoized());
+        assertTrue(results.get(4).isMemoized());
+        assertSame(results.get(0).getDocumentDetail(), results.get(2).getDocumentDetail());
+        assertSame(results.get(0).getDocumentDetail(), results.get(4).getDocumentDetail());
+
+        // simulations up to different nodes are not identical
+        RoutingReportCriteria.Builder builder = builder("TravelRequest", "<content>a</content>");
+        builder.setTargetNodeName("Approval");
+        routingReportService.simulationCount.set(0);
+        routingReportService.report(Arrays.asList(criteria("TravelRequest", "<content>a</content>"),
+                builder.build()));
+        assertEquals(2, routingReportService.simulationCount.get());
+    }
+
+    @Test
+    public void testParallel() {
+        List<RoutingReportCriteria> criteria = new ArrayList<RoutingReportCriteria>();
+        for (int index = 0; index < 16; index++) {
+            criteria.add(criteria("TravelRequest", "<content>" + index + "</content>"));
+        }
+        criteria.add(criteria("Broken", "<content>broken</content>"));
+        List<RoutingReportResult> parallelResults = routingReportService.report(criteria);
+        assertTrue(routingReportService.maxConcurrency.get() > 1);
+        assertTrue(routingReportService.maxConcurrency.get() <= 4);
+
+        routingReportService.setTransactionManager(null);
+        routingReportService.maxConcurrency.set(0);
+        List<RoutingReportResult> serialResults = routingReportService.report(criteria);
+        assertEquals(1, routingReportService.maxConcurrency.get());
+
+        // the same results, in the same order
+        assertEquals(serialResults.size(), parallelResults.size());
+        for (int index = 0; index < serialResults.size(); index++) {
+            RoutingReportResult serial = serialResults.get(index);
+            RoutingReportResult parallel = parallelResults.get(index);
+            assertEquals(serial.isSuccessful(), parallel.isSuccessful());
+            assertEquals(serial.isMemoized(), parallel.isMemoized());
+            assertEquals(serial.getErrorMessage(), parallel.getErrorMessage());
+            if (serial.isSuccessful()) {
+                assertEquals(serial.getDocumentDetail().getDocument().getTitle(),
+                        parallel.getDocumentDetail().getDocument().getTitle());
+                assertEquals(serial.getDocumentDetail().getDocument().getDocumentTypeName(),
+                        parallel.getDocumentDetail().getDocument().getDocumentTypeName());
+            }
+        }
+        assertFalse(parallelResults.get(criteria.size() - 1).isSuccessful());
+    }
+
+    @Test
+    public void testFailureIsolated() {
+        List<RoutingReportResult> results = routingReportService.report(Arrays.asList(
+                criteria("TravelRequest", "<content>a</content>"),
+                criteria("Broken", "<content>a</content>"),
+                criteria("TravelRequest", "<content>b</content>")));
+        assertTrue(results.get(0).isSuccessful());
+        assertFalse(results.get(1).isSuccessful());
+        assertNull(results.get(1).getDocumentDetail());
+        assertNotNull(results.get(1).getErrorMessage());
+        assertTrue(results.get(2).isSuccessful());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(routingReportService.report(Collections.<RoutingReportCriteria>emptyList()).isEmpty());
+    }
+
+    @Test(expected = RiceIllegalArgumentException.class)
+    public void testNullCriteria() {
+        routingReportService.report(Arrays.asList(criteria("TravelRequest", "<content/>"), null));
+    }
+
+    private static RoutingReportCriteria criteria(String documentTypeName, String xmlContent) {
+        return builder(documentTypeName, xmlContent).build();
+    }
+
+    private static RoutingReportCriteria.Builder builder(String documentTypeName, String xmlContent) {
+        RoutingReportCriteria.Builder builder = RoutingReportCriteria.Builder.createByDocumentTypeName(
+                documentTypeName);
+        builder.setXmlContent(xmlContent);
+        builder.setRoutingPrincipalId("admin");
+        return builder;
+    }
+
+    /**
+     * Simulates documents by waiting a little, rather than running the simulation engine.
+     */
+    private static class TestRoutingReportService extends RoutingReportServiceImpl {
+
+        final AtomicInteger simulationCount = new AtomicInteger();
+        final AtomicInteger concurrency = new AtomicInteger();
+        final AtomicInteger maxConcurrency = new AtomicInteger();
+
+        @Override
+        protected RoutingReportResult simulate(RoutingReportCriteria reportCriteria) {
+            simulationCount.incrementAndGet();
+            int current = concurrency.incrementAndGet();
+            try {
+                int max;
+                while ((max = maxConcurrency.get()) < current && !maxConcurrency.compareAndSet(max, current)) {
+                    // retry
+                }
+                // fails running the simulation engine, which is not available
+                if ("Broken".equals(reportCriteria.getDocumentTypeName())) {
+                    return super.simulate(reportCriteria);
+                }
+                Thread.sleep(SIMULATION_MILLIS);
+                Document.Builder document = Document.Builder.create("1000", "admin",
+                        reportCriteria.getDocumentTypeName(), "1");
+                document.setTitle(reportCriteria.getXmlContent());
+                return RoutingReportResult.create(DocumentDetail.Builder.create(document.build()).build(),
+                        SIMULATION_MILLIS, false);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                concurrency.decrementAndGet();
+            }
+        }
+    }
+
+    private static class TestTransactionManager extends AbstractPlatformTransactionManager {
+
+        final AtomicInteger commitCount = new AtomicInteger();
+        final AtomicInteger rollbackCount = new AtomicInteger();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commitCount.incrementAndGet();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbackCount.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.rule.xmlrouting;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFunction;
+import javax.xml.xpath.XPathFunctionResolver;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link XPathExpressionCache} and the {@link CachingXPath} which routes evaluations through it.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class XPathExpressionCacheTest {
+
+    private static final String DOCUMENT_CONTENT = "<documentContent><applicationContent>"
+            + "<edlContent><data><version current=\"true\">"
+            + "<field name=\"chart\"><value>BL</value></field>"
+            + "<field name=\"org\"><value>psy</value></field>"
+            + "<field name=\"amount\"><value>2500</value></field>"
+            + "</version></data></edlContent>"
+            + "</applicationContent><attributeContent>"
+            + "<chartOrgAttribute><chart>BL</chart><org>PSY</org></chartOrgAttribute>"
+            + "<accountAttribute><account>1031400</account><account>1031420</account></accountAttribute>"
+            + "</attributeContent></documentContent>";
+
+    /**
+     * Expressions of the kind configured on StandardGenericXMLRuleAttribute and XMLSearchableAttribute definitions.
+     */
+    private static final String[] ROUTING_EXPRESSIONS = {
+            "wf:upper-case(string(//edlContent/data/version[@current='true']/field[@name='chart']/value)) = 'BL'",
+            "wf:upper-case(string(//edlContent/data/version[@current='true']/field[@name='org']/value)) = 'PSY'",
+            "//edlContent/data/version[@current='true']/field[@name='amount']/value > 1000",
+            "count(//accountAttribute/account) >= 2",
+            "//chartOrgAttribute/chart = 'BL' and //chartOrgAttribute/org = 'PSY'",
+            "not(//chartOrgAttribute/chart = 'KO')"
+    };
+
+    private Document document;
+    private XPathExpressionCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(
+                DOCUMENT_CONTENT)));
+        cache = new XPathExpressionCache(XPathExpressionCache.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        XPath xpath = newXPath(cache);
+        assertEquals("BL", xpath.evaluate("//chartOrgAttribute/chart", document));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getSize());
+
+        assertEquals("BL", xpath.evaluate("//chartOrgAttribute/chart", document));
+        assertEquals("PSY", newXPath(cache).evaluate("//chartOrgAttribute/org", document));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getSize());
+        assertEquals(1d / 3, cache.getHitRatio(), 0.0001);
+
+        // the same text without the workflow namespace context is a different expression
+        XPath plain = new CachingXPath(XPathFactory.newInstance().newXPath(), cache);
+        assertEquals("BL", plain.evaluate("//chartOrgAttribute/chart", document));
+        assertEquals(3, cache.getSize());
+
+        cache.clear();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testResolversAreBoundPerEvaluation() throws Exception {
+        String expression = "wf:constant()";
+        assertEquals("first", newXPath(cache, new ConstantFunctionResolver("first")).evaluate(expression, document));
+        assertEquals("second", newXPath(cache, new ConstantFunctionResolver("second")).evaluate(expression, document));
+        assertEquals(1, cache.getHitCount());
+
+        try {
+            newXPath(cache, new WorkflowFunctionResolver()).evaluate(expression, document);
+            fail("an unresolvable function should not be resolved through a previous caller's resolver");
+        } catch (XPathExpressionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEvaluateInputSource() throws Exception {
+        XPath xpath = newXPath(cache);
+        for (int i = 0; i < 2; i++) {
+            Boolean result = (Boolean) xpath.evaluate(ROUTING_EXPRESSIONS[0], new InputSource(new StringReader(
+                    DOCUMENT_CONTENT)), XPathConstants.BOOLEAN);
+            assertTrue(result);
+        }
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        cache.setMaxSize(2);
+        XPath xpath = newXPath(cache);
+        xpath.evaluate("//chart", document);
+        xpath.evaluate("//org", document);
+        assertEquals(2, cache.getSize());
+        assertEquals(0, cache.getEvictionCount());
+
+        xpath.evaluate("//account", document);
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        xpath.evaluate("//account", document);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        cache.setMaxSize(0);
+        XPath xpath = newXPath(cache);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("BL", xpath.evaluate("//chartOrgAttribute/chart", document));
+        }
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        final int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int thread = 0; thread < threads; thread++) {
+                final String value = "thread" + thread;
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        // DOM documents are not thread safe either, so each thread routes its own copy
+                        Document threadDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+                                new InputSource(new StringReader(DOCUMENT_CONTENT)));
+                        XPath xpath = newXPath(cache, new ConstantFunctionResolver(value));
+                        int matches = 0;
+                        for (int i = 0; i < 500; i++) {
+                            assertEquals(value, xpath.evaluate("wf:constant()", threadDocument));
+                            if ((Boolean) xpath.evaluate(ROUTING_EXPRESSIONS[i % ROUTING_EXPRESSIONS.length],
+                                    threadDocument, XPathConstants.BOOLEAN)) {
+                                matches++;
+                            }
+                        }
+                        return matches;
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(500), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(ROUTING_EXPRESSIONS.length + 1, cache.getSize());
+        assertTrue(cache.getHitRatio() > 0.9);
+    }
+
+    /**
+     * Routing a document evaluates the same configured expressions over and over, which should compile each of them
+     * once only.
+     */
+    @Test
+    public void testRuleEvaluationCompilesOnce() throws Exception {
+        int evaluations = 20 * ROUTING_EXPRESSIONS.length;
+        evaluateCached(evaluations);
+        assertEquals("each expression should be compiled once", ROUTING_EXPRESSIONS.length, cache.getMissCount());
+        assertEquals(evaluations - ROUTING_EXPRESSIONS.length, cache.getHitCount());
+        assertEquals(ROUTING_EXPRESSIONS.length, cache.getSize());
+    }
+
+    @Test
+    public void testMBeanRegistration() throws Exception {
+        ObjectName name = new ObjectName("org.kuali.rice.kew:type=XPathExpressionCache");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertFalse(server.isRegistered(name));
+        cache.afterPropertiesSet();
+        try {
+            assertTrue(server.isRegistered(name));
+            assertEquals(XPathExpressionCache.DEFAULT_MAX_SIZE, server.getAttribute(name, "MaxSize"));
+
+            // a second cache does not replace the one which is registered
+            XPathExpressionCache other = new XPathExpressionCache(1);
+            other.afterPropertiesSet();
+            other.destroy();
+            assertEquals(XPathExpressionCache.DEFAULT_MAX_SIZE, server.getAttribute(name, "MaxSize"));
+        } finally {
+            cache.destroy();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+    private void evaluateCached(int evaluations) throws Exception {
+        WorkflowFunctionResolver resolver = new WorkflowFunctionResolver();
+        resolver.setRootNode(document);
+        for (int i = 0; i < evaluations; i++) {
+            XPath xpath = newXPath(cache, resolver);
+            resolver.setXpath(xpath);
+            assertTrue((Boolean) xpath.evaluate(ROUTING_EXPRESSIONS[i % ROUTING_EXPRESSIONS.length], document,
+                    XPathConstants.BOOLEAN));
+        }
+    }
+
+    private static XPath newXPath(XPathExpressionCache cache) {
+        return newXPath(cache, new WorkflowFunctionResolver());
+    }
+
+    private static XPath newXPath(XPathExpressionCache cache, XPathFunctionResolver resolver) {
+        XPath xpath = new CachingXPath(XPathExpressionCache.getThreadFactory().newXPath(), cache);
+        xpath.setNamespaceContext(new WorkflowNamespaceContext());
+        xpath.setXPathFunctionResolver(resolver);
+        return xpath;
+    }
+
+    /**
+     * Resolves wf:constant() to a fixed value, and the workflow functions otherwise.
+     */
+    private static final class ConstantFunctionResolver extends WorkflowFunctionResolver {
+
+        private final String value;
+
+        ConstantFunctionResolver(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public XPathFunction resolveFunction(QName functionName, int arity) {
+            if (!"constant".equals(functionName.getLocalPart())) {
+                return super.resolveFunction(functionName, arity);
+            }
+            return new XPathFunction() {
+                @Override
+                public Object evaluate(List args) {
+                    return value;
+                }
+            };
+        }
+    }
+
+}
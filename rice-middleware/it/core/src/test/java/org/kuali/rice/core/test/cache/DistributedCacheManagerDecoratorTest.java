@@ -166,6 +166,26 @@ public class DistributedCacheManagerDecoratorTest extends CORETestCase {
         assertTrue(CollectionUtils.diff(correctResults, results).isEmpty());
     }
 
+    /**
+     * Test that once more keys of a single cache are queued than the entire cache threshold (100 by default) they are
+     * replaced by a single flush of the entire cache, while other caches are left alone.
+     */
+    @Test
+    public void testManyKeysUpgradedToEntireCache() {
+        Queue<CacheTarget> targets = Queues.newLinkedBlockingQueue();
+        for (int i = 0; i <= 100; i++) {
+            targets.add(CacheTarget.singleEntry(ROLE_MEMBER_TYPE, "key" + i));
+        }
+        targets.add(CacheTarget.singleEntry(ROLE_TYPE_CACHE, "key1"));
+
+        ArrayList<CacheTarget> correctResults = Lists.newArrayList(
+                CacheTarget.entireCache(ROLE_MEMBER_TYPE),
+                CacheTarget.singleEntry(ROLE_TYPE_CACHE, "key1"));
+
+        Collection<CacheTarget> results = new ArrayList<CacheTarget>(invokeExhaustQueue(targets));
+        assertTrue(CollectionUtils.diff(correctResults, results).isEmpty());
+    }
+
     /*
      * Invoking the DistributedCacheManagerDecorator via reflection since the exhaustQueue method is a private method
      * in a private inner class.
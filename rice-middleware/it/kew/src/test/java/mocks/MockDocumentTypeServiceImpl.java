@@ -17,6 +17,7 @@ package mocks;
 
 import org.jdom.Element;
 import org.kuali.rice.core.api.impex.ExportDataSet;
+import org.kuali.rice.kew.doctype.ResolvedDocumentType;
 import org.kuali.rice.kew.doctype.bo.DocumentType;
 import org.kuali.rice.kew.doctype.service.DocumentTypeService;
 
@@ -98,6 +99,12 @@ public class MockDocumentTypeServiceImpl implements DocumentTypeService {
 		return null;
 	}
 
+    @Override
+    public ResolvedDocumentType findResolvedById(String documentTypeId) {
+        DocumentType documentType = findById(documentTypeId);
+        return documentType == null ? null : ResolvedDocumentType.resolve(documentType);
+    }
+
     @Override
 	public DocumentType save(DocumentType documentType) {
        return null;
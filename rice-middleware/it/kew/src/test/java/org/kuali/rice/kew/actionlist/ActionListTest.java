@@ -28,12 +28,14 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.kuali.rice.core.api.criteria.QueryResults;
 import org.kuali.rice.core.api.delegation.DelegationType;
 import org.kuali.rice.kew.actionitem.ActionItem;
 import org.kuali.rice.kew.actionlist.service.ActionListService;
@@ -547,6 +549,42 @@ public class ActionListTest extends KEWTestCase {
         assertEquals("bmcgough should have 0 item in his action list.", 0, actionItems.size());
     }
 
+    @Test
+    public void testActionListPage() throws Exception {
+        setUpOldSchool();
+        // a second action item on the first document, which takes priority over the acknowledge
+        ActionItem approve = getActionListService().saveActionItem(generateActionItem(routeHeader1, "A",
+                AUTHENTICATION_IDS[0], null));
+        KradDataServiceLocator.getDataObjectService().flush(ActionItem.class);
+        String principalId = getPrincipalIdForName(AUTHENTICATION_IDS[0]);
+
+        List<String> documentIds = new ArrayList<String>();
+        for (ActionItem actionItem : getActionListService().getActionList(principalId, null)) {
+            documentIds.add(actionItem.getDocumentId());
+        }
+        assertEquals(3, documentIds.size());
+        Collections.sort(documentIds);
+
+        QueryResults<ActionItem> page = getActionListService().getActionListPage(principalId, null, "documentId", true,
+                0, 2);
+        assertEquals(Integer.valueOf(3), page.getTotalRowCount());
+        assertTrue(page.isMoreResultsAvailable());
+        assertEquals(2, page.getResults().size());
+        assertEquals(documentIds.get(0), page.getResults().get(0).getDocumentId());
+        assertEquals(documentIds.get(1), page.getResults().get(1).getDocumentId());
+        for (ActionItem actionItem : page.getResults()) {
+            if (routeHeader1.getDocumentId().equals(actionItem.getDocumentId())) {
+                assertEquals(approve.getId(), actionItem.getId());
+            }
+        }
+
+        page = getActionListService().getActionListPage(principalId, null, "documentId", false, 2, 2);
+        assertEquals(Integer.valueOf(3), page.getTotalRowCount());
+        assertFalse(page.isMoreResultsAvailable());
+        assertEquals(1, page.getResults().size());
+        assertEquals(documentIds.get(0), page.getResults().get(0).getDocumentId());
+    }
+
     @Test
     public void testFindByDocumentTypeName() throws Exception {
         WorkflowDocument document = WorkflowDocumentFactory.createDocument(getPrincipalIdForName("jhopf"),
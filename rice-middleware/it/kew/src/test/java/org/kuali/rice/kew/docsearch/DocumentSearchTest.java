@@ -20,6 +20,7 @@ import org.joda.time.DateTime;
 import org.joda.time.Days;
 import org.joda.time.Years;
 import org.junit.Test;
+import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
 import org.kuali.rice.kew.api.KewApiConstants;
 import org.kuali.rice.kew.api.WorkflowDocument;
 import org.kuali.rice.kew.api.WorkflowDocumentFactory;
@@ -48,6 +49,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -318,6 +320,52 @@ public class DocumentSearchTest extends KEWTestCase {
 
     }
 
+    @Test public void testDocSearch_keysetPaging() throws Exception {
+        String[] docIds = routeTestDocs();
+
+        String principalId = getPrincipalId("bmcgough");
+
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setDocumentTypeName("SearchDocType");
+        // the start index does not apply to paged searches
+        criteria.setStartAtIndex(2);
+
+        Set<String> pagedDocumentIds = new HashSet<String>();
+        DocumentSearchResults results = docSearchService.lookupDocumentsPage(principalId, criteria.build(), 2, null);
+        assertEquals(2, results.getSearchResults().size());
+        assertTrue(results.isOverThreshold());
+        assertNotNull(results.getContinuationToken());
+        for (DocumentSearchResult result : results.getSearchResults()) {
+            pagedDocumentIds.add(result.getDocument().getDocumentId());
+        }
+
+        // request the next page through the criteria, as a remote client of WorkflowDocumentService would
+        criteria.setPageSize(2);
+        criteria.setContinuationToken(results.getContinuationToken());
+        results = docSearchService.lookupDocuments(principalId, criteria.build());
+        assertEquals(1, results.getSearchResults().size());
+        assertFalse(results.isOverThreshold());
+        assertNull(results.getContinuationToken());
+        pagedDocumentIds.add(results.getSearchResults().get(0).getDocument().getDocumentId());
+
+        assertEquals(new HashSet<String>(Arrays.asList(docIds)), pagedDocumentIds);
+    }
+
+    @Test public void testDocSearch_keysetPagingInvalidArguments() throws Exception {
+        String principalId = getPrincipalId("bmcgough");
+
+        DocumentSearchCriteria.Builder criteria = DocumentSearchCriteria.Builder.create();
+        criteria.setDocumentTypeName("SearchDocType");
+        try {
+            docSearchService.lookupDocumentsPage(principalId, criteria.build(), 0, null);
+            fail("A page size of zero should have been rejected");
+        } catch (RiceIllegalArgumentException e) {}
+        try {
+            docSearchService.lookupDocumentsPage(principalId, criteria.build(), 2, "not a token");
+            fail("A malformed continuation token should have been rejected");
+        } catch (RiceIllegalArgumentException e) {}
+    }
+
     /**
      * Tests that performing a search automatically saves the last search criteria
      */
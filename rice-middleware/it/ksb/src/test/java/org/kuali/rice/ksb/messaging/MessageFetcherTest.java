@@ -95,6 +95,116 @@ public class MessageFetcherTest extends KSBTestCase {
         assertEquals("Should still have no messages in the queue.", 0, messages.size());
     }
 
+    /**
+     * Drains the same backlog once with one transaction per message and once with batched claiming.
+     */
+    @Test
+    public void testRequeueMessagesInBatches() throws Exception {
+        int messageCount = 200;
+        drainQueue(messageCount, "0");
+        drainQueue(messageCount, "50");
+    }
+
+    /**
+     * Messages which were already claimed, and so are routing, must not be claimed again.
+     */
+    @Test
+    public void testClaimOnlyQueuedMessages() throws Exception {
+        sendMessage();
+        sendMessage();
+        List<Long> routeQueueIds = KSBServiceLocator.getMessageQueueService().getNextDocumentIds(null);
+        assertEquals(2, routeQueueIds.size());
+
+        List<PersistedMessageBO> claimed = KSBServiceLocator.getMessageQueueService().claimDocuments(
+                routeQueueIds.subList(0, 1));
+        assertEquals(1, claimed.size());
+        assertEquals(KSBConstants.ROUTE_QUEUE_ROUTING, claimed.get(0).getQueueStatus());
+
+        claimed = KSBServiceLocator.getMessageQueueService().claimDocuments(routeQueueIds);
+        assertEquals("Only the message still queued should be claimed", 1, claimed.size());
+        assertEquals(routeQueueIds.get(1), claimed.get(0).getRouteQueueId());
+
+        assertTrue(KSBServiceLocator.getMessageQueueService().claimDocuments(routeQueueIds).isEmpty());
+    }
+
+    /**
+     * Messages left marked as routing by a node going down are only claimed by the fetcher run on startup.
+     */
+    @Test
+    public void testRecoverRoutingMessages() throws Exception {
+        ConfigContext.getCurrentContextConfig().putProperty(KSBConstants.Config.MESSAGE_FETCHER_BATCH_SIZE, "100");
+        TestHarnessSharedTopic.CALL_COUNT_NOTIFICATION_THRESHOLD = 1;
+        sendMessage();
+        List<PersistedMessageBO> messages = KSBServiceLocator.getMessageQueueService().getNextDocuments(null);
+        assertEquals(1, messages.size());
+        PersistedMessageBO message = messages.get(0);
+        message.setQueueStatus(KSBConstants.ROUTE_QUEUE_ROUTING);
+        KSBServiceLocator.getMessageQueueService().save(message);
+        turnOnMessaging();
+
+        MessageFetcher fetcher = new MessageFetcher((Integer) null);
+        fetcher.run();
+        assertEquals("Messages left routing should only be claimed on startup", 0, fetcher.getClaimedCount());
+
+        fetcher = new MessageFetcher(null, true);
+        synchronized (TestHarnessSharedTopic.LOCK) {
+            fetcher.run();
+            TestHarnessSharedTopic.LOCK.wait(3 * 1000);
+        }
+        Thread.sleep(500);
+
+        assertEquals("Message left routing not claimed", 1, fetcher.getClaimedCount());
+        assertEquals("Message left routing not requeued", 1, fetcher.getRequeuedCount());
+        assertEquals("Service not called by message fetcher", 1, TestHarnessSharedTopic.CALL_COUNT);
+        for (int i = 0; i < 10; i++) {
+            if (KSBServiceLocator.getMessageQueueService().getNextDocuments(null).isEmpty()) {
+                break;
+            }
+            Thread.sleep(1000);
+        }
+        assertEquals("Should have no messages left in the queue.", 0,
+                KSBServiceLocator.getMessageQueueService().getNextDocuments(null).size());
+    }
+
+    private void drainQueue(int messageCount, String batchSize) throws Exception {
+        ConfigContext.getCurrentContextConfig().putProperty(KSBConstants.Config.MESSAGING_OFF, "true");
+        ConfigContext.getCurrentContextConfig().putProperty(KSBConstants.Config.MESSAGE_FETCHER_BATCH_SIZE, batchSize);
+        TestHarnessSharedTopic.CALL_COUNT = 0;
+        TestHarnessSharedTopic.CALL_COUNT_NOTIFICATION_THRESHOLD = messageCount;
+
+        for (int i = 0; i < messageCount; i++) {
+            sendMessage();
+        }
+        for (int i = 0; i < 10; i++) {
+            if (KSBServiceLocator.getMessageQueueService().getNextDocuments(null).size() == messageCount) {
+                break;
+            }
+            Thread.sleep(1000);
+        }
+        assertEquals("Messages should be waiting in the queue.", messageCount,
+                KSBServiceLocator.getMessageQueueService().getNextDocuments(null).size());
+
+        turnOnMessaging();
+        MessageFetcher fetcher = new MessageFetcher((Integer) null);
+        synchronized (TestHarnessSharedTopic.LOCK) {
+            fetcher.run();
+            TestHarnessSharedTopic.LOCK.wait(5 * 60 * 1000);
+        }
+        Thread.sleep(500);
+
+        assertEquals("Messages not claimed by message fetcher", messageCount, fetcher.getClaimedCount());
+        assertEquals("Messages not requeued by message fetcher", messageCount, fetcher.getRequeuedCount());
+        assertEquals("Service not called by message fetcher", messageCount, TestHarnessSharedTopic.CALL_COUNT);
+        for (int i = 0; i < 10; i++) {
+            if (KSBServiceLocator.getMessageQueueService().getNextDocuments(null).isEmpty()) {
+                break;
+            }
+            Thread.sleep(1000);
+        }
+        assertEquals("Should have no messages left in the queue.", 0,
+                KSBServiceLocator.getMessageQueueService().getNextDocuments(null).size());
+    }
+
     private void sendMessage() {
         QName serviceName = QName.valueOf("{testAppsSharedTopic}sharedTopic");
         KSBJavaService testJavaAsyncService = (KSBJavaService) KsbApiServiceLocator.getMessageHelper().getServiceAsynchronously(serviceName);
@@ -18,6 +18,8 @@ package org.kuali.rice.kew.api.action;
 import org.kuali.rice.core.api.exception.RiceIllegalArgumentException;
 import org.kuali.rice.kew.api.KewApiConstants;
 
+import java.util.List;
+
 import javax.jws.WebMethod;
 import javax.jws.WebParam;
 import javax.jws.WebService;
@@ -39,5 +41,29 @@ public interface ActionInvocationQueue {
             @WebParam(name = "documentId") String documentId,
             @WebParam(name = "actionInvocation") ActionInvocation actionInvocation)
         throws RiceIllegalArgumentException;
+
+    /**
+     * Invokes a batch of actions, each against its own document, as a single message.  Each action is taken in its
+     * own transaction, so an action which fails does not undo the others.
+     *
+     * <p>Only available from Rice 2.6.0.  The queue is published with the Rice version of its application as its
+     * service version, actions sent to an application running an older version have to be invoked one at a time with
+     * {@link #invokeAction(String, String, ActionInvocation)}.</p>
+     *
+     * @param principalId the id of the principal taking the actions
+     * @param documentIds the ids of the documents, the action at the same index of actionInvocations is invoked
+     * against each document
+     * @param actionInvocations the actions to invoke
+     *
+     * @throws RiceIllegalArgumentException if principalId is blank, or documentIds and actionInvocations are null, of
+     * different sizes or contain null values
+     * @since 2.6.0
+     */
+    @WebMethod(operationName = "invokeActions")
+    void invokeActions(
+            @WebParam(name = "principalId") String principalId,
+            @WebParam(name = "documentIds") List<String> documentIds,
+            @WebParam(name = "actionInvocations") List<ActionInvocation> actionInvocations)
+        throws RiceIllegalArgumentException;
     
 }
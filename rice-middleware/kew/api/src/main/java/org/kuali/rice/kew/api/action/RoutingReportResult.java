@@ -0,0 +1,174 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kew.api.action;
+
+import java.util.Collection;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAnyElement;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+import org.kuali.rice.core.api.CoreConstants;
+import org.kuali.rice.core.api.mo.AbstractDataTransferObject;
+import org.kuali.rice.kew.api.document.DocumentDetail;
+import org.w3c.dom.Element;
+
+/**
+ * The result of one of the simulations executed by
+ * {@link WorkflowDocumentActionsService#executeSimulations(java.util.List)}.  Holds either the {@link DocumentDetail}
+ * produced by the simulation or the message of the error which caused it to fail, along with the time the simulation
+ * took.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+@XmlRootElement(name = RoutingReportResult.Constants.ROOT_ELEMENT_NAME)
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlType(name = RoutingReportResult.Constants.TYPE_NAME, propOrder = {
+        RoutingReportResult.Elements.DOCUMENT_DETAIL,
+        RoutingReportResult.Elements.ERROR_MESSAGE,
+        RoutingReportResult.Elements.ELAPSED_MILLIS,
+        RoutingReportResult.Elements.MEMOIZED,
+        CoreConstants.CommonElements.FUTURE_ELEMENTS
+})
+public final class RoutingReportResult extends AbstractDataTransferObject {
+
+    private static final long serialVersionUID = 4735195042869212781L;
+
+    @XmlElement(name = Elements.DOCUMENT_DETAIL, required = false)
+    private final DocumentDetail documentDetail;
+
+    @XmlElement(name = Elements.ERROR_MESSAGE, required = false)
+    private final String errorMessage;
+
+    @XmlElement(name = Elements.ELAPSED_MILLIS, required = true)
+    private final long elapsedMillis;
+
+    @XmlElement(name = Elements.MEMOIZED, required = true)
+    private final boolean memoized;
+
+    @SuppressWarnings("unused")
+    @XmlAnyElement
+    private final Collection<Element> _futureElements = null;
+
+    /**
+     * Private constructor used only by JAXB.
+     */
+    private RoutingReportResult() {
+        this.documentDetail = null;
+        this.errorMessage = null;
+        this.elapsedMillis = 0;
+        this.memoized = false;
+    }
+
+    private RoutingReportResult(DocumentDetail documentDetail, String errorMessage, long elapsedMillis,
+            boolean memoized) {
+        this.documentDetail = documentDetail;
+        this.errorMessage = errorMessage;
+        this.elapsedMillis = elapsedMillis;
+        this.memoized = memoized;
+    }
+
+    /**
+     * Creates the result of a simulation which completed successfully.
+     *
+     * @param documentDetail the detail of the simulated document, can't be null
+     * @param elapsedMillis the time the simulation took, in milliseconds
+     * @param memoized whether the result was shared with an identical simulation of the same batch rather than
+     * simulated separately
+     *
+     * @throws IllegalArgumentException if documentDetail is null
+     */
+    public static RoutingReportResult create(DocumentDetail documentDetail, long elapsedMillis, boolean memoized) {
+        if (documentDetail == null) {
+            throw new IllegalArgumentException("documentDetail was null");
+        }
+        return new RoutingReportResult(documentDetail, null, elapsedMillis, memoized);
+    }
+
+    /**
+     * Creates the result of a simulation which failed.
+     *
+     * @param errorMessage the message of the error which caused the simulation to fail
+     * @param elapsedMillis the time the simulation took before failing, in milliseconds
+     * @param memoized whether the result was shared with an identical simulation of the same batch rather than
+     * simulated separately
+     */
+    public static RoutingReportResult createFailure(String errorMessage, long elapsedMillis, boolean memoized) {
+        return new RoutingReportResult(null, errorMessage == null ? "" : errorMessage, elapsedMillis, memoized);
+    }
+
+    /**
+     * Returns a copy of this result flagged as having been shared with an identical simulation.
+     */
+    public RoutingReportResult asMemoized() {
+        return new RoutingReportResult(documentDetail, errorMessage, elapsedMillis, true);
+    }
+
+    /**
+     * Returns the detail of the simulated document, or null if the simulation failed.
+     */
+    public DocumentDetail getDocumentDetail() {
+        return documentDetail;
+    }
+
+    /**
+     * Returns the message of the error which caused the simulation to fail, or null if it succeeded.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Returns the time taken by the simulation which produced this result, in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns true if this result was produced by an identical simulation earlier in the same batch rather than being
+     * simulated separately.
+     */
+    public boolean isMemoized() {
+        return memoized;
+    }
+
+    public boolean isSuccessful() {
+        return errorMessage == null;
+    }
+
+    /**
+     * Defines some internal constants used on this class.
+     */
+    static class Constants {
+        final static String ROOT_ELEMENT_NAME = "routingReportResult";
+        final static String TYPE_NAME = "RoutingReportResultType";
+    }
+
+    /**
+     * A private class which exposes constants which define the XML element names to use when this object is marshalled to XML.
+     */
+    static class Elements {
+        final static String DOCUMENT_DETAIL = "documentDetail";
+        final static String ERROR_MESSAGE = "errorMessage";
+        final static String ELAPSED_MILLIS = "elapsedMillis";
+        final static String MEMOIZED = "memoized";
+    }
+
+}
@@ -1634,6 +1634,25 @@ public interface WorkflowDocumentActionsService {
             @WebParam(name = "reportCriteria") RoutingReportCriteria reportCriteria)
             throws RiceIllegalArgumentException;
 
+    /**
+     * Executes the simulations of a batch of documents, in parallel.  Simulations with identical criteria, including
+     * their target node and document content, are only executed once per batch and share their result.  A simulation
+     * which fails does not fail the rest of the batch, its result holds the error message instead.
+     *
+     * @param reportCriteria criteria for each of the simulations to execute
+     *
+     * @return a result for each of the given criteria, in the same order, with the time each simulation took
+     *
+     * @throws RiceIllegalArgumentException if {@code reportCriteria} is null or contains a null value
+     */
+    @WebMethod(operationName = "executeSimulations")
+    @WebResult(name = "routingReportResults")
+    @XmlElementWrapper(name = "routingReportResults", required = true)
+    @XmlElement(name = "routingReportResult", required = false)
+    List<RoutingReportResult> executeSimulations(
+            @WebParam(name = "reportCriteria") List<RoutingReportCriteria> reportCriteria)
+            throws RiceIllegalArgumentException;
+
     /**
      * Determines if a passed in user is the final approver for a document
      *
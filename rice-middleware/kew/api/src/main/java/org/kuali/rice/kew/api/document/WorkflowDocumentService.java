@@ -289,13 +289,18 @@ public interface WorkflowDocumentService {
      * documents can define security which permits access to view certain search results, the given principal id will
      * be used when evaluating which documents should be filtered from the results because of lack of access.
      *
+     * <p>If the criteria specifies a {@link DocumentSearchCriteria#getPageSize() page size}, only that page of results
+     * is fetched.  The results then carry a {@link DocumentSearchResults#getContinuationToken() continuation token}
+     * which can be set on the criteria to fetch the following page.</p>
+     *
      * @param principalId the id of the principal to execute the search as, if this value is non-null then security
      * filtering will be executed against the results, if it is null then no filtering will be performed
      * @param criteria the criteria to use when executing the search
      *
      * @return the results of the search, this will never be null but may contain an empty list of results
      *
-     * @throws RiceIllegalArgumentException if the given criteria is null
+     * @throws RiceIllegalArgumentException if the given criteria is null, or has an invalid page size or continuation
+     * token
      */
     @WebMethod(operationName = "documentSearch")
     @WebResult(name = "documentSearchResults")
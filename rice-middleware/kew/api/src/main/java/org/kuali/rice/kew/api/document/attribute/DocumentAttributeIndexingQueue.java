@@ -22,6 +22,7 @@ import javax.jws.WebMethod;
 import javax.jws.WebParam;
 import javax.jws.WebService;
 import javax.jws.soap.SOAPBinding;
+import java.util.List;
 
 /**
  * Defines the contract for a message queue that handles indexing of workflow documents.  The indexing process is
@@ -47,4 +48,20 @@ public interface DocumentAttributeIndexingQueue {
     @WebMethod(operationName = "indexDocument")
 	void indexDocument(@WebParam(name = "documentId") String documentId) throws RiceIllegalArgumentException;
 
+    /**
+     * Perform document attribute indexing on all of the documents with the given ids as a single batch.  This is
+     * considerably cheaper than sending a message per document when many documents need to be (re)indexed.  Ids which
+     * do not resolve to a valid document are skipped rather than failing the whole batch, and documents which have
+     * not changed since they were last indexed may be skipped as well.
+     *
+     * @param documentIds the ids of the documents to index, if this is a null or empty list then this method will do
+     * nothing
+     *
+     * @throws RiceIllegalArgumentException if the given list contains a null or blank value
+     *
+     * @since 2.6
+     */
+    @WebMethod(operationName = "indexDocuments")
+    void indexDocuments(@WebParam(name = "documentIds") List<String> documentIds) throws RiceIllegalArgumentException;
+
 }
@@ -89,6 +89,8 @@ import java.util.Map;
     DocumentSearchCriteria.Elements.INITIATOR_PRINCIPAL_ID,
     DocumentSearchCriteria.Elements.VIEWER_PRINCIPAL_ID,
     DocumentSearchCriteria.Elements.APPROVER_PRINCIPAL_ID,
+    DocumentSearchCriteria.Elements.PAGE_SIZE,
+    DocumentSearchCriteria.Elements.CONTINUATION_TOKEN,
     CoreConstants.CommonElements.FUTURE_ELEMENTS
 })
 public final class DocumentSearchCriteria extends AbstractDataTransferObject implements DocumentSearchCriteriaContract {
@@ -222,6 +224,18 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
     @XmlElement(name = Elements.DOC_SEARCH_USER_ID, required = false)
     private final String docSearchUserId;
 
+    /**
+     * @since 2.6
+     */
+    @XmlElement(name = Elements.PAGE_SIZE, required = false)
+    private final Integer pageSize;
+
+    /**
+     * @since 2.6
+     */
+    @XmlElement(name = Elements.CONTINUATION_TOKEN, required = false)
+    private final String continuationToken;
+
     @SuppressWarnings("unused")
     @XmlAnyElement
     private final Collection<Element> _futureElements = null;
@@ -266,6 +280,8 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
         this.isAdvancedSearch = null;
         this.docSearchUserId = null;
         this.applicationDocumentStatuses = null;
+        this.pageSize = null;
+        this.continuationToken = null;
     }
 
     private DocumentSearchCriteria(Builder builder) {
@@ -306,6 +322,8 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
         this.isAdvancedSearch = builder.getIsAdvancedSearch();
         this.docSearchUserId = builder.getDocSearchUserId();
         this.applicationDocumentStatuses = builder.getApplicationDocumentStatuses();
+        this.pageSize = builder.getPageSize();
+        this.continuationToken = builder.getContinuationToken();
     }
 
     @Override
@@ -507,6 +525,22 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
     public String getDocSearchUserId(){
         return docSearchUserId;
     }
+
+    /**
+     * @since 2.6
+     */
+    @Override
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @since 2.6
+     */
+    @Override
+    public String getContinuationToken() {
+        return continuationToken;
+    }
     /**
      * A builder which can be used to construct {@link DocumentSearchCriteria} instances.  Enforces the constraints of
      * the {@link DocumentSearchCriteriaContract}.
@@ -549,6 +583,8 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
         private String isAdvancedSearch;
         private String docSearchUserId;
         private List<String> applicationDocumentStatuses;
+        private Integer pageSize;
+        private String continuationToken;
 
         private Builder() {
             setDocumentStatuses(new ArrayList<DocumentStatus>());
@@ -631,6 +667,8 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
             // Set applicationDocumentStatus (singular!)
             builder.setApplicationDocumentStatus(contract.getApplicationDocumentStatus());
             builder.setDocSearchUserId(contract.getDocSearchUserId());
+            builder.setPageSize(contract.getPageSize());
+            builder.setContinuationToken(contract.getContinuationToken());
 
             return builder;
         }
@@ -837,6 +875,22 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
           return docSearchUserId;
         }
 
+        /**
+         * @since 2.6
+         */
+        @Override
+        public Integer getPageSize() {
+            return this.pageSize;
+        }
+
+        /**
+         * @since 2.6
+         */
+        @Override
+        public String getContinuationToken() {
+            return this.continuationToken;
+        }
+
         public void setDocumentId(String documentId) {
             this.documentId = documentId;
         }
@@ -1018,6 +1072,20 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
         public void setDocSearchUserId(String docSearchUserId){
             this.docSearchUserId = docSearchUserId;
         }
+
+        /**
+         * @since 2.6
+         */
+        public void setPageSize(Integer pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        /**
+         * @since 2.6
+         */
+        public void setContinuationToken(String continuationToken) {
+            this.continuationToken = continuationToken;
+        }
         /**
          * Resets DateTimes to local TimeZone (preserving absolute time)
          *
@@ -1089,6 +1157,8 @@ public final class DocumentSearchCriteria extends AbstractDataTransferObject imp
         final static String SEARCH_OPTIONS = "searchOptions";
         final static String APPLICATION_DOCUMENT_STATUSES = "applicationDocumentStatuses";
         final static String DOC_SEARCH_USER_ID = "docSearchUserId";
+        final static String PAGE_SIZE = "pageSize";
+        final static String CONTINUATION_TOKEN = "continuationToken";
     }
 
 }
\ No newline at end of file
@@ -380,4 +380,24 @@ public interface DocumentSearchCriteriaContract {
      * @return
      */
     String getDocSearchUserId();
+
+    /**
+     * Returns the number of documents to return in a single page of a keyset paged search.  When this value is set,
+     * the search only fetches the requested page from the database, ordered by date created and document id (both
+     * descending), and {@link #getStartAtIndex()} is ignored.  The returned {@link DocumentSearchResultsContract}
+     * will provide a continuation token which can be used to request the next page.
+     *
+     * @since 2.6
+     * @return the page size, or null if the search is not paged
+     */
+    Integer getPageSize();
+
+    /**
+     * Returns the opaque continuation token from the results of a previous paged search.  When set together with
+     * {@link #getPageSize()}, the search returns the page which follows the last result of that previous search.
+     *
+     * @since 2.6
+     * @return the continuation token, or null to request the first page
+     */
+    String getContinuationToken();
 }
@@ -77,4 +77,14 @@ public interface DocumentSearchResultsContract {
      */
     int getNumberOfSecurityFilteredResults();
 
+    /**
+     * Returns the opaque token which requests the next page of a keyset paged search (see
+     * {@link DocumentSearchCriteriaContract#getPageSize()}) when passed back on the criteria.
+     *
+     * @since 2.6
+     * @return the continuation token for the next page, or null if the search was not paged or there are no more
+     * results
+     */
+    String getContinuationToken();
+
 }
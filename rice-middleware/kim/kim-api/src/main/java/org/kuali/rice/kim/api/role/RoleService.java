@@ -361,6 +361,28 @@ public interface RoleService {
             @WebParam(name="qualification") @XmlJavaTypeAdapter(value = MapStringStringAdapter.class) Map<String, String> qualification )
             throws RiceIllegalArgumentException;
 
+    /**
+     * Returns the subset of the given principal ID list which has any of the given roles with the given qualification,
+     * as {@link #principalHasRole(String, java.util.List, java.util.Map)} would determine for each of them.  Members
+     * who can be matched exactly are looked up for all of the principals at once.
+     *
+     * @param principalIds the principal Ids to check.
+     * @param roleIds the list of role ids.
+     * @param qualification the qualifications for the roleIds.
+     * @return list of principalIds that is the subset of list passed in with any of the given roles and qualifications
+     * or an empty list.
+     * @throws RiceIllegalArgumentException if principalIds or roleIds is null.
+     * @since 2.6.0
+     */
+    @WebMethod(operationName = "getPrincipalIdSubListWithRoleIds")
+    @XmlElementWrapper(name = "principalIds", required = true)
+    @XmlElement(name = "principalId", required = false)
+    @WebResult(name = "principalIds")
+    List<String> getPrincipalIdSubListWithRoleIds( @WebParam(name="principalIds") List<String> principalIds,
+            @WebParam(name="roleIds") List<String> roleIds,
+            @WebParam(name="qualification") @XmlJavaTypeAdapter(value = MapStringStringAdapter.class) Map<String, String> qualification )
+            throws RiceIllegalArgumentException;
+
     /**
 	 *
 	 * This method gets search results for role lookup
@@ -0,0 +1,564 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kim.impl.group;
+
+import static org.kuali.rice.core.api.criteria.PredicateFactory.and;
+import static org.kuali.rice.core.api.criteria.PredicateFactory.equal;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.joda.time.DateTime;
+import org.kuali.rice.core.api.criteria.QueryByCriteria;
+import org.kuali.rice.kim.api.KimConstants;
+import org.kuali.rice.kim.api.group.GroupMember;
+import org.kuali.rice.kim.impl.KIMPropertyConstants;
+import org.kuali.rice.krad.data.DataObjectService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * An in-memory index of which groups are members of which other groups, from which the groups a principal is
+ * effectively a member of are resolved without walking the group hierarchy in the database.  Only the principal's
+ * direct memberships then need to be queried.
+ *
+ * <p>The index holds the group members of every group along with their active from and to dates, so it answers for
+ * any date.  The ancestors of each group as of the current date are memoized until the next date on which a group
+ * member becomes active or inactive.  Changes made through the {@link GroupServiceImpl} and the
+ * {@link GroupInternalService} are applied to the index once the transaction making them commits.  Until then, the
+ * groups changed by a transaction are only seen by the transaction itself, through a view of the index which reloads
+ * them within the transaction.</p>
+ *
+ * <p>Changes made on other nodes flush the {@link GroupMember.Cache#NAME group member cache} of this node.  When the
+ * index is loaded it puts a marker into that cache, and the index is reloaded in full once the marker is gone, so it
+ * follows the group member cache across the cluster.  Other changes, such as those made directly in the database, are
+ * picked up as the index is reloaded every {@link #setRefreshIntervalSeconds(int) refresh interval}.  The index is
+ * never loaded on behalf of a transaction which changed groups, as it would see the uncommitted changes.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class GroupClosureIndex {
+
+    private static final Logger LOG = Logger.getLogger(GroupClosureIndex.class);
+
+    /**
+     * The key of the marker the index keeps in the group member cache.
+     */
+    static final String MARKER_KEY = "{GroupClosureIndex}";
+
+    private DataObjectService dataObjectService;
+    private CacheManager cacheManager;
+    private boolean enabled = true;
+    private int refreshIntervalSeconds = 300;
+
+    private volatile Snapshot snapshot;
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong updateCount = new AtomicLong();
+
+    /**
+     * Returns the ids of the active groups which are the given direct groups of a principal or which they are
+     * members of, directly or through other groups, as of the given date.
+     *
+     * @param directGroupIds the ids of the groups the principal is a direct member of as of the date
+     * @param asOfDate the date as of which group members must be active
+     * @return the ids of the groups the principal is effectively a member of
+     */
+    public Set<String> getEffectiveGroupIds(Collection<String> directGroupIds, DateTime asOfDate) {
+        Snapshot current = getSnapshot();
+        long asOfMillis = toMillis(asOfDate);
+        Set<String> groupIds = new HashSet<String>();
+        for (String directGroupId : directGroupIds) {
+            if (current.activeGroupIds.contains(directGroupId) && groupIds.add(directGroupId)) {
+                groupIds.addAll(current.getAncestorGroupIds(directGroupId, asOfMillis));
+            }
+        }
+        return groupIds;
+    }
+
+    /**
+     * Returns whether a principal who is a direct member of the given groups is a member of the given group, directly
+     * or through other groups, as of the given date.
+     */
+    public boolean isMemberOfGroup(Collection<String> directGroupIds, String groupId, DateTime asOfDate) {
+        Snapshot current = getSnapshot();
+        if (!current.activeGroupIds.contains(groupId)) {
+            return false;
+        }
+        long asOfMillis = toMillis(asOfDate);
+        for (String directGroupId : directGroupIds) {
+            if (current.activeGroupIds.contains(directGroupId) && (directGroupId.equals(groupId)
+                    || current.getAncestorGroupIds(directGroupId, asOfMillis).contains(groupId))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records that the given group, or its group members, changed.  Within a transaction, the change is recorded with
+     * the transaction, which sees it from then on, and the group is reloaded into the index once the transaction
+     * commits.  The change is discarded if the transaction rolls back.  Outside of a transaction, the group is reloaded
+     * immediately.
+     */
+    public void groupChanged(String groupId) {
+        if (!enabled || groupId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reloadGroups(Collections.singleton(groupId));
+            return;
+        }
+        TransactionChanges changes = (TransactionChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new TransactionChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        changes.add(groupId);
+    }
+
+    /**
+     * Discards the index, which is reloaded as it is next used.
+     */
+    public void clear() {
+        snapshot = null;
+    }
+
+    /**
+     * Reloads the given groups into the index, which all threads see from then on.
+     */
+    protected void reloadGroups(Collection<String> groupIds) {
+        loadLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null) {
+                // loaded in full as it is next used
+                return;
+            }
+            snapshot = reloadGroups(current, groupIds);
+            updateCount.incrementAndGet();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the given snapshot in which the given groups have been reloaded.
+     */
+    private Snapshot reloadGroups(Snapshot current, Collection<String> groupIds) {
+        Set<String> activeGroupIds = new HashSet<String>(current.activeGroupIds);
+        Map<String, List<GroupEdge>> edgesByParent = new HashMap<String, List<GroupEdge>>(current.edgesByParent);
+        for (String groupId : groupIds) {
+            GroupBo group = dataObjectService.find(GroupBo.class, groupId);
+            if (group != null && group.isActive()) {
+                activeGroupIds.add(groupId);
+            } else {
+                activeGroupIds.remove(groupId);
+            }
+            List<GroupEdge> edges = toEdges(dataObjectService.findMatching(GroupMemberBo.class,
+                    QueryByCriteria.Builder.fromPredicates(and(
+                            equal(KIMPropertyConstants.GroupMember.GROUP_ID, groupId),
+                            equal(KIMPropertyConstants.GroupMember.MEMBER_TYPE_CODE,
+                                    KimConstants.KimGroupMemberTypes.GROUP_MEMBER_TYPE.getCode())))).getResults());
+            if (edges.isEmpty()) {
+                edgesByParent.remove(groupId);
+            } else {
+                edgesByParent.put(groupId, edges);
+            }
+        }
+        return new Snapshot(activeGroupIds, edgesByParent, current.loadedAt, current.marker);
+    }
+
+    /**
+     * Returns the index as seen by the current thread, which includes the groups changed by its transaction.
+     */
+    protected Snapshot getSnapshot() {
+        Snapshot shared = getSharedSnapshot();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return shared;
+        }
+        TransactionChanges changes = (TransactionChanges) TransactionSynchronizationManager.getResource(this);
+        return changes == null ? shared : changes.getView(shared);
+    }
+
+    private Snapshot getSharedSnapshot() {
+        Snapshot current = snapshot;
+        boolean flushed = current != null && isFlushed(current);
+        boolean expired = current != null && refreshIntervalSeconds > 0 && System.currentTimeMillis()
+                - current.loadedAt > TimeUnit.SECONDS.toMillis(refreshIntervalSeconds);
+        if (current != null && !flushed && !expired) {
+            return current;
+        }
+        if (hasTransactionChanges()) {
+            // the transaction would read its own uncommitted changes, which must not be published
+            return (current == null) ? load() : current;
+        }
+        if (current == null || flushed) {
+            loadLock.lock();
+            try {
+                Snapshot latest = snapshot;
+                if (latest == null || latest == current) {
+                    current = load();
+                    snapshot = current;
+                } else {
+                    current = latest;
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        } else if (loadLock.tryLock()) {
+            // the other threads carry on with the index being replaced in the meantime
+            try {
+                if (current == snapshot) {
+                    current = load();
+                    snapshot = current;
+                } else if (snapshot != null) {
+                    current = snapshot;
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns whether the group member cache was flushed since the given snapshot was loaded.
+     */
+    private boolean isFlushed(Snapshot current) {
+        if (current.marker == null) {
+            return false;
+        }
+        Cache.ValueWrapper marker = getCache().get(MARKER_KEY);
+        return marker == null || !current.marker.equals(marker.get());
+    }
+
+    private boolean hasTransactionChanges() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.hasResource(this);
+    }
+
+    private Cache getCache() {
+        return cacheManager.getCache(GroupMember.Cache.NAME);
+    }
+
+    /**
+     * Loads the index in full.  The marker is put into the group member cache first, so that a flush while the index
+     * is being read causes it to be loaded again.
+     */
+    private Snapshot load() {
+        long start = System.currentTimeMillis();
+        String marker = null;
+        if (cacheManager != null) {
+            marker = UUID.randomUUID().toString();
+            getCache().put(MARKER_KEY, marker);
+        }
+        Set<String> activeGroupIds = new HashSet<String>();
+        for (GroupBo group : dataObjectService.findMatching(GroupBo.class, QueryByCriteria.Builder.forAttribute(
+                "active", Boolean.TRUE).build()).getResults()) {
+            activeGroupIds.add(group.getId());
+        }
+        Map<String, List<GroupEdge>> edgesByParent = new HashMap<String, List<GroupEdge>>();
+        for (GroupEdge edge : toEdges(dataObjectService.findMatching(GroupMemberBo.class,
+                QueryByCriteria.Builder.forAttribute(KIMPropertyConstants.GroupMember.MEMBER_TYPE_CODE,
+                        KimConstants.KimGroupMemberTypes.GROUP_MEMBER_TYPE.getCode()).build()).getResults())) {
+            List<GroupEdge> edges = edgesByParent.get(edge.parentGroupId);
+            if (edges == null) {
+                edges = new ArrayList<GroupEdge>();
+                edgesByParent.put(edge.parentGroupId, edges);
+            }
+            edges.add(edge);
+        }
+        Snapshot loaded = new Snapshot(activeGroupIds, edgesByParent, start, marker);
+        loadCount.incrementAndGet();
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Loaded the group closure index of " + activeGroupIds.size() + " active groups and "
+                    + loaded.edgeCount + " group members in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        return loaded;
+    }
+
+    private static List<GroupEdge> toEdges(List<GroupMemberBo> groupMembers) {
+        List<GroupEdge> edges = new ArrayList<GroupEdge>(groupMembers.size());
+        for (GroupMemberBo groupMember : groupMembers) {
+            edges.add(new GroupEdge(groupMember.getGroupId(), groupMember.getMemberId(),
+                    groupMember.getActiveFromDateValue(), groupMember.getActiveToDateValue()));
+        }
+        return edges;
+    }
+
+    /**
+     * Group members are active as of a date to the second, rounded up, as when they are queried.
+     */
+    private static long toMillis(DateTime asOfDate) {
+        return asOfDate.secondOfDay().roundCeilingCopy().getMillis();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the index is used, if not group memberships are resolved by walking the group hierarchy in the
+     * database.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public int getRefreshIntervalSeconds() {
+        return refreshIntervalSeconds;
+    }
+
+    /**
+     * Sets how often the index is reloaded in full, to pick up changes made other than through this node's group
+     * service, 0 never reloads it.
+     */
+    public void setRefreshIntervalSeconds(int refreshIntervalSeconds) {
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+    }
+
+    public void setDataObjectService(DataObjectService dataObjectService) {
+        this.dataObjectService = dataObjectService;
+    }
+
+    /**
+     * Sets the local cache manager holding the group member cache, whose flushes cause the index to be reloaded.
+     * Without it, changes made on other nodes are only picked up every refresh interval.
+     */
+    public void setCacheManager(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    public long getUpdateCount() {
+        return updateCount.get();
+    }
+
+    /**
+     * The groups changed by a transaction, bound to it as a resource keyed by the index.  The view of the index
+     * including them is rebuilt whenever another group is changed or the shared index is replaced.
+     */
+    private final class TransactionChanges extends TransactionSynchronizationAdapter {
+
+        private final Set<String> groupIds = new HashSet<String>();
+        private Snapshot base;
+        private Snapshot view;
+
+        void add(String groupId) {
+            if (groupIds.add(groupId)) {
+                view = null;
+            }
+        }
+
+        Snapshot getView(Snapshot shared) {
+            if (view == null || base != shared) {
+                view = reloadGroups(shared, groupIds);
+                base = shared;
+            }
+            return view;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(GroupClosureIndex.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(GroupClosureIndex.this, this);
+        }
+
+        @Override
+        public void beforeCompletion() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(GroupClosureIndex.this);
+        }
+
+        @Override
+        public void afterCommit() {
+            reloadGroups(groupIds);
+        }
+    }
+
+    /**
+     * A group member which is itself a group.
+     */
+    private static final class GroupEdge {
+
+        final String parentGroupId;
+        final String childGroupId;
+        final long activeFrom;
+        final long activeTo;
+
+        GroupEdge(String parentGroupId, String childGroupId, Timestamp activeFrom, Timestamp activeTo) {
+            this.parentGroupId = parentGroupId;
+            this.childGroupId = childGroupId;
+            this.activeFrom = activeFrom == null ? Long.MIN_VALUE : activeFrom.getTime();
+            this.activeTo = activeTo == null ? Long.MAX_VALUE : activeTo.getTime();
+        }
+
+        boolean isActive(long asOfMillis) {
+            return activeFrom <= asOfMillis && asOfMillis < activeTo;
+        }
+    }
+
+    /**
+     * The ancestors of each group memoized for a span of dates during which no group member becomes active or
+     * inactive.
+     */
+    private static final class Memo {
+
+        final long from;
+        final long to;
+        final ConcurrentMap<String, Set<String>> ancestorGroupIds = new ConcurrentHashMap<String, Set<String>>();
+
+        Memo(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        boolean covers(long asOfMillis) {
+            return from <= asOfMillis && asOfMillis < to;
+        }
+    }
+
+    /**
+     * The state of the index, replaced as a whole whenever it changes.
+     */
+    protected static final class Snapshot {
+
+        final Set<String> activeGroupIds;
+        final Map<String, List<GroupEdge>> edgesByParent;
+        final Map<String, List<GroupEdge>> edgesByChild;
+        final long[] boundaries;
+        final long loadedAt;
+        final String marker;
+        final int edgeCount;
+        volatile Memo memo;
+
+        Snapshot(Set<String> activeGroupIds, Map<String, List<GroupEdge>> edgesByParent, long loadedAt,
+                String marker) {
+            this.activeGroupIds = Collections.unmodifiableSet(activeGroupIds);
+            this.edgesByParent = Collections.unmodifiableMap(edgesByParent);
+            this.loadedAt = loadedAt;
+            this.marker = marker;
+            Map<String, List<GroupEdge>> edgesByChild = new HashMap<String, List<GroupEdge>>();
+            TreeSet<Long> boundaries = new TreeSet<Long>();
+            int edgeCount = 0;
+            for (List<GroupEdge> edges : edgesByParent.values()) {
+                for (GroupEdge edge : edges) {
+                    List<GroupEdge> parentEdges = edgesByChild.get(edge.childGroupId);
+                    if (parentEdges == null) {
+                        parentEdges = new ArrayList<GroupEdge>(2);
+                        edgesByChild.put(edge.childGroupId, parentEdges);
+                    }
+                    parentEdges.add(edge);
+                    boundaries.add(edge.activeFrom);
+                    boundaries.add(edge.activeTo);
+                    edgeCount++;
+                }
+            }
+            this.edgesByChild = edgesByChild;
+            this.edgeCount = edgeCount;
+            this.boundaries = new long[boundaries.size()];
+            int index = 0;
+            for (Long boundary : boundaries) {
+                this.boundaries[index++] = boundary;
+            }
+        }
+
+        Set<String> getAncestorGroupIds(String groupId, long asOfMillis) {
+            Memo current = memo;
+            if (current == null || !current.covers(asOfMillis)) {
+                if (current != null && asOfMillis < current.from) {
+                    // dates earlier than the memoized ones are resolved without being memoized
+                    return computeAncestorGroupIds(groupId, asOfMillis);
+                }
+                current = createMemo(asOfMillis);
+                memo = current;
+            }
+            Set<String> ancestorGroupIds = current.ancestorGroupIds.get(groupId);
+            if (ancestorGroupIds == null) {
+                ancestorGroupIds = computeAncestorGroupIds(groupId, asOfMillis);
+                current.ancestorGroupIds.putIfAbsent(groupId, ancestorGroupIds);
+            }
+            return ancestorGroupIds;
+        }
+
+        private Memo createMemo(long asOfMillis) {
+            int index = Arrays.binarySearch(boundaries, asOfMillis);
+            long from;
+            long to;
+            if (index >= 0) {
+                from = boundaries[index];
+                to = index + 1 < boundaries.length ? boundaries[index + 1] : Long.MAX_VALUE;
+            } else {
+                int insertion = -index - 1;
+                from = insertion > 0 ? boundaries[insertion - 1] : Long.MIN_VALUE;
+                to = insertion < boundaries.length ? boundaries[insertion] : Long.MAX_VALUE;
+            }
+            return new Memo(from, to);
+        }
+
+        private Set<String> computeAncestorGroupIds(String groupId, long asOfMillis) {
+            Set<String> ancestorGroupIds = new HashSet<String>();
+            Deque<String> remaining = new ArrayDeque<String>();
+            remaining.add(groupId);
+            while (!remaining.isEmpty()) {
+                List<GroupEdge> parentEdges = edgesByChild.get(remaining.poll());
+                if (parentEdges == null) {
+                    continue;
+                }
+                for (GroupEdge edge : parentEdges) {
+                    if (edge.isActive(asOfMillis) && activeGroupIds.contains(edge.parentGroupId)
+                            && ancestorGroupIds.add(edge.parentGroupId)) {
+                        remaining.add(edge.parentGroupId);
+                    }
+                }
+            }
+            return Collections.unmodifiableSet(ancestorGroupIds);
+        }
+    }
+
+}
@@ -39,6 +39,8 @@ import org.kuali.rice.krad.service.KRADServiceLocator;
  */
 public class GroupInternalServiceImpl implements GroupInternalService {
 
+    private GroupClosureIndex groupClosureIndex;
+
     protected DataObjectService getDataObjectService() {
         return KRADServiceLocator.getDataObjectService();
     }
@@ -63,6 +65,9 @@ public class GroupInternalServiceImpl implements GroupInternalService {
     @Override
     public void updateForWorkgroupChange(String groupId,
     		List<String> oldPrincipalIds, List<String> newPrincipalIds) {
+        if (groupClosureIndex != null) {
+            groupClosureIndex.groupChanged(groupId);
+        }
         MembersDiff membersDiff = getMembersDiff(oldPrincipalIds, newPrincipalIds);
         for (String removedPrincipalId : membersDiff.getRemovedPrincipalIds()) {
         	updateForUserRemovedFromGroup(removedPrincipalId, groupId);
@@ -93,6 +98,13 @@ public class GroupInternalServiceImpl implements GroupInternalService {
 
     }
 
+    /**
+     * Sets the index of the group hierarchy to record changes to groups in.
+     */
+    public void setGroupClosureIndex(GroupClosureIndex groupClosureIndex) {
+        this.groupClosureIndex = groupClosureIndex;
+    }
+
     private MembersDiff getMembersDiff(List<String> oldMemberPrincipalIds, List<String> newMemberPrincipalIds) {
 
     	// ListUtils does not check the null case.  Which can happen when adding a new group
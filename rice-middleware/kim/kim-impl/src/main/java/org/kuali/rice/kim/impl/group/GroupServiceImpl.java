@@ -58,6 +58,7 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
     private static final Logger LOG = Logger.getLogger(GroupServiceImpl.class);
 
     private DataObjectService dataObjectService;
+    private GroupClosureIndex groupClosureIndex;
 
     @Override
     public Group getGroup(String groupId) throws RiceIllegalArgumentException {
@@ -150,7 +151,11 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
 
         List<String> result = new ArrayList<String>();
 
-        if (principalId != null) {
+        if (principalId != null && namespaceCode == null && isGroupClosureIndexEnabled()) {
+            DateTime asOfDate = new DateTime(System.currentTimeMillis());
+            result.addAll(groupClosureIndex.getEffectiveGroupIds(getDirectGroupIdsForPrincipal(principalId, asOfDate),
+                    asOfDate));
+        } else if (principalId != null) {
             List<Group> groupList = getGroupsByPrincipalIdAndNamespaceCodeInternal(principalId, namespaceCode);
 
             for (Group group : groupList) {
@@ -261,6 +266,10 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
         incomingParamCheck(groupId, "groupId");
         incomingParamCheck(asOfDate, "asOfDate");
 
+        if (isGroupClosureIndexEnabled()) {
+            return groupClosureIndex.isMemberOfGroup(getDirectGroupIdsForPrincipal(principalId, asOfDate), groupId,
+                    asOfDate);
+        }
         Set<String> visitedGroupIds = new HashSet<String>();
         return isMemberOfGroupInternal(principalId, groupId, visitedGroupIds, KimConstants.KimGroupMemberTypes.PRINCIPAL_MEMBER_TYPE, asOfDate);
     }
@@ -570,18 +579,7 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
 			return Collections.emptyList();
 		}
 
-		// only return the active members
-        final QueryByCriteria.Builder builder = QueryByCriteria.Builder.create();
-        builder.setPredicates(
-                and(
-                    equal(KIMPropertyConstants.GroupMember.MEMBER_ID, principalId),
-                    equal(KIMPropertyConstants.GroupMember.MEMBER_TYPE_CODE, MemberType.PRINCIPAL.getCode()),
-                    HistoryQueryUtils.between(KIMPropertyConstants.KimMember.ACTIVE_FROM_DATE_VALUE, KIMPropertyConstants.KimMember.ACTIVE_TO_DATE_VALUE, asOfDate)));
-		List<GroupMember> groupMembers = findGroupMembers(builder.build()).getResults();
-        Set<String> groupIds = new HashSet<String>( groupMembers.size());
-        for (GroupMember gm : groupMembers) {
-            groupIds.add(gm.getGroupId());
-        }
+        Set<String> groupIds = getDirectGroupIdsForPrincipal(principalId, asOfDate);
 
 		// pull all the group information for the matching members
 		List<Group> groups = CollectionUtils.isEmpty(groupIds) ? Collections.<Group>emptyList() : getGroups(groupIds);
@@ -597,6 +595,25 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
 		return result;
 	}
 
+    /**
+     * Returns the ids of the groups, active or not, the principal is a direct member of as of the given date.
+     */
+    protected Set<String> getDirectGroupIdsForPrincipal(String principalId, DateTime asOfDate) {
+		// only return the active members
+        final QueryByCriteria.Builder builder = QueryByCriteria.Builder.create();
+        builder.setPredicates(
+                and(
+                    equal(KIMPropertyConstants.GroupMember.MEMBER_ID, principalId),
+                    equal(KIMPropertyConstants.GroupMember.MEMBER_TYPE_CODE, MemberType.PRINCIPAL.getCode()),
+                    HistoryQueryUtils.between(KIMPropertyConstants.KimMember.ACTIVE_FROM_DATE_VALUE, KIMPropertyConstants.KimMember.ACTIVE_TO_DATE_VALUE, asOfDate)));
+		List<GroupMember> groupMembers = findGroupMembers(builder.build()).getResults();
+        Set<String> groupIds = new HashSet<String>( groupMembers.size());
+        for (GroupMember gm : groupMembers) {
+            groupIds.add(gm.getGroupId());
+        }
+        return groupIds;
+    }
+
     @Override
     public boolean addGroupToGroup(String childId, String parentId)  throws RiceIllegalArgumentException {
         incomingParamCheck(childId, "childId");
@@ -615,6 +632,7 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
         groupMember.setMemberId(childId);
 
         this.dataObjectService.save(groupMember);
+        groupChanged(parentId);
         return true;
     }
 
@@ -809,6 +827,7 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
         	GroupMemberBo groupMember = groupMembers.get(0);
         	groupMember.setActiveToDateValue(today);
             this.dataObjectService.save(groupMember);
+            groupChanged(parentId);
             return true;
         }
 
@@ -876,6 +895,20 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
 		return KimImplServiceLocator.getGroupInternalService().saveWorkgroup(group);
 	}
 
+    /**
+     * Records in the group closure index that the group members of the group changed, changes made through the
+     * {@link GroupInternalService} are recorded by it.
+     */
+    protected void groupChanged(String groupId) {
+        if (groupClosureIndex != null) {
+            groupClosureIndex.groupChanged(groupId);
+        }
+    }
+
+    protected boolean isGroupClosureIndexEnabled() {
+        return groupClosureIndex != null && groupClosureIndex.isEnabled();
+    }
+
 
 	/**
 	 * This helper method gets the active group members of the specified type (see {@link org.kuali.rice.kim.api.KimConstants.KimGroupMemberTypes}).
@@ -933,6 +966,13 @@ public class GroupServiceImpl extends GroupServiceBase implements GroupService {
         this.dataObjectService = dataObjectService;
     }
 
+    /**
+     * Sets the index of the group hierarchy used to resolve the groups principals are effectively members of.
+     */
+    public void setGroupClosureIndex(GroupClosureIndex groupClosureIndex) {
+        this.groupClosureIndex = groupClosureIndex;
+    }
+
     private void incomingParamCheck(Object object, String name) {
         if (object == null) {
             throw new RiceIllegalArgumentException(name + " was null");
@@ -160,6 +160,29 @@ abstract class RoleServiceBase {
         return getRoleMembershipsForPredicates(criteria);
     }
 
+    /**
+     * Returns the principal members of the given roles who are any of the given principals, matching the given
+     * qualification which is keyed by attribute id.
+     */
+    protected List<RoleMemberBo> getRoleMembersForPrincipalIds(Collection<String> roleIds,
+            Collection<String> principalIds, Map<String, String> qualification) {
+        if (CollectionUtils.isEmpty(principalIds)) {
+            return new ArrayList<RoleMemberBo>();
+        }
+
+        List<Predicate> criteria = new ArrayList<Predicate>();
+        criteria.add( PredicateFactory.in(KIMPropertyConstants.RoleMember.ROLE_ID, roleIds) );
+        criteria.add( PredicateFactory.in(KIMPropertyConstants.RoleMember.MEMBER_ID, principalIds) );
+        criteria.add( PredicateFactory.equal(KIMPropertyConstants.RoleMember.MEMBER_TYPE_CODE, MemberType.PRINCIPAL.getCode()));
+
+        Predicate roleQualificationPredicate = getRoleQualificationPredicate(qualification);
+        if ( roleQualificationPredicate != null ) {
+            criteria.add( roleQualificationPredicate );
+        }
+
+        return getRoleMembershipsForPredicates(criteria);
+    }
+
     protected List<RoleMemberBo> getRoleMembersForGroupIds(String roleId, List<String> groupIds) {
         if (CollectionUtils.isEmpty(groupIds)) {
             return new ArrayList<RoleMemberBo>();
@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -71,6 +72,7 @@ import org.kuali.rice.kim.framework.common.delegate.DelegationTypeService;
 import org.kuali.rice.kim.framework.role.RoleTypeService;
 import org.kuali.rice.kim.framework.services.KimFrameworkServiceLocator;
 import org.kuali.rice.kim.framework.type.KimTypeService;
+import org.kuali.rice.kim.impl.KIMPropertyConstants;
 import org.kuali.rice.kim.impl.common.attribute.AttributeTransform;
 import org.kuali.rice.kim.impl.common.attribute.KimAttributeDataBo;
 import org.kuali.rice.kim.impl.common.delegate.DelegateMemberAttributeDataBo;
@@ -103,6 +105,8 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
         return Collections.unmodifiableMap(map);
     }
 
+    private static final int IN_LIST_SIZE = 1000;
+
     private RoleService proxiedRoleService;
     private CacheManager cacheManager;
 
@@ -620,17 +624,102 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
         incomingParamCheck(roleNamespaceCode, "roleNamespaceCode");
         incomingParamCheck(roleName, "roleName");
 
-        List<String> subList = new ArrayList<String>();
         RoleBoLite role = getRoleBoLiteByName(roleNamespaceCode, roleName);
+        return getPrincipalIdSubListWithRoleIds(principalIds, Collections.singletonList(role.getId()), qualification);
+    }
+
+    @Override
+    public List<String> getPrincipalIdSubListWithRoleIds(List<String> principalIds, List<String> roleIds,
+            Map<String, String> qualification) throws RiceIllegalStateException {
+        incomingParamCheck(principalIds, "principalIds");
+        incomingParamCheck(roleIds, "roleIds");
+
+        Set<String> remainingPrincipalIds = new LinkedHashSet<String>();
         for (String principalId : principalIds) {
-            if (this.getProxiedRoleService().principalHasRole(principalId, Collections.singletonList(role.getId()),
-                    qualification)) {
+            if (StringUtils.isNotBlank(principalId)) {
+                remainingPrincipalIds.add(principalId);
+            }
+        }
+
+        // members of roles which can be matched exactly are found for all of the principals at once, the other roles
+        // are checked for each principal who was not found
+        Set<String> principalIdsWithRole = new HashSet<String>();
+        List<String> remainingRoleIds = new ArrayList<String>();
+        for (Role role : loadRoles(roleIds)) {
+            if (remainingPrincipalIds.isEmpty()) {
+                break;
+            }
+            RoleResolutionPlan plan = getRoleResolutionPlan(role);
+            Map<String, String> qualificationForExactMatch = plan.isDerivedRoleType() ? null :
+                    getQualifiersForExactMatch(plan, qualification);
+            if (qualificationForExactMatch == null) {
+                remainingRoleIds.add(role.getId());
+                continue;
+            }
+            Set<String> members = getPrincipalIdsWithExactMatch(plan, remainingPrincipalIds,
+                    qualificationForExactMatch);
+            principalIdsWithRole.addAll(members);
+            remainingPrincipalIds.removeAll(members);
+            if (!plan.getNestedRoles().isEmpty() || !plan.getDelegations().isEmpty()) {
+                remainingRoleIds.add(role.getId());
+            }
+        }
+        if (!remainingRoleIds.isEmpty()) {
+            for (String principalId : remainingPrincipalIds) {
+                if (getProxiedRoleService().principalHasRole(principalId, remainingRoleIds, qualification)) {
+                    principalIdsWithRole.add(principalId);
+                }
+            }
+        }
+
+        List<String> subList = new ArrayList<String>();
+        for (String principalId : principalIds) {
+            if (principalIdsWithRole.contains(principalId)) {
                 subList.add(principalId);
             }
         }
         return Collections.unmodifiableList(subList);
     }
 
+    /**
+     * Returns those of the given principals who are members of the role of the given plan with the given qualifiers,
+     * directly or through their groups.
+     */
+    protected Set<String> getPrincipalIdsWithExactMatch(RoleResolutionPlan plan, Collection<String> principalIds,
+            Map<String, String> qualificationForExactMatch) {
+        Map<String, String> attributeQualification = convertQualifierKeys(qualificationForExactMatch,
+                plan.getExactMatchAttributeIds());
+        List<String> roleIds = Collections.singletonList(plan.getRole().getId());
+        List<String> principalIdList = new ArrayList<String>(principalIds);
+        Set<String> matchingPrincipalIds = new HashSet<String>();
+        for (int index = 0; index < principalIdList.size(); index += IN_LIST_SIZE) {
+            List<String> principalIdChunk = principalIdList.subList(index, Math.min(index + IN_LIST_SIZE,
+                    principalIdList.size()));
+            for (RoleMemberBo roleMemberBo : getRoleMembersForPrincipalIds(roleIds, principalIdChunk,
+                    attributeQualification)) {
+                matchingPrincipalIds.add(roleMemberBo.getMemberId());
+            }
+        }
+
+        MultiValueMap<String, String> principalIdsByGroupId = new LinkedMultiValueMap<String, String>();
+        for (String principalId : principalIdList) {
+            if (!matchingPrincipalIds.contains(principalId)) {
+                for (String groupId : getGroupService().getGroupIdsByPrincipalId(principalId)) {
+                    principalIdsByGroupId.add(groupId, principalId);
+                }
+            }
+        }
+        List<String> groupIds = new ArrayList<String>(principalIdsByGroupId.keySet());
+        for (int index = 0; index < groupIds.size(); index += IN_LIST_SIZE) {
+            List<String> groupIdChunk = groupIds.subList(index, Math.min(index + IN_LIST_SIZE, groupIds.size()));
+            for (RoleMemberBo roleMemberBo : getRoleGroupsForGroupIdsAndRoleIds(roleIds, groupIdChunk,
+                    attributeQualification)) {
+                matchingPrincipalIds.addAll(principalIdsByGroupId.get(roleMemberBo.getMemberId()));
+            }
+        }
+        return matchingPrincipalIds;
+    }
+
     @Override
     public RoleQueryResults findRoles(QueryByCriteria queryByCriteria) throws RiceIllegalStateException {
         incomingParamCheck(queryByCriteria, "queryByCriteria");
@@ -1107,13 +1196,9 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
 
         private String principalId;
         private List<String> principalGroupIds;
-        private Map<String, RoleTypeService> roleTypeServiceCache;
-        private Map<String, Boolean> isDerivedRoleTypeCache;
 
         Context(String principalId) {
             this.principalId = principalId;
-            this.roleTypeServiceCache = new HashMap<String, RoleTypeService>();
-            this.isDerivedRoleTypeCache = new HashMap<String, Boolean>();
         }
 
         String getPrincipalId() {
@@ -1126,33 +1211,6 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
             }
             return principalGroupIds;
         }
-
-        RoleTypeService getRoleTypeService(String kimTypeId) {
-            if (roleTypeServiceCache.containsKey(kimTypeId)) {
-                return roleTypeServiceCache.get(kimTypeId);
-            }
-            RoleTypeService roleTypeService = null;
-            if (kimTypeId != null) {
-                KimType roleType = KimApiServiceLocator.getKimTypeInfoService().getKimType(kimTypeId);
-                if (roleType != null && StringUtils.isNotBlank(roleType.getServiceName())) {
-                    roleTypeService = getRoleTypeServiceByName(roleType.getServiceName());
-                }
-            }
-            if (roleTypeService == null) {
-                roleTypeService = KimImplServiceLocator.getDefaultRoleTypeService();
-            }
-            roleTypeServiceCache.put(kimTypeId, roleTypeService);
-            return roleTypeService;
-        }
-
-        boolean isDerivedRoleType(String kimTypeId) {
-            Boolean isDerived = isDerivedRoleTypeCache.get(kimTypeId);
-            if (isDerived == null) {
-                isDerived = Boolean.valueOf(RoleServiceImpl.this.isDerivedRoleType(getRoleTypeService(kimTypeId)));
-                isDerivedRoleTypeCache.put(kimTypeId, isDerived);
-            }
-            return isDerived.booleanValue();
-        }
     }
 
     /**
@@ -1184,48 +1242,41 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
             }
 
             // sort putting derived roles last since they are most expensive to check
-            LinkedList<Role> sortedRoles = new LinkedList<Role>();
+            LinkedList<RoleResolutionPlan> sortedPlans = new LinkedList<RoleResolutionPlan>();
             for (Role role : roles) {
-                boolean isDerivedRoleType = context.isDerivedRoleType(role.getKimTypeId());
+                RoleResolutionPlan plan = getRoleResolutionPlan(role);
 
-                if (isDerivedRoleType) {
-                    sortedRoles.addLast(role);
+                if (plan.isDerivedRoleType()) {
+                    sortedPlans.addLast(plan);
                 } else {
-                    sortedRoles.addFirst(role);
+                    sortedPlans.addFirst(plan);
                 }
             }
 
-            for (Role role : sortedRoles) {
+            for (RoleResolutionPlan plan : sortedPlans) {
                 boolean hasRole;
+                Role role = plan.getRole();
 
-                RoleTypeService roleTypeService = null;
-                try {
-                    roleTypeService = context.getRoleTypeService(role.getKimTypeId());
-                } catch (Exception ex) {
-                    LOG.warn("Unable to find role type service with id: " + role.getKimTypeId(), ex);
-                }
-
-                boolean isDerivedRoleType = context.isDerivedRoleType(role.getKimTypeId());
-                if (isDerivedRoleType) {
-                    hasRole = principalHasDerivedRole(context, principalId, role, qualification, roleTypeService);
+                if (plan.isDerivedRoleType()) {
+                    hasRole = principalHasDerivedRole(context, principalId, role, qualification,
+                            plan.getRoleTypeService());
                 } else {
-                    hasRole = checkForMatchOnQualifications(context, principalId, role, qualification, roleTypeService);
+                    hasRole = checkForMatchOnQualifications(context, principalId, plan, qualification);
 
                     if (!hasRole) {
-                        hasRole = checkForMatchOnNestedRoles(context, principalId, role, qualification, roleTypeService);
+                        hasRole = checkForMatchOnNestedRoles(context, principalId, plan, qualification);
                     }
                 }
 
                 if (!hasRole) {
-                    if (checkDelegations && matchesOnDelegation(role.getId(), principalId,
-                            context.getPrincipalGroupIds(), qualification, context)) {
+                    if (checkDelegations && !plan.getDelegations().isEmpty() && matchesOnDelegation(plan,
+                            principalId, context.getPrincipalGroupIds(), qualification, context)) {
                         hasRole = true;
                     }
                 }
 
                 // no match above, so principal doesn't have role
-                if (!isDerivedRoleType || (roleTypeService == null) || !roleTypeService
-                        .dynamicRoleMembership(role.getNamespaceCode(), role.getName())) {
+                if (!plan.isDynamicRoleMembership()) {
                     putPrincipalHasRoleInCache(hasRole, principalId, role.getId(), qualification, checkDelegations);
                 }
 
@@ -1283,13 +1334,22 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
 
     protected boolean checkForMatchOnQualifications(Context context, String principalId, Role role,
             Map<String, String> qualification, RoleTypeService roleTypeService) {
-        Map<String, String> qualificationForExactMatch = getQualifiersForExactMatch(context, role, qualification);
+        return checkForMatchOnQualifications(context, principalId, getRoleResolutionPlan(role), qualification);
+    }
+
+    protected boolean checkForMatchOnQualifications(Context context, String principalId, RoleResolutionPlan plan,
+            Map<String, String> qualification) {
+        Role role = plan.getRole();
+        RoleTypeService roleTypeService = plan.getRoleTypeService();
+        Map<String, String> qualificationForExactMatch = getQualifiersForExactMatch(plan, qualification);
         if (qualificationForExactMatch != null) {
             // Perform exact database-level matching. This can be done for all roles if the given qualification map
             // is null or empty since that means qualification matching does not need to be performed. It can also
             // be done for roles who's RoleTypeService defines qualifiers for exact match.
-            List<RoleMemberBo> matchingRoleMembers = getStoredRolePrincipalsForPrincipalIdAndRoleIds(
-                    Collections.singletonList(role.getId()), principalId, qualificationForExactMatch);
+            Map<String, String> attributeQualification = convertQualifierKeys(qualificationForExactMatch,
+                    plan.getExactMatchAttributeIds());
+            List<RoleMemberBo> matchingRoleMembers = getRoleMembersForPrincipalId(Collections.singletonList(
+                    role.getId()), principalId, attributeQualification);
 
             // if a role member matched our principal, we're good to go
             if (CollectionUtils.isNotEmpty(matchingRoleMembers)) {
@@ -1298,8 +1358,9 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
 
             // now check groups
             if (!context.getPrincipalGroupIds().isEmpty()) {
-                List<RoleMemberBo> matchingRoleGroupMembers = getStoredRoleGroupsUsingExactMatchOnQualification(
-                        context.getPrincipalGroupIds(), role.getId(), qualification);
+                List<RoleMemberBo> matchingRoleGroupMembers = getRoleGroupsForGroupIdsAndRoleIds(
+                        Collections.singletonList(role.getId()), context.getPrincipalGroupIds(),
+                        attributeQualification);
                 if (CollectionUtils.isNotEmpty(matchingRoleGroupMembers)) {
                     return true;
                 }
@@ -1329,18 +1390,25 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
 
     protected Map<String, String> getQualifiersForExactMatch(Context context, Role role,
             Map<String, String> qualification) {
+        return getQualifiersForExactMatch(getRoleResolutionPlan(role), qualification);
+    }
+
+    /**
+     * Returns the qualifiers of the given qualification to match role members on exactly, or null if members of the
+     * role must be matched by its role type service.
+     */
+    protected Map<String, String> getQualifiersForExactMatch(RoleResolutionPlan plan,
+            Map<String, String> qualification) {
         Map<String, String> qualificationForExactMatch = null;
 
         if (qualification == null || qualification.isEmpty()) {
             qualificationForExactMatch = new HashMap<String, String>();
         } else {
-            RoleTypeService roleTypeService = context.getRoleTypeService(role.getKimTypeId());
-            if (roleTypeService == null) {
+            if (plan.getRoleTypeService() == null) {
                 return null;
             }
 
-            List<String> attributesForExactMatch = getQualifiersForExactMatchFromRoleType(role.getKimTypeId(),
-                    roleTypeService);
+            List<String> attributesForExactMatch = plan.getQualifiersForExactMatch();
             if (CollectionUtils.isNotEmpty(attributesForExactMatch)) {
                 qualificationForExactMatch = populateQualifiersForExactMatch(qualification, attributesForExactMatch);
                 if (qualificationForExactMatch.isEmpty()) {
@@ -1354,20 +1422,29 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
 
     protected boolean checkForMatchOnNestedRoles(Context context, String principalId, Role role,
             Map<String, String> qualification, RoleTypeService roleTypeService) {
-        Map<String, Role> roleIndex = new HashMap<String, Role>();
-        roleIndex.put(role.getId(), role);
+        return checkForMatchOnNestedRoles(context, principalId, getRoleResolutionPlan(role), qualification);
+    }
 
-        List<RoleMemberBo> roleMemberBos = getStoredRoleMembersForRoleIds(new ArrayList<String>(roleIndex.keySet()),
-                MemberType.ROLE.getCode(), null);
-        for (RoleMemberBo roleMemberBo : roleMemberBos) {
+    protected boolean checkForMatchOnNestedRoles(Context context, String principalId, RoleResolutionPlan plan,
+            Map<String, String> qualification) {
+        Role role = plan.getRole();
+        RoleTypeService roleTypeService = plan.getRoleTypeService();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        for (NestedRole nestedRole : plan.getNestedRoles()) {
+            RoleMemberBo roleMemberBo = nestedRole.getRoleMember();
+            if (!roleMemberBo.isActive(now)) {
+                continue;
+            }
             try {
                 if (roleTypeService != null) {
                     if (roleTypeService.doesRoleQualifierMatchQualification(qualification,
-                            roleMemberBo.getAttributes())) {
-                        RoleBoLite memberRole = getRoleBoLite(roleMemberBo.getMemberId());
-                        Map<String, String> nestedRoleQualification = getNestedQualification(memberRole,
-                                role.getNamespaceCode(), role.getName(), memberRole.getNamespaceCode(),
-                                memberRole.getName(), qualification, roleMemberBo.getAttributes());
+                            nestedRole.getQualifier())) {
+                        RoleBoLite memberRole = nestedRole.getMemberRole();
+                        Map<String, String> nestedRoleQualification = getNestedQualification(
+                                nestedRole.getMemberRoleTypeService(), role.getNamespaceCode(), role.getName(),
+                                memberRole.getNamespaceCode(), memberRole.getName(), qualification,
+                                nestedRole.getQualifier());
 
                         if (principalHasRole(context, principalId, Collections.singletonList(
                                 roleMemberBo.getMemberId()), nestedRoleQualification, true)) {
@@ -1391,6 +1468,107 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
         return false;
     }
 
+    /**
+     * Returns the resolution plan of the given role, compiling it if the current version of the role has not been
+     * compiled yet.  Plans are kept in the role cache, which is flushed whenever the members or delegations of a role
+     * change.
+     */
+    protected RoleResolutionPlan getRoleResolutionPlan(Role role) {
+        String cacheKey = "{roleResolutionPlan}roleId=" + role.getId() + "|versionNumber=" + role.getVersionNumber();
+        Cache cache = cacheManager.getCache(Role.Cache.NAME);
+        Cache.ValueWrapper value = cache.get(cacheKey);
+        if (value != null) {
+            return (RoleResolutionPlan) value.get();
+        }
+        RoleResolutionPlan plan = compileRoleResolutionPlan(role);
+        if (plan.isComplete()) {
+            cache.put(cacheKey, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Resolves everything about the given role which does not depend on the principal or qualification being checked.
+     */
+    protected RoleResolutionPlan compileRoleResolutionPlan(Role role) {
+        RoleTypeService roleTypeService = getRoleTypeServiceByKimTypeId(role.getKimTypeId());
+        boolean derivedRoleType = isDerivedRoleType(roleTypeService);
+        boolean dynamicRoleMembership = derivedRoleType && dynamicRoleMembership(roleTypeService, role);
+        boolean complete = true;
+
+        List<String> qualifiersForExactMatch = Collections.emptyList();
+        Map<String, String> exactMatchAttributeIds = new HashMap<String, String>();
+        List<NestedRole> nestedRoles = new ArrayList<NestedRole>();
+        if (!derivedRoleType) {
+            try {
+                List<String> qualifiers = roleTypeService.getQualifiersForExactMatch();
+                if (qualifiers != null) {
+                    qualifiersForExactMatch = new ArrayList<String>(qualifiers);
+                }
+            } catch (Exception e) {
+                LOG.warn("Caught exception when attempting to invoke a role type service", e);
+                complete = false;
+            }
+            for (String attributeName : qualifiersForExactMatch) {
+                String kimAttributeId = getKimAttributeId(role.getKimTypeId(), attributeName);
+                if (kimAttributeId != null) {
+                    exactMatchAttributeIds.put(attributeName, kimAttributeId);
+                }
+            }
+
+            // members whose activity dates exclude them now are kept, they are checked as the plan is used
+            List<RoleMemberBo> roleMemberBos = getDataObjectService().findMatching(RoleMemberBo.class,
+                    QueryByCriteria.Builder.fromPredicates(
+                            equal(KIMPropertyConstants.RoleMember.ROLE_ID, role.getId()),
+                            equal(KIMPropertyConstants.RoleMember.MEMBER_TYPE_CODE, MemberType.ROLE.getCode())))
+                    .getResults();
+            for (RoleMemberBo roleMemberBo : roleMemberBos) {
+                RoleBoLite memberRole = getRoleBoLite(roleMemberBo.getMemberId());
+                if (memberRole == null) {
+                    LOG.warn("Unknown role " + roleMemberBo.getMemberId() + " is a member of role " + role.getId());
+                    continue;
+                }
+                KimType memberRoleType = KimTypeBo.to(memberRole.getKimRoleType());
+                nestedRoles.add(new NestedRole(roleMemberBo, memberRole, memberRoleType == null ? null :
+                        getVersionedRoleTypeService(memberRoleType)));
+            }
+        }
+
+        List<DelegateTypeBo> delegations = new ArrayList<DelegateTypeBo>(getStoredDelegationImplMapFromRoleIds(
+                Collections.singletonList(role.getId())).values());
+        Map<String, DelegationTypeService> delegationTypeServices = new HashMap<String, DelegationTypeService>();
+        for (DelegateTypeBo delegation : delegations) {
+            for (DelegateMemberBo delegateMemberBo : delegation.getMembers()) {
+                // loaded now, as the plan may be used long after this
+                delegateMemberBo.getQualifier();
+            }
+            delegationTypeServices.put(delegation.getDelegationId(), getDelegationTypeService(
+                    delegation.getDelegationId()));
+        }
+
+        return new RoleResolutionPlan(role, roleTypeService, derivedRoleType, dynamicRoleMembership,
+                qualifiersForExactMatch, exactMatchAttributeIds, nestedRoles, delegations, delegationTypeServices,
+                complete);
+    }
+
+    /**
+     * Returns the role type service of roles of the given KIM type, the default role type service if the type has
+     * none.
+     */
+    protected RoleTypeService getRoleTypeServiceByKimTypeId(String kimTypeId) {
+        RoleTypeService roleTypeService = null;
+        if (kimTypeId != null) {
+            KimType roleType = getKimTypeInfoService().getKimType(kimTypeId);
+            if (roleType != null && StringUtils.isNotBlank(roleType.getServiceName())) {
+                roleTypeService = getRoleTypeServiceByName(roleType.getServiceName());
+            }
+        }
+        if (roleTypeService == null) {
+            roleTypeService = KimImplServiceLocator.getDefaultRoleTypeService();
+        }
+        return roleTypeService;
+    }
+
     protected List<String> getQualifiersForExactMatchFromRoleType(String kimTypeId, RoleTypeService roleTypeService) {
         String cacheKey = "{getQualifiersForExactMatch}kimTypeId=" + kimTypeId;
         Cache cache = cacheManager.getCache(Role.Cache.NAME);
@@ -1461,169 +1639,144 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
      * For Example: dollar amount range, effective dates, document types.
      * As a subsequent step, those qualifiers are checked against the qualification passed in from the client.
      */
-    protected boolean matchesOnDelegation(String roleId, String principalId, List<String> principalGroupIds,
-            Map<String, String> qualification, Context context) {
-        Set<String> allRoleIds = new HashSet<String>();
-        allRoleIds.add(roleId);
-
-        // get the list of delegations for the roles
-        Map<String, DelegateTypeBo> delegations = getStoredDelegationImplMapFromRoleIds(allRoleIds);
-
-        // If there are no delegations then we should cache that the principal
-        // doesn't have the given roles if those roles do not have dynamic
-        // membership
-        if (delegations.isEmpty()) {
-            return false;
-        }
-
-        // Build a map from a role ID to the delegations for that role ID
-        Map<String, List<DelegateTypeBo>> roleToDelegations = new HashMap<String, List<DelegateTypeBo>>();
-        for (DelegateTypeBo delegation : delegations.values()) {
-            List<DelegateTypeBo> roleDelegations = roleToDelegations.get(delegation.getRoleId());
-            if (roleDelegations == null) {
-                roleDelegations = new ArrayList<DelegateTypeBo>();
-                roleToDelegations.put(delegation.getRoleId(), roleDelegations);
-            }
-            roleDelegations.add(delegation);
-        }
-
-        // Iterate through each role and check its delegations to determine if
-        // the principal has one of the roles
-        for (String delegationRoleId : roleToDelegations.keySet()) {
-            boolean matchesOnRoleDelegation = false;
-            Role role = getRole(delegationRoleId);
-            RoleTypeService roleTypeService = context.getRoleTypeService(role.getKimTypeId());
-
-            // Iterate through each delegation for this role and determine if
-            // the principal has the role through this delegation
-            for (DelegateTypeBo delegation : roleToDelegations.get(delegationRoleId)) {
-                // If the delegation isn't active skip it
-                if (!delegation.isActive()) {
+    protected boolean matchesOnDelegation(RoleResolutionPlan plan, String principalId,
+            List<String> principalGroupIds, Map<String, String> qualification, Context context) {
+        boolean matchesOnRoleDelegation = false;
+        RoleTypeService roleTypeService = plan.getRoleTypeService();
+
+        // Iterate through each delegation for the role and determine if
+        // the principal has the role through this delegation
+        for (DelegateTypeBo delegation : plan.getDelegations()) {
+            // If the delegation isn't active skip it
+            if (!delegation.isActive()) {
+                continue;
+            }
+
+            // Now iterate through all of the members of the delegation to
+            // determine if any of them apply to this principal
+            for (DelegateMemberBo delegateMemberBo : delegation.getMembers()) {
+                // If the membership isn't active skip the rest of the checks
+                if (!delegateMemberBo.isActive(new Timestamp(new Date().getTime()))) {
                     continue;
                 }
 
-                // Now iterate through all of the members of the delegation to
-                // determine if any of them apply to this principal
-                for (DelegateMemberBo delegateMemberBo : delegation.getMembers()) {
-                    // If the membership isn't active skip the rest of the checks
-                    if (!delegateMemberBo.isActive(new Timestamp(new Date().getTime()))) {
-                        continue;
-                    }
-
-                    // If the membership is a principal type then check the
-                    // delegate's member ID against the principal ID
-                    if (MemberType.PRINCIPAL.equals(delegateMemberBo.getType()) && !delegateMemberBo.getMemberId()
-                            .equals(principalId)) {
-                        continue; // no match on principal
-                    }
+                // If the membership is a principal type then check the
+                // delegate's member ID against the principal ID
+                if (MemberType.PRINCIPAL.equals(delegateMemberBo.getType()) && !delegateMemberBo.getMemberId()
+                        .equals(principalId)) {
+                    continue; // no match on principal
+                }
 
-                    // If the membership is a group type then check to see if
-                    // the group's ID is contained in the list of groups the
-                    // principal belongs to
-                    if (MemberType.GROUP.equals(delegateMemberBo.getType()) && !principalGroupIds.contains(
-                            delegateMemberBo.getMemberId())) {
-                        continue; // No match on group
-                    }
+                // If the membership is a group type then check to see if
+                // the group's ID is contained in the list of groups the
+                // principal belongs to
+                if (MemberType.GROUP.equals(delegateMemberBo.getType()) && !principalGroupIds.contains(
+                        delegateMemberBo.getMemberId())) {
+                    continue; // No match on group
+                }
 
-                    // If the membership is a role type then we need to recurse
-                    // into the principalHasRole method to check if this
-                    // principal is a member of that role
-                    if (MemberType.ROLE.equals(delegateMemberBo.getType()) && !principalHasRole(principalId,
-                            Collections.singletonList(delegateMemberBo.getMemberId()), qualification, false)) {
-                        continue; // No match on role
-                    }
+                // If the membership is a role type then we need to recurse
+                // into the principalHasRole method to check if this
+                // principal is a member of that role
+                if (MemberType.ROLE.equals(delegateMemberBo.getType()) && !principalHasRole(principalId,
+                        Collections.singletonList(delegateMemberBo.getMemberId()), qualification, false)) {
+                    continue; // No match on role
+                }
 
-                    // OK, the member matches the current user, now check the qualifications
+                // OK, the member matches the current user, now check the qualifications
 
-                    // NOTE: this compare is slightly different than the member enumeration
-                    // since the requested qualifier is always being used rather than
-                    // the role qualifier for the member (which is not available)
+                // NOTE: this compare is slightly different than the member enumeration
+                // since the requested qualifier is always being used rather than
+                // the role qualifier for the member (which is not available)
 
-                    //it is possible that the the roleTypeService is coming from a remote application
-                    // and therefore it can't be guaranteed that it is up and working, so using a try/catch to catch this possibility.
-                    try {
-                        if (roleTypeService != null && !roleTypeService.doesRoleQualifierMatchQualification(
-                                qualification, delegateMemberBo.getQualifier())) {
-                            continue; // no match - skip to next record
-                        }
-                    } catch (Exception ex) {
-                        LOG.warn("Unable to call doesRoleQualifierMatchQualification on role type service for role Id: "
-                                + delegation.getRoleId() + " / " + qualification + " / " + delegateMemberBo
-                                .getQualifier(), ex);
-                        continue;
-                    }
-
-                    // role service matches this qualifier
-                    // now try the delegateBo service
-                    DelegationTypeService delegationTypeService = getDelegationTypeService(
-                            delegateMemberBo.getDelegationId());
-                    // QUESTION: does the qualifier map need to be merged with the main delegateBo qualification?
-                    if (delegationTypeService != null && !delegationTypeService
-                            .doesDelegationQualifierMatchQualification(qualification,
-                                    delegateMemberBo.getQualifier())) {
+                //it is possible that the the roleTypeService is coming from a remote application
+                // and therefore it can't be guaranteed that it is up and working, so using a try/catch to catch this possibility.
+                try {
+                    if (roleTypeService != null && !roleTypeService.doesRoleQualifierMatchQualification(
+                            qualification, delegateMemberBo.getQualifier())) {
                         continue; // no match - skip to next record
                     }
+                } catch (Exception ex) {
+                    LOG.warn("Unable to call doesRoleQualifierMatchQualification on role type service for role Id: "
+                            + delegation.getRoleId() + " / " + qualification + " / " + delegateMemberBo
+                            .getQualifier(), ex);
+                    continue;
+                }
 
-                    // check if a role member ID is present on the delegateBo record
-                    // if so, check that the original role member would match the given qualifiers
-                    if (StringUtils.isNotBlank(delegateMemberBo.getRoleMemberId())) {
-                        RoleMemberBo rm = getRoleMemberBo(delegateMemberBo.getRoleMemberId());
-                        if (rm != null) {
-                            // check that the original role member's is active and that their
-                            // qualifier would have matched this request's
-                            // qualifications (that the original person would have the permission/responsibility
-                            // for an action)
-                            // this prevents a role-membership based delegateBo from surviving the inactivation/
-                            // changing of the main person's role membership
-                            if (!rm.isActive(new Timestamp(new Date().getTime()))) {
-                                continue;
-                            }
+                // role service matches this qualifier
+                // now try the delegateBo service
+                DelegationTypeService delegationTypeService = plan.getDelegationTypeService(
+                        delegateMemberBo.getDelegationId());
+                // QUESTION: does the qualifier map need to be merged with the main delegateBo qualification?
+                if (delegationTypeService != null && !delegationTypeService
+                        .doesDelegationQualifierMatchQualification(qualification,
+                                delegateMemberBo.getQualifier())) {
+                    continue; // no match - skip to next record
+                }
 
-                            Map<String, String> roleQualifier = rm.getAttributes();
-                            //it is possible that the the roleTypeService is coming from a remote application
-                            // and therefore it can't be guaranteed that it is up and working, so using a try/catch to catch this possibility.
-                            try {
-                                if (roleTypeService != null && !roleTypeService.doesRoleQualifierMatchQualification(
-                                        qualification, roleQualifier)) {
-                                    continue;
-                                }
-                            } catch (Exception ex) {
-                                LOG.warn(
-                                        "Unable to call doesRoleQualifierMatchQualification on role type service for role Id: "
-                                                + delegation.getRoleId() + " / " + qualification + " / "
-                                                + roleQualifier, ex);
+                // check if a role member ID is present on the delegateBo record
+                // if so, check that the original role member would match the given qualifiers
+                if (StringUtils.isNotBlank(delegateMemberBo.getRoleMemberId())) {
+                    RoleMemberBo rm = getRoleMemberBo(delegateMemberBo.getRoleMemberId());
+                    if (rm != null) {
+                        // check that the original role member's is active and that their
+                        // qualifier would have matched this request's
+                        // qualifications (that the original person would have the permission/responsibility
+                        // for an action)
+                        // this prevents a role-membership based delegateBo from surviving the inactivation/
+                        // changing of the main person's role membership
+                        if (!rm.isActive(new Timestamp(new Date().getTime()))) {
+                            continue;
+                        }
+
+                        Map<String, String> roleQualifier = rm.getAttributes();
+                        //it is possible that the the roleTypeService is coming from a remote application
+                        // and therefore it can't be guaranteed that it is up and working, so using a try/catch to catch this possibility.
+                        try {
+                            if (roleTypeService != null && !roleTypeService.doesRoleQualifierMatchQualification(
+                                    qualification, roleQualifier)) {
                                 continue;
                             }
-                        } else {
-                            LOG.warn("Unknown role member ID cited in the delegateBo member table:");
-                            LOG.warn("       assignedToId: " + delegateMemberBo.getDelegationMemberId()
-                                    + " / roleMemberId: " + delegateMemberBo.getRoleMemberId());
+                        } catch (Exception ex) {
+                            LOG.warn(
+                                    "Unable to call doesRoleQualifierMatchQualification on role type service for role Id: "
+                                            + delegation.getRoleId() + " / " + qualification + " / "
+                                            + roleQualifier, ex);
+                            continue;
                         }
+                    } else {
+                        LOG.warn("Unknown role member ID cited in the delegateBo member table:");
+                        LOG.warn("       assignedToId: " + delegateMemberBo.getDelegationMemberId()
+                                + " / roleMemberId: " + delegateMemberBo.getRoleMemberId());
                     }
-
-                    // If we've made it here then all of the tests pass so the
-                    // principal must belong to this delegation so set the flag
-                    // to true and break out of this loop
-                    matchesOnRoleDelegation = true;
-                    break;
                 }
 
-                // If we've found a match for one of the delegations break out
-                // of this loop
-                if (matchesOnRoleDelegation) {
-                    break;
-                }
+                // If we've made it here then all of the tests pass so the
+                // principal must belong to this delegation so set the flag
+                // to true and break out of this loop
+                matchesOnRoleDelegation = true;
+                break;
             }
 
-            // If we've found a matching delegation skip processing the rest of
-            // the roles
+            // If we've found a match for one of the delegations break out
+            // of this loop
             if (matchesOnRoleDelegation) {
-                return matchesOnRoleDelegation;
+                break;
             }
         }
 
-        // If we get here we didn't find a matching delegation so return false
-        return false;
+        return matchesOnRoleDelegation;
+    }
+
+    /**
+     * Checks delegations on the role with the given id for the given principal and groups, see
+     * {@link #matchesOnDelegation(RoleResolutionPlan, String, List, Map, Context)}.
+     */
+    protected boolean matchesOnDelegation(String roleId, String principalId, List<String> principalGroupIds,
+            Map<String, String> qualification, Context context) {
+        Role role = loadRole(roleId);
+        return role != null && matchesOnDelegation(getRoleResolutionPlan(role), principalId, principalGroupIds,
+                qualification, context);
     }
 
     protected List<RoleMembership> convertToRoleMemberships(List<RoleMemberBo>... roleMemberLists) {
@@ -1786,42 +1939,6 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
         return roleMemberBoList;
     }
 
-    private List<RoleMemberBo> getStoredRoleGroupsUsingExactMatchOnQualification(List<String> groupIds, String roleId,
-            Map<String, String> qualification) {
-        Set<String> roleIds = new HashSet<String>();
-        if (roleId != null) {
-            roleIds.add(roleId);
-        }
-        return getStoredRoleGroupsUsingExactMatchOnQualification(groupIds, roleIds, qualification);
-    }
-
-    private List<RoleMemberBo> getStoredRoleGroupsUsingExactMatchOnQualification(List<String> groupIds,
-            Set<String> roleIds, Map<String, String> qualification) {
-        List<String> copyRoleIds = new ArrayList<String>(roleIds);
-        List<RoleMemberBo> roleMemberBos = new ArrayList<RoleMemberBo>();
-
-        for (String roleId : roleIds) {
-            RoleTypeService roleTypeService = getRoleTypeService(roleId);
-            if (roleTypeService != null) {
-                List<String> attributesForExactMatch = null;
-                try {
-                    attributesForExactMatch = roleTypeService.getQualifiersForExactMatch();
-                } catch (Exception e) {
-                    LOG.warn("Caught exception when attempting to invoke a role type service for role " + roleId, e);
-                }
-                if (CollectionUtils.isNotEmpty(attributesForExactMatch)) {
-                    copyRoleIds.remove(roleId);
-                    roleMemberBos.addAll(getStoredRoleGroupsForGroupIdsAndRoleIds(Collections.singletonList(roleId),
-                            groupIds, populateQualifiersForExactMatch(qualification, attributesForExactMatch)));
-                }
-            }
-        }
-        if (CollectionUtils.isNotEmpty(copyRoleIds)) {
-            roleMemberBos.addAll(getStoredRoleGroupsForGroupIdsAndRoleIds(copyRoleIds, groupIds, null));
-        }
-        return roleMemberBos;
-    }
-
     private List<DelegateMember> getDelegateMembersForDelegation(DelegateTypeBo delegateBo) {
         if (delegateBo == null || delegateBo.getMembers() == null) {
             return null;
@@ -2623,6 +2740,127 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
         }
     }
 
+    /**
+     * Everything about a role which {@link #principalHasRole(Context, String, List, Map, boolean)} needs and which
+     * does not depend on the principal or qualification being checked.
+     */
+    protected static final class RoleResolutionPlan {
+
+        private final Role role;
+        private final RoleTypeService roleTypeService;
+        private final boolean derivedRoleType;
+        private final boolean dynamicRoleMembership;
+        private final List<String> qualifiersForExactMatch;
+        private final Map<String, String> exactMatchAttributeIds;
+        private final List<NestedRole> nestedRoles;
+        private final List<DelegateTypeBo> delegations;
+        private final Map<String, DelegationTypeService> delegationTypeServices;
+        private final boolean complete;
+
+        RoleResolutionPlan(Role role, RoleTypeService roleTypeService, boolean derivedRoleType,
+                boolean dynamicRoleMembership, List<String> qualifiersForExactMatch,
+                Map<String, String> exactMatchAttributeIds, List<NestedRole> nestedRoles,
+                List<DelegateTypeBo> delegations, Map<String, DelegationTypeService> delegationTypeServices,
+                boolean complete) {
+            this.role = role;
+            this.roleTypeService = roleTypeService;
+            this.derivedRoleType = derivedRoleType;
+            this.dynamicRoleMembership = dynamicRoleMembership;
+            this.qualifiersForExactMatch = Collections.unmodifiableList(qualifiersForExactMatch);
+            this.exactMatchAttributeIds = Collections.unmodifiableMap(exactMatchAttributeIds);
+            this.nestedRoles = Collections.unmodifiableList(nestedRoles);
+            this.delegations = Collections.unmodifiableList(delegations);
+            this.delegationTypeServices = Collections.unmodifiableMap(delegationTypeServices);
+            this.complete = complete;
+        }
+
+        public Role getRole() {
+            return role;
+        }
+
+        public RoleTypeService getRoleTypeService() {
+            return roleTypeService;
+        }
+
+        public boolean isDerivedRoleType() {
+            return derivedRoleType;
+        }
+
+        /**
+         * Returns whether the role is derived and its members may change at any time, so whether principals have it
+         * may not be cached.
+         */
+        public boolean isDynamicRoleMembership() {
+            return dynamicRoleMembership;
+        }
+
+        public List<String> getQualifiersForExactMatch() {
+            return qualifiersForExactMatch;
+        }
+
+        /**
+         * Returns the ids of the KIM attributes of the qualifiers for exact match, by attribute name.
+         */
+        public Map<String, String> getExactMatchAttributeIds() {
+            return exactMatchAttributeIds;
+        }
+
+        public List<NestedRole> getNestedRoles() {
+            return nestedRoles;
+        }
+
+        public List<DelegateTypeBo> getDelegations() {
+            return delegations;
+        }
+
+        public DelegationTypeService getDelegationTypeService(String delegationId) {
+            return delegationTypeServices.get(delegationId);
+        }
+
+        /**
+         * Returns whether all role type service calls succeeded while compiling, plans which are not complete are not
+         * cached.
+         */
+        boolean isComplete() {
+            return complete;
+        }
+    }
+
+    /**
+     * A role which is a member of another role, as compiled into the {@link RoleResolutionPlan} of the other role.
+     */
+    protected static final class NestedRole {
+
+        private final RoleMemberBo roleMember;
+        private final Map<String, String> qualifier;
+        private final RoleBoLite memberRole;
+        private final VersionedService<RoleTypeService> memberRoleTypeService;
+
+        NestedRole(RoleMemberBo roleMember, RoleBoLite memberRole,
+                VersionedService<RoleTypeService> memberRoleTypeService) {
+            this.roleMember = roleMember;
+            this.qualifier = roleMember.getAttributes();
+            this.memberRole = memberRole;
+            this.memberRoleTypeService = memberRoleTypeService;
+        }
+
+        public RoleMemberBo getRoleMember() {
+            return roleMember;
+        }
+
+        public Map<String, String> getQualifier() {
+            return qualifier;
+        }
+
+        public RoleBoLite getMemberRole() {
+            return memberRole;
+        }
+
+        VersionedService<RoleTypeService> getMemberRoleTypeService() {
+            return memberRoleTypeService;
+        }
+    }
+
     protected VersionedService<RoleTypeService> getVersionedRoleTypeService(KimType typeInfo) {
         QName serviceName = KimTypeUtils.resolveKimTypeServiceName(typeInfo.getServiceName());
         if (serviceName != null) {
@@ -2656,8 +2894,13 @@ public class RoleServiceImpl extends RoleServiceBase implements RoleService {
     private Map<String, String> getNestedQualification(RoleBoLite memberRole, String namespaceCode, String roleName,
             String memberNamespaceCode, String memberName, Map<String, String> qualification,
             Map<String, String> memberQualification) {
-        VersionedService<RoleTypeService> versionedRoleTypeService = getVersionedRoleTypeService(KimTypeBo.to(
-                memberRole.getKimRoleType()));
+        return getNestedQualification(getVersionedRoleTypeService(KimTypeBo.to(memberRole.getKimRoleType())),
+                namespaceCode, roleName, memberNamespaceCode, memberName, qualification, memberQualification);
+    }
+
+    private Map<String, String> getNestedQualification(VersionedService<RoleTypeService> versionedRoleTypeService,
+            String namespaceCode, String roleName, String memberNamespaceCode, String memberName,
+            Map<String, String> qualification, Map<String, String> memberQualification) {
         // if null service - just return the original qualification (pre 2.3.4 - ignoring memberQualifications)
         if (versionedRoleTypeService == null) {
             return qualification;
@@ -0,0 +1,300 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kim.impl.group;
+
+import org.apache.log4j.Logger;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.criteria.GenericQueryResults;
+import org.kuali.rice.core.api.criteria.QueryByCriteria;
+import org.kuali.rice.kim.api.KimConstants;
+import org.kuali.rice.kim.api.group.GroupMember;
+import org.kuali.rice.krad.data.DataObjectService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the {@link GroupClosureIndex}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class GroupClosureIndexTest {
+
+    private static final Logger LOG = Logger.getLogger(GroupClosureIndexTest.class);
+
+    private static final DateTime NOW = new DateTime(2015, 6, 1, 12, 0, 0, 0);
+
+    private DataObjectService dataObjectService;
+    private GroupClosureIndex index;
+
+    @Before
+    public void setUp() {
+        dataObjectService = mock(DataObjectService.class);
+        index = new GroupClosureIndex();
+        index.setDataObjectService(dataObjectService);
+        index.setRefreshIntervalSeconds(0);
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(index);
+    }
+
+    @Test
+    public void testEffectiveGroups() {
+        // G1 <- G2 <- G3, G4 is inactive, G5 was a parent of G3, G6 will be
+        stubGroups(Arrays.asList(group("G1", true), group("G2", true), group("G3", true), group("G4", false),
+                group("G5", true), group("G6", true)));
+        stubGroupMembers(Arrays.asList(
+                groupMember("G1", "G2", null, null),
+                groupMember("G2", "G3", NOW.minusDays(1), null),
+                groupMember("G4", "G3", null, null),
+                groupMember("G5", "G3", null, NOW.minusDays(1)),
+                groupMember("G6", "G3", NOW.plusDays(1), null)));
+
+        assertEquals(set("G1", "G2", "G3"), index.getEffectiveGroupIds(Collections.singleton("G3"), NOW));
+        assertEquals(set("G1", "G2", "G3", "G6"), index.getEffectiveGroupIds(Collections.singleton("G3"),
+                NOW.plusDays(2)));
+        assertEquals(set("G3", "G5"), index.getEffectiveGroupIds(Collections.singleton("G3"), NOW.minusDays(2)));
+        assertEquals(Collections.<String>emptySet(), index.getEffectiveGroupIds(Collections.singleton("G4"), NOW));
+
+        assertTrue(index.isMemberOfGroup(Collections.singleton("G3"), "G1", NOW));
+        assertTrue(index.isMemberOfGroup(Collections.singleton("G3"), "G3", NOW));
+        assertFalse(index.isMemberOfGroup(Collections.singleton("G3"), "G4", NOW));
+        assertFalse(index.isMemberOfGroup(Collections.singleton("G3"), "G6", NOW));
+        assertFalse(index.isMemberOfGroup(Collections.singleton("G2"), "G3", NOW));
+        assertFalse(index.isMemberOfGroup(Collections.<String>emptySet(), "G1", NOW));
+
+        assertEquals(1, index.getLoadCount());
+    }
+
+    @Test
+    public void testCycle() {
+        stubGroups(Arrays.asList(group("G1", true), group("G2", true), group("G3", true)));
+        stubGroupMembers(Arrays.asList(
+                groupMember("G1", "G2", null, null),
+                groupMember("G2", "G3", null, null),
+                groupMember("G3", "G1", null, null)));
+        assertEquals(set("G1", "G2", "G3"), index.getEffectiveGroupIds(Collections.singleton("G2"), NOW));
+        assertTrue(index.isMemberOfGroup(Collections.singleton("G1"), "G2", NOW));
+    }
+
+    @Test
+    public void testGroupChanged() throws Exception {
+        stubGroups(Arrays.asList(group("G1", true), group("G2", true), group("G3", true)));
+        stubGroupMembers(Collections.singletonList(groupMember("G1", "G2", null, null)));
+        assertEquals(set("G1", "G2"), index.getEffectiveGroupIds(Collections.singleton("G2"), NOW));
+
+        // G3 is added to G2 in a transaction which commits
+        when(dataObjectService.find(GroupBo.class, "G2")).thenReturn(group("G2", true));
+        stubGroupMembers(Collections.singletonList(groupMember("G2", "G3", null, null)));
+        TransactionSynchronizationManager.initSynchronization();
+        index.groupChanged("G2");
+        assertEquals(set("G1", "G2", "G3"), index.getEffectiveGroupIds(Collections.singleton("G3"), NOW));
+        assertEquals("other threads do not see uncommitted changes", set("G3"),
+                getEffectiveGroupIdsInOtherThread("G3"));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(set("G1", "G2", "G3"), index.getEffectiveGroupIds(Collections.singleton("G3"), NOW));
+        assertEquals(set("G1", "G2", "G3"), getEffectiveGroupIdsInOtherThread("G3"));
+
+        // G1 is inactivated in a transaction which rolls back
+        when(dataObjectService.find(GroupBo.class, "G1")).thenReturn(group("G1", false));
+        stubGroupMembers(Collections.singletonList(groupMember("G1", "G2", null, null)));
+        TransactionSynchronizationManager.initSynchronization();
+        index.groupChanged("G1");
+        assertEquals(set("G2", "G3"), index.getEffectiveGroupIds(Collections.singleton("G3"), NOW));
+        assertEquals(set("G1", "G2", "G3"), getEffectiveGroupIdsInOtherThread("G3"));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(set("G1", "G2", "G3"), index.getEffectiveGroupIds(Collections.singleton("G3"), NOW));
+        assertNull(TransactionSynchronizationManager.getResource(index));
+
+        assertEquals(1, index.getLoadCount());
+        assertEquals("only the committed change is published", 1, index.getUpdateCount());
+    }
+
+    private Set<String> getEffectiveGroupIdsInOtherThread(final String groupId) throws Exception {
+        final List<Set<String>> result = new ArrayList<Set<String>>();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                result.add(index.getEffectiveGroupIds(Collections.singleton(groupId), NOW));
+            }
+        };
+        thread.start();
+        thread.join();
+        return result.get(0);
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        stubGroups(Collections.singletonList(group("G1", true)));
+        stubGroupMembers(Collections.<GroupMemberBo>emptyList());
+        index.setRefreshIntervalSeconds(1);
+        assertTrue(index.isMemberOfGroup(Collections.singleton("G1"), "G1", NOW));
+        Thread.sleep(1100);
+        assertTrue(index.isMemberOfGroup(Collections.singleton("G1"), "G1", NOW));
+        assertEquals(2, index.getLoadCount());
+
+        index.clear();
+        assertTrue(index.isMemberOfGroup(Collections.singleton("G1"), "G1", NOW));
+        assertEquals(3, index.getLoadCount());
+    }
+
+    @Test
+    public void testGroupMemberCacheFlushed() throws Exception {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(GroupMember.Cache.NAME);
+        Cache cache = cacheManager.getCache(GroupMember.Cache.NAME);
+        index.setCacheManager(cacheManager);
+        stubGroups(Arrays.asList(group("G1", true), group("G2", true)));
+        stubGroupMembers(Collections.<GroupMemberBo>emptyList());
+        assertEquals(set("G2"), index.getEffectiveGroupIds(Collections.singleton("G2"), NOW));
+        assertEquals(set("G2"), index.getEffectiveGroupIds(Collections.singleton("G2"), NOW));
+        assertEquals(1, index.getLoadCount());
+
+        // G2 is added to G1 on another node, which flushes the cache of this one
+        stubGroupMembers(Collections.singletonList(groupMember("G1", "G2", null, null)));
+        cache.clear();
+        assertEquals(set("G1", "G2"), index.getEffectiveGroupIds(Collections.singleton("G2"), NOW));
+        assertEquals(2, index.getLoadCount());
+        assertNotNull(cache.get(GroupClosureIndex.MARKER_KEY));
+
+        // a transaction which changed groups does not publish what it reads after the cache was flushed
+        stubGroupMembers(Collections.<GroupMemberBo>emptyList());
+        when(dataObjectService.find(GroupBo.class, "G1")).thenReturn(group("G1", true));
+        TransactionSynchronizationManager.initSynchronization();
+        index.groupChanged("G1");
+        cache.clear();
+        assertEquals(set("G2"), index.getEffectiveGroupIds(Collections.singleton("G2"), NOW));
+        assertEquals(2, index.getLoadCount());
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(set("G2"), getEffectiveGroupIdsInOtherThread("G2"));
+        assertEquals(3, index.getLoadCount());
+    }
+
+    /**
+     * Resolves the groups of principals who are direct members of groups in a hierarchy of 10,000 groups, logging how
+     * long it took.
+     */
+    @Test
+    public void testLargeHierarchy() {
+        int groupCount = 10000;
+        int principalCount = 100000;
+        Random random = new Random(42);
+        List<GroupBo> groups = new ArrayList<GroupBo>(groupCount);
+        List<GroupMemberBo> groupMembers = new ArrayList<GroupMemberBo>();
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(group("G" + i, i % 50 != 0));
+            // each group is a member of up to three groups created before it, which makes a hierarchy of some depth
+            for (int parents = random.nextInt(4); i > 0 && parents > 0; parents--) {
+                groupMembers.add(groupMember("G" + random.nextInt(i), "G" + i, null, null));
+            }
+        }
+        stubGroups(groups);
+        stubGroupMembers(groupMembers);
+
+        long start = System.currentTimeMillis();
+        long totalGroups = 0;
+        for (int i = 0; i < principalCount; i++) {
+            Set<String> directGroupIds = set("G" + random.nextInt(groupCount), "G" + random.nextInt(groupCount));
+            Set<String> groupIds = index.getEffectiveGroupIds(directGroupIds, NOW);
+            totalGroups += groupIds.size();
+            for (String groupId : groupIds) {
+                assertTrue(index.isMemberOfGroup(directGroupIds, groupId, NOW));
+            }
+        }
+        LOG.info("Resolved " + totalGroups + " group memberships of " + principalCount + " principals in "
+                + (System.currentTimeMillis() - start) + " ms");
+        assertEquals(1, index.getLoadCount());
+    }
+
+    private void stubGroups(List<GroupBo> groups) {
+        List<GroupBo> activeGroups = new ArrayList<GroupBo>();
+        for (GroupBo group : groups) {
+            if (group.isActive()) {
+                activeGroups.add(group);
+            }
+        }
+        GenericQueryResults.Builder<GroupBo> results = GenericQueryResults.Builder.create();
+        results.setResults(activeGroups);
+        when(dataObjectService.findMatching(eq(GroupBo.class), any(QueryByCriteria.class))).thenReturn(
+                results.build());
+    }
+
+    private void stubGroupMembers(List<GroupMemberBo> groupMembers) {
+        GenericQueryResults.Builder<GroupMemberBo> results = GenericQueryResults.Builder.create();
+        results.setResults(groupMembers);
+        when(dataObjectService.findMatching(eq(GroupMemberBo.class), any(QueryByCriteria.class))).thenReturn(
+                results.build());
+    }
+
+    private static GroupBo group(String id, boolean active) {
+        GroupBo group = new GroupBo();
+        group.setId(id);
+        group.setActive(active);
+        return group;
+    }
+
+    private static GroupMemberBo groupMember(String groupId, String memberId, DateTime activeFromDate,
+            DateTime activeToDate) {
+        GroupMemberBo groupMember = new GroupMemberBo();
+        groupMember.setGroupId(groupId);
+        groupMember.setMemberId(memberId);
+        groupMember.setType(KimConstants.KimGroupMemberTypes.GROUP_MEMBER_TYPE);
+        groupMember.setActiveFromDateValue(activeFromDate == null ? null : new Timestamp(activeFromDate.getMillis()));
+        groupMember.setActiveToDateValue(activeToDate == null ? null : new Timestamp(activeToDate.getMillis()));
+        return groupMember;
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = new ArrayList<TransactionSynchronization>(
+                TransactionSynchronizationManager.getSynchronizations());
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.beforeCompletion();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+}
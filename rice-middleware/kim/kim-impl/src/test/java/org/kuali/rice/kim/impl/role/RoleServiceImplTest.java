@@ -0,0 +1,210 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.kim.impl.role;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.CoreConstants;
+import org.kuali.rice.core.api.config.module.RunMode;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.criteria.GenericQueryResults;
+import org.kuali.rice.core.api.criteria.QueryByCriteria;
+import org.kuali.rice.core.api.criteria.QueryResults;
+import org.kuali.rice.core.api.datetime.DateTimeService;
+import org.kuali.rice.core.api.membership.MemberType;
+import org.kuali.rice.core.api.resourceloader.GlobalResourceLoaderTestUtils;
+import org.kuali.rice.core.impl.config.property.JAXBConfigImpl;
+import org.kuali.rice.kim.api.group.GroupService;
+import org.kuali.rice.kim.api.type.KimTypeInfoService;
+import org.kuali.rice.kim.framework.role.RoleTypeService;
+import org.kuali.rice.kim.impl.common.delegate.DelegateTypeBo;
+import org.kuali.rice.kim.impl.services.KimImplServiceLocator;
+import org.kuali.rice.krad.data.DataObjectService;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the role resolution plans and bulk role checks of the {@link RoleServiceImpl}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class RoleServiceImplTest {
+
+    private static final Map<String, String> NO_QUALIFICATION = Collections.emptyMap();
+
+    private DataObjectService dataObjectService;
+    private GroupService groupService;
+    private RoleServiceImpl roleService;
+    private List<RoleMemberBo> roleMembers;
+    private List<String> roleMemberQueries;
+
+    @Before
+    public void setUp() {
+        RoleTypeService roleTypeService = mock(RoleTypeService.class);
+        when(roleTypeService.getQualifiersForExactMatch()).thenReturn(Collections.<String>emptyList());
+        when(roleTypeService.doesRoleQualifierMatchQualification(anyMapOf(String.class, String.class), anyMapOf(
+                String.class, String.class))).thenReturn(Boolean.TRUE);
+        GlobalResourceLoaderTestUtils.addMockService(KimImplServiceLocator.DEFAULT_ROLE_TYPE_SERVICE,
+                roleTypeService);
+        KimTypeInfoService kimTypeInfoService = mock(KimTypeInfoService.class);
+        GlobalResourceLoaderTestUtils.addMockService("kimTypeInfoService", kimTypeInfoService);
+        JAXBConfigImpl config = new JAXBConfigImpl();
+        config.putProperty(CoreConstants.Config.APPLICATION_ID, "APPID");
+        config.putProperty(KimImplServiceLocator.KIM_RUN_MODE_PROPERTY, RunMode.LOCAL.name());
+        ConfigContext.init(config);
+
+        dataObjectService = mock(DataObjectService.class);
+        when(dataObjectService.find(RoleBoLite.class, "R1")).thenReturn(role("R1"));
+        when(dataObjectService.find(RoleBoLite.class, "R2")).thenReturn(role("R2"));
+        roleMembers = new ArrayList<RoleMemberBo>();
+        roleMemberQueries = new ArrayList<String>();
+        when(dataObjectService.findMatching(eq(RoleMemberBo.class), any(QueryByCriteria.class))).thenAnswer(
+                new Answer<QueryResults<RoleMemberBo>>() {
+                    @Override
+                    public QueryResults<RoleMemberBo> answer(InvocationOnMock invocation) {
+                        String criteria = invocation.getArguments()[1].toString();
+                        roleMemberQueries.add(criteria);
+                        List<RoleMemberBo> results = new ArrayList<RoleMemberBo>();
+                        for (RoleMemberBo roleMember : roleMembers) {
+                            boolean roleMatches = criteria.contains("roleId, " + roleMember.getRoleId() + ")")
+                                    || criteria.contains("roleId, [" + roleMember.getRoleId() + "])");
+                            boolean memberMatches = MemberType.ROLE.equals(roleMember.getType())
+                                    || criteria.contains(roleMember.getMemberId());
+                            if (roleMatches && memberMatches && criteria.contains("typeCode, "
+                                    + roleMember.getType().getCode() + ")")) {
+                                results.add(roleMember);
+                            }
+                        }
+                        GenericQueryResults.Builder<RoleMemberBo> builder = GenericQueryResults.Builder.create();
+                        builder.setResults(results);
+                        return builder.build();
+                    }
+                });
+        GenericQueryResults.Builder<DelegateTypeBo> noDelegations = GenericQueryResults.Builder.create();
+        noDelegations.setResults(Collections.<DelegateTypeBo>emptyList());
+        when(dataObjectService.findMatching(eq(DelegateTypeBo.class), any(QueryByCriteria.class))).thenReturn(
+                noDelegations.build());
+
+        groupService = mock(GroupService.class);
+        when(groupService.getGroupIdsByPrincipalId(anyString())).thenReturn(Collections.<String>emptyList());
+        when(groupService.getGroupIdsByPrincipalId("P2")).thenReturn(Arrays.asList("G1", "G2"));
+        DateTimeService dateTimeService = mock(DateTimeService.class);
+        when(dateTimeService.getCurrentTimestamp()).thenAnswer(new Answer<Timestamp>() {
+            @Override
+            public Timestamp answer(InvocationOnMock invocation) {
+                return new Timestamp(System.currentTimeMillis());
+            }
+        });
+
+        roleService = new RoleServiceImpl();
+        roleService.setDataObjectService(dataObjectService);
+        roleService.setDateTimeService(dateTimeService);
+        roleService.setCacheManager(new ConcurrentMapCacheManager());
+        roleService.groupService = groupService;
+        roleService.kimTypeInfoService = kimTypeInfoService;
+
+        // R1 has P1 and the group G1 as members, R2 has R1
+        roleMembers.add(roleMember("R1", "P1", MemberType.PRINCIPAL));
+        roleMembers.add(roleMember("R1", "G1", MemberType.GROUP));
+        roleMembers.add(roleMember("R2", "R1", MemberType.ROLE));
+    }
+
+    @After
+    public void tearDown() {
+        ConfigContext.destroy();
+    }
+
+    @Test
+    public void testPrincipalHasRole() {
+        List<String> roleIds = Collections.singletonList("R1");
+        assertTrue(roleService.principalHasRole("P1", roleIds, NO_QUALIFICATION, true));
+        assertTrue(roleService.principalHasRole("P2", roleIds, NO_QUALIFICATION, true));
+        assertFalse(roleService.principalHasRole("P3", roleIds, NO_QUALIFICATION, true));
+        assertTrue(roleService.principalHasRole("P1", Collections.singletonList("R2"), NO_QUALIFICATION, true));
+        assertFalse(roleService.principalHasRole("P3", Collections.singletonList("R2"), NO_QUALIFICATION, true));
+
+        // the nested roles and delegations of each role are only read as its plan is compiled
+        assertEquals(2, countQueries("typeCode, R)"));
+        verify(dataObjectService, times(2)).findMatching(eq(DelegateTypeBo.class), any(QueryByCriteria.class));
+    }
+
+    @Test
+    public void testInactiveNestedRole() {
+        RoleMemberBo nestedRole = roleMembers.get(2);
+        nestedRole.setActiveToDateValue(new Timestamp(System.currentTimeMillis() - 60000));
+        assertFalse(roleService.principalHasRole("P1", Collections.singletonList("R2"), NO_QUALIFICATION, true));
+    }
+
+    @Test
+    public void testGetPrincipalIdSubListWithRoleIds() {
+        List<String> principalIds = roleService.getPrincipalIdSubListWithRoleIds(Arrays.asList("P3", "P2", "P1", ""),
+                Collections.singletonList("R1"), NO_QUALIFICATION);
+        assertEquals(Arrays.asList("P2", "P1"), principalIds);
+
+        // one query for the principals, one for the groups of those not found
+        assertEquals(1, countQueries("typeCode, P)"));
+        assertEquals(1, countQueries("typeCode, G)"));
+        verify(groupService, never()).getGroupIdsByPrincipalId("P1");
+
+        assertEquals(Collections.<String>emptyList(), roleService.getPrincipalIdSubListWithRoleIds(
+                Collections.singletonList("P1"), Collections.singletonList("R3"), NO_QUALIFICATION));
+    }
+
+    private int countQueries(String fragment) {
+        int count = 0;
+        for (String query : roleMemberQueries) {
+            if (query.contains(fragment)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static RoleBoLite role(String id) {
+        RoleBoLite role = new RoleBoLite();
+        role.setId(id);
+        role.setNamespaceCode("KR-SYS");
+        role.setName("Role " + id);
+        role.setKimTypeId("1");
+        role.setActive(true);
+        role.setVersionNumber(1L);
+        return role;
+    }
+
+    private static RoleMemberBo roleMember(String roleId, String memberId, MemberType memberType) {
+        RoleMemberBo roleMember = new RoleMemberBo();
+        roleMember.setId(roleId + "-" + memberId);
+        roleMember.setRoleId(roleId);
+        roleMember.setMemberId(memberId);
+        roleMember.setType(memberType);
+        roleMember.setAttributeDetails(new ArrayList<RoleMemberAttributeDataBo>());
+        return roleMember;
+    }
+
+}
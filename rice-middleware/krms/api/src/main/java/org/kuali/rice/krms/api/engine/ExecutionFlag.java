@@ -53,7 +53,29 @@ public enum ExecutionFlag {
 	 * set to false, the engine may skip (aka short circuit) propositions that 
 	 * do not influence the overall outcome of the proposition tree.  
 	 */
-	EVALUATE_ALL_PROPOSITIONS(false);
+	EVALUATE_ALL_PROPOSITIONS(false),
+
+	/**
+	 * Instructs the engine to evaluate the propositions of a compound
+	 * proposition in the order most likely to short circuit it cheaply,
+	 * based on the cost and outcome of their past evaluations, rather than
+	 * in the order they are defined in.  The cost and outcome of the
+	 * evaluations are only recorded while this flag is set.
+	 *
+	 * <p>Only set this flag for rules whose propositions do not depend on
+	 * the order they are evaluated in and never throw.  A proposition which
+	 * guards another, such as {@code x exists AND x > 5}, may be evaluated
+	 * after the proposition it guards, which then fails or throws where it
+	 * would otherwise have been skipped, and propositions with side effects,
+	 * such as publishing facts, may see different values.</p>
+	 *
+	 * <p>Ignored if {@link #EVALUATE_ALL_PROPOSITIONS} or {@link #LOG_EXECUTION}
+	 * is set, so that the results logged do not depend on past executions.
+	 * Default value is false.</p>
+	 *
+	 * @since 2.6.0
+	 */
+	REORDER_PROPOSITIONS(false);
 	
 	private final boolean defaultValue;
 
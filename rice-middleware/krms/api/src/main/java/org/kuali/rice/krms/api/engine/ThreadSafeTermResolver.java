@@ -0,0 +1,32 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.api.engine;
+
+/**
+ * A {@link TermResolver} which can resolve its term on any thread, concurrently with other term resolvers.  A
+ * {@link TermResolutionEngine} may resolve the independent prerequisites of a term in parallel, but only when the
+ * resolvers involved implement this interface.
+ *
+ * <p>Resolvers implementing this interface must not rely on any state bound to the thread executing the rules, such as
+ * the user session or the current transaction.</p>
+ *
+ * @param <T> the class of the resolved term value
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ * @since 2.6.0
+ */
+public interface ThreadSafeTermResolver<T> extends TermResolver<T> {
+
+}
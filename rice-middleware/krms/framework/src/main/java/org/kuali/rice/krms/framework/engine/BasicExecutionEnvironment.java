@@ -55,6 +55,19 @@ public final class BasicExecutionEnvironment implements ExecutionEnvironment {
      * @throws IllegalArgumentException if the selectionCriteria or facts are null
      */
 	public BasicExecutionEnvironment(SelectionCriteria selectionCriteria, Map<Term, Object> facts, ExecutionOptions executionOptions, TermResolutionEngine termResolutionEngine) {
+		this(selectionCriteria, facts, executionOptions, termResolutionEngine, null);
+	}
+
+    /**
+     * Constructor for a BasicExecutionEnvironment which collects its results in the given {@link EngineResults}
+     * @param selectionCriteria to set selectionCriteria to, cannot be null
+     * @param facts to set facts to, cannot be null
+     * @param executionOptions to set executionOptions to
+     * @param termResolutionEngine to set termResolutionEngine to
+     * @param engineResults to collect the results in, or null for a new {@link EngineResultsImpl}
+     * @throws IllegalArgumentException if the selectionCriteria or facts are null
+     */
+	public BasicExecutionEnvironment(SelectionCriteria selectionCriteria, Map<Term, Object> facts, ExecutionOptions executionOptions, TermResolutionEngine termResolutionEngine, EngineResults engineResults) {
 		if (selectionCriteria == null) {
 			throw new IllegalArgumentException("Selection criteria must not be null.");
 		}
@@ -63,9 +76,9 @@ public final class BasicExecutionEnvironment implements ExecutionEnvironment {
 		}
 		this.selectionCriteria = selectionCriteria;
 		this.executionOptions = new ExecutionOptions(executionOptions);
-		this.engineResults = new EngineResultsImpl();
+		this.engineResults = (engineResults == null) ? new EngineResultsImpl() : engineResults;
 				
-		this.termResolutionEngine = new TermResolutionEngineImpl();
+		this.termResolutionEngine = (termResolutionEngine == null) ? new TermResolutionEngineImpl() : termResolutionEngine;
 		
 		// Add facts
 		this.facts = new HashMap<Term, Object>(facts.size());
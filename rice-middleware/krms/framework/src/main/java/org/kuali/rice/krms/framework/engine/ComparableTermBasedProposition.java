@@ -23,6 +23,7 @@ import org.kuali.rice.krms.api.engine.ResultEvent;
 import org.kuali.rice.krms.api.engine.Term;
 import org.kuali.rice.krms.api.engine.TermResolutionException;
 import org.kuali.rice.krms.framework.engine.expression.ComparisonOperator;
+import org.kuali.rice.krms.framework.engine.expression.ConstantComparison;
 import org.kuali.rice.krms.framework.engine.result.BasicResult;
 
 /**
@@ -38,6 +39,11 @@ public class ComparableTermBasedProposition<T> implements Proposition {
 	private final Term term;
 	private final T expectedValue;
 
+	/**
+	 * The operator bound to the expected value, once compared
+	 */
+	private volatile ConstantComparison comparison;
+
     /**
      * Create a ComparableTermBasedProposition with the given values
      * @param operator {@link ComparisonOperator} to set the operator to
@@ -75,8 +81,13 @@ public class ComparableTermBasedProposition<T> implements Proposition {
 	 * @return the boolean result of the comparison
 	 */
 	protected boolean compare(Comparable<T> termValue) {
-		boolean result = Boolean.valueOf(operator.compare(termValue, getExpectedValue()));
-		return result;
+		T expectedValue = getExpectedValue();
+		ConstantComparison comparison = this.comparison;
+		if (comparison == null || comparison.getRhs() != expectedValue) {
+			comparison = operator.bind(expectedValue);
+			this.comparison = comparison;
+		}
+		return comparison.compare(termValue);
 	}
 
     /**
@@ -16,8 +16,11 @@
 package org.kuali.rice.krms.framework.engine;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.kuali.rice.krms.api.engine.ExecutionEnvironment;
 import org.kuali.rice.krms.api.engine.ResultEvent;
@@ -29,21 +32,57 @@ import org.kuali.rice.krms.framework.engine.result.BasicResult;
  *
  * An implementation of {@link Proposition} which holds other Propositions and a {@link LogicalOperator}.
  *
+ * <p>If the ids of the propositions are given and {@link ExecutionFlag#REORDER_PROPOSITIONS} is set, the cost and
+ * outcome of their evaluations are recorded in the {@link PropositionStatistics}, which are looked up by id on every
+ * evaluation so that nothing is held for propositions which are never reordered, and they are evaluated in
+ * increasing order of their mean cost divided by the likelihood of their result deciding the outcome, which is
+ * recomputed every {@value #REORDER_INTERVAL} evaluations.  Propositions evaluated fewer than
+ * {@value #MIN_EVALUATIONS} times come first so that their statistics are collected.</p>
+ *
  * @author Kuali Rice Team (rice.collab@kuali.org)
  */
 public final class CompoundProposition implements Proposition {
 	
     private static final ResultLogger LOG = ResultLogger.getInstance();
+
+	/**
+	 * The number of evaluations in a different order after which the order is recomputed
+	 */
+	static final int REORDER_INTERVAL = 100;
+
+	/**
+	 * The number of evaluations of a proposition below which its statistics are not relied upon
+	 */
+	static final int MIN_EVALUATIONS = 10;
     
 	private final LogicalOperator logicalOperator;
 	private final List<Proposition> propositions;
 
+	/**
+	 * The ids of the propositions to record the statistics of, null if no proposition id was given
+	 */
+	private final String[] propositionIds;
+	private final AtomicInteger reorderedEvaluations = new AtomicInteger();
+	private volatile int[] evaluationOrder;
+
     /**
      * Create a CompoundProposition with the given values
      * @param logicalOperator {@link LogicalOperator} to set logicalOperator to
      * @param propositions to set the propositions to
      */
 	public CompoundProposition(LogicalOperator logicalOperator, List<Proposition> propositions) {
+		this(logicalOperator, propositions, null);
+	}
+
+    /**
+     * Create a CompoundProposition with the given values, recording statistics of the evaluations of the propositions
+     * with the given ids
+     * @param logicalOperator {@link LogicalOperator} to set logicalOperator to
+     * @param propositions to set the propositions to
+     * @param propositionIds the ids of the propositions, in the same order, may be null or contain nulls
+     * @since 2.6.0
+     */
+	public CompoundProposition(LogicalOperator logicalOperator, List<Proposition> propositions, List<String> propositionIds) {
 				
 		if (propositions == null || propositions.isEmpty()) {
 			throw new IllegalArgumentException("Propositions must be non-null and non-empty.");
@@ -51,8 +90,13 @@ public final class CompoundProposition implements Proposition {
 		if (logicalOperator == null) {
 			throw new IllegalArgumentException("Logical operator must be non-null.");
 		}
+		if (propositionIds != null && propositionIds.size() != propositions.size()) {
+			throw new IllegalArgumentException("Proposition ids must match the propositions.");
+		}
 		this.logicalOperator = logicalOperator;
 		this.propositions = new ArrayList<Proposition>(propositions);
+		this.propositionIds = (propositionIds == null || Collections.frequency(propositionIds, null) == propositionIds.size())
+				? null : propositionIds.toArray(new String[propositionIds.size()]);
 	}
 	
 	@Override
@@ -80,14 +124,22 @@ public final class CompoundProposition implements Proposition {
     	
     	boolean collatedResult;
     	boolean evaluateAll = environment.getExecutionOptions().getFlag(ExecutionFlag.EVALUATE_ALL_PROPOSITIONS);
+    	boolean record = propositionIds != null && environment.getExecutionOptions().getFlag(
+    			ExecutionFlag.REORDER_PROPOSITIONS);
+    	int[] order = null;
+    	if (record && !evaluateAll && propositions.size() > 1 && !LOG.isEnabled(environment)) {
+    		order = getEvaluationOrder();
+    	}
     	
         if (logicalOperator == LogicalOperator.AND) {
 
             collatedResult = true;
 
-			for (Proposition proposition : propositions) {
+			for (int position = 0; position < propositions.size(); position++) {
+				int index = (order == null) ? position : order[position];
+				Proposition proposition = propositions.get(index);
 				
-				PropositionResult singleResult = proposition.evaluate(environment);
+				PropositionResult singleResult = evaluate(index, proposition, environment, record);
 				logPropositionResult(proposition, singleResult, environment);
 								
 				if (!singleResult.getResult()) {
@@ -102,9 +154,11 @@ public final class CompoundProposition implements Proposition {
 			
 		    collatedResult = false;
 			
-			for (Proposition proposition : propositions) {
+			for (int position = 0; position < propositions.size(); position++) {
+				int index = (order == null) ? position : order[position];
+				Proposition proposition = propositions.get(index);
 				
-			    PropositionResult singleResult = proposition.evaluate(environment);
+			    PropositionResult singleResult = evaluate(index, proposition, environment, record);
 				logPropositionResult(proposition, singleResult, environment);
 				
 				if (singleResult.getResult()) {
@@ -117,6 +171,67 @@ public final class CompoundProposition implements Proposition {
 		}
 		throw new IllegalStateException("Invalid logical operator: " + logicalOperator);
     }
+
+    /**
+     * Evaluates the proposition at the given index, recording the statistics of the evaluation if asked to
+     */
+    private PropositionResult evaluate(int index, Proposition proposition, ExecutionEnvironment environment,
+    		boolean record) {
+    	String propositionId = record ? propositionIds[index] : null;
+    	PropositionStatistics statistics = PropositionStatistics.getInstance();
+    	if (propositionId == null || !statistics.isEnabled()) {
+    		return proposition.evaluate(environment);
+    	}
+    	long start = System.nanoTime();
+    	PropositionResult result = proposition.evaluate(environment);
+    	statistics.record(propositionId, result.getResult(), System.nanoTime() - start);
+    	return result;
+    }
+
+    /**
+     * Returns the order to evaluate the propositions in, recomputing it periodically from their statistics
+     */
+    private int[] getEvaluationOrder() {
+    	int[] order = evaluationOrder;
+    	if (order == null || reorderedEvaluations.incrementAndGet() % REORDER_INTERVAL == 0) {
+    		order = computeEvaluationOrder();
+    		evaluationOrder = order;
+    	}
+    	return order;
+    }
+
+    /**
+     * Orders the propositions by increasing mean cost divided by the likelihood of their result deciding the outcome,
+     * false for AND and true for OR, keeping the defined order of propositions which rank the same.
+     */
+    int[] computeEvaluationOrder() {
+    	final double[] ranks = new double[propositions.size()];
+    	Integer[] order = new Integer[ranks.length];
+    	for (int index = 0; index < ranks.length; index++) {
+    		order[index] = index;
+    		PropositionStatistics.Entry entry = (propositionIds[index] == null) ? null
+    				: PropositionStatistics.getInstance().getEntry(propositionIds[index]);
+    		long evaluations = (entry == null) ? 0 : entry.getEvaluationCount();
+    		if (evaluations >= MIN_EVALUATIONS) {
+    			long trueCount = Math.min(entry.getTrueCount(), evaluations);
+    			long deciding = (logicalOperator == LogicalOperator.AND) ? evaluations - trueCount : trueCount;
+    			// smoothed so that propositions which never decided are still ordered by their cost
+    			double likelihood = (deciding + 1.0d) / (evaluations + 2.0d);
+    			ranks[index] = ((double) entry.getTotalNanos() / evaluations) / likelihood;
+    		}
+    	}
+    	Arrays.sort(order, new Comparator<Integer>() {
+    		@Override
+    		public int compare(Integer index1, Integer index2) {
+    			return Double.compare(ranks[index1], ranks[index2]);
+    		}
+    	});
+    	int[] evaluationOrder = new int[order.length];
+    	for (int position = 0; position < order.length; position++) {
+    		evaluationOrder[position] = order[position];
+    	}
+    	return evaluationOrder;
+    }
     
     /*
      * Logs only if the proposition is not compound
@@ -128,7 +243,7 @@ public final class CompoundProposition implements Proposition {
     
     public void logPropositionResult(Proposition proposition, PropositionResult propositionResult, ExecutionEnvironment environment) {
     	    	
-    	if(!proposition.isCompound()) {
+    	if(!proposition.isCompound() && LOG.isEnabled(environment)) {
             LOG.logResult(new BasicResult(propositionResult.getExecutionDetails(), ResultEvent.PROPOSITION_EVALUATED, proposition, environment, propositionResult.getResult()));
     	}
     	
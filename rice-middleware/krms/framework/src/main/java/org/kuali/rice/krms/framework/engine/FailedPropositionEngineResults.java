@@ -0,0 +1,47 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.framework.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kuali.rice.krms.api.engine.EngineResults;
+import org.kuali.rice.krms.api.engine.ResultEvent;
+import org.kuali.rice.krms.framework.engine.result.BasicResult;
+
+/**
+ * An implementation of {@link EngineResults} which only keeps the results of propositions evaluating to false.  The
+ * results kept are detached from the {@link org.kuali.rice.krms.api.engine.ExecutionEnvironment} they were produced
+ * in, so that the facts and terms of the execution can be garbage collected once it is complete.
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class FailedPropositionEngineResults extends EngineResultsImpl {
+
+	@Override
+	public void addResult(ResultEvent result) {
+		if (ResultEvent.PROPOSITION_EVALUATED.equals(result.getType()) && Boolean.FALSE.equals(result.getResult())) {
+			Map<String, Object> resultDetails = new HashMap<String, Object>();
+			if (result.getResultDetails() != null) {
+				for (Map.Entry<?, ?> resultDetail : result.getResultDetails().entrySet()) {
+					resultDetails.put(String.valueOf(resultDetail.getKey()), resultDetail.getValue());
+				}
+			}
+			super.addResult(new BasicResult(resultDetails, result.getDescription(), result.getType(),
+					result.getSource(), null, false));
+		}
+	}
+
+}
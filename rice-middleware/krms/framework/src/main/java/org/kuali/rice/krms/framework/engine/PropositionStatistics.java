@@ -0,0 +1,256 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.framework.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * A JVM wide record of how long the propositions of compound propositions take to evaluate and how often they are
+ * true, keyed by proposition id.  {@link CompoundProposition} uses it to evaluate its propositions in the order most
+ * likely to short circuit it cheaply when {@link org.kuali.rice.krms.api.engine.ExecutionFlag#REORDER_PROPOSITIONS}
+ * is set.
+ *
+ * <p>The statistics of a proposition are created on its first recorded evaluation, and at most {@value #MAX_ENTRIES}
+ * propositions are recorded until the statistics are {@link #reset()}, which the rule repository does whenever its
+ * cache of translated contexts is flushed.  They are exposed through the {@link PropositionStatisticsMBean} while the
+ * shared statistics are defined as a Spring bean, see {@link #getInstance()}.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ * @since 2.6.0
+ */
+public final class PropositionStatistics implements PropositionStatisticsMBean, InitializingBean, DisposableBean {
+
+    private static final Logger LOG = Logger.getLogger(PropositionStatistics.class);
+
+    /**
+     * The number of propositions listed by {@link #getCostliestPropositions()}
+     */
+    private static final int COSTLIEST_PROPOSITIONS = 25;
+
+    /**
+     * The maximum number of propositions statistics are held for, the evaluations of any further propositions are not
+     * recorded
+     */
+    static final int MAX_ENTRIES = 10000;
+
+    private static final PropositionStatistics INSTANCE = new PropositionStatistics();
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private volatile boolean enabled = true;
+
+    private ObjectName objectName;
+
+    PropositionStatistics() {
+    }
+
+    /**
+     * Returns the shared statistics, also used as the factory method of their Spring bean definition.
+     */
+    public static PropositionStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the statistics of the given proposition.
+     *
+     * @param propositionId the id of the proposition
+     * @return the statistics of the proposition, or null if no evaluation of it was recorded
+     * @throws IllegalArgumentException if the propositionId is null
+     */
+    public Entry getEntry(String propositionId) {
+        if (propositionId == null) {
+            throw new IllegalArgumentException("propositionId must not be null");
+        }
+        return entries.get(propositionId);
+    }
+
+    /**
+     * Records an evaluation of the given proposition, creating its statistics if this is the first one, unless the
+     * statistics of {@value #MAX_ENTRIES} propositions are already held.
+     *
+     * @param propositionId the id of the proposition
+     * @param result the result of the evaluation
+     * @param nanos how long the evaluation took
+     * @throws IllegalArgumentException if the propositionId is null
+     */
+    public void record(String propositionId, boolean result, long nanos) {
+        if (propositionId == null) {
+            throw new IllegalArgumentException("propositionId must not be null");
+        }
+        Entry entry = entries.get(propositionId);
+        if (entry == null) {
+            if (entries.size() >= MAX_ENTRIES) {
+                return;
+            }
+            Entry newEntry = new Entry(propositionId);
+            entry = entries.putIfAbsent(propositionId, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        entry.record(result, nanos);
+    }
+
+    @Override
+    public int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String[] getCostliestPropositions() {
+        List<Entry> costliest = new ArrayList<Entry>(entries.values());
+        Collections.sort(costliest, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry entry1, Entry entry2) {
+                long totalNanos1 = entry1.getTotalNanos();
+                long totalNanos2 = entry2.getTotalNanos();
+                return (totalNanos1 < totalNanos2) ? 1 : ((totalNanos1 == totalNanos2) ? 0 : -1);
+            }
+        });
+        List<String> statistics = new ArrayList<String>();
+        for (Entry entry : costliest) {
+            if (statistics.size() == COSTLIEST_PROPOSITIONS || entry.getEvaluationCount() == 0) {
+                break;
+            }
+            statistics.add(entry.toString());
+        }
+        return statistics.toArray(new String[statistics.size()]);
+    }
+
+    @Override
+    public String getStatistics(String propositionId) {
+        Entry entry = (propositionId == null) ? null : entries.get(propositionId);
+        return (entry == null) ? null : entry.toString();
+    }
+
+    /**
+     * Discards the statistics of every proposition, the compound propositions look their statistics up on every
+     * evaluation so they start collecting them again.
+     */
+    @Override
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * Registers the statistics as an MBean.
+     */
+    @Override
+    public synchronized void afterPropertiesSet() {
+        try {
+            ObjectName name = new ObjectName("org.kuali.rice.krms:type=PropositionStatistics");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                objectName = name;
+            } else {
+                LOG.warn("An MBean is already registered as " + name + ", the proposition statistics are not exposed");
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to register MBean for the proposition statistics", e);
+        }
+    }
+
+    /**
+     * Unregisters the MBean so that it does not keep the application's classloader alive once it is shut down.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            LOG.warn("Failed to unregister MBean for the proposition statistics", e);
+        }
+        objectName = null;
+    }
+
+    /**
+     * The statistics of a single proposition.
+     */
+    public static final class Entry {
+
+        private final String propositionId;
+        private final AtomicLong evaluationCount = new AtomicLong();
+        private final AtomicLong trueCount = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        Entry(String propositionId) {
+            this.propositionId = propositionId;
+        }
+
+        void record(boolean result, long nanos) {
+            evaluationCount.incrementAndGet();
+            if (result) {
+                trueCount.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+        }
+
+        public String getPropositionId() {
+            return propositionId;
+        }
+
+        public long getEvaluationCount() {
+            return evaluationCount.get();
+        }
+
+        public long getTrueCount() {
+            return trueCount.get();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        @Override
+        public String toString() {
+            long evaluations = getEvaluationCount();
+            long meanMicros = (evaluations == 0) ? 0 : TimeUnit.NANOSECONDS.toMicros(getTotalNanos() / evaluations);
+            long truePercent = (evaluations == 0) ? 0 : (getTrueCount() * 100) / evaluations;
+            return propositionId + ": evaluations=" + evaluations + ", true=" + truePercent + "%, mean="
+                    + meanMicros + "us";
+        }
+    }
+
+}
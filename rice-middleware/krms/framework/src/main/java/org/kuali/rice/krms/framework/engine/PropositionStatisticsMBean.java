@@ -0,0 +1,55 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.framework.engine;
+
+/**
+ * Management interface exposing the {@link PropositionStatistics} collected for the propositions of compound
+ * propositions.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ * @since 2.6.0
+ */
+public interface PropositionStatisticsMBean {
+
+    /**
+     * @return the number of propositions statistics are held for
+     */
+    int getSize();
+
+    /**
+     * @return whether statistics are collected
+     */
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the statistics of the propositions which took the most time to evaluate overall, costliest first
+     */
+    String[] getCostliestPropositions();
+
+    /**
+     * @param propositionId the id of the proposition
+     * @return the statistics of the given proposition, or null if it was not evaluated
+     */
+    String getStatistics(String propositionId);
+
+    /**
+     * Discards the statistics of every proposition.
+     */
+    void reset();
+
+}
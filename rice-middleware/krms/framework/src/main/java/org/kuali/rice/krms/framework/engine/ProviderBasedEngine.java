@@ -15,12 +15,21 @@
  */
 package org.kuali.rice.krms.framework.engine;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.joda.time.DateTime;
 import org.kuali.rice.krms.api.engine.Engine;
 import org.kuali.rice.krms.api.engine.EngineResults;
 import org.kuali.rice.krms.api.engine.ExecutionEnvironment;
+import org.kuali.rice.krms.api.engine.ExecutionFlag;
 import org.kuali.rice.krms.api.engine.ExecutionOptions;
 import org.kuali.rice.krms.api.engine.Facts;
 import org.kuali.rice.krms.api.engine.ResultEvent;
@@ -40,6 +49,8 @@ public class ProviderBasedEngine implements Engine {
 	private static final ResultLogger KLog = ResultLogger.getInstance();
 
 	private ContextProvider contextProvider;
+	private Executor termResolutionExecutor;
+	private ForkJoinPool batchExecutionPool;
 
     @Override
     public EngineResults execute(SelectionCriteria selectionCriteria, Map<String, Object> facts,
@@ -73,6 +84,65 @@ public class ProviderBasedEngine implements Engine {
 		return environment.getEngineResults();
 	}
 
+    /**
+     * Executes the rules of one context against each of the given fact sets, as if {@link #execute(SelectionCriteria,
+     * Facts, ExecutionOptions)} was called once for each of them with the shared facts added.  The context is only
+     * loaded once, and the fact sets are evaluated in parallel on the batch execution pool if there is one.
+     *
+     * <p>The shared facts, along with any terms resolved only from them, are resolved once for the whole batch.
+     * A fact set holding a different value for one of the shared facts has the terms derived from them resolved again
+     * from its own values.  Rules executed in a batch must not depend on the thread executing them.</p>
+     *
+     * @param selectionCriteria the {@link SelectionCriteria} to use for selection of the context and agendas
+     * @param sharedFacts the facts common to every fact set, may be null
+     * @param factSets the facts to evaluate the rules against, cannot be null
+     * @param executionOptions the {@link ExecutionOptions} to use for each fact set
+     * @param failedPropositionsOnly whether only the results of the propositions evaluating to false are to be
+     * collected, in which case execution is always logged to the results
+     * @return the {@link EngineResults} of each fact set, in the same order, or null if no context was found
+     * @throws IllegalArgumentException if the factSets are null
+     * @since 2.6.0
+     */
+	public List<EngineResults> executeBatch(SelectionCriteria selectionCriteria, Facts sharedFacts, List<Facts> factSets,
+			ExecutionOptions executionOptions, boolean failedPropositionsOnly) {
+		if (factSets == null) {
+			throw new IllegalArgumentException("factSets must not be null");
+		}
+		Map<Term, Object> sharedFactMap = (sharedFacts == null) ? Facts.EMPTY_FACTS.getFactMap() : sharedFacts.getFactMap();
+
+		Context context = selectContext(selectionCriteria, sharedFactMap, executionOptions);
+		if (context == null) {
+			LOG.info("Failed to locate a Context for the given qualifiers, skipping rule engine execution: " + selectionCriteria.getContextQualifiers());
+			return null;
+		}
+
+		ExecutionOptions batchExecutionOptions = new ExecutionOptions(executionOptions);
+		if (failedPropositionsOnly) {
+			batchExecutionOptions.setFlag(ExecutionFlag.LOG_EXECUTION, true);
+		}
+
+		// every execution of the batch happens at the same time
+		Long effectiveExecutionTime = selectionCriteria.getEffectiveExecutionTime();
+		if (effectiveExecutionTime == null) { effectiveExecutionTime = System.currentTimeMillis(); }
+
+		Map<Term, Object> constantFacts = new HashMap<Term, Object>();
+		for (Map.Entry<Term, Object> sharedFact : sharedFactMap.entrySet()) {
+			if (sharedFact.getValue() != null) {
+				constantFacts.put(sharedFact.getKey(), sharedFact.getValue());
+			}
+		}
+		constantFacts.put(effectiveExecutionTimeTerm, effectiveExecutionTime);
+
+		BatchExecution batchExecution = new BatchExecution(context, selectionCriteria, sharedFactMap, constantFacts,
+				effectiveExecutionTime, factSets, batchExecutionOptions, failedPropositionsOnly);
+		if (batchExecutionPool == null) {
+			batchExecution.compute();
+		} else {
+			batchExecutionPool.invoke(batchExecution);
+		}
+		return Arrays.asList(batchExecution.engineResults);
+	}
+
     /**
      * Return a {@link BasicExecutionEnvironment} using the given parameters
      * @param selectionCriteria {@link SelectionCriteria}
@@ -81,7 +151,7 @@ public class ProviderBasedEngine implements Engine {
      * @return {@link ExecutionEnvironment} created with the given parameters
      */
 	protected ExecutionEnvironment establishExecutionEnvironment(SelectionCriteria selectionCriteria, Map<Term, Object> facts, ExecutionOptions executionOptions) {
-		return new BasicExecutionEnvironment(selectionCriteria, facts, executionOptions, new TermResolutionEngineImpl());
+		return new BasicExecutionEnvironment(selectionCriteria, facts, executionOptions, new TermResolutionEngineImpl(termResolutionExecutor));
 	}
 
     /**
@@ -107,5 +177,110 @@ public class ProviderBasedEngine implements Engine {
 	public void setContextProvider(ContextProvider contextProvider) {
 		this.contextProvider = contextProvider;
 	}
+
+    /**
+     * Set the {@link Executor} on which independent prerequisite terms are resolved in parallel, if their resolvers
+     * are {@link org.kuali.rice.krms.api.engine.ThreadSafeTermResolver}s.
+     * @param termResolutionExecutor the executor, or null to resolve all terms on the executing thread
+     */
+	public void setTermResolutionExecutor(Executor termResolutionExecutor) {
+		this.termResolutionExecutor = termResolutionExecutor;
+	}
+
+    /**
+     * Set the {@link ForkJoinPool} on which the fact sets of a batch are evaluated in parallel.
+     * @param batchExecutionPool the pool, or null to evaluate batches on the executing thread
+     */
+	public void setBatchExecutionPool(ForkJoinPool batchExecutionPool) {
+		this.batchExecutionPool = batchExecutionPool;
+	}
+
+	/**
+	 * Evaluates a range of the fact sets of a batch, splitting it in halves while it is large enough to be worth
+	 * sharing with the other threads of the pool.
+	 */
+	private final class BatchExecution extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Context context;
+		private final SelectionCriteria selectionCriteria;
+		private final Map<Term, Object> sharedFacts;
+		private final Map<Term, Object> constantFacts;
+		private final ConcurrentMap<Term, Object> sharedTermValues;
+		private final Long effectiveExecutionTime;
+		private final List<Facts> factSets;
+		private final ExecutionOptions executionOptions;
+		private final boolean failedPropositionsOnly;
+		private final EngineResults[] engineResults;
+		private final int from;
+		private final int to;
+		private final int threshold;
+
+		BatchExecution(Context context, SelectionCriteria selectionCriteria, Map<Term, Object> sharedFacts,
+				Map<Term, Object> constantFacts, Long effectiveExecutionTime, List<Facts> factSets,
+				ExecutionOptions executionOptions, boolean failedPropositionsOnly) {
+			this.context = context;
+			this.selectionCriteria = selectionCriteria;
+			this.sharedFacts = sharedFacts;
+			this.constantFacts = constantFacts;
+			this.sharedTermValues = new ConcurrentHashMap<Term, Object>();
+			this.effectiveExecutionTime = effectiveExecutionTime;
+			this.factSets = factSets;
+			this.executionOptions = executionOptions;
+			this.failedPropositionsOnly = failedPropositionsOnly;
+			this.engineResults = new EngineResults[factSets.size()];
+			this.from = 0;
+			this.to = factSets.size();
+			int parallelism = (batchExecutionPool == null) ? 1 : batchExecutionPool.getParallelism();
+			this.threshold = Math.max(1, factSets.size() / (parallelism * 8));
+		}
+
+		private BatchExecution(BatchExecution parent, int from, int to) {
+			this.context = parent.context;
+			this.selectionCriteria = parent.selectionCriteria;
+			this.sharedFacts = parent.sharedFacts;
+			this.constantFacts = parent.constantFacts;
+			this.sharedTermValues = parent.sharedTermValues;
+			this.effectiveExecutionTime = parent.effectiveExecutionTime;
+			this.factSets = parent.factSets;
+			this.executionOptions = parent.executionOptions;
+			this.failedPropositionsOnly = parent.failedPropositionsOnly;
+			this.engineResults = parent.engineResults;
+			this.from = from;
+			this.to = to;
+			this.threshold = parent.threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (batchExecutionPool != null && to - from > threshold) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new BatchExecution(this, from, middle), new BatchExecution(this, middle, to));
+			} else {
+				for (int i = from; i < to; i++) {
+					engineResults[i] = execute(factSets.get(i));
+				}
+			}
+		}
+
+		private EngineResults execute(Facts facts) {
+			DateTime start = new DateTime();
+			Map<Term, Object> factMap = new HashMap<Term, Object>(sharedFacts);
+			if (facts != null) {
+				factMap.putAll(facts.getFactMap());
+			}
+			ExecutionEnvironment environment = new BasicExecutionEnvironment(selectionCriteria, factMap,
+					executionOptions, new TermResolutionEngineImpl(null, constantFacts, sharedTermValues),
+					failedPropositionsOnly ? new FailedPropositionEngineResults() : null);
+			environment.publishFact(effectiveExecutionTimeTerm, effectiveExecutionTime);
+			context.execute(environment);
+			if (KLog.isEnabled(environment)) {
+				KLog.logResult(new TimingResult(ResultEvent.TIMING_EVENT, ProviderBasedEngine.this, environment, start,
+						new DateTime()));
+			}
+			return environment.getEngineResults();
+		}
+	}
 	
 }
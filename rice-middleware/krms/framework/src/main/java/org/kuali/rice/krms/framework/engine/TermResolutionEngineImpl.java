@@ -22,12 +22,20 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.ArrayUtils;
@@ -36,24 +44,121 @@ import org.kuali.rice.krms.api.engine.Term;
 import org.kuali.rice.krms.api.engine.TermResolutionEngine;
 import org.kuali.rice.krms.api.engine.TermResolutionException;
 import org.kuali.rice.krms.api.engine.TermResolver;
+import org.kuali.rice.krms.api.engine.ThreadSafeTermResolver;
 
 /**
  * An implementation of {@link TermResolutionEngine}
+ *
+ * <p>Resolution plans are memoized across engine instances, keyed by the term resolvers the engine holds, the name of
+ * the term to resolve and which of the terms the plan could use are already known.  Given an {@link Executor}, the
+ * prerequisites of a plan which do not depend on each other are resolved in parallel when their resolvers are
+ * {@link ThreadSafeTermResolver}s.</p>
+ *
+ * <p>Engines evaluating a batch of fact sets can share the facts common to the whole batch, along with a map of the
+ * terms derived from them.  Terms resolved from constant terms only are constant as well, and are added to the map so
+ * that the other engines of the batch do not resolve them again.  An engine given a different value for one of its
+ * constant terms stops sharing: it drops the derived terms, which may have been resolved from the replaced value, and
+ * resolves them again from its own values.</p>
+ *
  * @author Kuali Rice Team (rice.collab@kuali.org)
  */
 public class TermResolutionEngineImpl implements TermResolutionEngine {
 	private static final org.apache.log4j.Logger LOG = org.apache.log4j.Logger.getLogger(TermResolutionEngineImpl.class);
-	
+
+	// bounds on the memoized plans, which are simply dropped when exceeded
+	private static final int MAX_RESOLVER_SETS = 256;
+	private static final int MAX_PLANS_PER_RESOLVER_SET = 4096;
+
+	private static final ConcurrentMap<TermResolverSetKey, TermResolutionPlans> resolutionPlansByResolverSet =
+			new ConcurrentHashMap<TermResolverSetKey, TermResolutionPlans>();
+
 	private final Map<String, List<TermResolver<?>>> termResolversByOutput = new HashMap<String, List<TermResolver<?>>>();
 	private final Map<TermResolverKey, TermResolver<?>> termResolversByKey = new HashMap<TermResolverKey, TermResolver<?>>(); 
 	
 	// should this use soft refs?  Will require some refactoring to check if the referenced object is around;
 	private final Map<Term, Object> termCache = new HashMap<Term, Object>();
 
+	private final Executor prerequisiteExecutor;
+
+	// the facts and derived term values shared with other engines, and the terms of this engine whose values are
+	// constant, the derived values are no longer shared once a constant term is given a different value
+	private final Map<Term, Object> sharedFacts;
+	private ConcurrentMap<Term, Object> sharedTermValues;
+	private final Set<Term> constantTerms = new HashSet<Term>();
+
+	// the memoized plans for the current term resolvers, looked up again whenever a resolver is added
+	private TermResolutionPlans resolutionPlans;
+
+	/**
+	 * Creates a TermResolutionEngineImpl which resolves all terms on the calling thread.
+	 */
+	public TermResolutionEngineImpl() {
+		this(null);
+	}
+
+	/**
+	 * Creates a TermResolutionEngineImpl which resolves independent prerequisites in parallel on the given executor.
+	 *
+	 * @param prerequisiteExecutor the executor to resolve prerequisites with, or null to resolve them all on the
+	 * calling thread
+	 */
+	public TermResolutionEngineImpl(Executor prerequisiteExecutor) {
+		this(prerequisiteExecutor, Collections.<Term, Object>emptyMap(), null);
+	}
+
+	/**
+	 * Creates a TermResolutionEngineImpl which starts out with the given constant facts and term values, and
+	 * contributes to the term values.
+	 *
+	 * @param prerequisiteExecutor the executor to resolve prerequisites with, or null to resolve them all on the
+	 * calling thread
+	 * @param sharedFacts the non-null facts shared with other engines, cannot be null
+	 * @param sharedTermValues the constant values of the terms derived from the shared facts, shared with other
+	 * engines, or null if none are to be shared
+	 */
+	public TermResolutionEngineImpl(Executor prerequisiteExecutor, Map<Term, Object> sharedFacts,
+			ConcurrentMap<Term, Object> sharedTermValues) {
+		this.prerequisiteExecutor = prerequisiteExecutor;
+		this.sharedFacts = sharedFacts;
+		this.sharedTermValues = sharedTermValues;
+		termCache.putAll(sharedFacts);
+		constantTerms.addAll(sharedFacts.keySet());
+		if (sharedTermValues != null) {
+			for (Map.Entry<Term, Object> sharedTermValue : sharedTermValues.entrySet()) {
+				termCache.put(sharedTermValue.getKey(), sharedTermValue.getValue());
+				constantTerms.add(sharedTermValue.getKey());
+			}
+		}
+	}
+
 	@Override
 	public void addTermValue(Term term, Object value) {
+		if (constantTerms.contains(term) && getSharedValue(term) != value) {
+			stopSharing();
+		}
 		termCache.put(term, value);
 	}
+
+	private Object getSharedValue(Term term) {
+		if (sharedFacts.containsKey(term)) {
+			return sharedFacts.get(term);
+		}
+		return (sharedTermValues == null) ? null : sharedTermValues.get(term);
+	}
+
+	/**
+	 * Drops the derived terms this engine got from the shared term values, as they may have been resolved from a value
+	 * which is being replaced, and no longer contributes to them.
+	 */
+	private void stopSharing() {
+		for (Term constantTerm : constantTerms) {
+			if (!sharedFacts.containsKey(constantTerm)) {
+				termCache.remove(constantTerm);
+			}
+		}
+		constantTerms.clear();
+		sharedTermValues = null;
+	}
 	
 	@Override
 	public void addTermResolver(TermResolver<?> termResolver) {
@@ -67,6 +172,7 @@ public class TermResolutionEngineImpl implements TermResolutionEngine {
 		}
 		termResolversByKey.put(new TermResolverKey(termResolver), termResolver);
 		termResolvers.add(termResolver);
+		resolutionPlans = null;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -78,49 +184,216 @@ public class TermResolutionEngineImpl implements TermResolutionEngine {
 		String termName = term.getName();
 		
 		// build plan w/ termName spec for correct TermResolver selection
-		List<TermResolverKey> resolutionPlan = buildTermResolutionPlan(termName);
-		// TODO: could cache these plans somewhere, since future agendas will likely require the same plans
+		TermResolutionPlan resolutionPlan = getTermResolutionPlan(termName);
 		
-		LOG.debug("resolutionPlan: " + (resolutionPlan == null ? "null" : StringUtils.join(resolutionPlan.iterator(), ", ")));
+		LOG.debug("resolutionPlan: " + (resolutionPlan == null ? "null" : StringUtils.join(resolutionPlan.getSteps().iterator(), ", ")));
 		
 		if (resolutionPlan != null) {
 			LOG.debug("executing plan");
-			for (TermResolverKey resolverKey : resolutionPlan) {
-				TermResolver<?> resolver = termResolversByKey.get(resolverKey);
-				
-				// build prereqs
-				Map<String, Object> resolvedPrereqs = new HashMap<String, Object>();
-				
-				// The plan order should guarantee these prereqs exist and are cached.
-				for (String prereq : resolver.getPrerequisites()) {
-					Object resolvedPrereq = termCache.get(new Term(prereq, null));
-					resolvedPrereqs.put(prereq, resolvedPrereq);
-				}
+			// each level only needs terms resolved by the levels before it
+			for (List<TermResolverKey> level : resolutionPlan.getLevels()) {
+				resolveLevel(term, level);
+			}
+		} else {
+			throw new TermResolutionException("Unable to plan the resolution of " + term, null, null);
+		}
+		return (T)termCache.get(term);
+	}
+
+	/**
+	 * Resolves the terms of the given resolvers, none of which needs the output of another, and caches them.  The
+	 * terms are resolved in parallel if there is an executor and more than one of the resolvers is thread-safe.
+	 */
+	private void resolveLevel(Term term, List<TermResolverKey> level) throws TermResolutionException {
+		int size = level.size();
+		List<TermResolver<?>> resolvers = new ArrayList<TermResolver<?>>(size);
+		List<Map<String, Object>> resolvedPrereqsList = new ArrayList<Map<String, Object>>(size);
+		List<Map<String, String>> providedParametersList = new ArrayList<Map<String, String>>(size);
+		int threadSafeCount = 0;
+		for (TermResolverKey resolverKey : level) {
+			TermResolver<?> resolver = termResolversByKey.get(resolverKey);
+			
+			// build prereqs
+			Map<String, Object> resolvedPrereqs = new HashMap<String, Object>();
+			
+			// The plan order should guarantee these prereqs exist and are cached.
+			for (String prereq : resolver.getPrerequisites()) {
+				Object resolvedPrereq = termCache.get(new Term(prereq, null));
+				resolvedPrereqs.put(prereq, resolvedPrereq);
+			}
+			
+			Map<String, String> providedParameters = Collections.emptyMap();
+			// The destination Term (and only the dest Term) can be parameterized
+			if (term.getName().equals(resolver.getOutput())) {
+				providedParameters = term.getParameters();
 				
-				Map<String, String> providedParameters = Collections.emptyMap();
-				// The destination Term (and only the dest Term) can be parameterized
-				if (termName.equals(resolver.getOutput())) {
-					providedParameters = term.getParameters();
-					
-					// throw a TermResolutionException if the params doen't match up
-					validateTermParameters(resolver, providedParameters);
+				// throw a TermResolutionException if the params doen't match up
+				validateTermParameters(resolver, providedParameters);
+			} else if (!CollectionUtils.isEmpty(resolver.getParameterNames())) {
+				// Shouldn't happen due to checks in buildResolutionPlan
+				throw new TermResolutionException("TermResolvers requiring parameters cannot be intermediates in the Term resolution plan", resolver, providedParameters);
+			}
+
+			resolvers.add(resolver);
+			resolvedPrereqsList.add(resolvedPrereqs);
+			providedParametersList.add(providedParameters);
+			if (resolver instanceof ThreadSafeTermResolver) {
+				threadSafeCount++;
+			}
+		}
+
+		Object[] resolvedTerms = new Object[size];
+		if (prerequisiteExecutor == null || threadSafeCount < 2) {
+			for (int i = 0; i < size; i++) {
+				resolvedTerms[i] = resolvers.get(i).resolve(resolvedPrereqsList.get(i), providedParametersList.get(i));
+			}
+		} else {
+			resolveInParallel(resolvers, resolvedPrereqsList, providedParametersList, resolvedTerms);
+		}
+
+		for (int i = 0; i < size; i++) {
+			TermResolver<?> resolver = resolvers.get(i);
+			Term resolvedTerm = term.getName().equals(resolver.getOutput()) ? term : new Term(resolver.getOutput(), null);
+			termCache.put(resolvedTerm, resolvedTerms[i]);
+			if (isResolvedFromConstantTerms(resolver) && resolvedTerms[i] != null) {
+				Object sharedTermValue = sharedTermValues.putIfAbsent(resolvedTerm, resolvedTerms[i]);
+				if (sharedTermValue == null || sharedTermValue == resolvedTerms[i]) {
+					constantTerms.add(resolvedTerm);
 				}
-				
-				Object resolvedTerm = resolver.resolve(resolvedPrereqs, providedParameters);
-				if (termName.equals(resolver.getOutput())) {
-					termCache.put(term, resolvedTerm);
+			}
+		}
+	}
+
+	private boolean isResolvedFromConstantTerms(TermResolver<?> resolver) {
+		// a resolver without prerequisites may resolve its term from anything, such as the current time
+		if (sharedTermValues == null || resolver.getPrerequisites().isEmpty()) {
+			return false;
+		}
+		for (String prereq : resolver.getPrerequisites()) {
+			if (!constantTerms.contains(new Term(prereq, null))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Resolves the terms of the thread-safe resolvers on the executor, except for the first one which is resolved on
+	 * the calling thread along with the terms of any other resolvers, so that a busy executor can not stall resolution.
+	 */
+	private void resolveInParallel(List<TermResolver<?>> resolvers, List<Map<String, Object>> resolvedPrereqsList,
+			List<Map<String, String>> providedParametersList, Object[] resolvedTerms) throws TermResolutionException {
+		int size = resolvers.size();
+		List<FutureTask<Object>> futures = new ArrayList<FutureTask<Object>>(Collections.<FutureTask<Object>>nCopies(size, null));
+		boolean first = true;
+		for (int i = 0; i < size; i++) {
+			final TermResolver<?> resolver = resolvers.get(i);
+			if (resolver instanceof ThreadSafeTermResolver) {
+				if (first) {
+					first = false;
 				} else {
-					if (!CollectionUtils.isEmpty(resolver.getParameterNames())) {
-						// Shouldn't happen due to checks in buildResolutionPlan
-						throw new TermResolutionException("TermResolvers requiring parameters cannot be intermediates in the Term resolution plan", resolver, providedParameters);
+					final Map<String, Object> resolvedPrereqs = resolvedPrereqsList.get(i);
+					final Map<String, String> providedParameters = providedParametersList.get(i);
+					FutureTask<Object> future = new FutureTask<Object>(new Callable<Object>() {
+						@Override
+						public Object call() throws TermResolutionException {
+							return resolver.resolve(resolvedPrereqs, providedParameters);
+						}
+					});
+					futures.set(i, future);
+					prerequisiteExecutor.execute(future);
+				}
+			}
+		}
+
+		try {
+			for (int i = 0; i < size; i++) {
+				if (futures.get(i) == null) {
+					resolvedTerms[i] = resolvers.get(i).resolve(resolvedPrereqsList.get(i), providedParametersList.get(i));
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				FutureTask<Object> future = futures.get(i);
+				if (future != null) {
+					try {
+						resolvedTerms[i] = future.get();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new TermResolutionException("Interrupted while resolving prerequisites in parallel", resolvers.get(i), providedParametersList.get(i), e);
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof TermResolutionException) {
+							throw (TermResolutionException)cause;
+						} else if (cause instanceof RuntimeException) {
+							throw (RuntimeException)cause;
+						} else if (cause instanceof Error) {
+							throw (Error)cause;
+						}
+						throw new TermResolutionException("Failed to resolve prerequisite", resolvers.get(i), providedParametersList.get(i), cause);
 					}
-					termCache.put(new Term(resolver.getOutput(), null), resolvedTerm);
 				}
-			}		
-		} else {
-			throw new TermResolutionException("Unable to plan the resolution of " + term, null, null);
+			}
+		} finally {
+			for (FutureTask<Object> future : futures) {
+				if (future != null) {
+					future.cancel(false);
+				}
+			}
 		}
-		return (T)termCache.get(term);
+	}
+
+	/**
+	 * Gets the plan to resolve the given term, reusing the plan built for the same term resolvers and known terms by
+	 * any engine if there is one.
+	 *
+	 * @param termName the name of the term to resolve
+	 * @return the plan, or null if the term can not be resolved
+	 */
+	protected TermResolutionPlan getTermResolutionPlan(String termName) {
+		TermResolutionPlans plans = getResolutionPlans();
+
+		// the plan only depends on which of the terms it could use are already known
+		Set<String> knownTermNames = new TreeSet<String>();
+		for (String plannableTermName : plans.getPlannableTermNames(termName)) {
+			if (termCache.containsKey(new Term(plannableTermName, null))) {
+				knownTermNames.add(plannableTermName);
+			}
+		}
+		TermResolutionPlanKey planKey = new TermResolutionPlanKey(termName, knownTermNames);
+
+		TermResolutionPlan resolutionPlan = plans.getPlan(planKey);
+		if (resolutionPlan == null) {
+			List<TermResolverKey> steps = buildTermResolutionPlan(termName);
+			resolutionPlan = (steps == null) ? TermResolutionPlan.NONE : new TermResolutionPlan(steps);
+			plans.putPlan(planKey, resolutionPlan);
+		}
+		return (resolutionPlan == TermResolutionPlan.NONE) ? null : resolutionPlan;
+	}
+
+	private TermResolutionPlans getResolutionPlans() {
+		if (resolutionPlans == null) {
+			TermResolverSetKey resolverSetKey = new TermResolverSetKey(termResolversByKey);
+			TermResolutionPlans plans = resolutionPlansByResolverSet.get(resolverSetKey);
+			if (plans == null) {
+				if (resolutionPlansByResolverSet.size() >= MAX_RESOLVER_SETS) {
+					resolutionPlansByResolverSet.clear();
+				}
+				plans = new TermResolutionPlans(termResolversByOutput);
+				TermResolutionPlans existingPlans = resolutionPlansByResolverSet.putIfAbsent(resolverSetKey, plans);
+				if (existingPlans != null) {
+					plans = existingPlans;
+				}
+			}
+			resolutionPlans = plans;
+		}
+		return resolutionPlans;
+	}
+
+	/**
+	 * Clears the resolution plans memoized by all engines.
+	 */
+	public static void clearResolutionPlans() {
+		resolutionPlansByResolverSet.clear();
 	}
 
 	/**
@@ -498,6 +771,13 @@ public class TermResolutionEngineImpl implements TermResolutionEngine {
 			return data.get(0);
 		}
 
+		/**
+		 * @return the names of the prerequisites of the resolver
+		 */
+		public List<String> getPrerequisites() {
+			return data.subList(1, data.size());
+		}
+
 		@Override
 		public int compareTo(TermResolverKey o) {
 			if (o == null) return 1;
@@ -623,6 +903,190 @@ public class TermResolutionEngineImpl implements TermResolutionEngine {
 		}
 	}
 
+	/**
+	 * An immutable plan to resolve a term, as the term resolvers to execute in order.
+	 */
+	protected static final class TermResolutionPlan {
+
+		private static final TermResolutionPlan NONE = new TermResolutionPlan(Collections.<TermResolverKey>emptyList());
+
+		private final List<TermResolverKey> steps;
+		private final List<List<TermResolverKey>> levels;
+
+		/**
+		 * @param steps the term resolvers in the order to execute them, such that every prerequisite is resolved before
+		 * it is needed.  Resolvers listed more than once are only executed the first time.
+		 */
+		public TermResolutionPlan(List<TermResolverKey> steps) {
+			this.steps = Collections.unmodifiableList(new ArrayList<TermResolverKey>(new LinkedHashSet<TermResolverKey>(steps)));
+
+			// group the steps by their distance from the known terms, so that the steps of a level are independent
+			Map<String, Integer> levelsByOutput = new HashMap<String, Integer>();
+			List<List<TermResolverKey>> levels = new ArrayList<List<TermResolverKey>>();
+			for (TermResolverKey step : this.steps) {
+				int level = 0;
+				for (String prereq : step.getPrerequisites()) {
+					Integer prereqLevel = levelsByOutput.get(prereq);
+					if (prereqLevel != null) {
+						level = Math.max(level, prereqLevel + 1);
+					}
+				}
+				Integer outputLevel = levelsByOutput.get(step.getOutput());
+				levelsByOutput.put(step.getOutput(), (outputLevel == null) ? level : Math.max(level, outputLevel));
+				while (levels.size() <= level) {
+					levels.add(new ArrayList<TermResolverKey>());
+				}
+				levels.get(level).add(step);
+			}
+			for (int i = 0; i < levels.size(); i++) {
+				levels.set(i, Collections.unmodifiableList(levels.get(i)));
+			}
+			this.levels = Collections.unmodifiableList(levels);
+		}
+
+		public List<TermResolverKey> getSteps() {
+			return steps;
+		}
+
+		/**
+		 * @return the steps grouped into levels which only need the terms resolved by the levels before them
+		 */
+		public List<List<TermResolverKey>> getLevels() {
+			return levels;
+		}
+	}
+
+	/**
+	 * The resolution plans memoized for one set of term resolvers.
+	 */
+	private static final class TermResolutionPlans {
+
+		private final Map<String, Set<String>> prerequisitesByOutput = new HashMap<String, Set<String>>();
+		private final Map<String, Set<String>> parameterlessPrerequisitesByOutput = new HashMap<String, Set<String>>();
+		private final ConcurrentMap<String, Set<String>> plannableTermNames = new ConcurrentHashMap<String, Set<String>>();
+		private final ConcurrentMap<TermResolutionPlanKey, TermResolutionPlan> plans =
+				new ConcurrentHashMap<TermResolutionPlanKey, TermResolutionPlan>();
+
+		/**
+		 * Captures the prerequisites of the given resolvers, which must not be referenced afterwards since they are
+		 * specific to one engine.
+		 */
+		TermResolutionPlans(Map<String, List<TermResolver<?>>> termResolversByOutput) {
+			for (Map.Entry<String, List<TermResolver<?>>> entry : termResolversByOutput.entrySet()) {
+				Set<String> prerequisites = new HashSet<String>();
+				Set<String> parameterlessPrerequisites = new HashSet<String>();
+				for (TermResolver<?> termResolver : entry.getValue()) {
+					if (termResolver.getPrerequisites() != null) {
+						prerequisites.addAll(termResolver.getPrerequisites());
+						if (CollectionUtils.isEmpty(termResolver.getParameterNames())) {
+							parameterlessPrerequisites.addAll(termResolver.getPrerequisites());
+						}
+					}
+				}
+				prerequisitesByOutput.put(entry.getKey(), prerequisites);
+				parameterlessPrerequisitesByOutput.put(entry.getKey(), parameterlessPrerequisites);
+			}
+		}
+
+		/**
+		 * @return the names of the terms which can be part of a plan to resolve the given term, which are the only
+		 * ones whose availability affects the plan.
+		 */
+		Set<String> getPlannableTermNames(String termName) {
+			Set<String> termNames = plannableTermNames.get(termName);
+			if (termNames == null) {
+				termNames = new HashSet<String>();
+				termNames.add(termName);
+				// only the resolvers of the term itself may take parameters
+				LinkedList<String> toVisit = new LinkedList<String>();
+				Set<String> prerequisites = prerequisitesByOutput.get(termName);
+				if (prerequisites != null) {
+					toVisit.addAll(prerequisites);
+				}
+				while (!toVisit.isEmpty()) {
+					String prereq = toVisit.removeFirst();
+					if (termNames.add(prereq)) {
+						Set<String> prereqPrerequisites = parameterlessPrerequisitesByOutput.get(prereq);
+						if (prereqPrerequisites != null) {
+							toVisit.addAll(prereqPrerequisites);
+						}
+					}
+				}
+				termNames = Collections.unmodifiableSet(termNames);
+				plannableTermNames.put(termName, termNames);
+			}
+			return termNames;
+		}
+
+		TermResolutionPlan getPlan(TermResolutionPlanKey planKey) {
+			return plans.get(planKey);
+		}
+
+		void putPlan(TermResolutionPlanKey planKey, TermResolutionPlan plan) {
+			if (plans.size() >= MAX_PLANS_PER_RESOLVER_SET) {
+				plans.clear();
+			}
+			plans.put(planKey, plan);
+		}
+	}
+
+	/**
+	 * Identifies a set of term resolvers by everything the planning depends on, which is their keys and costs.
+	 */
+	private static final class TermResolverSetKey {
+
+		private final Map<TermResolverKey, Integer> costs;
+		private final int hashCode;
+
+		TermResolverSetKey(Map<TermResolverKey, TermResolver<?>> termResolversByKey) {
+			costs = new HashMap<TermResolverKey, Integer>(termResolversByKey.size());
+			for (Map.Entry<TermResolverKey, TermResolver<?>> entry : termResolversByKey.entrySet()) {
+				costs.put(entry.getKey(), entry.getValue().getCost());
+			}
+			hashCode = costs.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof TermResolverSetKey)) return false;
+			TermResolverSetKey other = (TermResolverSetKey)obj;
+			return hashCode == other.hashCode && costs.equals(other.costs);
+		}
+	}
+
+	/**
+	 * Identifies a resolution plan for a set of term resolvers by the term to resolve and the relevant known terms.
+	 */
+	private static final class TermResolutionPlanKey {
+
+		private final String termName;
+		private final Set<String> knownTermNames;
+
+		TermResolutionPlanKey(String termName, Set<String> knownTermNames) {
+			this.termName = termName;
+			this.knownTermNames = knownTermNames;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * termName.hashCode() + knownTermNames.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof TermResolutionPlanKey)) return false;
+			TermResolutionPlanKey other = (TermResolutionPlanKey)obj;
+			return termName.equals(other.termName) && knownTermNames.equals(other.knownTermNames);
+		}
+	}
+
 	private static class InvalidResolutionPathException extends Exception {
 		private static final long serialVersionUID = 1L;
 
@@ -29,6 +29,11 @@ public final class BinaryOperatorExpression implements Expression<Boolean> {
 	private final Expression<? extends Object> lhs;
 	private final Expression<? extends Object> rhs;
 
+	/**
+	 * The operator bound to a constant right hand side, once compared
+	 */
+	private volatile ConstantComparison constantComparison;
+
     /**
      * Create a BinaryOperatorExpression with the given values
      * @param operator {@link ComparisonOperator}
@@ -41,9 +46,30 @@ public final class BinaryOperatorExpression implements Expression<Boolean> {
 		this.rhs = rhs;
 	}
 
+    /**
+     * Create a BinaryOperatorExpression comparing the left hand side with a constant right hand side
+     * @param lhs left hand side Expression
+     * @param constantComparison the {@link ConstantComparison} to compare the left hand side with
+     * @since 2.6.0
+     */
+	public BinaryOperatorExpression(Expression<? extends Object> lhs, ConstantComparison constantComparison) {
+		this.operator = constantComparison.getOperator();
+		this.lhs = lhs;
+		this.rhs = new ConstantExpression<Object>(constantComparison.getRhs());
+		this.constantComparison = constantComparison;
+	}
+
     @Override
 	public Boolean invoke(ExecutionEnvironment environment) {
 		Object lhsValue = lhs.invoke(environment);
+		if (rhs instanceof ConstantExpression) {
+			ConstantComparison comparison = constantComparison;
+			if (comparison == null) {
+				comparison = operator.bind(((ConstantExpression<?>) rhs).getValue());
+				constantComparison = comparison;
+			}
+			return comparison.compare(lhsValue);
+		}
 		Object rhsValue = rhs.invoke(environment);
 		return operator.compare(lhsValue, rhsValue);
 	}
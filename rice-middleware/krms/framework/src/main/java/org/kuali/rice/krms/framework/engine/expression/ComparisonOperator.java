@@ -119,11 +119,39 @@ public enum ComparisonOperator implements Coded {
      * @return boolean value of comparison results based on the type of operator.
      */
 	public boolean compare(Object lhs, Object rhs) {
+        int result = getComparisonOperatorService().compare(lhs, rhs);
+        return isSatisfiedBy(result, rhs);
+	}
+
+    /**
+     * Compare the given object with a constant right hand side, binding the comparator and coercing the right hand
+     * side once rather than on every comparison.
+     * @param rhs right hand side object
+     * @return the {@link ConstantComparison} of objects with rhs
+     * @since 2.6.0
+     */
+    public ConstantComparison bind(Object rhs) {
+        return new ConstantComparison(this, rhs, getComparisonOperatorService(), null);
+    }
+
+    /**
+     * Returns the {@link ComparisonOperatorService} of this operator, looking it up if it has not been set.
+     * @return the {@link ComparisonOperatorService}
+     */
+    ComparisonOperatorService getComparisonOperatorService() {
         if (comparisonOperatorService == null) {
             setComparisonOperatorService(KrmsApiServiceLocator.getComparisonOperatorService());
         }
-        int result = comparisonOperatorService.compare(lhs, rhs);
+        return comparisonOperatorService;
+    }
 
+    /**
+     * Returns whether the result of comparing objects satisfies this operator.
+     * @param result the result of the comparison
+     * @param rhs right hand side object
+     * @return boolean value of comparison results based on the type of operator.
+     */
+    boolean isSatisfiedBy(int result, Object rhs) {
         if (this == EQUALS) {
             return result == 0;
         } else if (this == NOT_EQUALS) {
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.framework.engine.expression;
+
+import org.kuali.rice.krms.api.engine.IncompatibleTypeException;
+import org.kuali.rice.krms.api.engine.expression.ComparisonOperatorService;
+
+/**
+ * A {@link ComparisonOperator} bound to a constant right hand side.
+ *
+ * <p>{@link ComparisonOperator#compare(Object, Object)} asks the {@link ComparisonOperatorService} to find an
+ * {@link EngineComparatorExtension} for every comparison, and the {@link DefaultComparisonOperator} then coerces a
+ * String operand to the type of the other one by reflection.  When the service has no comparator extensions other
+ * than the default, which is decided once when the comparison is bound, the default comparison is called directly
+ * and a String right hand side is coerced once per type of left hand side, rather than on every comparison.  If the
+ * type of the left hand side is known in advance, the right hand side is coerced to it right away.</p>
+ *
+ * <p>Comparisons with comparator extensions configured are still made by the {@link ComparisonOperatorService}, as
+ * extensions may decide which values they can compare by value rather than by type.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ * @since 2.6.0
+ */
+public final class ConstantComparison {
+
+    private final ComparisonOperator operator;
+    private final Object rhs;
+    private final ComparisonOperatorService comparisonOperatorService;
+    private final DefaultComparisonOperator defaultComparator;
+
+    private volatile CoercedOperand coercedRhs;
+
+    /**
+     * Create a ConstantComparison with the given values
+     * @param operator {@link ComparisonOperator} to compare with
+     * @param rhs the constant right hand side object
+     * @param comparisonOperatorService the {@link ComparisonOperatorService} to compare with, or null to use the one of
+     * the operator
+     * @param lhsType the type the left hand side objects are expected to be of, if known, may be null
+     */
+    public ConstantComparison(ComparisonOperator operator, Object rhs, ComparisonOperatorService comparisonOperatorService,
+            Class<?> lhsType) {
+        if (operator == null) {
+            throw new IllegalArgumentException("operator must not be null");
+        }
+        this.operator = operator;
+        this.rhs = rhs;
+        this.comparisonOperatorService = (comparisonOperatorService == null) ?
+                operator.getComparisonOperatorService() : comparisonOperatorService;
+        this.defaultComparator = usesDefaultComparator(this.comparisonOperatorService) ?
+                new DefaultComparisonOperator() : null;
+        if (defaultComparator != null && lhsType != null && rhs instanceof String) {
+            try {
+                coercedRhs = new CoercedOperand(lhsType, defaultComparator.coerceStringOperand(lhsType, (String) rhs));
+            } catch (IncompatibleTypeException e) {
+                // left to fail when compared, as any value the left hand side actually has may be coercible
+            }
+        }
+    }
+
+    private static boolean usesDefaultComparator(ComparisonOperatorService comparisonOperatorService) {
+        return comparisonOperatorService instanceof ComparisonOperatorServiceImpl
+                && (comparisonOperatorService.getOperators() == null || comparisonOperatorService.getOperators().isEmpty());
+    }
+
+    /**
+     * Compare the given object with the constant right hand side
+     * @param lhs left hand side object
+     * @return boolean value of comparison results based on the type of operator.
+     */
+    public boolean compare(Object lhs) {
+        int result;
+        if (defaultComparator == null) {
+            result = comparisonOperatorService.compare(lhs, rhs);
+        } else if (lhs == null || !(rhs instanceof String) || lhs instanceof String) {
+            result = defaultComparator.compare(lhs, rhs);
+        } else {
+            result = defaultComparator.compareCoerced(lhs, coerceRhs(lhs.getClass()));
+        }
+        return operator.isSatisfiedBy(result, rhs);
+    }
+
+    private Object coerceRhs(Class<?> lhsType) {
+        CoercedOperand coerced = coercedRhs;
+        if (coerced == null || coerced.type != lhsType) {
+            coerced = new CoercedOperand(lhsType, defaultComparator.coerceStringOperand(lhsType, (String) rhs));
+            coercedRhs = coerced;
+        }
+        return coerced.value;
+    }
+
+    /**
+     * @return the {@link ComparisonOperator} of this comparison
+     */
+    public ComparisonOperator getOperator() {
+        return operator;
+    }
+
+    /**
+     * @return the constant right hand side of this comparison
+     */
+    public Object getRhs() {
+        return rhs;
+    }
+
+    @Override
+    public String toString() {
+        return operator + " " + rhs;
+    }
+
+    /**
+     * The right hand side coerced to the type of a left hand side.
+     */
+    private static final class CoercedOperand {
+
+        private final Class<?> type;
+        private final Object value;
+
+        CoercedOperand(Class<?> type, Object value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+}
@@ -39,4 +39,11 @@ public final class ConstantExpression<T> implements Expression<T> {
 		return value;
 	}
 
+    /**
+     * @return the constant value
+     */
+	T getValue() {
+		return value;
+	}
+
 }
@@ -50,7 +50,17 @@ public class DefaultComparisonOperator implements EngineComparatorExtension, Str
             lhs = coerceStringOperand(rhs, lhs.toString());
         }
 
+        return compareCoerced(lhs, rhs);
+    }
 
+    /**
+     * Compares the given non null values once any String operand has been coerced to the type of the other.
+     * @param lhs left hand side object
+     * @param rhs right hand side object
+     * @return the result of the comparison
+     * @throws IncompatibleTypeException if the values are not comparable
+     */
+    int compareCoerced(Object lhs, Object rhs) {
         if (ObjectUtils.equals(lhs, rhs)) {
             return 0;
         }
@@ -82,26 +92,40 @@ public class DefaultComparisonOperator implements EngineComparatorExtension, Str
      * @throws IncompatibleTypeException
      */
     private Object coerceStringOperand(Object objectArg, String stringArg) {
+        if (objectArg == null) {
+            return stringArg;
+        }
+        return coerceStringOperand(objectArg.getClass(), stringArg);
+    }
+
+    /**
+     * Coerces the given String to the given type of the other operand, the coerced value only depends on that type.
+     * @param objectType the type of the other operand
+     * @param stringArg the String operand
+     * @return the coerced value, or the String if the type is a String
+     * @throws IncompatibleTypeException if the String could not be coerced to the type
+     */
+    Object coerceStringOperand(Class<?> objectType, String stringArg) {
         Object result = stringArg;
-        if (objectArg != null && stringArg != null) {
-            if  (!(objectArg instanceof String)) {
-                result = coerceHelper(objectArg, stringArg, Double.class, Float.class, Long.class, Integer.class, Boolean.class);
+        if (objectType != null && stringArg != null) {
+            if  (!String.class.equals(objectType)) {
+                result = coerceHelper(objectType, stringArg, Double.class, Float.class, Long.class, Integer.class, Boolean.class);
 
                 if (result instanceof String) { // was coercion successful?
-                    if (objectArg instanceof BigDecimal) {
+                    if (BigDecimal.class.isAssignableFrom(objectType)) {
                         try {
                             result = BigDecimal.valueOf(Double.valueOf(stringArg.toString()));
                         } catch (NumberFormatException e) {
-                            throw new IncompatibleTypeException("Could not coerce String to BigDecimal" + this, stringArg, objectArg.getClass());
+                            throw new IncompatibleTypeException("Could not coerce String to BigDecimal" + this, stringArg, objectType);
                         }
-                    } else if (objectArg instanceof BigInteger) {
+                    } else if (BigInteger.class.isAssignableFrom(objectType)) {
                         try {
                             result = BigInteger.valueOf(Long.valueOf(stringArg.toString()));
                         } catch (NumberFormatException e) {
-                            throw new IncompatibleTypeException("Could not coerce String to BigInteger" + this, stringArg, objectArg.getClass());
+                            throw new IncompatibleTypeException("Could not coerce String to BigInteger" + this, stringArg, objectType);
                         }
                     } else {
-                        throw new IncompatibleTypeException("Could not compare values for operator " + this, objectArg, stringArg.getClass());
+                        throw new IncompatibleTypeException("Could not compare values for operator " + this, stringArg, objectType);
                     }
                 }
             }
@@ -111,28 +135,28 @@ public class DefaultComparisonOperator implements EngineComparatorExtension, Str
 
     /**
      *
-     * @param objectArg
+     * @param objectType
      * @param stringArg
      * @param clazzes
      * @return The object of one of the given types, whose value is stringArg
      */
-    private Object coerceHelper(Object objectArg, String stringArg, Class<?> ... clazzes) {
+    private Object coerceHelper(Class<?> objectType, String stringArg, Class<?> ... clazzes) {
         for (Class clazz : clazzes) {
-            if (clazz.isInstance(objectArg)) {
+            if (clazz.isAssignableFrom(objectType)) {
                 try {
                     return clazz.getMethod("valueOf", String.class).invoke(null, stringArg);
                 } catch (NumberFormatException e) {
                     throw new IncompatibleTypeException("Could not coerce String to " +
-                            clazz.getSimpleName() + " " + this, stringArg, objectArg.getClass());
+                            clazz.getSimpleName() + " " + this, stringArg, objectType);
                 } catch (NoSuchMethodException e) {
                     throw new IncompatibleTypeException("Could not coerce String to " +
-                            clazz.getSimpleName() + " " + this, stringArg, objectArg.getClass());
+                            clazz.getSimpleName() + " " + this, stringArg, objectType);
                 } catch (InvocationTargetException e) {
                     throw new IncompatibleTypeException("Could not coerce String to " +
-                            clazz.getSimpleName() + " " + this, stringArg, objectArg.getClass());
+                            clazz.getSimpleName() + " " + this, stringArg, objectType);
                 } catch (IllegalAccessException e) {
                     throw new IncompatibleTypeException("Could not coerce String to " +
-                            clazz.getSimpleName() + " " + this, stringArg, objectArg.getClass());
+                            clazz.getSimpleName() + " " + this, stringArg, objectType);
                 }
             }
         }
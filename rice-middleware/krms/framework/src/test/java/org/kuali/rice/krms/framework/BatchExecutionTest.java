@@ -0,0 +1,235 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.framework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.krms.api.engine.EngineResults;
+import org.kuali.rice.krms.api.engine.ExecutionFlag;
+import org.kuali.rice.krms.api.engine.ExecutionOptions;
+import org.kuali.rice.krms.api.engine.Facts;
+import org.kuali.rice.krms.api.engine.ResultEvent;
+import org.kuali.rice.krms.api.engine.SelectionCriteria;
+import org.kuali.rice.krms.api.engine.Term;
+import org.kuali.rice.krms.api.engine.TermResolver;
+import org.kuali.rice.krms.api.repository.agenda.AgendaDefinition;
+import org.kuali.rice.krms.framework.engine.Action;
+import org.kuali.rice.krms.framework.engine.Agenda;
+import org.kuali.rice.krms.framework.engine.BasicAgenda;
+import org.kuali.rice.krms.framework.engine.BasicAgendaTree;
+import org.kuali.rice.krms.framework.engine.BasicAgendaTreeEntry;
+import org.kuali.rice.krms.framework.engine.BasicContext;
+import org.kuali.rice.krms.framework.engine.BasicRule;
+import org.kuali.rice.krms.framework.engine.ComparableTermBasedProposition;
+import org.kuali.rice.krms.framework.engine.Context;
+import org.kuali.rice.krms.framework.engine.Proposition;
+import org.kuali.rice.krms.framework.engine.ProviderBasedEngine;
+import org.kuali.rice.krms.framework.engine.ResultLogger;
+import org.kuali.rice.krms.framework.engine.Rule;
+import org.kuali.rice.krms.framework.engine.expression.ComparisonOperator;
+import org.kuali.rice.krms.framework.engine.expression.ComparisonOperatorServiceImpl;
+import org.kuali.rice.krms.framework.engine.result.EngineResultListener;
+
+/**
+ * Tests the batch execution of {@link ProviderBasedEngine}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class BatchExecutionTest {
+
+	private static final Term regionTerm = new Term("region");
+	private static final Term discountTerm = new Term("discount");
+	private static final Term totalCostTerm = new Term("totalCost");
+
+	private final EngineResultListener engineResultListener = new EngineResultListener();
+	private CountingDiscountResolver discountResolver;
+	private Proposition discountProposition;
+	private Proposition totalCostProposition;
+	private ProviderBasedEngine engine;
+	private SelectionCriteria selectionCriteria;
+
+	@Before
+	public void setUp() {
+		ResultLogger.getInstance().addListener(engineResultListener);
+
+		discountResolver = new CountingDiscountResolver();
+		discountProposition = proposition(discountTerm, 5);
+		Rule discountRule = new BasicRule("discount", discountProposition, Collections.<Action>emptyList());
+		totalCostProposition = proposition(totalCostTerm, 100);
+		Rule totalCostRule = new BasicRule("totalCost", totalCostProposition, Collections.<Action>emptyList());
+		BasicAgendaTree agendaTree = new BasicAgendaTree(new BasicAgendaTreeEntry(discountRule),
+				new BasicAgendaTreeEntry(totalCostRule));
+		Agenda agenda = new BasicAgenda(Collections.singletonMap(AgendaDefinition.Constants.EVENT, "test"), agendaTree);
+		Context context = new BasicContext(Arrays.asList(agenda), Collections.<TermResolver<?>>singletonList(
+				discountResolver));
+
+		engine = new ProviderBasedEngine();
+		engine.setContextProvider(new ManualContextProvider(context));
+		selectionCriteria = SelectionCriteria.createCriteria(null, Collections.singletonMap("docTypeName",
+				"Proposal"), Collections.singletonMap(AgendaDefinition.Constants.EVENT, "test"));
+	}
+
+	@After
+	public void tearDown() {
+		ResultLogger.getInstance().removeListener(engineResultListener);
+	}
+
+	@Test
+	public void testFailedPropositionsOnly() {
+		List<EngineResults> results = engine.executeBatch(selectionCriteria, sharedFacts(), Arrays.asList(
+				totalCost(50), totalCost(150), totalCost(100)), new ExecutionOptions(), true);
+
+		assertEquals(3, results.size());
+		assertFailed(results.get(0), 1);
+		assertFailed(results.get(1), 0);
+		assertFailed(results.get(2), 1);
+
+		// the discount depends on the shared facts only, so it is resolved once for the whole batch
+		assertEquals(1, discountResolver.resolutions.get());
+	}
+
+	@Test
+	public void testSharedFactOverridden() {
+		Facts southFacts = Facts.Builder.create().addFact(regionTerm, "south").addFact(totalCostTerm, 150).build();
+		List<EngineResults> results = engine.executeBatch(selectionCriteria, sharedFacts(), Arrays.asList(
+				totalCost(150), southFacts, totalCost(150)), new ExecutionOptions(), true);
+
+		// the discount shared by the batch was resolved from the northern region, the south gets none
+		assertEquals(0, results.get(0).getAllResults().size());
+		assertEquals(1, results.get(1).getAllResults().size());
+		assertSame(discountProposition, results.get(1).getAllResults().get(0).getSource());
+		assertEquals(0, results.get(2).getAllResults().size());
+		assertEquals(2, discountResolver.resolutions.get());
+	}
+
+	@Test
+	public void testAllResults() {
+		List<EngineResults> results = engine.executeBatch(selectionCriteria, sharedFacts(), Arrays.asList(
+				totalCost(50), totalCost(150)), new ExecutionOptions().setFlag(
+				ExecutionFlag.LOG_EXECUTION, true), false);
+
+		assertEquals(2, results.size());
+		for (EngineResults result : results) {
+			assertEquals(2, result.getResultsOfType(ResultEvent.PROPOSITION_EVALUATED).size());
+			assertEquals(2, result.getResultsOfType(ResultEvent.RULE_EVALUATED).size());
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			engine.setBatchExecutionPool(pool);
+			List<Facts> factSets = new ArrayList<Facts>();
+			for (int i = 0; i < 500; i++) {
+				factSets.add(totalCost(i));
+			}
+
+			List<EngineResults> results = engine.executeBatch(selectionCriteria, sharedFacts(), factSets,
+					new ExecutionOptions(), true);
+
+			assertEquals(factSets.size(), results.size());
+			for (int i = 0; i < results.size(); i++) {
+				assertFailed(results.get(i), (i > 100) ? 0 : 1);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testNoContext() {
+		engine.setContextProvider(new ManualContextProvider(null));
+		assertNull(engine.executeBatch(selectionCriteria, null, Collections.singletonList(totalCost(50)),
+				new ExecutionOptions(), true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullFactSets() {
+		engine.executeBatch(selectionCriteria, sharedFacts(), null, new ExecutionOptions(), false);
+	}
+
+	private void assertFailed(EngineResults results, int failedCount) {
+		assertEquals(failedCount, results.getAllResults().size());
+		for (ResultEvent result : results.getAllResults()) {
+			assertEquals(ResultEvent.PROPOSITION_EVALUATED, result.getType());
+			assertEquals(Boolean.FALSE, result.getResult());
+			assertNull(result.getEnvironment());
+			assertSame(totalCostProposition, result.getSource());
+		}
+	}
+
+	private static ComparableTermBasedProposition<Integer> proposition(Term term, int expectedValue) {
+		ComparableTermBasedProposition<Integer> proposition = new ComparableTermBasedProposition<Integer>(
+				ComparisonOperator.GREATER_THAN, term, expectedValue);
+		ComparisonOperator.GREATER_THAN.setComparisonOperatorService(ComparisonOperatorServiceImpl.getInstance());
+		return proposition;
+	}
+
+	private static Facts sharedFacts() {
+		return Facts.Builder.create().addFact(regionTerm, "north").build();
+	}
+
+	private static Facts totalCost(int totalCost) {
+		return Facts.Builder.create().addFact(totalCostTerm, totalCost).build();
+	}
+
+	private static class CountingDiscountResolver implements TermResolver<Integer> {
+
+		private final AtomicInteger resolutions = new AtomicInteger();
+
+		@Override
+		public Set<String> getPrerequisites() {
+			return Collections.singleton(regionTerm.getName());
+		}
+
+		@Override
+		public String getOutput() {
+			return discountTerm.getName();
+		}
+
+		@Override
+		public Set<String> getParameterNames() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public int getCost() {
+			return 1;
+		}
+
+		@Override
+		public Integer resolve(Map<String, Object> resolvedPrereqs, Map<String, String> parameters) {
+			resolutions.incrementAndGet();
+			return "north".equals(resolvedPrereqs.get(regionTerm.getName())) ? 10 : 0;
+		}
+	}
+
+}
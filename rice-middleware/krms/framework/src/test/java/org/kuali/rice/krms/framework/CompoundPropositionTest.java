@@ -0,0 +1,255 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.framework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.kuali.rice.krms.api.engine.ExecutionEnvironment;
+import org.kuali.rice.krms.api.engine.ExecutionFlag;
+import org.kuali.rice.krms.api.engine.ExecutionOptions;
+import org.kuali.rice.krms.api.engine.SelectionCriteria;
+import org.kuali.rice.krms.api.engine.Term;
+import org.kuali.rice.krms.api.repository.LogicalOperator;
+import org.kuali.rice.krms.framework.engine.BasicExecutionEnvironment;
+import org.kuali.rice.krms.framework.engine.CompoundProposition;
+import org.kuali.rice.krms.framework.engine.Proposition;
+import org.kuali.rice.krms.framework.engine.PropositionResult;
+import org.kuali.rice.krms.framework.engine.PropositionStatistics;
+
+/**
+ * Tests the evaluation of {@link CompoundProposition}s in the order given by their {@link PropositionStatistics}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class CompoundPropositionTest {
+
+	private static final int ROWS = 500;
+
+	@Test
+	public void testSameResults() {
+		Random random = new Random(4711);
+		for (int tree = 0; tree < 20; tree++) {
+			Proposition reordered = randomProposition(random, 3);
+			for (int row = 0; row < ROWS; row++) {
+				boolean expected = evaluate(reordered, row, false, false);
+				assertEquals("tree " + tree + " row " + row, expected, evaluate(reordered, row, true, false));
+			}
+		}
+	}
+
+	@Test
+	public void testReorder() {
+		RowProposition expensive = new RowProposition(randomResults(new Random(1), 0.9), 200000);
+		RowProposition cheap = new RowProposition(randomResults(new Random(2), 0.2), 0);
+		Proposition and = compound(LogicalOperator.AND, expensive, cheap);
+
+		for (int row = 0; row < ROWS; row++) {
+			evaluate(and, row, true, false);
+		}
+		// the expensive proposition is evaluated only when the cheap one does not decide the outcome
+		assertTrue("evaluated " + expensive.evaluations + " times", expensive.evaluations < ROWS / 2);
+
+		RowProposition mostlyTrue = new RowProposition(randomResults(new Random(3), 0.9), 0);
+		RowProposition mostlyFalse = new RowProposition(randomResults(new Random(4), 0.1), 0);
+		Proposition or = compound(LogicalOperator.OR, mostlyFalse, mostlyTrue);
+		for (int row = 0; row < ROWS; row++) {
+			evaluate(or, row, true, false);
+		}
+		assertTrue("evaluated " + mostlyFalse.evaluations + " times", mostlyFalse.evaluations < ROWS / 2);
+	}
+
+	@Test
+	public void testDefinedOrderWhenLogging() {
+		RowProposition expensive = new RowProposition(randomResults(new Random(1), 0.9), 0);
+		RowProposition cheap = new RowProposition(randomResults(new Random(2), 0.2), 0);
+		Proposition and = compound(LogicalOperator.AND, expensive, cheap);
+		for (int row = 0; row < ROWS; row++) {
+			evaluate(and, row, true, true);
+		}
+		assertEquals(ROWS, expensive.evaluations);
+
+		// nor without the flag or ids
+		expensive.evaluations = 0;
+		for (int row = 0; row < ROWS; row++) {
+			evaluate(and, row, false, false);
+		}
+		assertEquals(ROWS, expensive.evaluations);
+
+		expensive.evaluations = 0;
+		and = new CompoundProposition(LogicalOperator.AND, Arrays.<Proposition>asList(expensive, cheap));
+		for (int row = 0; row < ROWS; row++) {
+			evaluate(and, row, true, false);
+		}
+		assertEquals(ROWS, expensive.evaluations);
+	}
+
+	@Test
+	public void testStatistics() throws Exception {
+		String id = UUID.randomUUID().toString();
+		RowProposition proposition = new RowProposition(new boolean[] {true, false, false, false}, 0);
+		Proposition and = new CompoundProposition(LogicalOperator.AND, Arrays.<Proposition>asList(proposition,
+				proposition), Arrays.asList(id, null));
+		for (int row = 0; row < 4; row++) {
+			evaluate(and, row, true, false);
+		}
+
+		PropositionStatistics statistics = PropositionStatistics.getInstance();
+		PropositionStatistics.Entry entry = statistics.getEntry(id);
+		assertEquals(4, entry.getEvaluationCount());
+		assertEquals(1, entry.getTrueCount());
+		assertTrue(statistics.getStatistics(id).startsWith(id + ": evaluations=4, true=25%"));
+		assertNull(statistics.getStatistics(UUID.randomUUID().toString()));
+
+		// nothing is recorded unless the propositions may be reordered
+		evaluate(and, 0, false, false);
+		assertEquals(4, entry.getEvaluationCount());
+
+		statistics.setEnabled(false);
+		try {
+			evaluate(and, 0, true, false);
+			assertEquals(4, entry.getEvaluationCount());
+		} finally {
+			statistics.setEnabled(true);
+		}
+
+		statistics.reset();
+		assertNull(statistics.getStatistics(id));
+		evaluate(and, 0, true, false);
+		assertEquals(1, statistics.getEntry(id).getEvaluationCount());
+	}
+
+	@Test
+	public void testStatisticsCreatedOnFirstRecordedEvaluation() {
+		String id = UUID.randomUUID().toString();
+		RowProposition proposition = new RowProposition(new boolean[] {true}, 0);
+		Proposition and = new CompoundProposition(LogicalOperator.AND, Arrays.<Proposition>asList(proposition,
+				proposition), Arrays.asList(id, UUID.randomUUID().toString()));
+		PropositionStatistics statistics = PropositionStatistics.getInstance();
+		assertNull(statistics.getEntry(id));
+		evaluate(and, 0, false, false);
+		assertNull(statistics.getEntry(id));
+		evaluate(and, 0, true, false);
+		assertEquals(1, statistics.getEntry(id).getEvaluationCount());
+	}
+
+	@Test
+	public void testMBeanRegistration() throws Exception {
+		ObjectName name = new ObjectName("org.kuali.rice.krms:type=PropositionStatistics");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertFalse(server.isRegistered(name));
+		PropositionStatistics statistics = PropositionStatistics.getInstance();
+		statistics.afterPropertiesSet();
+		try {
+			assertTrue(server.isRegistered(name));
+			assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+		} finally {
+			statistics.destroy();
+		}
+		assertFalse(server.isRegistered(name));
+	}
+
+	private static boolean evaluate(Proposition proposition, int row, boolean reorder, boolean log) {
+		ExecutionOptions executionOptions = new ExecutionOptions().setFlag(ExecutionFlag.REORDER_PROPOSITIONS, reorder)
+				.setFlag(ExecutionFlag.LOG_EXECUTION, log);
+		ExecutionEnvironment environment = new BasicExecutionEnvironment(SelectionCriteria.createCriteria(null,
+				Collections.<String, String>emptyMap(), Collections.<String, String>emptyMap()),
+				Collections.<Term, Object>singletonMap(RowProposition.ROW, row), executionOptions, null);
+		return proposition.evaluate(environment).getResult();
+	}
+
+	private static Proposition randomProposition(Random random, int depth) {
+		if (depth == 0 || random.nextInt(3) == 0) {
+			return new RowProposition(randomResults(random, random.nextDouble()), 0);
+		}
+		List<Proposition> children = new ArrayList<Proposition>();
+		for (int child = random.nextInt(4) + 1; child > 0; child--) {
+			children.add(randomProposition(random, depth - 1));
+		}
+		return compound(random.nextBoolean() ? LogicalOperator.AND : LogicalOperator.OR,
+				children.toArray(new Proposition[children.size()]));
+	}
+
+	private static Proposition compound(LogicalOperator logicalOperator, Proposition... propositions) {
+		List<String> ids = new ArrayList<String>();
+		for (int index = 0; index < propositions.length; index++) {
+			ids.add(UUID.randomUUID().toString());
+		}
+		return new CompoundProposition(logicalOperator, Arrays.asList(propositions), ids);
+	}
+
+	private static boolean[] randomResults(Random random, double trueRatio) {
+		boolean[] results = new boolean[ROWS];
+		for (int row = 0; row < ROWS; row++) {
+			results[row] = random.nextDouble() < trueRatio;
+		}
+		return results;
+	}
+
+	/**
+	 * A proposition whose result depends on the row fact, which takes the given time to evaluate.
+	 */
+	private static final class RowProposition implements Proposition {
+
+		private static final Term ROW = new Term("row");
+
+		private final boolean[] results;
+		private final long nanos;
+		private int evaluations;
+
+		RowProposition(boolean[] results, long nanos) {
+			this.results = results;
+			this.nanos = nanos;
+		}
+
+		@Override
+		public PropositionResult evaluate(ExecutionEnvironment environment) {
+			evaluations++;
+			long start = System.nanoTime();
+			while (System.nanoTime() - start < nanos) {
+				// simulates an expensive term resolution
+			}
+			Integer row = environment.resolveTerm(ROW, this);
+			return new PropositionResult(results[row]);
+		}
+
+		@Override
+		public List<Proposition> getChildren() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public boolean isCompound() {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,284 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.framework;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.krms.api.engine.Term;
+import org.kuali.rice.krms.api.engine.TermResolutionException;
+import org.kuali.rice.krms.api.engine.TermResolver;
+import org.kuali.rice.krms.api.engine.ThreadSafeTermResolver;
+import org.kuali.rice.krms.framework.engine.TermResolutionEngineImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the memoized resolution plans and the parallel resolution of prerequisites of the
+ * {@link TermResolutionEngineImpl}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class TermResolutionPlanTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        TermResolutionEngineImpl.clearResolutionPlans();
+        PlanCountingTermResolutionEngine.planCount.set(0);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPlansSharedBetweenEngines() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            PlanCountingTermResolutionEngine engine = new PlanCountingTermResolutionEngine();
+            engine.addTermValue(new Term("A"), "a");
+            engine.addTermResolver(new ConcatenatingTermResolver("B", "A"));
+            engine.addTermResolver(new ConcatenatingTermResolver("C", "B"));
+            assertEquals("a-B-C", engine.resolveTerm(new Term("C")));
+        }
+        assertEquals(1, PlanCountingTermResolutionEngine.planCount.get());
+
+        // different known terms call for a different plan
+        PlanCountingTermResolutionEngine engine = new PlanCountingTermResolutionEngine();
+        engine.addTermValue(new Term("A"), "a");
+        engine.addTermValue(new Term("B"), "b");
+        engine.addTermResolver(new ConcatenatingTermResolver("B", "A"));
+        engine.addTermResolver(new ConcatenatingTermResolver("C", "B"));
+        assertEquals("b-C", engine.resolveTerm(new Term("C")));
+        assertEquals(2, PlanCountingTermResolutionEngine.planCount.get());
+
+        // as do different resolvers, and known terms which can not be part of the plan do not matter
+        engine = new PlanCountingTermResolutionEngine();
+        engine.addTermValue(new Term("A"), "a");
+        engine.addTermValue(new Term("Z"), "z");
+        engine.addTermResolver(new ConcatenatingTermResolver("B", "A"));
+        engine.addTermResolver(new ConcatenatingTermResolver("C", "B"));
+        engine.addTermResolver(new ConcatenatingTermResolver("D", "C"));
+        assertEquals("a-B-C", engine.resolveTerm(new Term("C")));
+        assertEquals(3, PlanCountingTermResolutionEngine.planCount.get());
+        assertEquals("a-B-C-D", engine.resolveTerm(new Term("D")));
+        assertEquals(4, PlanCountingTermResolutionEngine.planCount.get());
+    }
+
+    @Test
+    public void testUnresolvableMemoized() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            PlanCountingTermResolutionEngine engine = new PlanCountingTermResolutionEngine();
+            engine.addTermResolver(new ConcatenatingTermResolver("B", "A"));
+            try {
+                engine.resolveTerm(new Term("B"));
+                fail("B can not be resolved without A");
+            } catch (TermResolutionException e) {
+                // expected
+            }
+        }
+        assertEquals(1, PlanCountingTermResolutionEngine.planCount.get());
+    }
+
+    @Test
+    public void testParallelPrerequisites() throws Exception {
+        // both prerequisites wait for each other, so they must be resolved at the same time
+        final CountDownLatch latch = new CountDownLatch(2);
+        TermResolutionEngineImpl engine = new TermResolutionEngineImpl(executor);
+        engine.addTermValue(new Term("A"), "a");
+        engine.addTermResolver(new WaitingTermResolver("B", latch, "A"));
+        engine.addTermResolver(new WaitingTermResolver("C", latch, "A"));
+        engine.addTermResolver(new ConcatenatingTermResolver("D", "B", "C"));
+        assertEquals("a-B-a-C-D", engine.resolveTerm(new Term("D")));
+    }
+
+    @Test
+    public void testParallelPrerequisiteFailure() throws Exception {
+        TermResolutionEngineImpl engine = new TermResolutionEngineImpl(executor);
+        engine.addTermValue(new Term("A"), "a");
+        engine.addTermResolver(new ThreadSafeConcatenatingTermResolver("B", "A"));
+        engine.addTermResolver(new ThreadSafeConcatenatingTermResolver("C", "A") {
+            @Override
+            public String resolve(Map<String, Object> resolvedPrereqs, Map<String, String> parameters)
+                    throws TermResolutionException {
+                throw new TermResolutionException("C failed", this, parameters);
+            }
+        });
+        engine.addTermResolver(new ConcatenatingTermResolver("D", "B", "C"));
+        try {
+            engine.resolveTerm(new Term("D"));
+            fail("C failed to resolve");
+        } catch (TermResolutionException e) {
+            assertTrue(e.getMessage().contains("C failed"));
+        }
+    }
+
+    /**
+     * Resolves an agenda's worth of 50 terms, each at the end of a 3 level prerequisite chain, in a number of
+     * executions, which must all reuse the plans built by the first one.
+     */
+    @Test
+    public void testPlansReusedAcrossExecutions() throws Exception {
+        List<TermResolver<?>> resolvers = new ArrayList<TermResolver<?>>();
+        for (int term = 0; term < 50; term++) {
+            resolvers.add(new ConcatenatingTermResolver("level1-" + term, "fact" + (term % 5)));
+            resolvers.add(new ConcatenatingTermResolver("level2-" + term, "level1-" + term, "fact" + (term % 7)));
+            resolvers.add(new ConcatenatingTermResolver("term" + term, "level2-" + term, "level1-" + ((term + 1) % 50)));
+        }
+
+        List<Object> firstPlans = resolveTerms(resolvers);
+        assertEquals(50, firstPlans.size());
+        int planCount = PlanCountingTermResolutionEngine.planCount.get();
+        assertTrue(planCount > 0);
+
+        for (int execution = 1; execution < 20; execution++) {
+            List<Object> plans = resolveTerms(resolvers);
+            for (int term = 0; term < 50; term++) {
+                assertSame("plan of term" + term + " was rebuilt", firstPlans.get(term), plans.get(term));
+            }
+        }
+        assertEquals("no plans were built after the first execution", planCount,
+                PlanCountingTermResolutionEngine.planCount.get());
+    }
+
+    private List<Object> resolveTerms(List<TermResolver<?>> resolvers) throws Exception {
+        PlanRecordingTermResolutionEngine engine = new PlanRecordingTermResolutionEngine();
+        for (int fact = 0; fact < 7; fact++) {
+            engine.addTermValue(new Term("fact" + fact), "f" + fact);
+        }
+        for (TermResolver<?> resolver : resolvers) {
+            engine.addTermResolver(resolver);
+        }
+        for (int term = 0; term < 50; term++) {
+            assertNotNull(engine.resolveTerm(new Term("term" + term)));
+        }
+        return engine.plans;
+    }
+
+    private static class PlanCountingTermResolutionEngine extends TermResolutionEngineImpl {
+
+        static final AtomicInteger planCount = new AtomicInteger();
+
+        @Override
+        protected List<TermResolverKey> buildTermResolutionPlan(String termName) {
+            planCount.incrementAndGet();
+            return super.buildTermResolutionPlan(termName);
+        }
+    }
+
+    private static class PlanRecordingTermResolutionEngine extends PlanCountingTermResolutionEngine {
+
+        final List<Object> plans = new ArrayList<Object>();
+
+        @Override
+        protected TermResolutionPlan getTermResolutionPlan(String termName) {
+            TermResolutionPlan plan = super.getTermResolutionPlan(termName);
+            plans.add(plan);
+            return plan;
+        }
+    }
+
+    /**
+     * Resolves its term by appending its name to its prerequisites, in order.
+     */
+    private static class ConcatenatingTermResolver implements TermResolver<String> {
+
+        private final String output;
+        private final List<String> prerequisites;
+
+        ConcatenatingTermResolver(String output, String... prerequisites) {
+            this.output = output;
+            this.prerequisites = Arrays.asList(prerequisites);
+        }
+
+        @Override
+        public Set<String> getPrerequisites() {
+            return new HashSet<String>(prerequisites);
+        }
+
+        @Override
+        public String getOutput() {
+            return output;
+        }
+
+        @Override
+        public Set<String> getParameterNames() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public int getCost() {
+            return 1;
+        }
+
+        @Override
+        public String resolve(Map<String, Object> resolvedPrereqs, Map<String, String> parameters)
+                throws TermResolutionException {
+            StringBuilder result = new StringBuilder();
+            for (String prerequisite : prerequisites) {
+                result.append(resolvedPrereqs.get(prerequisite)).append('-');
+            }
+            return result.append(output).toString();
+        }
+    }
+
+    private static class ThreadSafeConcatenatingTermResolver extends ConcatenatingTermResolver
+            implements ThreadSafeTermResolver<String> {
+
+        ThreadSafeConcatenatingTermResolver(String output, String... prerequisites) {
+            super(output, prerequisites);
+        }
+    }
+
+    private static class WaitingTermResolver extends ThreadSafeConcatenatingTermResolver {
+
+        private final CountDownLatch latch;
+
+        WaitingTermResolver(String output, CountDownLatch latch, String... prerequisites) {
+            super(output, prerequisites);
+            this.latch = latch;
+        }
+
+        @Override
+        public String resolve(Map<String, Object> resolvedPrereqs, Map<String, String> parameters)
+                throws TermResolutionException {
+            latch.countDown();
+            try {
+                assertTrue("prerequisites were not resolved in parallel", latch.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new TermResolutionException("interrupted", this, parameters, e);
+            }
+            return super.resolve(resolvedPrereqs, parameters);
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.framework.engine.expression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.kuali.rice.krms.api.engine.IncompatibleTypeException;
+import org.kuali.rice.krms.api.engine.expression.ComparisonOperatorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link ConstantComparison}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class ConstantComparisonTest {
+
+    private static final List<Object> VALUES = Arrays.<Object>asList(null, "122", "123", "StringOne", 122, 123, 124L,
+            122.5, 123.0f, new BigDecimal("123.5"), BigInteger.valueOf(123), Boolean.TRUE);
+
+    @Test
+    public void testSameAsComparisonOperator() {
+        ComparisonOperatorService service = ComparisonOperatorServiceImpl.getInstance();
+        for (ComparisonOperator operator : ComparisonOperator.values()) {
+            operator.setComparisonOperatorService(service);
+            for (Object rhs : VALUES) {
+                ConstantComparison comparison = operator.bind(rhs);
+                // compare each value twice to go through the coerced right hand side
+                for (Object lhs : VALUES) {
+                    for (int i = 0; i < 2; i++) {
+                        assertSameResult(operator, comparison, lhs, rhs);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLhsType() {
+        ComparisonOperatorService service = ComparisonOperatorServiceImpl.getInstance();
+        ConstantComparison comparison = new ConstantComparison(ComparisonOperator.GREATER_THAN, "123", service,
+                Integer.class);
+        assertTrue(comparison.compare(124));
+        assertFalse(comparison.compare(123));
+        // not the expected type
+        assertTrue(comparison.compare(123.5));
+        assertTrue(comparison.compare(BigInteger.valueOf(124)));
+
+        // the constant cannot be coerced to the type, which is only a problem if a value of that type is compared
+        comparison = new ConstantComparison(ComparisonOperator.EQUALS, "elf", service, Integer.class);
+        assertTrue(comparison.compare("elf"));
+        try {
+            comparison.compare(11);
+            throw new AssertionError("Expected IncompatibleTypeException");
+        } catch (IncompatibleTypeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testComparatorExtension() {
+        ComparisonOperatorService service = ComparisonOperatorServiceImpl.getInstance();
+        service.setOperators(Collections.<EngineComparatorExtension>singletonList(new ReverseStringComparator()));
+
+        ConstantComparison comparison = new ConstantComparison(ComparisonOperator.EQUALS, "abc", service, String.class);
+        assertTrue(comparison.compare("cba"));
+        assertFalse(comparison.compare("abc"));
+        // the extension does not compare numbers
+        comparison = new ConstantComparison(ComparisonOperator.LESS_THAN, "123", service, Integer.class);
+        assertTrue(comparison.compare(122));
+    }
+
+    @Test
+    public void testBinaryOperatorExpression() {
+        ComparisonOperator.LESS_THAN_EQUAL.setComparisonOperatorService(ComparisonOperatorServiceImpl.getInstance());
+        BinaryOperatorExpression expression = new BinaryOperatorExpression(ComparisonOperator.LESS_THAN_EQUAL,
+                new ConstantExpression<Object>(new BigDecimal("10.5")), new ConstantExpression<String>("10.5"));
+        assertTrue(expression.invoke(null));
+        assertTrue(expression.invoke(null));
+
+        expression = new BinaryOperatorExpression(new ConstantExpression<Object>(11L), new ConstantComparison(
+                ComparisonOperator.LESS_THAN_EQUAL, "10", null, Long.class));
+        assertFalse(expression.invoke(null));
+    }
+
+    private static void assertSameResult(ComparisonOperator operator, ConstantComparison comparison, Object lhs,
+            Object rhs) {
+        String message = lhs + " " + operator + " " + rhs;
+        boolean expected;
+        try {
+            expected = operator.compare(lhs, rhs);
+        } catch (RuntimeException e) {
+            try {
+                comparison.compare(lhs);
+                throw new AssertionError(message + " should have thrown " + e);
+            } catch (RuntimeException actual) {
+                assertEquals(message, e.getClass(), actual.getClass());
+                return;
+            }
+        }
+        assertEquals(message, expected, comparison.compare(lhs));
+    }
+
+    /**
+     * Considers Strings equal to their reverse.
+     */
+    private static class ReverseStringComparator implements EngineComparatorExtension {
+
+        @Override
+        public int compare(Object lhs, Object rhs) {
+            return new StringBuilder((String) lhs).reverse().toString().compareTo((String) rhs);
+        }
+
+        @Override
+        public boolean canCompare(Object lhs, Object rhs) {
+            return lhs instanceof String && rhs instanceof String;
+        }
+    }
+
+}
@@ -29,7 +29,8 @@ import org.kuali.rice.krms.framework.type.PropositionTypeService;
  * An implementation of {@link PropositionTypeService} which loads a {@link CompoundProposition}
  * from the given {@link PropositionDefinition}.  A compound proposition contains one
  * or more propositions which are evaluated in conjunction with a logical operator
- * such as "AND" or "OR".
+ * such as "AND" or "OR".  The ids of the propositions are passed on so that statistics
+ * of their evaluations are kept, see {@link org.kuali.rice.krms.framework.engine.PropositionStatistics}.
  * 
  * <p>The proposition given to the {@link #loadProposition(PropositionDefinition)}
  * method must be of type {@link PropositionType#COMPOUND}.
@@ -63,11 +64,13 @@ public class CompoundPropositionTypeService implements PropositionTypeService {
 			throw new IllegalArgumentException("Given proposition definition was not compound, type code was: " + propositionDefinition.getPropositionTypeCode());
 		}
 		List<Proposition> propositions = new ArrayList<Proposition>();
+		List<String> propositionIds = new ArrayList<String>();
 		for (PropositionDefinition subProp : propositionDefinition.getCompoundComponents()) {
 			propositions.add(translator.translatePropositionDefinition(subProp));
+			propositionIds.add(subProp.getId());
 		}
 		LogicalOperator operator = LogicalOperator.fromCode(propositionDefinition.getCompoundOpCode());
-		return new CompoundProposition(operator, propositions);
+		return new CompoundProposition(operator, propositions, propositionIds);
 	}
 	
 	/**
@@ -31,7 +31,8 @@ public final class LazyAgendaTree implements AgendaTree {
 	private final AgendaDefinition agendaDefinition;
 	private final RepositoryToEngineTranslator translator;
 	
-	private AgendaTree agendaTree;
+	// volatile for double-checked locking idiom
+	private volatile AgendaTree agendaTree;
 	
 	public LazyAgendaTree(AgendaDefinition agendaDefinition, RepositoryToEngineTranslator translator) {
 		this.agendaDefinition = agendaDefinition;
@@ -39,17 +40,28 @@ public final class LazyAgendaTree implements AgendaTree {
 	}
 
 	public void execute(ExecutionEnvironment environment) {
-		initialize();
-		agendaTree.execute(environment);
+		getAgendaTree().execute(environment);
 	}
 	
 	public void initialize() {
-		// could use double-checked locking here for max efficiency
-		synchronized (mutex) {
-			if (agendaTree == null) {
-				agendaTree = translator.translateAgendaDefinitionToAgendaTree(agendaDefinition);
+		getAgendaTree();
+	}
+
+	/**
+	 * Gets the agenda tree using a lazy double-checked locking mechanism as documented in Effective Java Item 71, so
+	 * that executions sharing a cached context do not contend for the mutex once it is translated.
+	 */
+	private AgendaTree getAgendaTree() {
+		AgendaTree localAgendaTree = agendaTree;
+		if (localAgendaTree == null) {
+			synchronized (mutex) {
+				localAgendaTree = agendaTree;
+				if (localAgendaTree == null) {
+					agendaTree = localAgendaTree = translator.translateAgendaDefinitionToAgendaTree(agendaDefinition);
+				}
 			}
 		}
+		return localAgendaTree;
 	}
 
 }
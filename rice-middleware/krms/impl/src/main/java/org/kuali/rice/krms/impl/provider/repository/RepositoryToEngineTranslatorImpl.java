@@ -48,6 +48,7 @@ import org.kuali.rice.krms.impl.type.KrmsTypeResolver;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -87,7 +88,8 @@ public class RepositoryToEngineTranslatorImpl implements RepositoryToEngineTrans
 			}
 		}
 		
-		return new BasicContext(agendas, termResolvers); 
+		// contexts may be cached and shared between executions, so they are not to be modified once translated
+		return new BasicContext(Collections.unmodifiableList(agendas), Collections.unmodifiableList(termResolvers)); 
 	}
 
 	/**
@@ -17,7 +17,9 @@ package org.kuali.rice.krms.impl.provider.repository;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
+import org.kuali.rice.krms.api.KrmsConstants;
 import org.kuali.rice.krms.api.engine.ExecutionOptions;
 import org.kuali.rice.krms.api.engine.SelectionCriteria;
 import org.kuali.rice.krms.api.engine.Term;
@@ -26,25 +28,75 @@ import org.kuali.rice.krms.api.repository.context.ContextDefinition;
 import org.kuali.rice.krms.api.repository.context.ContextSelectionCriteria;
 import org.kuali.rice.krms.framework.engine.Context;
 import org.kuali.rice.krms.framework.engine.ContextProvider;
+import org.kuali.rice.krms.framework.engine.PropositionStatistics;
+import org.springframework.cache.CacheManager;
 
+/**
+ * A {@link ContextProvider} which selects contexts from the {@link RuleRepositoryService} and translates them into
+ * executable contexts.
+ *
+ * <p>If a {@link CacheManager} is set, translated contexts are kept in the {@link Cache#NAME} cache, both by the
+ * selection criteria used to select them and by the id and version of their definition, so that repeated executions
+ * against the same context neither select nor translate it again.  The translated contexts are immutable and safe to
+ * share between threads.  The cache is flushed whenever contexts, agendas, rules, propositions or actions are changed
+ * in the repository, which also resets the {@link PropositionStatistics} as the propositions they were collected for
+ * may have changed or be gone.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
 public class RuleRepositoryContextProvider implements ContextProvider {
 
 	// may want to move these out to a constants file somewhere so they are accessible to engine clients?
 	private static final String NAME_CONTEXT_QUALIFIER = "name";
 	private static final String NAMESPACE_CODE_CONTEXT_QUALIFIER = "namespaceCode";
+
+	/**
+	 * The key of the entry whose absence from the cache shows that it was flushed
+	 */
+	private static final String FLUSH_MARKER_KEY = "{flushMarker}";
 	
 	private RuleRepositoryService ruleRepositoryService;
 	private RepositoryToEngineTranslator repositoryToEngineTranslator;
+	private CacheManager cacheManager;
 	
 	@Override
 	public Context loadContext(SelectionCriteria selectionCriteria, Map<Term, Object> facts, ExecutionOptions executionOptions) {
 		ContextSelectionCriteria contextSelectionCriteria = constructContextSelectionCriteria(selectionCriteria);
+		org.springframework.cache.Cache cache = getCompiledContextCache();
+		String selectionKey = null;
+		if (cache != null) {
+			selectionKey = getSelectionKey(contextSelectionCriteria);
+			Context context = cache.get(selectionKey, Context.class);
+			if (context != null) {
+				return context;
+			}
+		}
+
+		if (cache != null) {
+			resetStatisticsIfFlushed(cache);
+		}
 		ContextDefinition contextDefinition = ruleRepositoryService.selectContext(contextSelectionCriteria);
 		
 		// TODO should have an execution option that throws an error here if a context does not exist?
 		
 		if (contextDefinition != null) {
-			return loadContextFromDefinition(contextDefinition);
+			if (cache == null) {
+				return loadContextFromDefinition(contextDefinition);
+			}
+
+			// other selection criteria may already have selected the same version of the context
+			String versionKey = getVersionKey(contextDefinition);
+			Context context = cache.get(versionKey, Context.class);
+			if (context == null) {
+				context = loadContextFromDefinition(contextDefinition);
+				if (context != null) {
+					cache.put(versionKey, context);
+				}
+			}
+			if (context != null) {
+				cache.put(selectionKey, context);
+			}
+			return context;
 		}
 		return null;
 	}
@@ -52,6 +104,49 @@ public class RuleRepositoryContextProvider implements ContextProvider {
 	protected Context loadContextFromDefinition(ContextDefinition contextDefinition) {
 		return repositoryToEngineTranslator.translateContextDefinition(contextDefinition);
 	}
+
+	/**
+	 * Resets the proposition statistics if the given cache was flushed since they were last reset.  Only checked when
+	 * a context is missing from the cache, as it always is after a flush.
+	 */
+	protected void resetStatisticsIfFlushed(org.springframework.cache.Cache cache) {
+		if (cache.get(FLUSH_MARKER_KEY) == null) {
+			PropositionStatistics.getInstance().reset();
+			cache.put(FLUSH_MARKER_KEY, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Returns the cache of translated contexts, or null if translated contexts are not cached.
+	 */
+	protected org.springframework.cache.Cache getCompiledContextCache() {
+		if (cacheManager == null) {
+			return null;
+		}
+		return cacheManager.getCache(Cache.NAME);
+	}
+
+	/**
+	 * Builds the cache key of the context selected by the given criteria, independent of the order of its qualifiers.
+	 */
+	protected String getSelectionKey(ContextSelectionCriteria contextSelectionCriteria) {
+		StringBuilder key = new StringBuilder("{selection}namespaceCode=").append(contextSelectionCriteria.getNamespaceCode())
+				.append("|name=").append(contextSelectionCriteria.getName());
+		if (contextSelectionCriteria.getContextQualifiers() != null) {
+			Map<String, String> contextQualifiers = new TreeMap<String, String>(contextSelectionCriteria.getContextQualifiers());
+			for (Map.Entry<String, String> contextQualifier : contextQualifiers.entrySet()) {
+				key.append('|').append(contextQualifier.getKey()).append('=').append(contextQualifier.getValue());
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Builds the cache key of the given version of a context definition.
+	 */
+	protected String getVersionKey(ContextDefinition contextDefinition) {
+		return "{version}contextId=" + contextDefinition.getId() + "|versionNumber=" + contextDefinition.getVersionNumber();
+	}
 	
 	public void setRuleRepositoryService(RuleRepositoryService ruleRepositoryService) {
 		this.ruleRepositoryService = ruleRepositoryService;
@@ -60,6 +155,14 @@ public class RuleRepositoryContextProvider implements ContextProvider {
 	public void setRepositoryToEngineTranslator(RepositoryToEngineTranslator repositoryToEngineTranslator) {
 		this.repositoryToEngineTranslator = repositoryToEngineTranslator;
 	}
+
+	/**
+	 * Sets the cache manager holding the {@link Cache#NAME} cache of translated contexts.  If not set, contexts are
+	 * selected and translated on every execution.
+	 */
+	public void setCacheManager(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
 	
 	protected ContextSelectionCriteria constructContextSelectionCriteria(SelectionCriteria selectionCriteria) {
 		Map<String, String> givenContextQualifiers = selectionCriteria.getContextQualifiers();
@@ -87,4 +190,11 @@ public class RuleRepositoryContextProvider implements ContextProvider {
 		
 	}
 
+	/**
+	 * Defines the cache of translated contexts.
+	 */
+	public static class Cache {
+		public static final String NAME = KrmsConstants.Namespaces.KRMS_NAMESPACE_2_0 + "/CompiledContext";
+	}
+
 }
@@ -17,6 +17,7 @@ package org.kuali.rice.krms.impl.provider.repository;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
+import org.kuali.rice.core.api.util.ClassLoaderUtils;
 import org.kuali.rice.krms.api.engine.Term;
 import org.kuali.rice.krms.api.engine.expression.ComparisonOperatorService;
 import org.kuali.rice.krms.api.repository.RepositoryDataException;
@@ -35,6 +36,7 @@ import org.kuali.rice.krms.framework.engine.Proposition;
 import org.kuali.rice.krms.framework.engine.expression.BinaryOperatorExpression;
 import org.kuali.rice.krms.framework.engine.expression.BooleanValidatingExpression;
 import org.kuali.rice.krms.framework.engine.expression.ComparisonOperator;
+import org.kuali.rice.krms.framework.engine.expression.ConstantComparison;
 import org.kuali.rice.krms.framework.engine.expression.ConstantExpression;
 import org.kuali.rice.krms.framework.engine.expression.Expression;
 import org.kuali.rice.krms.framework.engine.expression.ExpressionBasedProposition;
@@ -45,6 +47,7 @@ import org.kuali.rice.krms.framework.type.PropositionTypeService;
 import org.kuali.rice.krms.impl.type.KrmsTypeResolver;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -74,7 +77,8 @@ public class SimplePropositionTypeService implements PropositionTypeService {
 	/**
 	 * Translates the parameters on the given proposition definition to create an expression for evaluation.
 	 * The proposition parameters are defined in a reverse-polish notation so a stack is used for
-	 * evaluation purposes.
+	 * evaluation purposes.  Comparisons with a constant are bound to the comparator and the constant is coerced
+	 * to the type of the term it is compared with, if any, so that this is not done on every evaluation.
 	 * 
 	 * @param propositionDefinition the proposition definition to translate
 	 * 
@@ -83,11 +87,15 @@ public class SimplePropositionTypeService implements PropositionTypeService {
 	 */
 	protected Expression<Boolean> translateToExpression(PropositionDefinition propositionDefinition) {
 		LinkedList<Expression<? extends Object>> stack = new LinkedList<Expression<? extends Object>>();
+		Map<Expression<? extends Object>, String> constants = new IdentityHashMap<Expression<? extends Object>, String>();
+		Map<Expression<? extends Object>, Class<?>> termTypes = new IdentityHashMap<Expression<? extends Object>, Class<?>>();
 		for (PropositionParameter parameter : propositionDefinition.getParameters()) {
 			PropositionParameterType parameterType = PropositionParameterType.fromCode(parameter.getParameterType());
 			if (parameterType == PropositionParameterType.CONSTANT) {
 				// TODO - need some way to define data type on the prop parameter as well?  Not all constants will actually be String values!!!
-				stack.addFirst(new ConstantExpression<String>(parameter.getValue()));
+				ConstantExpression<String> constant = new ConstantExpression<String>(parameter.getValue());
+				constants.put(constant, parameter.getValue());
+				stack.addFirst(constant);
 			} else if (parameterType == PropositionParameterType.FUNCTION) {
 				String functionId = parameter.getValue();
 				FunctionDefinition functionDefinition = functionRepositoryService.getFunction(functionId);
@@ -124,7 +132,12 @@ public class SimplePropositionTypeService implements PropositionTypeService {
 				}
 				Expression<? extends Object> rhs = stack.removeFirst();
 				Expression<? extends Object> lhs = stack.removeFirst();
-				stack.addFirst(new BinaryOperatorExpression(operator, lhs, rhs));
+				if (constants.containsKey(rhs) && getComparisonOperatorService() != null) {
+					stack.addFirst(new BinaryOperatorExpression(lhs, new ConstantComparison(operator, constants.get(rhs),
+							getComparisonOperatorService(), termTypes.get(lhs))));
+				} else {
+					stack.addFirst(new BinaryOperatorExpression(operator, lhs, rhs));
+				}
 			} else if (parameterType == PropositionParameterType.TERM) {
 				String termId = parameter.getValue();
 
@@ -132,7 +145,12 @@ public class SimplePropositionTypeService implements PropositionTypeService {
 				if (termDefinition == null) { throw new RepositoryDataException("unable to load term with id " + termId);}
 				Term term = translateTermDefinition(termDefinition);
 				
-				stack.addFirst(new TermExpression(term));
+				TermExpression termExpression = new TermExpression(term);
+				Class<?> termType = getTermType(termDefinition.getSpecification());
+				if (termType != null) {
+					termTypes.put(termExpression, termType);
+				}
+				stack.addFirst(termExpression);
 			}
 		}
 		if (stack.size() != 1) {
@@ -141,6 +159,20 @@ public class SimplePropositionTypeService implements PropositionTypeService {
 		return new BooleanValidatingExpression(stack.removeFirst());
 	}
 
+    /**
+     * Returns the type of the values of terms of the given specification, or null if it is not a loadable class.
+     */
+    private Class<?> getTermType(TermSpecificationDefinition termSpecificationDefinition) {
+        if (termSpecificationDefinition == null || StringUtils.isBlank(termSpecificationDefinition.getType())) {
+            return null;
+        }
+        try {
+            return ClassLoaderUtils.getClass(termSpecificationDefinition.getType(), Object.class);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
     private String[] getFunctionParameterTypes(FunctionDefinition functionDefinition) {
         String [] argumentTypes = null;
         List<FunctionParameterDefinition> functionParameters = functionDefinition.getParameters();
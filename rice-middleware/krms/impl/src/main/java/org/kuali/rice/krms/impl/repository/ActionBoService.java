@@ -20,6 +20,7 @@ import java.util.List;
 import org.kuali.rice.krms.api.repository.action.ActionDefinition;
 import org.kuali.rice.krms.api.repository.agenda.AgendaDefinition;
 import org.kuali.rice.krms.api.repository.rule.RuleDefinition;
+import org.kuali.rice.krms.impl.provider.repository.RuleRepositoryContextProvider;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 
@@ -39,7 +40,7 @@ public interface ActionBoService {
      * @throws IllegalArgumentException if the action is null
      * @throws IllegalStateException if the action already exists in the system
      */
-    @CacheEvict(value={ActionDefinition.Cache.NAME, RuleDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={ActionDefinition.Cache.NAME, RuleDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public ActionDefinition createAction(ActionDefinition action);
 	
     /**
@@ -49,7 +50,7 @@ public interface ActionBoService {
      * @throws IllegalArgumentException if the Action is null
      * @throws IllegalStateException if the Action does not exists in the system
      */
-    @CacheEvict(value={ActionDefinition.Cache.NAME, RuleDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={ActionDefinition.Cache.NAME, RuleDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public ActionDefinition updateAction(ActionDefinition action);
 	
     /**
@@ -23,6 +23,7 @@ import org.kuali.rice.krms.api.repository.agenda.AgendaDefinition;
 import org.kuali.rice.krms.api.repository.agenda.AgendaItemDefinition;
 import org.kuali.rice.krms.api.repository.agenda.AgendaTreeDefinition;
 import org.kuali.rice.krms.api.repository.context.ContextDefinition;
+import org.kuali.rice.krms.impl.provider.repository.RuleRepositoryContextProvider;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 
@@ -42,7 +43,7 @@ public interface AgendaBoService {
      * @throws IllegalArgumentException if the Agenda is null
      * @throws IllegalStateException if the Agenda already exists in the system
      */
-    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public AgendaDefinition createAgenda(AgendaDefinition agenda);
 	
     /**
@@ -52,7 +53,7 @@ public interface AgendaBoService {
      * @throws IllegalArgumentException if the Agenda is null
      * @throws IllegalStateException if the Agenda does not exists in the system
      */
-    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public AgendaDefinition updateAgenda(AgendaDefinition agenda);
 
     /**
@@ -63,7 +64,7 @@ public interface AgendaBoService {
      * @throws IllegalStateException if the Agenda does not exists in the system
      *
      */
-    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
     public void deleteAgenda(String agendaId);
 
     /**
@@ -107,7 +108,7 @@ public interface AgendaBoService {
      * @throws IllegalArgumentException if the AgendaItemDefinition is null
      * @throws IllegalStateException if the AgendaItemDefinition already exists in the system
      */
-    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public AgendaItemDefinition createAgendaItem(AgendaItemDefinition agendaItem);
 	
     /**
@@ -117,7 +118,7 @@ public interface AgendaBoService {
      * @throws IllegalArgumentException if the AgendaItemDefinition is null
      * @throws IllegalStateException if the AgendaItemDefinition does not exists in the system
      */
-    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public AgendaItemDefinition updateAgendaItem(AgendaItemDefinition agendaItem);
 	
     /**
@@ -141,7 +142,7 @@ public interface AgendaBoService {
      * @throws IllegalArgumentException if the AgendaItemDefinition is null
      * @throws IllegalStateException if the parent AgendaItemDefinition does not already exists in the system
      */
-    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public void addAgendaItem(AgendaItemDefinition agendaItem, String parentId, Boolean position);
 	
     /**
@@ -174,7 +175,7 @@ public interface AgendaBoService {
     public List<AgendaItemDefinition> getAgendaItemsByTypeAndContext(String typeId, String contextId)
             throws RiceIllegalArgumentException;
 
-    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={AgendaTreeDefinition.Cache.NAME, AgendaDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
     public void deleteAgendaItem(String id) throws RiceIllegalArgumentException;
 
 	/**
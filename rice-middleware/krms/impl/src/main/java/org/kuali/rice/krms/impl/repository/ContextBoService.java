@@ -17,6 +17,7 @@ package org.kuali.rice.krms.impl.repository;
 
 
 import org.kuali.rice.krms.api.repository.context.ContextDefinition;
+import org.kuali.rice.krms.impl.provider.repository.RuleRepositoryContextProvider;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 
@@ -35,7 +36,7 @@ public interface ContextBoService {
      * @throws IllegalArgumentException if the context is null
      * @throws IllegalStateException if the context already exists in the system
      */
-    @CacheEvict(value={ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public ContextDefinition createContext(ContextDefinition context);
 
     /**
@@ -45,7 +46,7 @@ public interface ContextBoService {
      * @throws IllegalArgumentException if the Context is null
      * @throws IllegalStateException if the Context does not exists in the system
      */
-    @CacheEvict(value={ContextDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={ContextDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
 	public ContextDefinition updateContext(ContextDefinition context);
 	
 //	public void createContextAttribute(ContextAttribute contextAttribute);
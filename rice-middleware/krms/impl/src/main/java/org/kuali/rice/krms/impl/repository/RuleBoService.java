@@ -19,6 +19,7 @@ import org.kuali.rice.krms.api.repository.action.ActionDefinition;
 import org.kuali.rice.krms.api.repository.agenda.AgendaItemDefinition;
 import org.kuali.rice.krms.api.repository.proposition.PropositionDefinition;
 import org.kuali.rice.krms.api.repository.rule.RuleDefinition;
+import org.kuali.rice.krms.impl.provider.repository.RuleRepositoryContextProvider;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 
@@ -36,7 +37,7 @@ public interface RuleBoService {
      * @throws IllegalArgumentException if the rule is null
      * @throws IllegalStateException if the rule already exists in the system
      */
-    @CacheEvict(value={RuleDefinition.Cache.NAME, PropositionDefinition.Cache.NAME, ActionDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={RuleDefinition.Cache.NAME, PropositionDefinition.Cache.NAME, ActionDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
     public RuleDefinition createRule(RuleDefinition rule);
 
     /**
@@ -46,7 +47,7 @@ public interface RuleBoService {
      * @throws IllegalArgumentException if the Rule is null
      * @throws IllegalStateException if the Rule does not exists in the system
      */
-    @CacheEvict(value={RuleDefinition.Cache.NAME, PropositionDefinition.Cache.NAME, ActionDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME}, allEntries = true)
+    @CacheEvict(value={RuleDefinition.Cache.NAME, PropositionDefinition.Cache.NAME, ActionDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
     public RuleDefinition updateRule(RuleDefinition rule);
 
     /**
@@ -57,6 +58,7 @@ public interface RuleBoService {
      * @throws IllegalStateException if the Rule does not exists in the system
      *
      */
+    @CacheEvict(value={RuleDefinition.Cache.NAME, PropositionDefinition.Cache.NAME, ActionDefinition.Cache.NAME, AgendaItemDefinition.Cache.NAME, RuleRepositoryContextProvider.Cache.NAME}, allEntries = true)
     public void deleteRule(String ruleId);
 
     /**
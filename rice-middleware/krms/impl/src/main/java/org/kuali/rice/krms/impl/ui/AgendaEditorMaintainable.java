@@ -51,6 +51,7 @@ import org.kuali.rice.krms.api.repository.term.TermResolverDefinition;
 import org.kuali.rice.krms.api.repository.term.TermSpecificationDefinition;
 import org.kuali.rice.krms.api.repository.type.KrmsAttributeDefinition;
 import org.kuali.rice.krms.api.repository.type.KrmsTypeDefinition;
+import org.kuali.rice.krms.impl.provider.repository.RuleRepositoryContextProvider;
 import org.kuali.rice.krms.impl.repository.ActionAttributeBo;
 import org.kuali.rice.krms.impl.repository.ActionBo;
 import org.kuali.rice.krms.impl.repository.AgendaBo;
@@ -455,6 +456,7 @@ public class AgendaEditorMaintainable extends MaintainableImpl {
         distributedCacheManagerDecorator.getCache(TermDefinition.Cache.NAME).clear();
         distributedCacheManagerDecorator.getCache(TermResolverDefinition.Cache.NAME).clear();
         distributedCacheManagerDecorator.getCache(TermSpecificationDefinition.Cache.NAME).clear();
+        distributedCacheManagerDecorator.getCache(RuleRepositoryContextProvider.Cache.NAME).clear();
     }
 
     /**
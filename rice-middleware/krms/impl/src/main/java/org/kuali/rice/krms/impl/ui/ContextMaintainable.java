@@ -22,6 +22,7 @@ import org.kuali.rice.krad.maintenance.MaintenanceDocument;
 import org.kuali.rice.krad.util.KRADConstants;
 import org.kuali.rice.krms.api.KrmsConstants;
 import org.kuali.rice.krms.api.repository.context.ContextDefinition;
+import org.kuali.rice.krms.impl.provider.repository.RuleRepositoryContextProvider;
 import org.kuali.rice.krms.impl.repository.ContextAttributeBo;
 import org.kuali.rice.krms.impl.repository.ContextBo;
 import org.kuali.rice.krms.impl.repository.RepositoryBoIncrementer;
@@ -76,6 +77,7 @@ public class ContextMaintainable extends MaintainableImpl {
         DistributedCacheManagerDecorator distributedCacheManagerDecorator =
                 GlobalResourceLoader.getService(KrmsConstants.KRMS_DISTRIBUTED_CACHE);
         distributedCacheManagerDecorator.getCache(ContextDefinition.Cache.NAME).clear();
+        distributedCacheManagerDecorator.getCache(RuleRepositoryContextProvider.Cache.NAME).clear();
     }
 
     @Override
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.krms.impl.provider.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.krms.api.engine.SelectionCriteria;
+import org.kuali.rice.krms.api.repository.RuleRepositoryService;
+import org.kuali.rice.krms.api.repository.context.ContextDefinition;
+import org.kuali.rice.krms.api.repository.context.ContextSelectionCriteria;
+import org.kuali.rice.krms.framework.engine.Context;
+import org.kuali.rice.krms.framework.engine.PropositionStatistics;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the caching of translated contexts by the {@link RuleRepositoryContextProvider}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class RuleRepositoryContextProviderTest {
+
+    private RuleRepositoryService ruleRepositoryService;
+    private RepositoryToEngineTranslator repositoryToEngineTranslator;
+    private ConcurrentMapCacheManager cacheManager;
+    private RuleRepositoryContextProvider contextProvider;
+
+    private ContextDefinition contextDefinition;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        ruleRepositoryService = mock(RuleRepositoryService.class);
+        repositoryToEngineTranslator = mock(RepositoryToEngineTranslator.class);
+        cacheManager = new ConcurrentMapCacheManager(RuleRepositoryContextProvider.Cache.NAME);
+
+        contextProvider = new RuleRepositoryContextProvider();
+        contextProvider.setRuleRepositoryService(ruleRepositoryService);
+        contextProvider.setRepositoryToEngineTranslator(repositoryToEngineTranslator);
+        contextProvider.setCacheManager(cacheManager);
+
+        contextDefinition = contextDefinition(1L);
+        context = mock(Context.class);
+        when(ruleRepositoryService.selectContext(any(ContextSelectionCriteria.class))).thenReturn(contextDefinition);
+        when(repositoryToEngineTranslator.translateContextDefinition(contextDefinition)).thenReturn(context);
+    }
+
+    @Test
+    public void testCached() {
+        assertSame(context, contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null, null));
+
+        // the order of the qualifiers does not matter
+        Map<String, String> contextQualifiers = new LinkedHashMap<String, String>();
+        contextQualifiers.put("campus", "BL");
+        contextQualifiers.put("name", "Proposal");
+        contextQualifiers.put("namespaceCode", "KR-RULE");
+        assertSame(context, contextProvider.loadContext(SelectionCriteria.createCriteria(null, contextQualifiers,
+                null), null, null));
+
+        verify(ruleRepositoryService, times(1)).selectContext(any(ContextSelectionCriteria.class));
+        verify(repositoryToEngineTranslator, times(1)).translateContextDefinition(any(ContextDefinition.class));
+    }
+
+    @Test
+    public void testSameVersionSharedBetweenCriteria() {
+        assertSame(context, contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null, null));
+        assertSame(context, contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "IN"), null, null));
+        assertSame(context, contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "IN"), null, null));
+
+        verify(ruleRepositoryService, times(2)).selectContext(any(ContextSelectionCriteria.class));
+        verify(repositoryToEngineTranslator, times(1)).translateContextDefinition(any(ContextDefinition.class));
+    }
+
+    @Test
+    public void testFlushed() {
+        contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null, null);
+
+        // the context was updated in the repository, which flushes the cache
+        ContextDefinition updatedContextDefinition = contextDefinition(2L);
+        Context updatedContext = mock(Context.class);
+        when(ruleRepositoryService.selectContext(any(ContextSelectionCriteria.class))).thenReturn(
+                updatedContextDefinition);
+        when(repositoryToEngineTranslator.translateContextDefinition(updatedContextDefinition)).thenReturn(
+                updatedContext);
+        assertSame(context, contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null, null));
+        cacheManager.getCache(RuleRepositoryContextProvider.Cache.NAME).clear();
+
+        assertSame(updatedContext, contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null,
+                null));
+        verify(repositoryToEngineTranslator, times(2)).translateContextDefinition(any(ContextDefinition.class));
+    }
+
+    @Test
+    public void testFlushResetsPropositionStatistics() {
+        PropositionStatistics statistics = PropositionStatistics.getInstance();
+        contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null, null);
+        statistics.record("P1", true, 10L);
+        contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "IN"), null, null);
+        assertNotNull(statistics.getEntry("P1"));
+
+        cacheManager.getCache(RuleRepositoryContextProvider.Cache.NAME).clear();
+        contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null, null);
+        assertNull(statistics.getEntry("P1"));
+    }
+
+    @Test
+    public void testNotCached() {
+        when(ruleRepositoryService.selectContext(any(ContextSelectionCriteria.class))).thenReturn(null);
+        assertNull(contextProvider.loadContext(criteria("KR-RULE", "Missing", "campus", "BL"), null, null));
+        assertNull(contextProvider.loadContext(criteria("KR-RULE", "Missing", "campus", "BL"), null, null));
+        verify(ruleRepositoryService, times(2)).selectContext(any(ContextSelectionCriteria.class));
+
+        contextProvider.setCacheManager(null);
+        when(ruleRepositoryService.selectContext(any(ContextSelectionCriteria.class))).thenReturn(contextDefinition);
+        assertSame(context, contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null, null));
+        assertSame(context, contextProvider.loadContext(criteria("KR-RULE", "Proposal", "campus", "BL"), null, null));
+        verify(repositoryToEngineTranslator, times(2)).translateContextDefinition(any(ContextDefinition.class));
+    }
+
+    private static SelectionCriteria criteria(String namespaceCode, String name, String qualifierName,
+            String qualifierValue) {
+        Map<String, String> contextQualifiers = new LinkedHashMap<String, String>();
+        contextQualifiers.put("namespaceCode", namespaceCode);
+        contextQualifiers.put("name", name);
+        contextQualifiers.put(qualifierName, qualifierValue);
+        return SelectionCriteria.createCriteria(null, contextQualifiers, null);
+    }
+
+    private static ContextDefinition contextDefinition(Long versionNumber) {
+        ContextDefinition.Builder builder = ContextDefinition.Builder.create("KR-RULE", "Proposal");
+        builder.setId("CONTEXT1");
+        builder.setVersionNumber(versionNumber);
+        return builder.build();
+    }
+
+}
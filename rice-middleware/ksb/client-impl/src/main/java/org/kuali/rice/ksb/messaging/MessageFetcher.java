@@ -15,6 +15,7 @@
  */
 package org.kuali.rice.ksb.messaging;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.kuali.rice.core.api.config.property.ConfigContext;
 import org.kuali.rice.ksb.messaging.service.MessageQueueService;
@@ -23,8 +24,14 @@ import org.kuali.rice.ksb.util.KSBConstants;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
- * Fetches messages from the db. Marks as 'R'. Gives messages to ThreadPool for execution
+ * Fetches messages from the db. Marks as 'R'. Gives messages to ThreadPool for execution.  Messages are claimed in
+ * batches of {@link KSBConstants.Config#MESSAGE_FETCHER_BATCH_SIZE} so that draining a large queue doesn't cost a
+ * transaction per message.
  *
  * @author Kuali Rice Team (rice.collab@kuali.org)
  */
@@ -32,13 +39,41 @@ public class MessageFetcher implements Runnable {
 
     private static final Logger LOG = Logger.getLogger(MessageFetcher.class);
 
+    /**
+     * Number of messages claimed per transaction when {@link KSBConstants.Config#MESSAGE_FETCHER_BATCH_SIZE} is not
+     * set.  A value of zero or less for that parameter reverts to claiming one message per transaction.
+     */
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Upper bound on the batch size, which keeps the claim query's IN list within the limits of every supported
+     * database.
+     */
+    static final int MAX_BATCH_SIZE = 1000;
+
     private Integer maxMessages;
     private Long routeQueueId;
+    private boolean recoverRouting;
+    private int claimedCount;
+    private int requeuedCount;
 
     public MessageFetcher(Integer maxMessages) {
         this.maxMessages = maxMessages;
     }
 
+    /**
+     * Creates a fetcher which also claims the messages of this node which are still marked as 'R', as they are when
+     * the node went down while routing them.  Only to be used when no other fetcher of this node can be running, such
+     * as on startup.
+     *
+     * @param maxMessages the maximum number of messages to fetch, or null for all of them
+     * @param recoverRouting whether messages marked as 'R' are claimed as well
+     */
+    public MessageFetcher(Integer maxMessages, boolean recoverRouting) {
+        this.maxMessages = maxMessages;
+        this.recoverRouting = recoverRouting;
+    }
+
     public MessageFetcher(Long routeQueueId) {
         this.routeQueueId = routeQueueId;
     }
@@ -57,6 +92,11 @@ public class MessageFetcher implements Runnable {
 
     private void requeueMessages() {
         if (this.routeQueueId == null) {
+            int batchSize = getBatchSize();
+            if (batchSize > 0) {
+                requeueMessagesInBatches(batchSize);
+                return;
+            }
             try {
                 for (PersistedMessageBO message : getRouteQueueService().getNextDocuments(maxMessages)) {
                     message = markEnrouteAndSaveMessage(message);
@@ -68,6 +108,51 @@ public class MessageFetcher implements Runnable {
         }
     }
 
+    /**
+     * Claims the queued messages a batch at a time, marking each batch as 'R' with a single update, and hands every
+     * batch to the thread pool as soon as it has been claimed.
+     */
+    private void requeueMessagesInBatches(int batchSize) {
+        try {
+            List<Long> routeQueueIds = getRouteQueueService().getNextDocumentIds(maxMessages);
+            for (int from = 0; from < routeQueueIds.size(); from += batchSize) {
+                List<Long> batch = routeQueueIds.subList(from, Math.min(from + batchSize, routeQueueIds.size()));
+                for (PersistedMessageBO message : claimBatch(batch)) {
+                    executeMessage(message);
+                }
+            }
+        } catch (Throwable t) {
+            LOG.error("Failed to fetch or process some messages during requeueMessages", t);
+        }
+    }
+
+    private List<PersistedMessageBO> claimBatch(List<Long> routeQueueIds) {
+        try {
+            List<PersistedMessageBO> claimed = getRouteQueueService().claimDocuments(new ArrayList<Long>(routeQueueIds),
+                    recoverRouting);
+            claimedCount += claimed.size();
+            return claimed;
+        } catch (Throwable t) {
+            LOG.error("Caught error attempting to mark messages " + routeQueueIds + " as R", t);
+        }
+        return Collections.emptyList();
+    }
+
+    private int getBatchSize() {
+        String batchSize = ConfigContext.getCurrentContextConfig().getProperty(
+                KSBConstants.Config.MESSAGE_FETCHER_BATCH_SIZE);
+        if (StringUtils.isBlank(batchSize)) {
+            return DEFAULT_BATCH_SIZE;
+        }
+        try {
+            return Math.min(Integer.parseInt(batchSize.trim()), MAX_BATCH_SIZE);
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value '" + batchSize + "' for " + KSBConstants.Config.MESSAGE_FETCHER_BATCH_SIZE
+                    + ", using default of " + DEFAULT_BATCH_SIZE);
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
     private void requeueDocument() {
         try {
             if (this.routeQueueId != null) {
@@ -84,6 +169,7 @@ public class MessageFetcher implements Runnable {
     private void executeMessage(PersistedMessageBO message) {
         try {
             KSBServiceLocator.getThreadPool().execute(new MessageServiceInvoker(message));
+            requeuedCount++;
         } catch (Throwable t) {
             LOG.error("Failed to place message " + message + " in thread pool for execution", t);
         }
@@ -91,18 +177,35 @@ public class MessageFetcher implements Runnable {
 
     private PersistedMessageBO markEnrouteAndSaveMessage(final PersistedMessageBO message) {
         try {
-            return KSBServiceLocator.getTransactionTemplate().execute(new TransactionCallback<PersistedMessageBO>() {
+            PersistedMessageBO saved = KSBServiceLocator.getTransactionTemplate().execute(
+                    new TransactionCallback<PersistedMessageBO>() {
                 public PersistedMessageBO doInTransaction(TransactionStatus status) {
                     message.setQueueStatus(KSBConstants.ROUTE_QUEUE_ROUTING);
                     return getRouteQueueService().save(message);
                 }
             });
+            claimedCount++;
+            return saved;
         } catch (Throwable t) {
             LOG.error("Caught error attempting to mark message " + message + " as R", t);
         }
         return message;
     }
 
+    /**
+     * Returns the number of messages this fetcher marked as 'R', messages already claimed elsewhere are not counted.
+     */
+    public int getClaimedCount() {
+        return claimedCount;
+    }
+
+    /**
+     * Returns the number of messages this fetcher handed to the thread pool for execution.
+     */
+    public int getRequeuedCount() {
+        return requeuedCount;
+    }
+
     private MessageQueueService getRouteQueueService() {
         return KSBServiceLocator.getMessageQueueService();
     }
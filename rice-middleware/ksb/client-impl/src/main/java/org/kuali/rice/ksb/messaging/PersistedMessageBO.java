@@ -44,7 +44,10 @@ import java.sql.Timestamp;
 @NamedQueries({
   @NamedQuery(name="PersistedMessageBO.FindAll", query="select pm from PersistedMessageBO pm"),
   @NamedQuery(name="PersistedMessageBO.FindByServiceName", query="select pm from PersistedMessageBO pm where pm.serviceName = :serviceName and pm.methodName = :methodName"),
-  @NamedQuery(name="PersistedMessageBO.GetNextDocuments", query="select pm from PersistedMessageBO pm where pm.applicationId = :applicationId and pm.queueStatus <> :queueStatus and pm.ipNumber = :ipNumber order by pm.queuePriority asc, pm.routeQueueId asc, pm.queueDate asc")
+  @NamedQuery(name="PersistedMessageBO.GetNextDocuments", query="select pm from PersistedMessageBO pm where pm.applicationId = :applicationId and pm.queueStatus <> :queueStatus and pm.ipNumber = :ipNumber order by pm.queuePriority asc, pm.routeQueueId asc, pm.queueDate asc"),
+  @NamedQuery(name="PersistedMessageBO.GetNextDocumentIds", query="select pm.routeQueueId from PersistedMessageBO pm where pm.applicationId = :applicationId and pm.queueStatus <> :queueStatus and pm.ipNumber = :ipNumber order by pm.queuePriority asc, pm.routeQueueId asc, pm.queueDate asc"),
+  @NamedQuery(name="PersistedMessageBO.FindClaimable", query="select pm from PersistedMessageBO pm where pm.routeQueueId in :routeQueueIds and pm.queueStatus in :queueStatuses and pm.ipNumber = :ipNumber order by pm.queuePriority asc, pm.routeQueueId asc, pm.queueDate asc"),
+  @NamedQuery(name="PersistedMessageBO.MarkRouting", query="update PersistedMessageBO pm set pm.queueStatus = :routingStatus, pm.lockVerNbr = pm.lockVerNbr + 1 where pm.routeQueueId in :routeQueueIds")
 })
 public class PersistedMessageBO implements PersistedMessage {
 
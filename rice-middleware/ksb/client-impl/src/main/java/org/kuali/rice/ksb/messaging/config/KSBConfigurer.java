@@ -285,7 +285,7 @@ public class KSBConfigurer extends ModuleConfigurer implements SmartApplicationL
         }
 
         //automatically requeue documents sitting with status of 'R'
-        MessageFetcher messageFetcher = new MessageFetcher((Integer) null);
+        MessageFetcher messageFetcher = new MessageFetcher(null, true);
         KSBServiceLocator.getThreadPool().execute(messageFetcher);
     }
 
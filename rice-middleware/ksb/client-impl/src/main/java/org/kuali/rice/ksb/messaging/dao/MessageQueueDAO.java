@@ -37,6 +37,25 @@ public interface MessageQueueDAO {
 
     public List<PersistedMessageBO> getNextDocuments(Integer maxDocuments);
 
+    /**
+     * Returns the ids of the messages which {@link #getNextDocuments(Integer)} would return, in the same order, without
+     * loading the messages themselves.
+     */
+    public List<Long> getNextDocumentIds(Integer maxDocuments);
+
+    /**
+     * Claims the given messages for routing on this node by locking them and marking them as
+     * {@link org.kuali.rice.ksb.util.KSBConstants#ROUTE_QUEUE_ROUTING} with a single bulk update.  Messages which are
+     * no longer queued (because they were deleted, went into exception or were claimed by another fetcher in the
+     * meantime) are not claimed.
+     *
+     * @param routeQueueIds the ids of the messages to claim
+     * @param includeRouting whether messages already marked as routing are claimed again, which is only safe when no
+     * other fetcher of this node can be running, such as when the messages left routing by a shutdown are recovered
+     * @return the claimed messages, detached and reflecting their new status and version
+     */
+    public List<PersistedMessageBO> claimDocuments(List<Long> routeQueueIds, boolean includeRouting);
+
     public List<PersistedMessageBO> findByServiceName(QName serviceName, String methodName);
 
     /**
@@ -24,6 +24,7 @@ import org.kuali.rice.ksb.messaging.dao.MessageQueueDAO;
 import org.kuali.rice.ksb.util.KSBConstants;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -31,6 +32,7 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.xml.namespace.QName;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -112,6 +114,68 @@ public class MessageQueueDaoJpa implements MessageQueueDAO {
         return query.getResultList();
     }
 
+    public List<Long> getNextDocumentIds(Integer maxDocuments) {
+        String applicationId = CoreConfigHelper.getApplicationId();
+
+        TypedQuery<Long> query = entityManager.createNamedQuery("PersistedMessageBO.GetNextDocumentIds", Long.class);
+        query.setParameter("applicationId", applicationId);
+        query.setParameter("queueStatus", KSBConstants.ROUTE_QUEUE_EXCEPTION);
+        query.setParameter("ipNumber", RiceUtilities.getIpNumber());
+
+        if (maxDocuments != null) {
+            query.setMaxResults(maxDocuments);
+        }
+
+        return query.getResultList();
+    }
+
+    public List<PersistedMessageBO> claimDocuments(List<Long> routeQueueIds, boolean includeRouting) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Claiming " + routeQueueIds.size() + " messages for routing");
+        }
+
+        // lock the rows first and, unless messages left routing are being recovered, only take those still queued so
+        // that messages already claimed by a concurrent fetcher, and so marked 'R', are not claimed again
+        List<String> queueStatuses = new ArrayList<String>();
+        queueStatuses.add(KSBConstants.ROUTE_QUEUE_QUEUED);
+        if (includeRouting) {
+            queueStatuses.add(KSBConstants.ROUTE_QUEUE_ROUTING);
+        }
+        TypedQuery<PersistedMessageBO> query = entityManager.createNamedQuery("PersistedMessageBO.FindClaimable",
+                PersistedMessageBO.class);
+        query.setParameter("routeQueueIds", routeQueueIds);
+        query.setParameter("queueStatuses", queueStatuses);
+        query.setParameter("ipNumber", RiceUtilities.getIpNumber());
+        query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        List<PersistedMessageBO> messages = query.getResultList();
+        if (messages.isEmpty()) {
+            return messages;
+        }
+
+        List<Long> claimedIds = new ArrayList<Long>(messages.size());
+        for (PersistedMessageBO message : messages) {
+            claimedIds.add(message.getRouteQueueId());
+        }
+
+        Query update = entityManager.createNamedQuery("PersistedMessageBO.MarkRouting");
+        update.setParameter("routingStatus", KSBConstants.ROUTE_QUEUE_ROUTING);
+        update.setParameter("routeQueueIds", claimedIds);
+        update.executeUpdate();
+
+        // the bulk update bypasses the persistence context, so detach the messages and bring them in line with the
+        // database rather than paying for a refresh of each one
+        List<PersistedMessageBO> claimed = new ArrayList<PersistedMessageBO>(messages.size());
+        for (PersistedMessageBO message : messages) {
+            entityManager.detach(message);
+            message.setQueueStatus(KSBConstants.ROUTE_QUEUE_ROUTING);
+            if (message.getLockVerNbr() != null) {
+                message.setLockVerNbr(message.getLockVerNbr() + 1);
+            }
+            claimed.add(message);
+        }
+        return claimed;
+    }
+
     public void remove(PersistedMessageBO routeQueue) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Removing message " + routeQueue);
@@ -62,6 +62,32 @@ public interface MessageQueueService {
      */
     List<PersistedMessageBO> getNextDocuments(Integer maxDocuments);
 
+    /**
+     * Returns the ids of the RouteQueue documents which are queued for routing, in the same order as
+     * {@link #getNextDocuments(Integer)}.  Will not return more ids than the value of maxDocuments.
+     */
+    List<Long> getNextDocumentIds(Integer maxDocuments);
+
+    /**
+     * Claims a batch of queued messages for routing in a single transaction, marking all of them as routing at once
+     * instead of saving each message individually.
+     *
+     * @param routeQueueIds the ids of the messages to claim, typically a slice of {@link #getNextDocumentIds(Integer)}
+     * @return the messages which were successfully claimed
+     */
+    List<PersistedMessageBO> claimDocuments(List<Long> routeQueueIds);
+
+    /**
+     * Claims a batch of messages for routing like {@link #claimDocuments(List)}, also claiming the messages which are
+     * already marked as routing if asked to.
+     *
+     * @param routeQueueIds the ids of the messages to claim
+     * @param includeRouting whether messages already marked as routing are claimed again, which is only safe when no
+     * other fetcher of this node can be running, such as on startup
+     * @return the messages which were successfully claimed
+     */
+    List<PersistedMessageBO> claimDocuments(List<Long> routeQueueIds, boolean includeRouting);
+
     PersistedMessagePayload findByPersistedMessageByRouteQueueId(Long routeQueueId);
     
     /**
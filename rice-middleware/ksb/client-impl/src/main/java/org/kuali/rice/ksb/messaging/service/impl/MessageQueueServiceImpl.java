@@ -24,6 +24,7 @@ import org.kuali.rice.ksb.messaging.service.MessageQueueService;
 import org.kuali.rice.ksb.util.KSBConstants;
 
 import javax.xml.namespace.QName;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -72,6 +73,21 @@ public class MessageQueueServiceImpl implements MessageQueueService {
         return this.getMessageQueueDao().getNextDocuments(maxDocuments);
     }
 
+    public List<Long> getNextDocumentIds(Integer maxDocuments) {
+        return this.getMessageQueueDao().getNextDocumentIds(maxDocuments);
+    }
+
+    public List<PersistedMessageBO> claimDocuments(List<Long> routeQueueIds) {
+        return claimDocuments(routeQueueIds, false);
+    }
+
+    public List<PersistedMessageBO> claimDocuments(List<Long> routeQueueIds, boolean includeRouting) {
+        if (routeQueueIds == null || routeQueueIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return this.getMessageQueueDao().claimDocuments(routeQueueIds, includeRouting);
+    }
+
     public MessageQueueDAO getMessageQueueDao() {
         return this.messageQueueDao;
     }
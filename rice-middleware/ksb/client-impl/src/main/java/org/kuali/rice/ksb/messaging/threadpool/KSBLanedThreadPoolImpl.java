@@ -0,0 +1,563 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.ksb.messaging.threadpool;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.kuali.rice.core.api.config.CoreConfigHelper;
+import org.kuali.rice.core.api.config.property.Config;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.api.util.ClassLoaderUtils;
+import org.kuali.rice.ksb.messaging.MessageServiceInvoker;
+import org.kuali.rice.ksb.messaging.PersistedMessageBO;
+import org.kuali.rice.ksb.util.KSBConstants;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.xml.namespace.QName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link KSBThreadPool} which keeps a separate bounded lane for each service (or service namespace) instead of a
+ * single global priority queue.
+ *
+ * <p>Each worker thread has a home lane which it serves first and steals work from the other lanes whenever its own
+ * lane is empty or has reached its in-flight limit, so a slow downstream service can occupy at most its configured
+ * number of workers while every other lane keeps draining.  Ordering by message priority and queue date is preserved
+ * within each lane.</p>
+ *
+ * <p>This implementation is selected by setting {@link KSBConstants.Config#THREAD_POOL_TYPE} to
+ * {@link #THREAD_POOL_TYPE}.  The number of workers comes from {@link Config#THREAD_POOL_SIZE} as with
+ * {@link KSBThreadPoolImpl}, and the lanes are configured with:</p>
+ *
+ * <ul>
+ *   <li>{@link KSBConstants.Config#THREAD_POOL_LANES} - {@code service} (the default) for a lane per service name or
+ *   {@code namespace} for a lane per service namespace</li>
+ *   <li>{@link KSBConstants.Config#THREAD_POOL_MAX_IN_FLIGHT} - the default maximum number of tasks of a lane which
+ *   may execute at once, zero or less for no limit beyond the pool size</li>
+ *   <li>{@link KSBConstants.Config#THREAD_POOL_MAX_IN_FLIGHT}{@code .<lane key>} - overrides the maximum for a single
+ *   lane, for example {@code ksb.threadPool.maxInFlight.{KEW}documentAttributeIndexingQueue}</li>
+ * </ul>
+ *
+ * <p>Every lane is registered with the platform MBean server as a {@link KSBThreadPoolLaneMBean} exposing its queue
+ * depth, in-flight count and queue wait and execution times.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class KSBLanedThreadPoolImpl extends AbstractExecutorService implements KSBThreadPool {
+
+    private static final Logger LOG = Logger.getLogger(KSBLanedThreadPoolImpl.class);
+
+    public static final String THREAD_POOL_TYPE = "laned";
+
+    public static final String LANES_BY_SERVICE = "service";
+    public static final String LANES_BY_NAMESPACE = "namespace";
+
+    /**
+     * The lane used for tasks which aren't message invocations, such as the {@link org.kuali.rice.ksb.messaging.MessageFetcher}.
+     */
+    public static final String DEFAULT_LANE = "default";
+
+    private static final long IDLE_WAIT_MILLIS = 1000;
+
+    private final ConcurrentMap<String, KSBThreadPoolLane> lanes = new ConcurrentHashMap<String, KSBThreadPoolLane>();
+    private final List<KSBThreadPoolLane> laneList = new CopyOnWriteArrayList<KSBThreadPoolLane>();
+    private final List<ObjectName> registeredMBeans = new CopyOnWriteArrayList<ObjectName>();
+
+    private final ReentrantLock mainLock = new ReentrantLock();
+    private final Condition workAvailable = mainLock.newCondition();
+    private final Condition termination = mainLock.newCondition();
+    private long workVersion;
+
+    private final ThreadFactory threadFactory = new KSBThreadPoolImpl.KSBThreadFactory(
+            ClassLoaderUtils.getDefaultClassLoader());
+    private final List<Thread> workerThreads = new CopyOnWriteArrayList<Thread>();
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+    private final AtomicInteger workerSequence = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong taskCount = new AtomicLong();
+    private final AtomicLong completedTaskCount = new AtomicLong();
+    private volatile int largestPoolSize;
+
+    private volatile int corePoolSize = KSBThreadPoolImpl.DEFAULT_POOL_SIZE;
+    private volatile int maximumPoolSize = KSBThreadPoolImpl.DEFAULT_POOL_SIZE;
+    private volatile String laneMode = LANES_BY_SERVICE;
+    private volatile int defaultMaxInFlight;
+
+    private volatile boolean shutdown;
+    private boolean started;
+    private boolean poolSizeSet;
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task was null");
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("KSB thread pool has been shut down");
+        }
+        getLane(getLaneKey(task)).offer(task);
+        taskCount.incrementAndGet();
+        ensureWorkers();
+        signalWork();
+    }
+
+    /**
+     * Determines the lane of the given task.  Message invocations are placed in the lane of their service, or of their
+     * service namespace, while all other tasks share the {@link #DEFAULT_LANE}.
+     */
+    protected String getLaneKey(Runnable task) {
+        if (task instanceof MessageServiceInvoker) {
+            PersistedMessageBO message = ((MessageServiceInvoker) task).getMessage();
+            if (message != null && StringUtils.isNotBlank(message.getServiceName())) {
+                if (LANES_BY_NAMESPACE.equals(laneMode)) {
+                    return QName.valueOf(message.getServiceName()).getNamespaceURI();
+                }
+                return message.getServiceName();
+            }
+        }
+        return DEFAULT_LANE;
+    }
+
+    protected KSBThreadPoolLane getLane(String laneKey) {
+        KSBThreadPoolLane lane = lanes.get(laneKey);
+        if (lane == null) {
+            KSBThreadPoolLane newLane = new KSBThreadPoolLane(laneKey, loadMaxInFlight(laneKey));
+            lane = lanes.putIfAbsent(laneKey, newLane);
+            if (lane == null) {
+                lane = newLane;
+                laneList.add(lane);
+                registerMBean(lane);
+            }
+        }
+        return lane;
+    }
+
+    /**
+     * Finds the next task for the worker with the given home lane, looking at the home lane first and stealing from
+     * the following lanes in turn if it has nothing runnable.
+     */
+    private LaneTaskRunner nextTask(int home) {
+        Object[] snapshot = laneList.toArray();
+        int laneCount = snapshot.length;
+        for (int index = 0; index < laneCount; index++) {
+            KSBThreadPoolLane lane = (KSBThreadPoolLane) snapshot[(home + index) % laneCount];
+            KSBThreadPoolLane.LaneTask task = lane.poll(index > 0);
+            if (task != null) {
+                return new LaneTaskRunner(lane, task);
+            }
+        }
+        return null;
+    }
+
+    private void signalWork() {
+        mainLock.lock();
+        try {
+            workVersion++;
+            workAvailable.signalAll();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private long getWorkVersion() {
+        mainLock.lock();
+        try {
+            return workVersion;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void awaitWork(long seenVersion) throws InterruptedException {
+        mainLock.lock();
+        try {
+            if (workVersion == seenVersion && !shutdown) {
+                workAvailable.await(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void ensureWorkers() {
+        while (!shutdown) {
+            int live = liveWorkers.get();
+            if (live >= corePoolSize) {
+                return;
+            }
+            if (liveWorkers.compareAndSet(live, live + 1)) {
+                Thread thread = threadFactory.newThread(new Worker(workerSequence.getAndIncrement()));
+                workerThreads.add(thread);
+                if (live + 1 > largestPoolSize) {
+                    largestPoolSize = live + 1;
+                }
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * Returns true if the calling worker should exit because the pool has been shrunk, decrementing the worker count
+     * if so.
+     */
+    private boolean retireIfSurplus() {
+        while (true) {
+            int live = liveWorkers.get();
+            if (live <= corePoolSize) {
+                return false;
+            }
+            if (liveWorkers.compareAndSet(live, live - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void workerExited(boolean alreadyCounted) {
+        workerThreads.remove(Thread.currentThread());
+        if (!alreadyCounted) {
+            liveWorkers.decrementAndGet();
+        }
+        mainLock.lock();
+        try {
+            termination.signalAll();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private final int home;
+
+        Worker(int home) {
+            this.home = home;
+        }
+
+        @Override
+        public void run() {
+            boolean retired = false;
+            try {
+                while (true) {
+                    if (retireIfSurplus()) {
+                        retired = true;
+                        return;
+                    }
+                    long seenVersion = getWorkVersion();
+                    LaneTaskRunner task = nextTask(home);
+                    if (task == null) {
+                        if (shutdown) {
+                            return;
+                        }
+                        awaitWork(seenVersion);
+                        continue;
+                    }
+                    activeCount.incrementAndGet();
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        LOG.error("Task in lane '" + task.lane.getLaneKey() + "' failed", t);
+                    } finally {
+                        activeCount.decrementAndGet();
+                        completedTaskCount.incrementAndGet();
+                        // a slot in the lane has freed up, so another worker may now be able to take from it
+                        signalWork();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // pool is being shut down
+            } finally {
+                workerExited(retired);
+            }
+        }
+
+    }
+
+    /**
+     * Runs a task taken from a lane and releases its in-flight slot afterwards.
+     */
+    private static final class LaneTaskRunner implements Runnable {
+
+        private final KSBThreadPoolLane lane;
+        private final KSBThreadPoolLane.LaneTask task;
+
+        LaneTaskRunner(KSBThreadPoolLane lane, KSBThreadPoolLane.LaneTask task) {
+            this.lane = lane;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            try {
+                task.getTask().run();
+            } finally {
+                lane.complete(task, System.currentTimeMillis() - start);
+            }
+        }
+
+    }
+
+    public boolean isStarted() {
+        return this.started;
+    }
+
+    public void start() throws Exception {
+        LOG.info("Starting the laned KSB thread pool...");
+        loadSettings();
+        ensureWorkers();
+        this.started = true;
+        LOG.info("...laned KSB thread pool successfully started with " + corePoolSize + " workers.");
+    }
+
+    public void stop() throws Exception {
+        if (isStarted()) {
+            LOG.info("Shutting down laned KSB thread pool...");
+            int pendingTasks = this.shutdownNow().size();
+            LOG.info(pendingTasks + " pending tasks...");
+            LOG.info("awaiting termination: " + this.awaitTermination(20, TimeUnit.SECONDS));
+            unregisterMBeans();
+            this.started = false;
+            LOG.info("...laned KSB thread pool successfully shut down.");
+        }
+    }
+
+    /**
+     * Loads the pool size and lane settings from the configuration.
+     */
+    protected void loadSettings() {
+        Config config = ConfigContext.getCurrentContextConfig();
+        if (!this.poolSizeSet) {
+            String threadPoolSizeStr = config.getProperty(Config.THREAD_POOL_SIZE);
+            int poolSize = KSBThreadPoolImpl.DEFAULT_POOL_SIZE;
+            try {
+                poolSize = new Integer(threadPoolSizeStr);
+            } catch (NumberFormatException nfe) {
+                LOG.error("loadSettings(): Unable to parse the pool size: '" + threadPoolSizeStr + "'");
+            }
+            setCorePoolSize(poolSize);
+        }
+        String lanes = config.getProperty(KSBConstants.Config.THREAD_POOL_LANES);
+        if (StringUtils.isNotBlank(lanes)) {
+            this.laneMode = lanes.trim();
+        }
+        this.defaultMaxInFlight = parseMaxInFlight(config.getProperty(KSBConstants.Config.THREAD_POOL_MAX_IN_FLIGHT), 0);
+        for (KSBThreadPoolLane lane : laneList) {
+            lane.setMaxInFlight(loadMaxInFlight(lane.getLaneKey()));
+        }
+    }
+
+    protected int loadMaxInFlight(String laneKey) {
+        Config config = ConfigContext.getCurrentContextConfig();
+        if (config == null) {
+            return defaultMaxInFlight;
+        }
+        return parseMaxInFlight(config.getProperty(KSBConstants.Config.THREAD_POOL_MAX_IN_FLIGHT + "." + laneKey),
+                defaultMaxInFlight);
+    }
+
+    private int parseMaxInFlight(String value, int defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException nfe) {
+            LOG.error("Unable to parse the maximum in-flight tasks: '" + value + "'");
+            return defaultValue;
+        }
+    }
+
+    private void registerMBean(KSBThreadPoolLane lane) {
+        try {
+            ObjectName name = new ObjectName("org.kuali.rice.ksb:type=KSBThreadPoolLane,application="
+                    + ObjectName.quote(String.valueOf(CoreConfigHelper.getApplicationId())) + ",lane="
+                    + ObjectName.quote(lane.getLaneKey()));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(lane, name);
+                registeredMBeans.add(name);
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to register MBean for KSB thread pool lane '" + lane.getLaneKey() + "'", e);
+        }
+    }
+
+    private void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredMBeans) {
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception e) {
+                LOG.warn("Failed to unregister MBean " + name, e);
+            }
+        }
+        registeredMBeans.clear();
+    }
+
+    /**
+     * @return the lanes of this pool, in the order they were created
+     */
+    public List<KSBThreadPoolLaneMBean> getLanes() {
+        return new ArrayList<KSBThreadPoolLaneMBean>(laneList);
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+        signalWork();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+        List<Runnable> pending = new ArrayList<Runnable>();
+        for (KSBThreadPoolLane lane : laneList) {
+            pending.addAll(lane.drain());
+        }
+        for (Thread thread : workerThreads) {
+            thread.interrupt();
+        }
+        signalWork();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && liveWorkers.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        mainLock.lock();
+        try {
+            while (!isTerminated()) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = termination.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public boolean remove(Runnable task) {
+        for (KSBThreadPoolLane lane : laneList) {
+            if (lane.remove(task)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public void setCorePoolSize(int corePoolSize) {
+        if (corePoolSize < 1) {
+            throw new IllegalArgumentException("corePoolSize must be at least 1");
+        }
+        LOG.info("Setting core pool size to " + corePoolSize + " threads.");
+        this.corePoolSize = corePoolSize;
+        if (this.maximumPoolSize < corePoolSize) {
+            this.maximumPoolSize = corePoolSize;
+        }
+        this.poolSizeSet = true;
+        if (started) {
+            ensureWorkers();
+            signalWork();
+        }
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    /**
+     * The laned pool always runs {@link #getCorePoolSize()} workers, the maximum is only retained for compatibility
+     * with {@link KSBThreadPool}.
+     */
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maxPoolSize) {
+        if (maxPoolSize < corePoolSize) {
+            throw new IllegalArgumentException("maximumPoolSize may not be less than corePoolSize");
+        }
+        this.maximumPoolSize = maxPoolSize;
+    }
+
+    public int getPoolSize() {
+        return liveWorkers.get();
+    }
+
+    public int getLargestPoolSize() {
+        return largestPoolSize;
+    }
+
+    public long getKeepAliveTime() {
+        return 0;
+    }
+
+    public long getTaskCount() {
+        return taskCount.get();
+    }
+
+    public long getCompletedTaskCount() {
+        return completedTaskCount.get();
+    }
+
+    /**
+     * Returns a snapshot of the tasks waiting in all lanes.  Changes to the returned queue do not affect the pool.
+     */
+    public BlockingQueue getQueue() {
+        BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+        for (KSBThreadPoolLane lane : laneList) {
+            queue.addAll(lane.getQueuedTasks());
+        }
+        return queue;
+    }
+
+    public Object getInstance() {
+        return this;
+    }
+
+}
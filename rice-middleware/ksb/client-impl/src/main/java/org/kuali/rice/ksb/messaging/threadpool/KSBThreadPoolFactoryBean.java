@@ -0,0 +1,55 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.ksb.messaging.threadpool;
+
+import org.apache.commons.lang.StringUtils;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.ksb.util.KSBConstants;
+import org.springframework.beans.factory.config.AbstractFactoryBean;
+
+/**
+ * A factory bean which produces the {@link KSBThreadPool} for the service bus.
+ *
+ * <p>If {@link KSBConstants.Config#THREAD_POOL_TYPE} is set to {@link KSBLanedThreadPoolImpl#THREAD_POOL_TYPE} a
+ * {@link KSBLanedThreadPoolImpl} is created, otherwise the standard {@link KSBThreadPoolImpl} is used.</p>
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class KSBThreadPoolFactoryBean extends AbstractFactoryBean<KSBThreadPool> {
+
+    private String threadPoolType;
+
+    public void setThreadPoolType(String threadPoolType) {
+        this.threadPoolType = threadPoolType;
+    }
+
+    @Override
+    protected KSBThreadPool createInstance() throws Exception {
+        if (StringUtils.isBlank(threadPoolType)) {
+            this.threadPoolType = ConfigContext.getCurrentContextConfig().getProperty(KSBConstants.Config.THREAD_POOL_TYPE);
+        }
+        if (KSBLanedThreadPoolImpl.THREAD_POOL_TYPE.equalsIgnoreCase(StringUtils.trim(threadPoolType))) {
+            return new KSBLanedThreadPoolImpl();
+        }
+        return new KSBThreadPoolImpl();
+    }
+
+    @Override
+    public Class<KSBThreadPool> getObjectType() {
+        return KSBThreadPool.class;
+    }
+
+}
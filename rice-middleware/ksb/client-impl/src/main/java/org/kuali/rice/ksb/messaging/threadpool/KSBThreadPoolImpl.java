@@ -110,7 +110,7 @@ public class KSBThreadPoolImpl extends ThreadPoolExecutor implements KSBThreadPo
          *
  * @author Kuali Rice Team (rice.collab@kuali.org)
          */
-    private static class KSBThreadFactory implements ThreadFactory {
+    static class KSBThreadFactory implements ThreadFactory {
 
 	private static int factorySequence = 0;
 
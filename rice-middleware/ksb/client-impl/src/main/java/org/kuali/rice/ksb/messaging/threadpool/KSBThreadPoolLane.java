@@ -0,0 +1,213 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.ksb.messaging.threadpool;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single lane of a {@link KSBLanedThreadPoolImpl}.  Each lane keeps its own priority ordered queue, guarded by its
+ * own lock, and limits how many of its tasks may execute at the same time.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class KSBThreadPoolLane implements KSBThreadPoolLaneMBean {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final String laneKey;
+    private final PriorityQueue<LaneTask> queue;
+
+    private volatile int maxInFlight;
+    private int inFlight;
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong stolenCount = new AtomicLong();
+    private final AtomicLong totalQueueWaitMillis = new AtomicLong();
+    private final AtomicLong totalExecutionMillis = new AtomicLong();
+    private volatile long maxQueueWaitMillis;
+
+    public KSBThreadPoolLane(String laneKey, int maxInFlight) {
+        this.laneKey = laneKey;
+        this.maxInFlight = maxInFlight;
+        this.queue = new PriorityQueue<LaneTask>(11, new LaneTaskComparator());
+    }
+
+    /**
+     * Adds the given task to the end of this lane, ordered by message priority and queue date.
+     */
+    public synchronized void offer(Runnable task) {
+        queue.offer(new LaneTask(task, SEQUENCE.incrementAndGet()));
+    }
+
+    /**
+     * Takes the next task from this lane if there is one and the lane has not reached its in-flight limit.  A task
+     * returned from here must be passed to {@link #complete(LaneTask, long)} once it has finished executing.
+     *
+     * @param stolen whether the calling worker is stealing the task from a lane other than its own
+     * @return the next task, or null if the lane is empty or at capacity
+     */
+    synchronized LaneTask poll(boolean stolen) {
+        if (maxInFlight > 0 && inFlight >= maxInFlight) {
+            return null;
+        }
+        LaneTask task = queue.poll();
+        if (task != null) {
+            inFlight++;
+            long waited = System.currentTimeMillis() - task.getQueuedAt();
+            totalQueueWaitMillis.addAndGet(waited);
+            if (waited > maxQueueWaitMillis) {
+                maxQueueWaitMillis = waited;
+            }
+            if (stolen) {
+                stolenCount.incrementAndGet();
+            }
+        }
+        return task;
+    }
+
+    synchronized void complete(LaneTask task, long executionMillis) {
+        inFlight--;
+        completedCount.incrementAndGet();
+        totalExecutionMillis.addAndGet(executionMillis);
+    }
+
+    synchronized boolean remove(Runnable task) {
+        for (Iterator<LaneTask> iterator = queue.iterator(); iterator.hasNext();) {
+            if (iterator.next().getTask() == task) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized List<Runnable> getQueuedTasks() {
+        List<Runnable> tasks = new ArrayList<Runnable>(queue.size());
+        for (LaneTask task : queue) {
+            tasks.add(task.getTask());
+        }
+        return tasks;
+    }
+
+    synchronized List<Runnable> drain() {
+        List<Runnable> tasks = new ArrayList<Runnable>(queue.size());
+        LaneTask task;
+        while ((task = queue.poll()) != null) {
+            tasks.add(task.getTask());
+        }
+        return tasks;
+    }
+
+    @Override
+    public String getLaneKey() {
+        return laneKey;
+    }
+
+    @Override
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    @Override
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    @Override
+    public long getStolenCount() {
+        return stolenCount.get();
+    }
+
+    @Override
+    public double getAverageQueueWaitMillis() {
+        long started = completedCount.get() + getInFlightCount();
+        return started == 0 ? 0 : (double) totalQueueWaitMillis.get() / started;
+    }
+
+    @Override
+    public long getMaxQueueWaitMillis() {
+        return maxQueueWaitMillis;
+    }
+
+    @Override
+    public double getAverageExecutionMillis() {
+        long completed = completedCount.get();
+        return completed == 0 ? 0 : (double) totalExecutionMillis.get() / completed;
+    }
+
+    /**
+     * A task waiting in a lane, remembering when it was queued and in which order it arrived so that tasks of equal
+     * priority run first in, first out.
+     */
+    static final class LaneTask {
+
+        private final Runnable task;
+        private final long sequence;
+        private final long queuedAt;
+
+        LaneTask(Runnable task, long sequence) {
+            this.task = task;
+            this.sequence = sequence;
+            this.queuedAt = System.currentTimeMillis();
+        }
+
+        Runnable getTask() {
+            return task;
+        }
+
+        long getQueuedAt() {
+            return queuedAt;
+        }
+
+    }
+
+    private static final class LaneTaskComparator implements Comparator<LaneTask> {
+
+        private final PriorityBlockingQueuePersistedMessageComparator messageComparator =
+                new PriorityBlockingQueuePersistedMessageComparator();
+
+        @Override
+        public int compare(LaneTask task0, LaneTask task1) {
+            int result = messageComparator.compare(task0.getTask(), task1.getTask());
+            if (result != 0) {
+                return result;
+            }
+            return task0.sequence < task1.sequence ? -1 : (task0.sequence == task1.sequence ? 0 : 1);
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.ksb.messaging.threadpool;
+
+/**
+ * Management interface exposing the state of a single lane of a {@link KSBLanedThreadPoolImpl}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public interface KSBThreadPoolLaneMBean {
+
+    /**
+     * @return the key of the lane, either a service name or a service namespace
+     */
+    String getLaneKey();
+
+    /**
+     * @return the number of tasks waiting in the lane
+     */
+    int getQueueDepth();
+
+    /**
+     * @return the number of tasks from the lane which are currently executing
+     */
+    int getInFlightCount();
+
+    /**
+     * @return the maximum number of tasks from the lane which may execute at once, zero if unbounded
+     */
+    int getMaxInFlight();
+
+    void setMaxInFlight(int maxInFlight);
+
+    /**
+     * @return the number of tasks from the lane which have finished executing
+     */
+    long getCompletedCount();
+
+    /**
+     * @return the number of tasks from the lane which were executed by a worker whose home is another lane
+     */
+    long getStolenCount();
+
+    /**
+     * @return the average time, in milliseconds, that completed tasks waited in the lane before executing
+     */
+    double getAverageQueueWaitMillis();
+
+    /**
+     * @return the longest time, in milliseconds, that a task waited in the lane before executing
+     */
+    long getMaxQueueWaitMillis();
+
+    /**
+     * @return the average time, in milliseconds, that completed tasks spent executing
+     */
+    double getAverageExecutionMillis();
+
+}
@@ -32,6 +32,10 @@ public final class KSBConstants {
         public static final String MESSAGE_DELIVERY = "message.delivery";
         public static final String INJECTED_EXCEPTION_MESSAGE_SCHEDULER_KEY = "message.injected.scheduler";
         public static final String FIXED_POOL_SIZE = "ksb.fixedPoolSize";
+        public static final String MESSAGE_FETCHER_BATCH_SIZE = "ksb.messageFetcher.batchSize";
+        public static final String THREAD_POOL_TYPE = "ksb.threadPool.type";
+        public static final String THREAD_POOL_LANES = "ksb.threadPool.lanes";
+        public static final String THREAD_POOL_MAX_IN_FLIGHT = "ksb.threadPool.maxInFlight";
         public static final String ROUTE_QUEUE_MAX_RETRY_ATTEMPTS_KEY = "RouteQueue.maxRetryAttempts";
         public static final String ROUTE_QUEUE_MAX_RETRY_ATTEMPTS_OVERRIDE_KEY = "RouteQueue.maxRetryAttemptsOverride";
         public static final String ROUTE_QUEUE_TIME_INCREMENT_KEY = "RouteQueue.timeIncrement";
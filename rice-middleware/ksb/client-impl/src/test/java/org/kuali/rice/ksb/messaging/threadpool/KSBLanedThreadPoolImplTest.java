@@ -0,0 +1,164 @@
+/**
+ * Copyright 2005-2015 The Kuali Foundation
+ *
+ * Licensed under the Educational Community License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.opensource.org/licenses/ecl2.php
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kuali.rice.ksb.messaging.threadpool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kuali.rice.core.api.CoreConstants;
+import org.kuali.rice.core.api.config.property.ConfigContext;
+import org.kuali.rice.core.framework.config.property.SimpleConfig;
+import org.kuali.rice.ksb.messaging.MessageServiceInvoker;
+import org.kuali.rice.ksb.messaging.PersistedMessageBO;
+import org.kuali.rice.ksb.util.KSBConstants;
+
+import java.sql.Timestamp;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link KSBLanedThreadPoolImpl}.
+ *
+ * @author Kuali Rice Team (rice.collab@kuali.org)
+ */
+public class KSBLanedThreadPoolImplTest {
+
+    private static final String SLOW_SERVICE = "{KEW}slowService";
+    private static final String FAST_SERVICE = "{KEW}fastService";
+
+    private KSBLanedThreadPoolImpl threadPool;
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleConfig config = new SimpleConfig();
+        config.putProperty(CoreConstants.Config.APPLICATION_ID, "KSBLanedThreadPoolImplTest");
+        config.putProperty(KSBConstants.Config.THREAD_POOL_MAX_IN_FLIGHT + "." + SLOW_SERVICE, "1");
+        ConfigContext.init(config);
+        threadPool = new KSBLanedThreadPoolImpl();
+        threadPool.setCorePoolSize(3);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        threadPool.shutdownNow();
+        threadPool.awaitTermination(5, TimeUnit.SECONDS);
+        ConfigContext.destroy();
+    }
+
+    /**
+     * A lane limited to one in-flight task must not hold on to more than one worker, leaving the others free to drain
+     * the remaining lanes.
+     */
+    @Test
+    public void testSlowLaneDoesNotStarveOtherLanes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            threadPool.execute(new BlockingInvoker(message(SLOW_SERVICE), release));
+        }
+        CountDownLatch fastDone = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            threadPool.execute(new CountingInvoker(message(FAST_SERVICE), fastDone));
+        }
+
+        assertTrue("fast lane should drain while the slow lane is blocked", fastDone.await(10, TimeUnit.SECONDS));
+        KSBThreadPoolLaneMBean slowLane = threadPool.getLane(SLOW_SERVICE);
+        assertEquals(1, slowLane.getInFlightCount());
+        assertEquals(4, slowLane.getQueueDepth());
+        assertEquals(20, threadPool.getLane(FAST_SERVICE).getCompletedCount());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (slowLane.getCompletedCount() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(5, slowLane.getCompletedCount());
+        assertEquals(0, slowLane.getQueueDepth());
+    }
+
+    @Test
+    public void testNonMessageTasksUseDefaultLane() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        threadPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, threadPool.getLanes().size());
+        assertEquals(KSBLanedThreadPoolImpl.DEFAULT_LANE, threadPool.getLanes().get(0).getLaneKey());
+    }
+
+    @Test
+    public void testShutdownNowReturnsQueuedTasks() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            threadPool.execute(new BlockingInvoker(message(SLOW_SERVICE), release));
+        }
+        Thread.sleep(200);
+        assertEquals(3, threadPool.shutdownNow().size());
+        release.countDown();
+        assertTrue(threadPool.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(threadPool.isTerminated());
+    }
+
+    private static PersistedMessageBO message(String serviceName) {
+        PersistedMessageBO message = new PersistedMessageBO();
+        message.setServiceName(serviceName);
+        message.setQueuePriority(KSBConstants.ROUTE_QUEUE_DEFAULT_PRIORITY);
+        message.setQueueDate(new Timestamp(System.currentTimeMillis()));
+        return message;
+    }
+
+    private static class BlockingInvoker extends MessageServiceInvoker {
+
+        private final CountDownLatch release;
+
+        BlockingInvoker(PersistedMessageBO message, CountDownLatch release) {
+            super(message);
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    private static class CountingInvoker extends MessageServiceInvoker {
+
+        private final CountDownLatch done;
+
+        CountingInvoker(PersistedMessageBO message, CountDownLatch done) {
+            super(message);
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            done.countDown();
+        }
+
+    }
+
+}
@@ -88,6 +88,33 @@
     <td width="20" height="30">&nbsp;</td>
   </tr>
 
+  <tr>
+    <td><img src="images/pixel_clear.gif" alt="" width="20" height="20"></td>
+    <td>
+      <table width="100%" border="0" cellpadding="3" cellspacing="0" class="bord-r-t">
+        <tr>
+          <td class="thnormal" colspan="2" align="center" height="30"><strong>Reindex Searchable Attributes</strong></td>
+        </tr>
+        <tr>
+          <td width="33%" align="right" class="thnormal">Document Types (comma separated):</td>
+          <td width="66%" class="datacell">
+            <html-el:text property="reindexDocumentTypeNames" size="60" />
+            <html-el:image property="methodToCall.reindexSearchableAttributes" src="${ConfigProperties.kew.url}/images/buttonsmall_submit.gif" align="absmiddle" alt="Start Reindex" />
+          </td>
+        </tr>
+        <tr>
+          <td width="33%" align="right" class="thnormal">Reindex ID:</td>
+          <td width="66%" class="datacell">
+            <html-el:text property="reindexId" size="40" />
+            Status<html-el:image property="methodToCall.reindexSearchableAttributesStatus" src="${ConfigProperties.kew.url}/images/buttonsmall_submit.gif" align="absmiddle" alt="Reindex Status" />
+            Resume<html-el:image property="methodToCall.resumeReindexSearchableAttributes" src="${ConfigProperties.kew.url}/images/buttonsmall_submit.gif" align="absmiddle" alt="Resume Reindex" />
+          </td>
+        </tr>
+      </table>
+    </td>
+    <td width="20" height="30">&nbsp;</td>
+  </tr>
+
  <c:if test="${DocumentOperationForm.routeHeader.documentId != null && DocumentOperationForm.routeHeader.documentId != ''}">
   <tr>
   	<td><img src="images/pixel_clear.gif" alt="" width="20" height="20"></td>